@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+set -e
+
+cd "$(dirname "$0")"
+
+mvn -q clean compile
+mvn dependency:build-classpath -Dmdep.outputFile=cp.txt -q
+
+echo "专用服务端（无界面，不加载 LWJGL）"
+
+CP="target/classes:$(cat cp.txt)"
+java -cp "$CP" com.gameengine.app.DedicatedServer "$@"
@@ -0,0 +1,675 @@
+package com.gameengine.app;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.gameengine.game.Record;
+import com.gameengine.net.ClockSync;
+import com.gameengine.net.InputFrames;
+import com.gameengine.net.MultiReactor;
+import com.gameengine.net.RoomManager;
+import com.gameengine.net.SimulationPool;
+import com.google.gson.Gson;
+
+/**
+ * 无界面机器人集群压测工具
+ * 在一台机器上通过回环地址启动 N 个机器人客户端，每个机器人走真实协议：
+ * JOIN 握手、PING/PONG 时钟同步、按脚本移动发送输入帧（变化驱动 + 保活 + 冗余），并解码收到的每个快照。
+ * 每个机器人一个虚拟线程，数千个机器人只占用少量载体线程。
+ *
+ * 统计：服务端 tick 耗时、快照广播延迟分位数（快照的服务端时间到机器人解码完成）、
+ * 每客户端下行字节/秒、每客户端 CPU（进程 CPU 减去服务端线程 CPU）。
+ * 服务端 tick 和服务端 CPU 只在同进程启动服务端（--embedded）时可用。
+ *
+ * 命令行：
+ * java com.gameengine.app.BotSwarm --embedded --bots 100,500,1000,2000 --duration 10
+ * java com.gameengine.app.BotSwarm --host 127.0.0.1 --port 8888 --bots 500
+ */
+public class BotSwarm {
+
+    private static final Gson gson = new Gson();
+    // 同时进行中的 JOIN 握手数量，避免瞬间打满服务端的 accept 队列
+    private static final int MAX_CONCURRENT_JOINS = 64;
+    private static final long JOIN_TIMEOUT_MS = 5000;
+    private static final int FAST_PING_COUNT = 5;
+    private static final long FAST_PING_INTERVAL_MS = 100;
+    private static final long PING_INTERVAL_MS = 1000;
+    // 脚本移动每隔多久换一个方向
+    private static final long DIRECTION_CHANGE_MS = 500;
+    // 服务端线程名前缀，用于区分服务端和机器人的 CPU
+    private static final String[] SERVER_THREAD_PREFIXES = {
+            "MainReactor", "SubReactor-", "RoomSim-", "TickScheduler", "UdpTransport"
+    };
+
+    private final String host;
+    private final int port;
+    private String roomName = null;
+    private int inputRateHz = 60;
+
+    // 同进程服务端（可选），用于采集 tick 和广播耗时
+    private MultiReactor server;
+    private RoomManager rooms;
+
+    private final List<Bot> bots = new ArrayList<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private int nextBotId = 0;
+
+    /**
+     * 压测结果，一行对应一个机器人规模
+     */
+    public static final class Report {
+        public int bots;
+        public int connected;
+        public int rejected;
+        public long durationMs;
+        public double snapshotsPerSecondPerClient;
+        public double bytesPerSecondPerClient;
+        public double latencyP50Millis;
+        public double latencyP90Millis;
+        public double latencyP99Millis;
+        public double latencyMaxMillis;
+        public long latencySamples;
+        public double serverTickAvgMillis = Double.NaN;
+        public double serverTickMaxMillis = Double.NaN;
+        public long serverTickOverruns;
+        public double broadcastAvgMillis = Double.NaN;
+        public double botCpuPercentPerClient;
+        public double serverCpuPercentPerClient = Double.NaN;
+        public long decodeErrors;
+
+        public static String header() {
+            return String.format("%6s %6s %8s %10s %8s %8s %8s %8s %9s %9s %9s %9s %9s",
+                    "bots", "conn", "snap/s", "B/s/cli", "p50ms", "p90ms", "p99ms", "maxms",
+                    "tick-avg", "tick-max", "bcast-ms", "botCPU%", "srvCPU%");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%6d %6d %8.1f %10.0f %8.2f %8.2f %8.2f %8.2f %9.3f %9.3f %9.3f %9.4f %9.4f",
+                    bots, connected, snapshotsPerSecondPerClient, bytesPerSecondPerClient,
+                    latencyP50Millis, latencyP90Millis, latencyP99Millis, latencyMaxMillis,
+                    serverTickAvgMillis, serverTickMaxMillis, broadcastAvgMillis,
+                    botCpuPercentPerClient, serverCpuPercentPerClient);
+        }
+    }
+
+    /**
+     * 广播延迟直方图，0.1ms 一个桶，最大 5 秒，多线程并发记录
+     */
+    public static final class LatencyHistogram {
+        private static final double BUCKET_MILLIS = 0.1;
+        private static final int BUCKETS = 50_000;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);
+
+        public void record(double millis) {
+            int bucket = (int) (Math.max(0, millis) / BUCKET_MILLIS);
+            counts.incrementAndGet(Math.min(bucket, BUCKETS));
+        }
+
+        public long count() {
+            long total = 0;
+            for (int i = 0; i <= BUCKETS; i++) {
+                total += counts.get(i);
+            }
+            return total;
+        }
+
+        /**
+         * @param p 分位 [0, 1]
+         * @return 分位对应的延迟（毫秒，取桶的上界），没有样本时返回 0
+         */
+        public double percentile(double p) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p * total));
+            long seen = 0;
+            for (int i = 0; i <= BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return (i + 1) * BUCKET_MILLIS;
+                }
+            }
+            return (BUCKETS + 1) * BUCKET_MILLIS;
+        }
+
+        public void reset() {
+            for (int i = 0; i <= BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * 一个机器人客户端
+     * 读循环解码快照和 PONG，写循环发送输入帧和 PING，两者都是虚拟线程
+     */
+    private final class Bot {
+        final int id;
+        final ClockSync clock = new ClockSync();
+        SocketChannel channel;
+        volatile boolean running = false;
+        // 只由读线程写入，测量窗口结束后读取
+        volatile long bytesReceived = 0;
+        volatile long snapshots = 0;
+        volatile long decodeErrors = 0;
+        private byte[] pendingLine = new byte[4096];
+        private int pendingLength = 0;
+
+        Bot(int id) {
+            this.id = id;
+        }
+
+        /**
+         * 连接并完成 JOIN 握手
+         * @return 0 成功，1 房间已满被拒绝，-1 连接失败或超时
+         */
+        int join() {
+            try {
+                channel = SocketChannel.open(new InetSocketAddress(host, port));
+                channel.socket().setTcpNoDelay(true);
+                String payload = roomName == null ? "Bot-" + id : "Bot-" + id + "@" + roomName;
+                write("JOIN:" + payload + "\n");
+
+                channel.socket().setSoTimeout((int) JOIN_TIMEOUT_MS);
+                byte[] in = new byte[4096];
+                long deadline = System.currentTimeMillis() + JOIN_TIMEOUT_MS;
+                while (System.currentTimeMillis() < deadline) {
+                    int n = channel.socket().getInputStream().read(in);
+                    if (n < 0) {
+                        return -1;
+                    }
+                    int result = consume(in, n, true);
+                    if (result != -2) {
+                        channel.socket().setSoTimeout(0);
+                        return result;
+                    }
+                }
+                return -1;
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+
+        void start() {
+            running = true;
+            Thread.ofVirtual().name("bot-read-" + id).start(this::readLoop);
+            Thread.ofVirtual().name("bot-write-" + id).start(this::writeLoop);
+        }
+
+        void stop() {
+            running = false;
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void readLoop() {
+            ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+            try {
+                while (running) {
+                    in.clear();
+                    int n = channel.read(in);
+                    if (n < 0) {
+                        break;
+                    }
+                    bytesReceived += n;
+                    consume(in.array(), n, false);
+                }
+            } catch (IOException e) {
+                // 连接关闭
+            }
+        }
+
+        /**
+         * 按行切分收到的字节并处理
+         * @return 握手阶段：0 收到 JOIN-ACK，1 收到 JOIN-REJECT，-2 尚未收到回复；非握手阶段返回 -2
+         */
+        private int consume(byte[] data, int length, boolean handshake) {
+            int result = -2;
+            for (int i = 0; i < length; i++) {
+                byte b = data[i];
+                if (b != '\n') {
+                    if (pendingLength == pendingLine.length) {
+                        pendingLine = Arrays.copyOf(pendingLine, pendingLine.length * 2);
+                    }
+                    pendingLine[pendingLength++] = b;
+                    continue;
+                }
+                String line = new String(pendingLine, 0, pendingLength, StandardCharsets.UTF_8).trim();
+                pendingLength = 0;
+                if (handshake && result == -2) {
+                    if (line.startsWith("JOIN-ACK")) {
+                        result = 0;
+                    } else if (line.startsWith("JOIN-REJECT")) {
+                        result = 1;
+                    }
+                    continue;
+                }
+                handleLine(line);
+            }
+            return result;
+        }
+
+        private void handleLine(String line) {
+            if (line.isEmpty()) {
+                return;
+            }
+            double now = ClockSync.clientNow();
+            if (line.startsWith(ClockSync.PONG_PREFIX)) {
+                clock.onPong(line, now);
+                return;
+            }
+            try {
+                Record record = gson.fromJson(line, Record.class);
+                if (record == null) {
+                    return;
+                }
+                snapshots++;
+                if (record.getServerTime() > 0 && clock.isSynced()) {
+                    double decodedAt = ClockSync.clientNow();
+                    latency.record((clock.toServerTime(decodedAt) - record.getServerTime()) * 1000.0);
+                }
+            } catch (RuntimeException e) {
+                decodeErrors++;
+            }
+        }
+
+        private void writeLoop() {
+            long periodNanos = 1_000_000_000L / Math.max(1, inputRateHz);
+            long keepaliveNanos = InputFrames.KEEPALIVE_MS * 1_000_000L;
+            long startNanos = System.nanoTime();
+            long lastFrameNanos = 0;
+            long nextPingNanos = startNanos;
+            int pingSeq = 0;
+            int inputSeq = 0;
+            int lastBits = -1;
+            byte[] history = new byte[InputFrames.REDUNDANCY];
+            int historySize = 0;
+            try {
+                while (running) {
+                    long now = System.nanoTime();
+                    if (now >= nextPingNanos) {
+                        write(ClockSync.ping(++pingSeq, ClockSync.clientNow()));
+                        long interval = pingSeq < FAST_PING_COUNT ? FAST_PING_INTERVAL_MS : PING_INTERVAL_MS;
+                        nextPingNanos = now + interval * 1_000_000L;
+                    }
+                    int bits = scriptedInput((now - startNanos) / 1_000_000L);
+                    if (bits != lastBits || now - lastFrameNanos >= keepaliveNanos) {
+                        System.arraycopy(history, 0, history, 1, InputFrames.REDUNDANCY - 1);
+                        history[0] = (byte) bits;
+                        historySize = Math.min(historySize + 1, InputFrames.REDUNDANCY);
+                        inputSeq++;
+                        lastBits = bits;
+                        lastFrameNanos = now;
+                        write(InputFrames.encodeLine(inputSeq, history, historySize));
+                    }
+                    long sleepMillis = (periodNanos - (System.nanoTime() - now)) / 1_000_000L;
+                    if (sleepMillis > 0) {
+                        Thread.sleep(sleepMillis);
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // 连接关闭
+            }
+        }
+
+        /**
+         * 脚本移动：按机器人编号错开相位，依次沿八个方向移动，偶尔停下
+         */
+        private int scriptedInput(long elapsedMillis) {
+            int step = (int) ((elapsedMillis / DIRECTION_CHANGE_MS + id) % 9);
+            switch (step) {
+                case 0: return InputFrames.UP;
+                case 1: return InputFrames.UP | InputFrames.RIGHT;
+                case 2: return InputFrames.RIGHT;
+                case 3: return InputFrames.DOWN | InputFrames.RIGHT;
+                case 4: return InputFrames.DOWN;
+                case 5: return InputFrames.DOWN | InputFrames.LEFT;
+                case 6: return InputFrames.LEFT;
+                case 7: return InputFrames.UP | InputFrames.LEFT;
+                default: return 0;
+            }
+        }
+
+        private void write(String message) throws IOException {
+            ByteBuffer out = ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+    }
+
+    public BotSwarm(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * 所有机器人加入的房间，为 null 时由服务端匹配（默认）
+     */
+    public void setRoomName(String roomName) {
+        this.roomName = roomName;
+    }
+
+    /**
+     * 输入循环频率，默认 60Hz（与客户端一致）
+     */
+    public void setInputRateHz(int inputRateHz) {
+        this.inputRateHz = inputRateHz;
+    }
+
+    /**
+     * 同进程启动的服务端，设置后报告中包含服务端 tick 和广播耗时
+     */
+    public void setServer(MultiReactor server, RoomManager rooms) {
+        this.server = server;
+        this.rooms = rooms;
+    }
+
+    /**
+     * 把机器人数量增加或减少到 botCount，预热后测量 durationMs
+     * 多次调用可以逐级增加规模，已连接的机器人保持在线
+     */
+    public Report run(int botCount, long warmupMs, long durationMs) throws InterruptedException {
+        Report report = new Report();
+        report.bots = botCount;
+        report.rejected = scaleTo(botCount);
+        report.connected = bots.size();
+
+        Thread.sleep(warmupMs);
+
+        // 测量窗口
+        latency.reset();
+        long[] bytesBefore = new long[bots.size()];
+        long[] snapshotsBefore = new long[bots.size()];
+        for (int i = 0; i < bots.size(); i++) {
+            bytesBefore[i] = bots.get(i).bytesReceived;
+            snapshotsBefore[i] = bots.get(i).snapshots;
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long processCpuBefore = processCpuNanos();
+        long serverCpuBefore = serverCpuNanos(threads);
+        long overrunsBefore = overruns();
+        long start = System.nanoTime();
+
+        double tickSum = 0;
+        double tickMax = 0;
+        double broadcastSum = 0;
+        int serverSamples = 0;
+        int periods = 0;
+        while (System.nanoTime() - start < durationMs * 1_000_000L) {
+            Thread.sleep(50);
+            periods++;
+            if (rooms != null) {
+                SimulationPool pool = rooms.getSimulationPool();
+                for (int i = 0; i < pool.getThreadCount(); i++) {
+                    double tick = pool.getLastTickMillis(i);
+                    tickSum += tick;
+                    tickMax = Math.max(tickMax, tick);
+                }
+                serverSamples += pool.getThreadCount();
+            }
+            if (server != null) {
+                double broadcast = 0;
+                for (int i = 0; i < server.getSubReactorCount(); i++) {
+                    broadcast = Math.max(broadcast, server.getSubReactor(i).getLastBroadcastMillis());
+                }
+                broadcastSum += broadcast;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        long processCpu = processCpuNanos() - processCpuBefore;
+        long serverCpu = serverCpuNanos(threads) - serverCpuBefore;
+        long bytes = 0;
+        long snapshots = 0;
+        for (int i = 0; i < bytesBefore.length; i++) {
+            Bot bot = bots.get(i);
+            bytes += bot.bytesReceived - bytesBefore[i];
+            snapshots += bot.snapshots - snapshotsBefore[i];
+            report.decodeErrors += bot.decodeErrors;
+        }
+
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        int clients = Math.max(1, report.connected);
+        report.durationMs = elapsedNanos / 1_000_000L;
+        report.bytesPerSecondPerClient = bytes / seconds / clients;
+        report.snapshotsPerSecondPerClient = snapshots / seconds / clients;
+        report.latencySamples = latency.count();
+        report.latencyP50Millis = latency.percentile(0.50);
+        report.latencyP90Millis = latency.percentile(0.90);
+        report.latencyP99Millis = latency.percentile(0.99);
+        report.latencyMaxMillis = latency.percentile(1.0);
+        if (rooms != null && serverSamples > 0) {
+            report.serverTickAvgMillis = tickSum / serverSamples;
+            report.serverTickMaxMillis = tickMax;
+            report.serverTickOverruns = overruns() - overrunsBefore;
+        }
+        if (server != null) {
+            report.broadcastAvgMillis = broadcastSum / Math.max(1, periods);
+            report.serverCpuPercentPerClient = serverCpu / (double) elapsedNanos * 100.0 / clients;
+            report.botCpuPercentPerClient = (processCpu - serverCpu) / (double) elapsedNanos * 100.0 / clients;
+        } else {
+            report.botCpuPercentPerClient = processCpu / (double) elapsedNanos * 100.0 / clients;
+        }
+        return report;
+    }
+
+    /**
+     * 断开所有机器人
+     */
+    public void stop() {
+        for (Bot bot : bots) {
+            bot.stop();
+        }
+        bots.clear();
+    }
+
+    public int getBotCount() {
+        return bots.size();
+    }
+
+    public LatencyHistogram getLatencyHistogram() {
+        return latency;
+    }
+
+    /**
+     * @return 被服务端拒绝或连接失败的机器人数量
+     */
+    private int scaleTo(int botCount) throws InterruptedException {
+        while (bots.size() > botCount) {
+            bots.remove(bots.size() - 1).stop();
+        }
+        int missing = botCount - bots.size();
+        if (missing <= 0) {
+            return 0;
+        }
+        Semaphore inFlight = new Semaphore(MAX_CONCURRENT_JOINS);
+        CountDownLatch done = new CountDownLatch(missing);
+        AtomicInteger failed = new AtomicInteger();
+        List<Bot> joined = new ArrayList<>();
+        for (int i = 0; i < missing; i++) {
+            Bot bot = new Bot(nextBotId++);
+            inFlight.acquire();
+            Thread.ofVirtual().name("bot-join-" + bot.id).start(() -> {
+                try {
+                    if (bot.join() == 0) {
+                        bot.start();
+                        synchronized (joined) {
+                            joined.add(bot);
+                        }
+                    } else {
+                        bot.stop();
+                        failed.incrementAndGet();
+                    }
+                } finally {
+                    inFlight.release();
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        bots.addAll(joined);
+        return failed.get();
+    }
+
+    private long overruns() {
+        if (rooms == null) {
+            return 0;
+        }
+        SimulationPool pool = rooms.getSimulationPool();
+        long total = 0;
+        for (int i = 0; i < pool.getThreadCount(); i++) {
+            total += pool.getOverrunCount(i);
+        }
+        return total;
+    }
+
+    private static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    private static long serverCpuNanos(ThreadMXBean threads) {
+        if (!threads.isThreadCpuTimeSupported()) {
+            return 0;
+        }
+        long total = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null || !isServerThread(info.getThreadName())) {
+                continue;
+            }
+            long cpu = threads.getThreadCpuTime(info.getThreadId());
+            if (cpu > 0) {
+                total += cpu;
+            }
+        }
+        return total;
+    }
+
+    private static boolean isServerThread(String name) {
+        for (String prefix : SERVER_THREAD_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ========== 命令行 ==========
+
+    /**
+     * 参数：
+     * --bots 100,500,1000      逐级增加的机器人数量（默认 100,500,1000）
+     * --duration 秒             每级的测量时长（默认 10）
+     * --warmup 秒               每级的预热时长（默认 3）
+     * --host 主机 --port 端口     连接已有的服务端
+     * --embedded               在同进程启动专用服务端（DedicatedServer），未指定 --port 时自动分配端口
+     * --reactors N --sim-threads N --room-size N --tick-hz N  同进程服务端的配置
+     * --room 名称               所有机器人加入同一个房间
+     * --input-hz N              机器人的输入循环频率
+     */
+    public static void main(String[] args) throws Exception {
+        String host = "127.0.0.1";
+        int port = 8888;
+        boolean embedded = false;
+        int[] stages = {100, 500, 1000};
+        long durationSec = 10;
+        long warmupSec = 3;
+        int reactors = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int simThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int roomSize = 4;
+        int tickHz = 60;
+        String room = null;
+        int inputHz = 60;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--embedded": embedded = true; break;
+                case "--host": host = args[++i]; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--bots": stages = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "--duration": durationSec = Long.parseLong(args[++i]); break;
+                case "--warmup": warmupSec = Long.parseLong(args[++i]); break;
+                case "--reactors": reactors = Integer.parseInt(args[++i]); break;
+                case "--sim-threads": simThreads = Integer.parseInt(args[++i]); break;
+                case "--room-size": roomSize = Integer.parseInt(args[++i]); break;
+                case "--tick-hz": tickHz = Integer.parseInt(args[++i]); break;
+                case "--room": room = args[++i]; break;
+                case "--input-hz": inputHz = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("[BotSwarm] 未知参数: " + arg);
+                    System.exit(1);
+                    return;
+            }
+        }
+
+        DedicatedServer dedicated = null;
+        if (embedded) {
+            if (port == 8888) {
+                try (java.net.ServerSocket socket = new java.net.ServerSocket(0)) {
+                    port = socket.getLocalPort();
+                }
+            }
+            DedicatedServer.Options options = new DedicatedServer.Options();
+            options.port = port;
+            options.udpPort = -1; // 机器人只走 TCP
+            options.reactors = reactors;
+            options.simulationThreads = simThreads;
+            options.roomSize = roomSize;
+            options.tickRateHz = tickHz;
+            dedicated = new DedicatedServer(options);
+            dedicated.start();
+            Thread.sleep(300);
+        }
+
+        BotSwarm swarm = new BotSwarm(host, port);
+        swarm.setRoomName(room);
+        swarm.setInputRateHz(inputHz);
+        if (dedicated != null) {
+            swarm.setServer((MultiReactor) dedicated.getServer(), dedicated.getRoomManager());
+        }
+
+        List<Report> reports = new ArrayList<>();
+        for (int bots : stages) {
+            System.out.println("[BotSwarm] 规模 " + bots + " 个机器人...");
+            Report report = swarm.run(bots, warmupSec * 1000, durationSec * 1000);
+            reports.add(report);
+            System.out.println(Report.header());
+            System.out.println(report);
+        }
+
+        System.out.println("\n[BotSwarm] 汇总");
+        System.out.println(Report.header());
+        for (Report report : reports) {
+            System.out.println(report);
+        }
+
+        swarm.stop();
+        if (dedicated != null) {
+            dedicated.stop();
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,189 @@
+package com.gameengine.app;
+
+import com.gameengine.net.GameServer;
+import com.gameengine.net.MultiReactor;
+import com.gameengine.net.NetState;
+import com.gameengine.net.RoomManager;
+import com.gameengine.net.SimulationPool;
+import com.gameengine.net.VirtualThreadServer;
+
+/**
+ * 专用服务端（无界面）
+ * 不创建 GameEngine，也就没有窗口、渲染器、输入管理器和 GLFW 事件轮询，不加载 LWJGL 本地库；
+ * 只运行网络层和对战模拟：每个房间一个 RoomScene（与 OnlineGameScene 服务端相同的每帧流程），
+ * 由 SimulationPool 的模拟线程按固定步长推进，生产环境的服务端只消耗模拟所需的 CPU。
+ *
+ * 所有玩家都是远程客户端，客户端不需要任何改动：不指定房间的 JOIN 会被匹配到未满的房间，房间坐满后开始对战。
+ *
+ * 命令行：
+ * java com.gameengine.app.DedicatedServer --port 8888 --tick-hz 60 --reactors 4 --room-size 2
+ */
+public class DedicatedServer {
+
+    private final Options options;
+    private RoomManager rooms;
+    private GameServer server;
+    private volatile boolean isRunning = false;
+
+    /**
+     * 服务端配置，默认值与 OnlineGameScene 的服务端一致
+     */
+    public static final class Options {
+        public int port = 8888;
+        public int udpPort = 8889; // 小于 0 表示不启用 UDP 快照通道
+        public int tickRateHz = 60;
+        public int snapshotRateHz = 20;
+        public int reactors = Runtime.getRuntime().availableProcessors();
+        public int simulationThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        public int roomSize = 2;
+        public boolean virtualThreads = false;
+        public int statsIntervalSec = 10; // 0 表示不打印运行统计
+
+        /**
+         * 解析命令行参数
+         * @throws IllegalArgumentException 参数不合法
+         */
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--help") || arg.equals("-h")) {
+                    throw new IllegalArgumentException("");
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("参数 " + arg + " 缺少取值");
+                }
+                String value = args[++i];
+                try {
+                    switch (arg) {
+                        case "--port": options.port = Integer.parseInt(value); break;
+                        case "--udp-port":
+                            options.udpPort = value.equals("off") ? -1 : Integer.parseInt(value);
+                            break;
+                        case "--tick-hz": options.tickRateHz = Integer.parseInt(value); break;
+                        case "--snapshot-hz": options.snapshotRateHz = Integer.parseInt(value); break;
+                        case "--reactors": options.reactors = Integer.parseInt(value); break;
+                        case "--sim-threads": options.simulationThreads = Integer.parseInt(value); break;
+                        case "--room-size": options.roomSize = Integer.parseInt(value); break;
+                        case "--transport":
+                            if (!value.equals("nio") && !value.equals("virtual")) {
+                                throw new IllegalArgumentException("未知的传输层: " + value);
+                            }
+                            options.virtualThreads = value.equals("virtual");
+                            break;
+                        case "--stats": options.statsIntervalSec = Integer.parseInt(value); break;
+                        default: throw new IllegalArgumentException("未知参数: " + arg);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("参数 " + arg + " 需要整数: " + value);
+                }
+            }
+            if (options.port <= 0 || options.tickRateHz <= 0 || options.snapshotRateHz <= 0
+                    || options.reactors <= 0 || options.simulationThreads <= 0 || options.roomSize <= 0) {
+                throw new IllegalArgumentException("端口、频率、线程数和房间人数必须为正数");
+            }
+            return options;
+        }
+
+        public static String usage() {
+            return "用法: DedicatedServer [--port 8888] [--udp-port 8889|off] [--tick-hz 60] [--snapshot-hz 20]\n"
+                    + "                       [--reactors N] [--sim-threads N] [--room-size 2]\n"
+                    + "                       [--transport nio|virtual] [--stats 秒]";
+        }
+    }
+
+    public DedicatedServer(Options options) {
+        this.options = options;
+    }
+
+    public synchronized void start() {
+        if (isRunning) {
+            return;
+        }
+        rooms = new RoomManager(options.roomSize, options.simulationThreads, options.tickRateHz, RoomScene::create);
+        rooms.start();
+        NetState.setRoomManager(rooms);
+
+        if (options.virtualThreads) {
+            server = new VirtualThreadServer(options.port, options.snapshotRateHz);
+        } else {
+            server = new MultiReactor(options.port, options.reactors, options.snapshotRateHz);
+        }
+        if (options.udpPort >= 0) {
+            server.enableUdp(options.udpPort);
+        }
+        server.start();
+        isRunning = true;
+        System.out.println("[DedicatedServer] 已启动，端口: " + options.port
+                + "，模拟: " + options.tickRateHz + " Hz x " + options.simulationThreads + " 线程"
+                + "，快照: " + options.snapshotRateHz + " Hz"
+                + "，传输层: " + (options.virtualThreads ? "虚拟线程" : options.reactors + " 个子 Reactor")
+                + "，房间人数: " + options.roomSize);
+    }
+
+    public synchronized void stop() {
+        if (!isRunning) {
+            return;
+        }
+        isRunning = false;
+        server.stop();
+        rooms.stop();
+        NetState.setRoomManager(null);
+        System.out.println("[DedicatedServer] 已停止");
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    public GameServer getServer() {
+        return server;
+    }
+
+    public RoomManager getRoomManager() {
+        return rooms;
+    }
+
+    /**
+     * 一行运行统计：连接数、房间数、模拟耗时和超时次数
+     */
+    public String getStatsLine() {
+        SimulationPool pool = rooms.getSimulationPool();
+        double lastTick = 0;
+        double maxTick = 0;
+        long overruns = 0;
+        for (int i = 0; i < pool.getThreadCount(); i++) {
+            lastTick = Math.max(lastTick, pool.getLastTickMillis(i));
+            maxTick = Math.max(maxTick, pool.getMaxTickMillis(i));
+            overruns += pool.getOverrunCount(i);
+        }
+        return String.format("连接: %d, 房间: %d, tick: %.3fms (最大 %.3fms, 预算 %.3fms), 超时: %d, 广播: %d",
+                server.getTotalConnectionCount(), rooms.getRoomCount(), lastTick, maxTick,
+                1000.0 / options.tickRateHz, overruns, server.getTickScheduler().getBroadcastCount());
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            if (!e.getMessage().isEmpty()) {
+                System.err.println("[DedicatedServer] " + e.getMessage());
+            }
+            System.err.println(Options.usage());
+            System.exit(1);
+            return;
+        }
+
+        DedicatedServer dedicated = new DedicatedServer(options);
+        Runtime.getRuntime().addShutdownHook(new Thread(dedicated::stop, "DedicatedServer-shutdown"));
+        dedicated.start();
+        long interval = options.statsIntervalSec > 0 ? options.statsIntervalSec * 1000L : Long.MAX_VALUE;
+        while (dedicated.isRunning()) {
+            Thread.sleep(Math.min(interval, 60_000L));
+            if (options.statsIntervalSec > 0 && dedicated.isRunning()) {
+                System.out.println("[DedicatedServer] " + dedicated.getStatsLine());
+            }
+        }
+    }
+}
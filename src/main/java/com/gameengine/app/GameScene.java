@@ -16,9 +16,17 @@ import com.gameengine.scene.Scene;
 import com.gameengine.ui.GameUIManager;
 
 import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 import com.gameengine.core.GameEngine;
+import com.gameengine.recording.AsyncRecordingWriter;
+import com.gameengine.recording.InputRecording;
+import com.gameengine.recording.InputRecordingWriter;
+import com.gameengine.recording.RecordingFormat;
+import com.gameengine.recording.RecordingFrame;
 
 /**
  * 葫芦娃游戏场景类
@@ -40,11 +48,27 @@ public class GameScene extends Scene {
     private boolean isRecording;
 
     @SuppressWarnings("unused")
-    private FileWriter recordingWriter;
+    private FileWriter recordingWriter; // 旧的 JSON 行格式，由 setRecording 注入
+    private AsyncRecordingWriter asyncRecordingWriter; // 回车键开始的录制：二进制格式，后台线程写入
     private float recordingTimer = 0f;
     private static final float RECORDING_INTERVAL = 0.02f; // 每0.02秒记录一次
     private float keyTimer = 0f;
 
+    // 输入录像：固定步长运行，只记录随机数种子、每帧输入、关卡事件和校验和，回放时重新模拟
+    private static final int MAX_TICKS_PER_FRAME = 8; // 卡顿时每帧最多追赶的步数
+    private Path inputRecordingPath; // 开局前设置，initialize 时创建文件
+    private InputRecording.Seeds recordingSeeds;
+    private InputRecordingWriter inputRecorder;
+    private InputRecording inputReplay; // 非 null 时按录像重新模拟，不读取键盘
+    private float tickSeconds = InputRecording.DEFAULT_TICK_SECONDS;
+    private int checksumInterval = InputRecording.DEFAULT_CHECKSUM_INTERVAL;
+    private float tickAccumulator = 0f;
+    private int tick = 0; // 已经模拟的固定步长帧数
+    private int replayEventIndex = 0;
+    private int replayChecksumIndex = 0;
+    private int divergenceCount = 0;
+    private int firstDivergentTick = -1;
+
     // 粒子效果系统
     private ParticleSystem playerParticles;
     private List<ParticleSystem> collisionParticles;
@@ -82,6 +106,89 @@ public class GameScene extends Scene {
         this.recordingWriter = fw;
     }
 
+    /**
+     * 使用给定的异步写入器录制二进制录像（与回车键开始的录制相同），写入器需要已经启动
+     */
+    public void setRecording(AsyncRecordingWriter writer) {
+        this.isRecording = true;
+        this.asyncRecordingWriter = writer;
+    }
+
+    /**
+     * 从开局起录制输入录像，需要在 initialize 之前调用
+     * 本局使用随机生成的固定种子，游戏逻辑按固定步长推进
+     */
+    public void enableInputRecording(Path path) {
+        enableInputRecording(path, InputRecording.Seeds.random());
+    }
+
+    /**
+     * 使用指定的种子录制输入录像，需要在 initialize 之前调用
+     */
+    public void enableInputRecording(Path path, InputRecording.Seeds seeds) {
+        this.inputRecordingPath = path;
+        this.recordingSeeds = seeds;
+    }
+
+    /**
+     * 回放输入录像：用录像中的种子重新开局，逐帧喂入录下的输入，需要在 initialize 之前调用
+     */
+    public void replayInputs(InputRecording recording) {
+        this.inputReplay = recording;
+    }
+
+    /**
+     * 结束输入录像的录制，写出剩余的输入
+     */
+    public void stopInputRecording() {
+        if (inputRecorder == null) {
+            return;
+        }
+        try {
+            inputRecorder.close();
+            System.out.println("[GameScene] 输入录像结束：" + inputRecorder.getTickCount() + " 帧，"
+                    + inputRecorder.getBytesWritten() + " 字节");
+        } catch (IOException e) {
+            System.err.println("关闭输入录像时出错: " + e.getMessage());
+        }
+        inputRecorder = null;
+    }
+
+    /**
+     * 已经按固定步长模拟的帧数
+     */
+    public int getSimulatedTicks() {
+        return tick;
+    }
+
+    /**
+     * 回放中与录像校验和不一致的次数
+     */
+    public int getReplayDivergences() {
+        return divergenceCount;
+    }
+
+    /**
+     * 回放中第一次出现不一致的帧，没有不一致时返回 -1
+     */
+    public int getFirstDivergentTick() {
+        return firstDivergentTick;
+    }
+
+    /**
+     * 本局是否录制输入录像（调用过 enableInputRecording）
+     */
+    public boolean isInputRecordingEnabled() {
+        return inputRecordingPath != null;
+    }
+
+    /**
+     * 输入录像是否已经回放完
+     */
+    public boolean isInputReplayFinished() {
+        return inputReplay != null && tick >= inputReplay.getTickCount();
+    }
+
     @Override
     public void initialize() {
         super.initialize();
@@ -102,7 +209,30 @@ public class GameScene extends Scene {
         this.camera.setSmoothSpeed(0.15f); // 设置平滑跟随速度
 
         // 创建初始游戏对象（只创建玩家，怪物在对话结束后生成）
-        createHulu();
+        HuluPlayer hulu = createHulu();
+
+        // 输入录像的录制和回放使用固定种子，同样的输入得到同样的过程
+        InputRecording.Seeds seeds = null;
+        if (inputReplay != null) {
+            seeds = inputReplay.getSeeds();
+            tickSeconds = inputReplay.getTickSeconds();
+            checksumInterval = inputReplay.getChecksumInterval();
+        } else if (inputRecordingPath != null) {
+            seeds = recordingSeeds;
+        }
+        if (seeds != null) {
+            gameLogic.setRandomSeeds(seeds.logic, seeds.moveJitter);
+            gameLogic.setStopEngineOnGameOver(false);
+            hulu.setRandomSeed(seeds.player);
+        }
+        if (inputReplay == null && inputRecordingPath != null) {
+            try {
+                this.inputRecorder = new InputRecordingWriter(inputRecordingPath, seeds, tickSeconds, checksumInterval);
+            } catch (IOException e) {
+                System.err.println("无法创建输入录像文件: " + e.getMessage());
+                gameLogic.setStopEngineOnGameOver(true);
+            }
+        }
 
         // 初始化相机位置到玩家位置
         GameObject player = gameLogic.getPlayer();
@@ -115,7 +245,9 @@ public class GameScene extends Scene {
 
         // 初始化管理器
         if (this.levelManager == null) {
-            EnemyFactory enemyFactory = new EnemyFactory(renderer, this, gameLogic);
+            EnemyFactory enemyFactory = seeds != null
+                    ? new EnemyFactory(renderer, this, gameLogic, seeds.enemyFactory)
+                    : new EnemyFactory(renderer, this, gameLogic);
             this.levelManager = new LevelManager(enemyFactory);
         }
         if (this.uiManager == null) {
@@ -135,7 +267,9 @@ public class GameScene extends Scene {
 
         // 初始化对话系统
         dialogueConfigurator.initializeAllDialogues();
-        dialogueConfigurator.triggerGameStart();
+        if (inputReplay == null) {
+            dialogueConfigurator.triggerGameStart();
+        }
         gameStartDialogueTriggered = true;
         lastLevel = 0; // 从0开始，表示还没有完成任何关卡
     }
@@ -151,47 +285,196 @@ public class GameScene extends Scene {
         return this.time;
     }
 
+    public GameLogic getGameLogic() {
+        return gameLogic;
+    }
+
     @Override
     public void update(float deltaTime) {
+        if (inputRecorder != null || inputReplay != null) {
+            updateFixedStep(deltaTime);
+            return;
+        }
         super.update(deltaTime);
         time += deltaTime;
 
-        // 更新对话系统
-        if (dialogueManager != null) {
+        // 更新对话系统，对话正在进行时只更新相机，暂停其他游戏逻辑
+        if (updateDialogue(deltaTime)) {
+            return; // 跳过游戏战斗逻辑更新
+        }
+
+        handleSceneKeys();
+        simulate(deltaTime);
+    }
+
+    /**
+     * 更新对话系统
+     * @return 对话是否正在进行
+     */
+    private boolean updateDialogue(float deltaTime) {
+        if (dialogueManager == null) {
+            return false;
+        }
+        dialogueManager.update(deltaTime, engine.getInputManager());
+        if (!dialogueManager.isDialogueActive()) {
+            return false;
+        }
+        // 更新相机位置跟随玩家（即使在对话中也要更新）
+        followPlayer(deltaTime);
+        return true;
+    }
+
+    /**
+     * 输入录像的录制和回放：对话框和场景按键按实际帧处理，游戏逻辑按固定步长推进，
+     * 每一步的输入来自键盘（录制）或录像（回放）
+     */
+    private void updateFixedStep(float deltaTime) {
+        boolean dialogueActive = false;
+        if (inputReplay == null && dialogueManager != null) {
             dialogueManager.update(deltaTime, engine.getInputManager());
+            dialogueActive = dialogueManager.isDialogueActive();
+        }
+        handleSceneKeys();
+        if (inputRecorder == null && inputReplay == null) {
+            return; // 按 ESC 离开了场景
+        }
 
-            // 如果对话正在进行，只更新相机，暂停其他游戏逻辑
-            if (dialogueManager.isDialogueActive()) {
-                // 更新相机位置跟随玩家（即使在对话中也要更新）
-                if (camera != null && gameLogic != null) {
-                    GameObject player = gameLogic.getPlayer();
-                    if (player != null) {
-                        TransformComponent playerTransform = player.getComponent(TransformComponent.class);
-                        if (playerTransform != null) {
-                            camera.follow(playerTransform.getPosition(), deltaTime);
-                        }
-                    }
-                }
-                return; // 跳过游戏战斗逻辑更新
-            } else {
-                // 对话结束后，检查是否需要生成第一关怪物
-                if (!enemiesSpawned && gameStartDialogueTriggered) {
-                    levelManager.spawnCurrentLevel();
-                    enemiesSpawned = true;
-                    enemySpawnDelayFrames = 2; // 等待2帧让敌人添加到场景
+        tickAccumulator += deltaTime;
+        int ticks = 0;
+        while (tickAccumulator >= tickSeconds) {
+            if (ticks == MAX_TICKS_PER_FRAME || !fixedTick(dialogueActive)) {
+                // 卡顿太久时不再追赶，回放结束时也不再累积
+                tickAccumulator = 0f;
+                break;
+            }
+            tickAccumulator -= tickSeconds;
+            ticks++;
+        }
+    }
+
+    /**
+     * 按固定步长模拟一帧
+     * @return 回放已经结束或录制已经停止时返回 false
+     */
+    private boolean fixedTick(boolean dialogueActive) {
+        int bits;
+        if (inputReplay != null) {
+            if (tick >= inputReplay.getTickCount()) {
+                return false;
+            }
+            bits = inputReplay.getInput(tick);
+        } else {
+            if (inputRecorder == null) {
+                return false;
+            }
+            bits = gameLogic.readInputBits() | (dialogueActive ? InputRecording.PAUSED : 0);
+            try {
+                inputRecorder.writeTick(bits);
+            } catch (IOException e) {
+                System.err.println("写入输入录像时出错: " + e.getMessage());
+                stopInputRecording();
+                return false;
+            }
+        }
+        gameLogic.setInputOverride(bits & ~InputRecording.PAUSED);
+
+        super.update(tickSeconds);
+        time += tickSeconds;
+        if ((bits & InputRecording.PAUSED) != 0) {
+            followPlayer(tickSeconds);
+        } else {
+            simulate(tickSeconds);
+        }
+
+        if ((tick + 1) % checksumInterval == 0) {
+            checkpoint();
+        }
+        tick++;
+
+        if (inputRecorder != null && gameLogic.isGameOver()) {
+            // 先写完输入录像再结束引擎
+            stopInputRecording();
+            engine.gameOver();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 录制时写入当前状态的校验和，回放时与录像中的校验和比较
+     */
+    private void checkpoint() {
+        int checksum = gameLogic.stateChecksum();
+        if (inputReplay == null) {
+            try {
+                inputRecorder.writeChecksum(checksum);
+            } catch (IOException e) {
+                System.err.println("写入输入录像时出错: " + e.getMessage());
+                stopInputRecording();
+            }
+            return;
+        }
+        int count = inputReplay.getChecksumCount();
+        while (replayChecksumIndex < count && inputReplay.getChecksumTick(replayChecksumIndex) < tick) {
+            replayChecksumIndex++;
+        }
+        if (replayChecksumIndex < count && inputReplay.getChecksumTick(replayChecksumIndex) == tick) {
+            if (inputReplay.getChecksum(replayChecksumIndex) != checksum) {
+                if (divergenceCount == 0) {
+                    firstDivergentTick = tick;
+                    System.out.println("[GameScene] 回放在第 " + tick + " 帧与录像不一致，之后的画面可能与录制时不同");
                 }
+                divergenceCount++;
             }
+            replayChecksumIndex++;
         }
-        
-        // 处理敌人生成延迟
-        if (enemySpawnDelayFrames > 0) {
-            enemySpawnDelayFrames--;
-            if (enemySpawnDelayFrames == 0) {
-                levelEnemiesActive = true; // 延迟后才激活关卡完成检测
+    }
+
+    /**
+     * 回放录像中发生在当前帧的指定类型的关卡事件
+     */
+    private void applyReplayEvents(int type) {
+        if (inputReplay == null) {
+            return;
+        }
+        int count = inputReplay.getEventCount();
+        while (replayEventIndex < count && inputReplay.getEventTick(replayEventIndex) < tick) {
+            replayEventIndex++;
+        }
+        while (replayEventIndex < count && inputReplay.getEventTick(replayEventIndex) == tick
+                && inputReplay.getEventType(replayEventIndex) == type) {
+            if (type == InputRecording.EVENT_LEVEL_START) {
+                spawnFirstLevel();
+            } else {
+                advanceLevel();
+            }
+            if (levelManager.getCurrentLevel() != inputReplay.getEventLevel(replayEventIndex)) {
+                System.out.println("[GameScene] 回放的关卡 " + levelManager.getCurrentLevel()
+                        + " 与录像中的关卡 " + inputReplay.getEventLevel(replayEventIndex) + " 不一致");
             }
+            replayEventIndex++;
         }
+    }
 
-        // 更新相机位置跟随玩家
+    /**
+     * 录制关卡事件，不在录制输入录像时什么也不做
+     */
+    private void recordLevelEvent(int type) {
+        if (inputRecorder == null) {
+            return;
+        }
+        try {
+            inputRecorder.writeEvent(type, levelManager.getCurrentLevel());
+        } catch (IOException e) {
+            System.err.println("写入输入录像时出错: " + e.getMessage());
+            stopInputRecording();
+        }
+    }
+
+    /**
+     * 相机跟随玩家
+     */
+    private void followPlayer(float deltaTime) {
         if (camera != null && gameLogic != null) {
             GameObject player = gameLogic.getPlayer();
             if (player != null) {
@@ -201,13 +484,20 @@ public class GameScene extends Scene {
                 }
             }
         }
+    }
 
+    /**
+     * 场景按键：ESC 返回主菜单，录制键开始或结束状态录制
+     */
+    private void handleSceneKeys() {
         // 检查ESC键退回主界面
         if (engine.getInputManager().isKeyJustPressed(256)) { // GLFW_KEY_ESCAPE（Esc 键）
             // 创建主菜单场景
             if (dialogueManager != null) {
                 dialogueManager.reset(); // 重置对话状态
             }
+            stopInputRecording();
+            inputReplay = null;
             MenuScene menuScene = new MenuScene(engine, "MainMenu");
             engine.setScene(menuScene);
         }
@@ -217,48 +507,97 @@ public class GameScene extends Scene {
             if (!isRecording) {
                 System.out.println("开始录制游戏...");
                 try {
-                    this.recordingWriter = new FileWriter(
-                            "recordings/recording_" + System.currentTimeMillis() + ".json", true);
+                    this.asyncRecordingWriter = new AsyncRecordingWriter(Paths.get(
+                            "recordings/recording_" + System.currentTimeMillis() + RecordingFormat.FILE_EXTENSION))
+                            .start();
                     this.isRecording = true;
                 } catch (Exception e) {
                     System.err.println("无法创建录制文件: " + e.getMessage());
                     this.isRecording = false;
-                    this.recordingWriter = null;
+                    this.asyncRecordingWriter = null;
                 }
             } else {
-                System.out.println("结束录制游戏");
-                this.isRecording = false;
-                this.recordingWriter = null;
-                // 手动关闭 FileWriter
-                if (this.recordingWriter != null) {
-                    try {
-                        this.recordingWriter.flush();
-                        this.recordingWriter.close();
-                    } catch (Exception e) {
-                        System.err.println("关闭录制文件时出错: " + e.getMessage());
-                    }
-                    this.recordingWriter = null;
-                }
+                stopRecording();
             }
         }
+    }
 
-        // 游戏使用到的逻辑规则
-        gameLogic.handlePlayerInput();
-        gameLogic.updatePhysics();
-        gameLogic.updateEnemyMovement(deltaTime);
-        gameLogic.updateAttack(deltaTime);
-        gameLogic.updateEnemyAttack(deltaTime);
-        gameLogic.updateEnemyKingSkills(deltaTime); // 更新国王追踪火球技能
-        gameLogic.updateEnemyWizardSkills(deltaTime); // 更新法师陷阱球技能
-        gameLogic.checkEntityAlive();
+    /**
+     * 结束录制：关闭异步写入器（写出最后一块、字符串表和帧索引）或旧的 JSON 写入器
+     */
+    public void stopRecording() {
+        System.out.println("结束录制游戏");
+        this.isRecording = false;
+        if (this.asyncRecordingWriter != null) {
+            try {
+                // 等待写入线程写完已提交的帧，写出最后一块、字符串表和帧索引
+                this.asyncRecordingWriter.close();
+            } catch (IOException e) {
+                System.err.println("关闭录制文件时出错: " + e.getMessage());
+            }
+            this.asyncRecordingWriter = null;
+        }
+        // 手动关闭 FileWriter
+        if (this.recordingWriter != null) {
+            try {
+                this.recordingWriter.flush();
+                this.recordingWriter.close();
+            } catch (Exception e) {
+                System.err.println("关闭录制文件时出错: " + e.getMessage());
+            }
+            this.recordingWriter = null;
+        }
+    }
 
+    /**
+     * 开场对话结束后生成第一关怪物
+     */
+    private void spawnFirstLevel() {
+        levelManager.spawnCurrentLevel();
+        enemiesSpawned = true;
+        enemySpawnDelayFrames = 2; // 等待2帧让敌人添加到场景
+    }
+
+    /**
+     * 一帧的战斗逻辑（对话进行时不调用）
+     */
+    private void simulate(float deltaTime) {
+        // 对话结束后，检查是否需要生成第一关怪物；回放时由录像中的关卡事件决定
+        if (dialogueManager != null && !enemiesSpawned && gameStartDialogueTriggered && inputReplay == null) {
+            spawnFirstLevel();
+            recordLevelEvent(InputRecording.EVENT_LEVEL_START);
+        }
+        applyReplayEvents(InputRecording.EVENT_LEVEL_START);
+
+        // 处理敌人生成延迟
+        if (enemySpawnDelayFrames > 0) {
+            enemySpawnDelayFrames--;
+            if (enemySpawnDelayFrames == 0) {
+                levelEnemiesActive = true; // 延迟后才激活关卡完成检测
+            }
+        }
+
+        // 更新相机位置跟随玩家
+        followPlayer(deltaTime);
+
+        // 游戏使用到的逻辑规则
+        gameLogic.updateSinglePlayer(deltaTime);
         // 记录游戏过程（每0.1秒记录一次）
-        if (isRecording && recordingWriter != null) {
+        if (isRecording && (asyncRecordingWriter != null || recordingWriter != null)) {
             recordingTimer += deltaTime;
             keyTimer += deltaTime;
 
             if (recordingTimer >= RECORDING_INTERVAL) {
-                gameLogic.updateRecords(keyTimer, recordingWriter);
+                if (asyncRecordingWriter != null) {
+                    // 只填写预先分配的槽位；没有空闲槽位时丢弃这一帧，不阻塞游戏线程
+                    RecordingFrame frame = asyncRecordingWriter.beginFrame();
+                    if (frame != null) {
+                        gameLogic.captureRecord(keyTimer, frame, levelManager.getCurrentLevel());
+                        asyncRecordingWriter.commitFrame();
+                    }
+                } else {
+                    gameLogic.updateRecords(keyTimer, recordingWriter, levelManager.getCurrentLevel());
+                }
                 recordingTimer = 0f;
             }
         }
@@ -310,41 +649,12 @@ public class GameScene extends Scene {
             }
         }
 
-        // 游戏所处的关卡 - 只有当敌人已生成且全部死亡时才触发下一关
-        if (levelEnemiesActive && gameLogic.checkEnemiesDied()) {
-            levelEnemiesActive = false; // 重置标志，等待下一关敌人生成
-            int currentLevel = levelManager.getCurrentLevel();
-
-            // 触发关卡完成对话（使用刚完成的关卡号）
-            if (currentLevel != lastLevel) {
-                // 先触发刚完成关卡的对话
-                if (currentLevel <= 7) {
-                    dialogueConfigurator.triggerLevelComplete(currentLevel + 1); // 触发下一关的开始对话
-                }
-                lastLevel = currentLevel;
-            }
-
-            // 进入下一关
-            levelManager.nextLevel();
-            currentLevel = levelManager.getCurrentLevel();
-
-            // 检查是否进入无尽模式（第七关之后）
-            if (currentLevel > 7) {
-                if (!isEndlessMode) {
-                    isEndlessMode = true;
-                    dialogueConfigurator.triggerEndlessMode();
-                }
-                // 无尽模式：生成随机敌人组合
-                levelManager.spawnEndlessLevel();
-                enemySpawnDelayFrames = 2; // 等待2帧让敌人添加到场景
-            } else {
-                // 更新玩家形象为当前关卡对应的葫芦娃
-                updatePlayerImageForLevel(currentLevel);
-                // 生成下一关怪物
-                levelManager.spawnCurrentLevel();
-                enemySpawnDelayFrames = 2; // 等待2帧让敌人添加到场景
-            }
+        // 游戏所处的关卡 - 只有当敌人已生成且全部死亡时才触发下一关；回放时由录像中的关卡事件决定
+        if (inputReplay == null && levelEnemiesActive && gameLogic.checkEnemiesDied()) {
+            advanceLevel();
+            recordLevelEvent(InputRecording.EVENT_NEXT_LEVEL);
         }
+        applyReplayEvents(InputRecording.EVENT_NEXT_LEVEL);
 
         // 游戏粒子效果（关闭时不更新）
         if (particlesEnabled) {
@@ -357,6 +667,46 @@ public class GameScene extends Scene {
         }
     }
 
+    /**
+     * 当前关卡的敌人全部死亡，进入下一关并生成敌人
+     */
+    private void advanceLevel() {
+        levelEnemiesActive = false; // 重置标志，等待下一关敌人生成
+        int currentLevel = levelManager.getCurrentLevel();
+
+        // 触发关卡完成对话（使用刚完成的关卡号），回放时不显示对话
+        if (currentLevel != lastLevel) {
+            // 先触发刚完成关卡的对话
+            if (currentLevel <= 7 && inputReplay == null) {
+                dialogueConfigurator.triggerLevelComplete(currentLevel + 1); // 触发下一关的开始对话
+            }
+            lastLevel = currentLevel;
+        }
+
+        // 进入下一关
+        levelManager.nextLevel();
+        currentLevel = levelManager.getCurrentLevel();
+
+        // 检查是否进入无尽模式（第七关之后）
+        if (currentLevel > 7) {
+            if (!isEndlessMode) {
+                isEndlessMode = true;
+                if (inputReplay == null) {
+                    dialogueConfigurator.triggerEndlessMode();
+                }
+            }
+            // 无尽模式：生成随机敌人组合
+            levelManager.spawnEndlessLevel();
+            enemySpawnDelayFrames = 2; // 等待2帧让敌人添加到场景
+        } else {
+            // 更新玩家形象为当前关卡对应的葫芦娃
+            updatePlayerImageForLevel(currentLevel);
+            // 生成下一关怪物
+            levelManager.spawnCurrentLevel();
+            enemySpawnDelayFrames = 2; // 等待2帧让敌人添加到场景
+        }
+    }
+
     private void updateParticles(float deltaTime) {
         if (!particlesEnabled) {
             return;
@@ -459,6 +809,16 @@ public class GameScene extends Scene {
             uiManager.renderAll(levelManager.getCurrentLevel(), isRecording, gameLogic.isGameOver());
         }
 
+        // 输入录像回放进度
+        if (inputReplay != null) {
+            String status = isInputReplayFinished() ? "回放结束 (ESC 返回)"
+                    : String.format("重新模拟回放 %.1f / %.1f 秒 (ESC 返回)", tick * tickSeconds, inputReplay.getDuration());
+            if (divergenceCount > 0) {
+                status += "  与录像不一致 " + divergenceCount + " 次";
+            }
+            renderer.drawText(status, 20, 570, 14, 0.7f, 0.9f, 1.0f, 1.0f);
+        }
+
         // 渲染对话框（最后渲染，确保在最上层）
         if (dialogueManager != null) {
             dialogueManager.render();
@@ -493,7 +853,7 @@ public class GameScene extends Scene {
         }
     }
 
-    private void createHulu() {
+    private HuluPlayer createHulu() {
         /**
          * 创建葫芦娃实体，他会被系统当作主玩家
          * 可以通过GameLogic中的规则操控他
@@ -502,6 +862,7 @@ public class GameScene extends Scene {
         // 第一关使用大娃形象
         hulu.setImageForLevel(1);
         addGameObject(hulu);
+        return hulu;
     }
     
     /**
@@ -1,9 +1,12 @@
 package com.gameengine.app;
 
+import java.nio.file.Paths;
+
 import com.gameengine.core.GameEngine;
 import com.gameengine.graphics.IRenderer;
 import com.gameengine.input.InputManager;
 import com.gameengine.math.Vector2;
+import com.gameengine.recording.InputRecording;
 import com.gameengine.scene.Scene;
 
 /**
@@ -11,6 +14,10 @@ import com.gameengine.scene.Scene;
  * 提供开始游戏、回放、退出等选项
  */
 public class MenuScene extends Scene {
+    // 设为 true 时开始游戏会录制输入录像（-Dgameengine.recordInputs=true），
+    // 录制时游戏按固定步长、确定性模式运行；默认不录制，保持原来的游戏流程
+    static final String RECORD_INPUTS_PROPERTY = "gameengine.recordInputs";
+
     private enum MenuOption {
         START_GAME,
         OFFLINE_GAME,
@@ -136,7 +143,12 @@ public class MenuScene extends Scene {
 
     private void switchToGameScene() {
         destroyScene();
-        Scene gameScene = new GameScene("Hulu Game", engine);
+        GameScene gameScene = new GameScene("Hulu Game", engine);
+        if (Boolean.getBoolean(RECORD_INPUTS_PROPERTY)) {
+            // 输入录像只有种子和按键，开销可以忽略
+            gameScene.enableInputRecording(Paths.get(
+                    "recordings/inputs_" + System.currentTimeMillis() + InputRecording.FILE_EXTENSION));
+        }
         engine.setScene(gameScene);
 
     }
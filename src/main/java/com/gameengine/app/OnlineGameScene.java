@@ -5,6 +5,7 @@ import com.gameengine.core.GameLogic;
 import com.gameengine.core.GameObject;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -12,6 +13,9 @@ import java.util.Map;
 import com.gameengine.game.InputRecord;
 import com.gameengine.game.Record;
 import com.gameengine.game.GameObjectRecord;
+import com.gameengine.net.ClientPredictor;
+import com.gameengine.net.InputFrames;
+import com.gameengine.net.InputQueue;
 import com.gameengine.net.NioClient;
 import com.gameengine.net.NetworkBuffer;
 
@@ -26,6 +30,8 @@ import com.gameengine.math.Vector2;
 import com.gameengine.net.NetState;
 
 import com.gameengine.net.MultiReactor;
+import com.gameengine.net.GameServer;
+import com.gameengine.net.VirtualThreadServer;
 // import com.gameengine.net.NioServer; 旧网络接口留用
 
 /**
@@ -42,7 +48,7 @@ public class OnlineGameScene extends Scene {
     private GameLogic gameLogic;
     private int PlayerCount;
     private Status status;
-    private MultiReactor server;
+    private GameServer server;
     // private NioServer server; 旧网络接口留用
     private NioClient client;
     private boolean isAssigned = false;
@@ -50,10 +56,24 @@ public class OnlineGameScene extends Scene {
     // 客户端渲染用的远程记录
     private Record lastRemoteRecord;
     private List<GameObjectRecord> remoteObjects = new ArrayList<>();
+    private final float[] predictedPosition = new float[2];
+    private final float[] interpolatedPosition = new float[2];
+    // 服务端：每个客户端最近一次被应用的输入序号
+    private final Map<String, Integer> appliedInputSeqs = new HashMap<>();
+    private final float[] remoteVelocity = new float[2];
 
     // 检查是否所有玩家都成功加入游戏当中
     // 作为类的方法，它能够同时影响到所有玩家场景
     private static boolean isWaitingForJoin = true;
+    // 本进程中启动的服务端，同一进程中的客户端通过回环传输层连接，不经过 localhost 套接字
+    private static volatile GameServer hostedServer;
+
+    // 服务端向客户端广播快照的频率（Hz）
+    private static final int SNAPSHOT_RATE_HZ = 20;
+    // UDP 快照通道端口
+    private static final int UDP_PORT = 8889;
+    // 服务端传输层：false 使用 MultiReactor，true 使用 VirtualThreadServer
+    private static final boolean USE_VIRTUAL_THREADS = false;
 
     HuluPlayer[] players;
 
@@ -80,7 +100,7 @@ public class OnlineGameScene extends Scene {
         // 创建相机（视口800x600，世界地图也使用800x600以适配网络多人模式）
         this.camera = new com.gameengine.core.Camera(
                 800, 600,
-                800, 600 // 网络多人游戏使用固定屏幕大小作为世界大小
+                ClientPredictor.WORLD_WIDTH, ClientPredictor.WORLD_HEIGHT // 网络多人游戏使用固定屏幕大小作为世界大小
         );
         // 相机固定在屏幕中心
         this.camera.setPosition(new com.gameengine.math.Vector2(400, 300));
@@ -90,15 +110,27 @@ public class OnlineGameScene extends Scene {
             // server = new NioServer(8888);
             // server.start();
             // 服务器端：启动服务器等待客户端连接
-            // 使用 MultiReactor，子 Reactor 数量设置为 CPU 核心数
-            int subReactorCount = Runtime.getRuntime().availableProcessors();
-            server = new MultiReactor(8888, subReactorCount);
+            if (USE_VIRTUAL_THREADS) {
+                // 每个连接一个虚拟线程，阻塞读写
+                server = new VirtualThreadServer(8888, SNAPSHOT_RATE_HZ);
+            } else {
+                // 使用 MultiReactor，子 Reactor 数量设置为 CPU 核心数
+                int subReactorCount = Runtime.getRuntime().availableProcessors();
+                server = new MultiReactor(8888, subReactorCount, SNAPSHOT_RATE_HZ);
+            }
+            // 快照和输入走 UDP，避免丢包时的队头阻塞；JOIN 等会话控制仍走 TCP
+            server.enableUdp(UDP_PORT);
             server.start();
+            hostedServer = server;
             System.out.println("[OnlineGameScene] Server mode - waiting for " + (PlayerCount - 1) + " clients");
         } else {
             // 客户端：连接到服务器
             client = new NioClient();
-            if (client.connect("localhost", 8888)) {
+            GameServer host = hostedServer;
+            boolean connected = host != null && host.isRunning()
+                    ? client.connectLocal(host)
+                    : client.connect("localhost", 8888);
+            if (connected) {
                 if (client.join("Player")) {
                     client.startInputLoop(inputManager);
                     client.startStateReceiveLoop();
@@ -249,7 +281,11 @@ public class OnlineGameScene extends Scene {
         // 处理服务端的渲染记录
         if (isServer()) {
             Record records = gameLogic.getRecord(deltaTime);
-            NetState.currentRecords = records;
+            records.setServerTime(NetState.serverTime());
+            addInputAcks(records);
+            // 发布快照，由 TickScheduler 按快照频率唤醒 Reactor 广播
+            NetState.publishRecords(records);
+            updateClientViews();
         }
 
     }
@@ -268,26 +304,65 @@ public class OnlineGameScene extends Scene {
             handleSinglePlayerInput(players[0], 87, 83, 65, 68); // W, S, A, D
         }
 
-        // 处理远程客户端玩家的输入
-        Map<String, InputRecord> clientInputs = NetState.getAllClientInputs();
+        // 处理远程客户端玩家的输入（按会话读取各自的输入槽，不复制整张输入表）
         for (int i = 1; i < PlayerCount; i++) {
             if (players[i] == null || !players[i].isActive())
                 continue;
 
             String remoteAddr = players[i].getRemoteAddress();
-            if (remoteAddr != null) {
-                InputRecord input = clientInputs.get(remoteAddr);
-                if (input != null) {
-                    applyRemoteInput(players[i], input);
-                }
+            if (remoteAddr == null)
+                continue;
+            // 优先按顺序消费输入帧，每个 tick 一帧
+            InputQueue queue = NetState.getInputQueue(remoteAddr);
+            if (queue != null && queue.consumeTick()) {
+                InputFrames.toVelocity(queue.getCurrentBits(), remoteVelocity);
+                applyRemoteVelocity(players[i], remoteVelocity[0], remoteVelocity[1]);
+                appliedInputSeqs.put(remoteAddr, queue.getCurrentSeq());
+                continue;
             }
+            // 旧格式：直接使用最近一次上报的速度
+            InputRecord input = NetState.getClientInput(remoteAddr);
+            if (input != null) {
+                applyRemoteVelocity(players[i], input.vx, input.vy);
+                appliedInputSeqs.put(remoteAddr, input.seq);
+            }
+        }
+    }
+
+    /**
+     * 在快照中写入每个远程玩家已处理的输入序号
+     * 客户端据此丢弃已确认的输入，并在服务端位置上重放其余输入
+     */
+    private void addInputAcks(Record records) {
+        for (HuluPlayer player : players) {
+            if (player == null || !player.hasRemoteAddress())
+                continue;
+            Integer seq = appliedInputSeqs.get(player.getRemoteAddress());
+            records.addInputAck(player.getRemoteAddress(), player.getNetId(), seq == null ? 0 : seq);
+        }
+    }
+
+    /**
+     * 以每个远程玩家的位置作为对应客户端的视野中心
+     * 广播时服务端据此只发送视野内的实体
+     */
+    private void updateClientViews() {
+        for (HuluPlayer player : players) {
+            if (player == null || !player.isActive() || !player.hasRemoteAddress())
+                continue;
+            TransformComponent transform = player.getComponent(TransformComponent.class);
+            if (transform == null)
+                continue;
+            Vector2 pos = transform.getPosition();
+            NetState.updateClientView(player.getRemoteAddress(), pos.x, pos.y);
         }
     }
 
     /**
-     * 应用远程客户端的输入到玩家
+     * 应用远程客户端的输入速度到玩家
+     * 多房间服务端的 RoomScene 也使用同样的规则
      */
-    private void applyRemoteInput(HuluPlayer player, InputRecord input) {
+    static void applyRemoteVelocity(HuluPlayer player, float vx, float vy) {
         PhysicsComponent physics = player.getComponent(PhysicsComponent.class);
         TransformComponent transform = player.getComponent(TransformComponent.class);
 
@@ -295,12 +370,12 @@ public class OnlineGameScene extends Scene {
             return;
 
         // 直接应用客户端发送的速度
-        physics.setVelocity(new Vector2(input.vx, input.vy));
+        physics.setVelocity(new Vector2(vx, vy));
 
-        // 边界检查（使用世界大小800x600）
+        // 边界检查（与客户端预测使用相同的世界大小）
         Vector2 pos = transform.getPosition();
-        pos.x = Math.max(0, Math.min(800, pos.x));
-        pos.y = Math.max(0, Math.min(600, pos.y));
+        pos.x = Math.max(0, Math.min(ClientPredictor.WORLD_WIDTH, pos.x));
+        pos.y = Math.max(0, Math.min(ClientPredictor.WORLD_HEIGHT, pos.y));
         transform.setPosition(pos);
     }
 
@@ -308,8 +383,8 @@ public class OnlineGameScene extends Scene {
      * 客户端：根据远程 Record 渲染一帧
      */
     private void renderClientFromRemoteRecord() {
-        // 获取最新记录
-        Record record = NetState.currentRecords;
+        // 获取客户端收到的最新快照（进程内客户端拿到的是服务端冻结的快照，只读）
+        Record record = client != null ? client.getLatestRecord() : null;
         if (record != null) {
             lastRemoteRecord = record;
             List<GameObjectRecord> list = record.getGameObjectsMove();
@@ -328,15 +403,25 @@ public class OnlineGameScene extends Scene {
                 1.0f);
 
         // 使用插值后的坐标进行渲染，减少抖动
-        Map<String, float[]> interp = NetworkBuffer.sample();
+        double renderTime = NetworkBuffer.renderTime();
+
+        // 本地玩家使用预测位置，其余实体使用插值
+        ClientPredictor predictor = client != null ? client.getPredictor() : null;
+        int localNetId = predictor != null ? predictor.getLocalNetId() : 0;
 
         for (GameObjectRecord obj : remoteObjects) {
-            float[] pos = interp.get(obj.id);
-            if (pos != null) {
-                obj.x = pos[0];
-                obj.y = pos[1];
+            if (obj == null)
+                continue;
+            float x = obj.x;
+            float y = obj.y;
+            if (localNetId != 0 && obj.netId == localNetId && predictor.getPredictedPosition(predictedPosition)) {
+                x = predictedPosition[0];
+                y = predictedPosition[1];
+            } else if (NetworkBuffer.sample(NetworkBuffer.keyOf(obj), renderTime, interpolatedPosition)) {
+                x = interpolatedPosition[0];
+                y = interpolatedPosition[1];
             }
-            renderRemoteObject(obj);
+            renderRemoteObject(obj, x, y);
         }
 
         // 渲染基于 Record 的血条和技能冷却 UI
@@ -346,8 +431,10 @@ public class OnlineGameScene extends Scene {
 
     /**
      * 渲染远程对象
+     * @param x 渲染使用的横坐标（预测或插值后的位置），不写回快照中的对象
+     * @param y 渲染使用的纵坐标
      */
-    private void renderRemoteObject(GameObjectRecord obj) {
+    private void renderRemoteObject(GameObjectRecord obj, float x, float y) {
         if (obj == null || obj.rt == null)
             return;
 
@@ -355,14 +442,12 @@ public class OnlineGameScene extends Scene {
             case RECTANGLE:
                 // 对于玩家技能，使用与 AttackSkillJ 相同的箭头形状渲染
                 if ("Player Skill".equals(obj.identity)) {
-                    float x = obj.x;
-                    float y = obj.y;
                     renderer.drawRect(x + 5f, y - 4f, 5f, 3f, 1.0f, 1.0f, 1.0f, 1.0f);
                     renderer.drawRect(x + 5f, y + 1f, 5f, 3f, 1.0f, 1.0f, 1.0f, 1.0f);
                 } else {
                     renderer.drawRect(
-                            obj.x,
-                            obj.y,
+                            x,
+                            y,
                             obj.width,
                             obj.height,
                             obj.r,
@@ -373,8 +458,8 @@ public class OnlineGameScene extends Scene {
                 break;
             case CIRCLE:
                 renderer.drawCircle(
-                        obj.x + obj.width / 2,
-                        obj.y + obj.height / 2,
+                        x + obj.width / 2,
+                        y + obj.height / 2,
                         obj.width / 2,
                         obj.segments,
                         obj.r,
@@ -384,10 +469,10 @@ public class OnlineGameScene extends Scene {
                 break;
             case LINE:
                 renderer.drawLine(
-                        obj.x,
-                        obj.y,
-                        obj.x + obj.width,
-                        obj.y + obj.height,
+                        x,
+                        y,
+                        x + obj.width,
+                        y + obj.height,
                         obj.r,
                         obj.g,
                         obj.b,
@@ -396,23 +481,23 @@ public class OnlineGameScene extends Scene {
             case IMAGE:
                 renderer.drawImage(
                         obj.imagePath,
-                        obj.x,
-                        obj.y,
+                        x,
+                        y,
                         obj.width,
                         obj.height,
                         obj.alpha);
-                renderRemoteEntityHealthBar(obj);
+                renderRemoteEntityHealthBar(obj, x, y);
                 break;
             case IMAGE_ROTATED:
                 renderer.drawImageRotated(
                         obj.imagePath,
-                        obj.x + obj.width / 2,
-                        obj.y + obj.height / 2,
+                        x + obj.width / 2,
+                        y + obj.height / 2,
                         obj.width,
                         obj.height,
                         obj.rotation,
                         obj.alpha);
-                renderRemoteEntityHealthBar(obj);
+                renderRemoteEntityHealthBar(obj, x, y);
                 break;
             case TEXT:
                 // 暂不处理文本
@@ -425,7 +510,7 @@ public class OnlineGameScene extends Scene {
     /**
      * 客户端为远程敌人渲染血条
      */
-    private void renderRemoteEntityHealthBar(GameObjectRecord record) {
+    private void renderRemoteEntityHealthBar(GameObjectRecord record, float x, float y) {
         if (record.identity == null)
             return;
         if (!"Enemy".equals(record.identity))
@@ -435,8 +520,8 @@ public class OnlineGameScene extends Scene {
 
         float barWidth = record.width;
         float barHeight = 4f;
-        float barX = record.x;
-        float barY = record.y - 10f;
+        float barX = x;
+        float barY = y - 10f;
 
         renderer.drawHealthBar(barX, barY, barWidth, barHeight, record.currentHealth, record.maxHealth);
     }
@@ -522,10 +607,10 @@ public class OnlineGameScene extends Scene {
             physics.setVelocity(movement);
         }
 
-        // 边界检查（使用世界大小800x600）
+        // 边界检查，与客户端预测使用同一世界大小
         Vector2 pos = transform.getPosition();
-        pos.x = Math.max(0, Math.min(800, pos.x));
-        pos.y = Math.max(0, Math.min(600, pos.y));
+        pos.x = Math.max(0, Math.min(ClientPredictor.WORLD_WIDTH, pos.x));
+        pos.y = Math.max(0, Math.min(ClientPredictor.WORLD_HEIGHT, pos.y));
         transform.setPosition(pos);
     }
 
@@ -1,44 +1,46 @@
 package com.gameengine.app;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.LinkedList;
-import java.util.List;
 
 import com.gameengine.core.Camera;
 import com.gameengine.core.GameEngine;
 import com.gameengine.core.GameLogic;
 import com.gameengine.graphics.IRenderer;
+import com.gameengine.input.InputManager;
 import com.gameengine.math.Vector2;
+import com.gameengine.recording.CompactFrame;
+import com.gameengine.recording.CompactFrameStore;
+import com.gameengine.recording.ReplayPlayback;
+import com.gameengine.recording.ReplaySource;
 import com.gameengine.scene.Scene;
-import com.google.gson.Gson;
-import com.gameengine.game.GameObjectRecord;
 import com.gameengine.game.Record;
 
 public class RecordingScene extends Scene {
     private String recordingPath;
-    private LinkedList<Record> records;
+    // 按需解码的帧来源，不把整个录像读入内存
+    private ReplaySource replay;
     private IRenderer renderer;
     private GameEngine engine;
 
-    // 回放控制变量
-    private int currentFrameIndex = 0;
-    private float accumulatedTime = 0f;
-    private float startTime = 0f;
+    // 回放控制：时间、倍速、暂停和跳转
+    private ReplayPlayback playback;
+    // 已显示过的帧以紧凑的列存形式保留，渲染时通过享元视图读取
+    private CompactFrameStore frames;
+    private final CompactFrame.ObjectView view = new CompactFrame.ObjectView();
 
     // 回放状态变量
     private int playerHealth = 100;
     private float skillCooldown = 1.0f;
 
-    private Record currentRecord;
+    private CompactFrame currentFrame;
+    // 画面上的对象来自当前帧及之前最近的一个 object_move 帧
+    private CompactFrame objectFrame;
+    private int objectFrameIndex = -1;
 
-    private static Gson gson = new Gson();
-
-    private List<GameObjectRecord> currentFrameObjects = new ArrayList<>();
+    // 左右箭头每次跳转的秒数
+    private static final float SCRUB_SECONDS = 5f;
     
     // 摄像头相关
     private Vector2 playerWorldPosition = null; // 玩家在世界坐标中的位置
@@ -50,18 +52,17 @@ public class RecordingScene extends Scene {
         this.engine = engine;
 
         try {
-            this.records = loadRecording(recordingPath);
+            this.replay = ReplaySource.open(Paths.get(recordingPath));
         } catch (IOException e) {
             System.out.println("无法加载回放文件");
             e.printStackTrace();
-            this.records = new LinkedList<>();
+            this.replay = null;
         }
 
-        if (!records.isEmpty()) {
-            startTime = records.get(0).getKey();
-            accumulatedTime = 0f;
-            currentFrameIndex = 0;
-            currentRecord = null;
+        if (replay != null && replay.getFrameCount() > 0) {
+            playback = new ReplayPlayback(replay);
+            frames = new CompactFrameStore(replay);
+            currentFrame = null;
         }
         
         // 创建相机（视口800x600，世界地图2000x1500）
@@ -99,9 +100,11 @@ public class RecordingScene extends Scene {
                     1.0f);
         }
 
-        // 根据 currentFrameObjects 画出这一帧的所有对象
-        for (GameObjectRecord obj : currentFrameObjects) {
-            renderFrame(obj);
+        // 画出这一帧的所有对象
+        if (objectFrame != null) {
+            for (int i = 0; i < objectFrame.getObjectCount(); i++) {
+                renderFrame(view.moveTo(objectFrame, i));
+            }
         }
 
         // 渲染玩家血量条（左上角）
@@ -115,14 +118,34 @@ public class RecordingScene extends Scene {
     }
 
     /**
-     * 渲染回放提示
+     * 渲染回放提示、进度条和操作说明
      */
     private void renderReplayHint() {
         int hintX = 10;
         int hintY = renderer.getHeight() - 40;
 
         renderer.drawCircle(hintX + 8, hintY + 10, 6, 16, 0.0f, 0.8f, 1.0f, 1.0f);
-        renderer.drawText("回放中... (ESC 返回)", hintX + 20, hintY + 15, 14, 0.7f, 0.9f, 1.0f, 1.0f);
+        if (playback == null) {
+            renderer.drawText("回放中... (ESC 返回)", hintX + 20, hintY + 15, 14, 0.7f, 0.9f, 1.0f, 1.0f);
+            return;
+        }
+
+        String status = String.format("%s %.1fs / %.1fs  %sx  (ESC 返回)",
+                playback.isPaused() ? "已暂停" : "回放中",
+                playback.getTime(), playback.getDuration(), formatSpeed(playback.getSpeed()));
+        renderer.drawText(status, hintX + 20, hintY + 15, 14, 0.7f, 0.9f, 1.0f, 1.0f);
+        renderer.drawText("空格 暂停  ←/→ 后退/前进 5 秒  ↑/↓ 倍速  ,/. 逐帧  0-9 跳转",
+                hintX + 20, hintY - 5, 12, 0.7f, 0.7f, 0.7f, 1.0f);
+
+        // 进度条
+        float barWidth = renderer.getWidth() - 2 * hintX;
+        float progress = playback.getDuration() > 0 ? playback.getTime() / playback.getDuration() : 0f;
+        renderer.drawRect(hintX, hintY + 25, barWidth, 4, 0.3f, 0.3f, 0.3f, 1.0f);
+        renderer.drawRect(hintX, hintY + 25, barWidth * progress, 4, 0.0f, 0.8f, 1.0f, 1.0f);
+    }
+
+    private static String formatSpeed(float speed) {
+        return speed == (int) speed ? String.valueOf((int) speed) : String.valueOf(speed);
     }
 
     /**
@@ -133,9 +156,9 @@ public class RecordingScene extends Scene {
         int maxHealth = 100;
 
         // 从当前记录中获取玩家血量
-        if (currentRecord != null) {
-            currentHealth = currentRecord.getPlayerHealth();
-            maxHealth = currentRecord.getPlayerMaxHealth();
+        if (currentFrame != null) {
+            currentHealth = currentFrame.getPlayerHealth();
+            maxHealth = currentFrame.getPlayerMaxHealth();
             if (maxHealth <= 0)
                 maxHealth = 100;
         }
@@ -158,8 +181,8 @@ public class RecordingScene extends Scene {
         float cooldownPercentage = skillCooldown;
 
         // 从当前记录中获取技能冷却百分比
-        if (currentRecord != null) {
-            cooldownPercentage = currentRecord.getSkillCooldownPercent();
+        if (currentFrame != null) {
+            cooldownPercentage = currentFrame.getSkillCooldownPercent();
         }
 
         // 冷却条的位置和尺寸（根据地图尺寸800x600调整位置）
@@ -197,89 +220,142 @@ public class RecordingScene extends Scene {
     public void update(float deltaTime) {
         // ESC键返回菜单
         if (engine.getInputManager().isKeyJustPressed(256)) { // GLFW_KEY_ESCAPE（Esc 键）
+            if (frames != null) {
+                frames.clear();
+            }
+            if (replay != null) {
+                replay.close();
+            }
             engine.setScene(new MenuScene(engine, "MainMenu"));
             return;
         }
 
-        if (records == null || records.isEmpty()) {
+        if (playback == null) {
             return;
         }
-        
+
+        handlePlaybackKeys();
+
         // 更新相机位置跟随玩家
         if (camera != null && playerWorldPosition != null) {
             camera.follow(playerWorldPosition, deltaTime);
         }
 
-        // 累加时间（从回放开始到现在的时间）
-        accumulatedTime += deltaTime;
-
-        // 根据录制时的绝对时间戳推进回放
-        while (currentFrameIndex < records.size()) {
-            Record nextRecord = records.get(currentFrameIndex);
-            float scheduledTime = nextRecord.getKey() - startTime;
-
-            if (accumulatedTime >= scheduledTime) {
-                // 应用这一条记录（更新当前帧的对象列表）
-                currentRecord = nextRecord;
-                loadFrame(currentFrameIndex);
-                currentFrameIndex++;
-                System.out.println(currentFrameIndex);
-            } else {
-                break;
-            }
+        // 按倍速推进回放时间，到达末尾后从头循环
+        if (playback.advance(deltaTime)) {
+            applyCurrentFrame();
         }
+    }
 
-        // 如果已经播放完所有帧，则从头开始循环
-        if (currentFrameIndex >= records.size()) {
-            accumulatedTime = 0f;
-            currentFrameIndex = 0;
-            currentRecord = null;
-            currentFrameObjects.clear();
+    /**
+     * 回放控制按键（同时支持 AWT 和 GLFW 键码）
+     */
+    private void handlePlaybackKeys() {
+        InputManager input = engine.getInputManager();
+        boolean jumped = false;
+        if (input.isKeyJustPressed(32)) { // 空格：暂停/继续
+            playback.togglePause();
+        }
+        if (input.isKeyJustPressed(37) || input.isKeyJustPressed(263)) { // 左箭头：后退
+            playback.scrub(-SCRUB_SECONDS);
+            jumped = true;
+        }
+        if (input.isKeyJustPressed(39) || input.isKeyJustPressed(262)) { // 右箭头：前进
+            playback.scrub(SCRUB_SECONDS);
+            jumped = true;
+        }
+        if (input.isKeyJustPressed(38) || input.isKeyJustPressed(265)) { // 上箭头：加速
+            playback.faster();
+        }
+        if (input.isKeyJustPressed(40) || input.isKeyJustPressed(264)) { // 下箭头：减速
+            playback.slower();
+        }
+        if (input.isKeyJustPressed(44)) { // 逗号：后退一帧
+            playback.stepBackward();
+            jumped = true;
+        }
+        if (input.isKeyJustPressed(46)) { // 句号：前进一帧
+            playback.stepForward();
+            jumped = true;
+        }
+        for (int digit = 0; digit <= 9; digit++) {
+            if (input.isKeyJustPressed(48 + digit)) { // 数字键：跳到 digit * 10% 处
+                playback.seekFraction(digit / 10f);
+                jumped = true;
+            }
+        }
+        if (jumped) {
+            // 跳转后从目标帧重建画面、血条和冷却状态，相机直接对准玩家
+            playerWorldPosition = null;
+            applyCurrentFrame();
+            if (camera != null && playerWorldPosition != null) {
+                camera.followImmediate(playerWorldPosition);
+            }
         }
     }
 
     /**
-     * 加载指定索引的帧数据
+     * 显示回放时钟的当前帧
      */
-    private void loadFrame(int index) {
-        if (index < 0 || index >= records.size()) {
+    private void applyCurrentFrame() {
+        int index = playback.getCurrentFrameIndex();
+        CompactFrame frame = index < 0 ? null : frames.getFrame(index);
+        if (frame == null) {
+            currentFrame = null;
+            objectFrame = null;
+            objectFrameIndex = -1;
             return;
         }
-
-        this.currentRecord = records.get(index);
-
-        // 解析 deltaTime
-        // float deltaIndex = this.currentRecord.getKey();
-
-        if ("input".equals(this.currentRecord.getType())) {
-            // 这里暂不处理，留作网络游戏的记录
-            return;
-        } else if ("object_move".equals(this.currentRecord.getType())) {
-            // 此处作为重新加载的核心点
-            List<GameObjectRecord> list = this.currentRecord.getGameObjectsMove();
-            currentFrameObjects = (list != null) ? new ArrayList<>(list)
-                    : new ArrayList<>();
-            
-            // 从当前帧数据中查找玩家位置，用于摄像头跟随
-            updatePlayerPosition();
+        if (frame != currentFrame) {
+            loadFrame(frame, index);
         }
+    }
 
+    /**
+     * 加载一帧数据
+     * 当前帧是 input 帧时（这里暂不处理，留作网络游戏的记录），画面保持为它之前最近的 object_move 帧；
+     * 跳转或高倍速时中间的帧可能被跳过，因此每次都从目标帧往前找，而不是沿用上一次显示的对象帧
+     */
+    private void loadFrame(CompactFrame frame, int index) {
+        this.currentFrame = frame;
+
+        // 向前跳转时只需找到上一次的对象帧为止，向后跳转时一直找到第 0 帧
+        int stop = objectFrameIndex <= index ? objectFrameIndex : -1;
+        for (int i = index; i > stop; i--) {
+            CompactFrame candidate = i == index ? frame : frames.getFrame(i);
+            if (candidate != null && "object_move".equals(candidate.getType())) {
+                // 此处作为重新加载的核心点
+                objectFrame = candidate;
+                objectFrameIndex = i;
+
+                // 从当前帧数据中查找玩家位置，用于摄像头跟随
+                updatePlayerPosition();
+                return;
+            }
+        }
+        if (stop < 0) {
+            // 目标帧之前没有对象帧
+            objectFrame = null;
+            objectFrameIndex = -1;
+        }
     }
     
     /**
      * 从当前帧对象中提取玩家位置
      */
     private void updatePlayerPosition() {
-        if (currentFrameObjects == null || currentFrameObjects.isEmpty()) {
+        if (objectFrame == null) {
             return;
         }
         
         // 查找玩家对象（根据 identity 或 imagePath 判断）
-        for (GameObjectRecord obj : currentFrameObjects) {
-            if (obj.identity != null && obj.identity.contains("Player")) {
+        for (int i = 0; i < objectFrame.getObjectCount(); i++) {
+            CompactFrame.ObjectView obj = view.moveTo(objectFrame, i);
+            String identity = obj.getIdentity();
+            if (identity != null && identity.contains("Player")) {
                 // 计算玩家中心位置（世界坐标）
-                float centerX = obj.x + obj.width / 2;
-                float centerY = obj.y + obj.height / 2;
+                float centerX = obj.getX() + obj.getWidth() / 2;
+                float centerY = obj.getY() + obj.getHeight() / 2;
                 playerWorldPosition = new Vector2(centerX, centerY);
                 break;
             }
@@ -289,77 +365,77 @@ public class RecordingScene extends Scene {
     /**
      * 渲染一帧的所有对象
      */
-    private void renderFrame(GameObjectRecord gameObjectRecord) {
-        if (gameObjectRecord.rt == null)
+    private void renderFrame(CompactFrame.ObjectView obj) {
+        if (obj.getRenderType() == null)
             return;
         
         // 将世界坐标转换为屏幕坐标
-        Vector2 worldPos = new Vector2(gameObjectRecord.x, gameObjectRecord.y);
+        Vector2 worldPos = new Vector2(obj.getX(), obj.getY());
         Vector2 screenPos = (camera != null) ? camera.worldToScreen(worldPos) : worldPos;
         float screenX = screenPos.x;
         float screenY = screenPos.y;
 
-        switch (gameObjectRecord.rt) {
+        switch (obj.getRenderType()) {
             case RECTANGLE:
                 // 对于玩家技能，使用与 AttackSkillJ 相同的箭头形状渲染
-                if ("Player Skill".equals(gameObjectRecord.identity)) {
-                    renderPlayerSkill(gameObjectRecord, screenX, screenY);
+                if ("Player Skill".equals(obj.getIdentity())) {
+                    renderPlayerSkill(obj, screenX, screenY);
                 } else {
                     renderer.drawRect(
                             screenX,
                             screenY,
-                            gameObjectRecord.width,
-                            gameObjectRecord.height,
-                            gameObjectRecord.r,
-                            gameObjectRecord.g,
-                            gameObjectRecord.b,
-                            gameObjectRecord.a);
+                            obj.getWidth(),
+                            obj.getHeight(),
+                            obj.getR(),
+                            obj.getG(),
+                            obj.getB(),
+                            obj.getA());
                 }
                 break;
             case CIRCLE:
                 renderer.drawCircle(
-                        screenX + gameObjectRecord.width / 2,
-                        screenY + gameObjectRecord.height / 2,
-                        gameObjectRecord.width / 2,
-                        gameObjectRecord.segments,
-                        gameObjectRecord.r,
-                        gameObjectRecord.g,
-                        gameObjectRecord.b,
-                        gameObjectRecord.a);
+                        screenX + obj.getWidth() / 2,
+                        screenY + obj.getHeight() / 2,
+                        obj.getWidth() / 2,
+                        obj.getSegments(),
+                        obj.getR(),
+                        obj.getG(),
+                        obj.getB(),
+                        obj.getA());
                 break;
             case LINE:
                 renderer.drawLine(
                         screenX,
                         screenY,
-                        screenX + gameObjectRecord.width,
-                        screenY + gameObjectRecord.height,
-                        gameObjectRecord.r,
-                        gameObjectRecord.g,
-                        gameObjectRecord.b,
-                        gameObjectRecord.a);
+                        screenX + obj.getWidth(),
+                        screenY + obj.getHeight(),
+                        obj.getR(),
+                        obj.getG(),
+                        obj.getB(),
+                        obj.getA());
                 break;
             case IMAGE:
                 renderer.drawImage(
-                        gameObjectRecord.imagePath,
+                        obj.getImagePath(),
                         screenX,
                         screenY,
-                        gameObjectRecord.width,
-                        gameObjectRecord.height,
-                        gameObjectRecord.alpha);
+                        obj.getWidth(),
+                        obj.getHeight(),
+                        obj.getAlpha());
                 // 为敌人渲染血条
-                renderEntityHealthBar(gameObjectRecord, screenX, screenY);
+                renderEntityHealthBar(obj, screenX, screenY);
                 break;
             case IMAGE_ROTATED:
                 renderer.drawImageRotated(
-                        gameObjectRecord.imagePath,
-                        screenX + gameObjectRecord.width / 2,
-                        screenY + gameObjectRecord.height / 2,
-                        gameObjectRecord.width,
-                        gameObjectRecord.height,
-                        gameObjectRecord.rotation,
-                        gameObjectRecord.alpha);
+                        obj.getImagePath(),
+                        screenX + obj.getWidth() / 2,
+                        screenY + obj.getHeight() / 2,
+                        obj.getWidth(),
+                        obj.getHeight(),
+                        obj.getRotation(),
+                        obj.getAlpha());
                 // 为敌人渲染血条
-                renderEntityHealthBar(gameObjectRecord, screenX, screenY);
+                renderEntityHealthBar(obj, screenX, screenY);
                 break;
             case TEXT:
                 // 文本类型暂不处理
@@ -372,56 +448,46 @@ public class RecordingScene extends Scene {
     /**
      * 为敌人渲染血条（使用屏幕坐标）
      */
-    private void renderEntityHealthBar(GameObjectRecord record, float screenX, float screenY) {
+    private void renderEntityHealthBar(CompactFrame.ObjectView record, float screenX, float screenY) {
         // 只为敌人渲染血条
-        if (record.identity == null)
-            return;
-        if (!"Enemy".equals(record.identity))
+        if (!"Enemy".equals(record.getIdentity()))
             return;
-        if (record.maxHealth <= 0)
+        if (record.getMaxHealth() <= 0)
             return;
 
         // 血条位于实体头顶上方（使用屏幕坐标）
-        float barWidth = record.width;
+        float barWidth = record.getWidth();
         float barHeight = 4f;
         float barX = screenX;
         float barY = screenY - 10f;
 
-        renderer.drawHealthBar(barX, barY, barWidth, barHeight, record.currentHealth, record.maxHealth);
+        renderer.drawHealthBar(barX, barY, barWidth, barHeight, record.getCurrentHealth(), record.getMaxHealth());
     }
 
     /**
      * 渲染玩家技能（J 技能）的箭头形状（使用屏幕坐标）
      */
-    private void renderPlayerSkill(GameObjectRecord record, float screenX, float screenY) {
+    private void renderPlayerSkill(CompactFrame.ObjectView record, float screenX, float screenY) {
         // 与 AttackSkillJ.renderBodyParts 中的形状保持一致
         renderer.drawRect(screenX + 5f, screenY - 4f, 5f, 3f, 1.0f, 1.0f, 1.0f, 1.0f);
         renderer.drawRect(screenX + 5f, screenY + 1f, 5f, 3f, 1.0f, 1.0f, 1.0f, 1.0f);
     }
 
     /**
-     * 加载录像文件
+     * 把整个录像文件读入内存，跳过无法解析的帧
+     * 按文件开头的 magic 区分二进制录像（.hrec）和旧的 JSON 行格式；
+     * 回放本身通过 ReplaySource 按需解码，不使用这个方法
      */
     public static LinkedList<Record> loadRecording(String filePath) throws IOException {
         LinkedList<Record> records = new LinkedList<>();
-
-        Path path = Paths.get(filePath);
-
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty())
-                    continue;
-                try {
-                    Record record = gson.fromJson(line, Record.class);
+        try (ReplaySource source = ReplaySource.open(Paths.get(filePath))) {
+            for (int i = 0; i < source.getFrameCount(); i++) {
+                Record record = source.getFrame(i);
+                if (record != null) {
                     records.add(record);
-                } catch (Exception e) {
-                    System.err.println("无法解析这一行: " + line);
                 }
             }
         }
-
         return records;
     }
 
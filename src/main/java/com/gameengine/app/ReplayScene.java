@@ -1,21 +1,33 @@
 package com.gameengine.app;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.gameengine.core.GameEngine;
 import com.gameengine.graphics.IRenderer;
 import com.gameengine.input.InputManager;
+import com.gameengine.recording.InputRecording;
+import com.gameengine.recording.RecordingFormat;
+import com.gameengine.recording.RecordingMetadata;
 import com.gameengine.scene.Scene;
 
 /**
  * 回放菜单场景
- * 显示录制文件列表，允许用户选择要回放的文件
- * M (当前为简化版本，完整功能需要recording包支持)
+ * 显示录制文件列表（最新的在前），允许用户选择要回放的文件
+ * 列表只列出文件名，时长、关卡、血量和缩略图来自每个录像的摘要文件（RecordingMetadata）：
+ * 只为滚动到可见范围内的行读取摘要，由后台线程并行读取，读取完成前显示 "..."，
+ * 录像再多也不会在打开列表时逐个解析
  */
 public class ReplayScene extends Scene {
 
@@ -28,10 +40,35 @@ public class ReplayScene extends Scene {
     private File recordingFolder;
     private boolean hasRecording;
 
+    // 列表布局
+    private static final float LIST_X = 40f;
+    private static final float LIST_WIDTH = 470f;
+    private static final float LIST_TOP = 140f;
+    private static final float ROW_HEIGHT = 28f;
+    private static final float PANEL_X = 530f;
+    private static final float THUMBNAIL_CELL = 7f;
+
+    // 后台读取摘要的线程数
+    private static final int METADATA_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    // 已读取的摘要、已提交读取的文件和读取失败的文件，由后台线程写入
+    private final Map<File, RecordingMetadata> metadata = new ConcurrentHashMap<>();
+    private final Set<File> metadataRequested = ConcurrentHashMap.newKeySet();
+    private final Set<File> metadataFailed = ConcurrentHashMap.newKeySet();
+    private ExecutorService metadataLoader;
+
     public ReplayScene(GameEngine engine, String recordingPath) {
+        this(engine, recordingPath, new File(RECORDING_PATH));
+    }
+
+    /**
+     * @param recordingFolder 录制文件所在的目录
+     */
+    ReplayScene(GameEngine engine, String recordingPath, File recordingFolder) {
         super("ReplayMenu");
         this.engine = engine;
         this.recordingPath = recordingPath;
+        this.recordingFolder = recordingFolder;
     }
 
     @Override
@@ -42,9 +79,7 @@ public class ReplayScene extends Scene {
 
         // 初始化录制文件列表
         this.recordingFiles = new ArrayList<>();
-
-        // 在初始化阶段即读取录制文件并设置游戏逻辑
-        recordingFolder = new File(RECORDING_PATH);
+        this.scrollOffset = 0;
 
         if (recordingPath != null && !recordingPath.isEmpty()) {
             loadRecording(recordingPath);
@@ -52,17 +87,21 @@ public class ReplayScene extends Scene {
         }
 
         if (!recordingFolder.exists() || !recordingFolder.isDirectory()) {
-            System.err.println("录制文件夹不存在: " + RECORDING_PATH);
+            System.err.println("录制文件夹不存在: " + recordingFolder);
             hasRecording = false;
         } else {
             // 加载录制文件列表
             File[] files = recordingFolder.listFiles();
             if (files != null && files.length > 0) {
                 for (File file : files) {
-                    if (file.isFile() && file.getName().endsWith(".json")) {
+                    if (file.isFile() && (RecordingFormat.isRecordingFileName(file.getName())
+                            || InputRecording.isInputRecordingFileName(file.getName()))) {
                         recordingFiles.add(file);
                     }
                 }
+                // 最新的录像在前
+                recordingFiles.sort(Comparator.comparingLong(File::lastModified).reversed()
+                        .thenComparing(File::getName));
                 System.out.println("已成功读取" + recordingFiles.size() + "个录制文件");
                 hasRecording = !recordingFiles.isEmpty();
             } else {
@@ -83,6 +122,7 @@ public class ReplayScene extends Scene {
 
         // ESC键返回菜单
         if (inputManager.isKeyJustPressed(256)) { // GLFW_KEY_ESCAPE（Esc 键）
+            shutdownMetadataLoader();
             Scene menuScene = new MenuScene(engine, "MainMenu");
             engine.setScene(menuScene);
         }
@@ -105,6 +145,7 @@ public class ReplayScene extends Scene {
     // 文档列表渲染
     private List<File> recordingFiles;
     private int selectedIndex = 0;
+    private int scrollOffset = 0; // 可见范围内第一行的下标
 
     private void handleFileSelection() {
 
@@ -112,8 +153,18 @@ public class ReplayScene extends Scene {
         if (inputManager.isKeyJustPressed(38) || inputManager.isKeyJustPressed(265)) { // 向上键（AWT 38 / GLFW 265）
             selectedIndex = (selectedIndex - 1 + Math.max(1, recordingFiles.size()))
                     % Math.max(1, recordingFiles.size());
+            scrollToSelection();
         } else if (inputManager.isKeyJustPressed(40) || inputManager.isKeyJustPressed(264)) { // 向下键（AWT 40 / GLFW 264）
             selectedIndex = (selectedIndex + 1) % Math.max(1, recordingFiles.size());
+            scrollToSelection();
+        } else if (inputManager.isKeyJustPressed(33) || inputManager.isKeyJustPressed(266)) { // PageUp（AWT 33 / GLFW 266）
+            selectedIndex = Math.max(0, selectedIndex - visibleRows());
+            scrollOffset = Math.max(0, scrollOffset - visibleRows());
+            scrollToSelection();
+        } else if (inputManager.isKeyJustPressed(34) || inputManager.isKeyJustPressed(267)) { // PageDown（AWT 34 / GLFW 267）
+            selectedIndex = Math.min(recordingFiles.size() - 1, selectedIndex + visibleRows());
+            scrollOffset = Math.max(0, Math.min(scrollOffset + visibleRows(), recordingFiles.size() - visibleRows()));
+            scrollToSelection();
         } else if (inputManager.isKeyJustPressed(10) || inputManager.isKeyJustPressed(32)
                 || inputManager.isKeyJustPressed(257) || inputManager.isKeyJustPressed(335)) { // 回车/空格（AWT 10/32, GLFW
                                                                                                // 257/335）
@@ -124,6 +175,7 @@ public class ReplayScene extends Scene {
                 initialize();
             }
         } else if (inputManager.isKeyJustPressed(27)) { // Esc 键
+            shutdownMetadataLoader();
             engine.setScene(new MenuScene(engine, "MainMenu"));
         }
 
@@ -131,15 +183,12 @@ public class ReplayScene extends Scene {
         float mouseX = inputManager.getMouseX();
         float mouseY = inputManager.getMouseY();
 
-        float startY = 140f;
-        float itemH = 28f;
-        float x = 100f;
-
-        // 检测鼠标悬停在哪个文件上
-        for (int i = 0; i < recordingFiles.size(); i++) {
-            float y = startY + i * itemH;
-            // 检测鼠标是否在这个文件区域内（x: 90-690, y: y-6 到 y+18）
-            if (mouseX >= x - 10 && mouseX <= x + 600 &&
+        // 检测鼠标悬停在哪个文件上（只检测可见的行）
+        int end = Math.min(recordingFiles.size(), scrollOffset + visibleRows());
+        for (int i = scrollOffset; i < end; i++) {
+            float y = LIST_TOP + (i - scrollOffset) * ROW_HEIGHT;
+            // 检测鼠标是否在这一行的区域内（y: y-6 到 y+18）
+            if (mouseX >= LIST_X - 10 && mouseX <= LIST_X + LIST_WIDTH &&
                     mouseY >= y - 6 && mouseY <= y + 18) {
                 selectedIndex = i;
 
@@ -173,16 +222,29 @@ public class ReplayScene extends Scene {
             return;
         }
 
-        float startY = 140f;
-        float itemH = 28f;
-        for (int i = 0; i < recordingFiles.size(); i++) {
-            String name = recordingFiles.get(i).getName();
-            float x = 100f;
-            float y = startY + i * itemH;
+        int end = Math.min(recordingFiles.size(), scrollOffset + visibleRows());
+        for (int i = scrollOffset; i < end; i++) {
+            File file = recordingFiles.get(i);
+            requestMetadata(file);
+            float y = LIST_TOP + (i - scrollOffset) * ROW_HEIGHT;
             if (i == selectedIndex) {
-                renderer.drawRect(x - 10, y - 6, 600, 24, 0.3f, 0.3f, 0.4f, 0.8f);
+                renderer.drawRect(LIST_X - 10, y - 6, LIST_WIDTH, 24, 0.3f, 0.3f, 0.4f, 0.8f);
             }
-            renderer.drawText(name, x, y, 14f, 0.9f, 0.9f, 0.9f, 1f);
+            renderer.drawText(file.getName(), LIST_X, y, 12f, 0.9f, 0.9f, 0.9f, 1f);
+            RecordingMetadata info = metadata.get(file);
+            String duration = info != null ? formatDuration(info.getDuration())
+                    : metadataFailed.contains(file) ? "?" : "...";
+            renderer.drawText(duration, LIST_X + LIST_WIDTH - 70, y, 12f, 0.7f, 0.8f, 0.9f, 1f);
+        }
+        if (scrollOffset > 0) {
+            renderer.drawText("^", LIST_X + LIST_WIDTH / 2, LIST_TOP - 24, 12f, 0.7f, 0.7f, 0.7f, 1f);
+        }
+        if (end < recordingFiles.size()) {
+            renderer.drawText("v", LIST_X + LIST_WIDTH / 2, LIST_TOP + visibleRows() * ROW_HEIGHT, 12f,
+                    0.7f, 0.7f, 0.7f, 1f);
+        }
+        if (selectedIndex >= 0 && selectedIndex < recordingFiles.size()) {
+            renderDetails(recordingFiles.get(selectedIndex));
         }
 
         String hint = "UP/DOWN SELECT, ENTER PLAY, ESC RETURN";
@@ -190,7 +252,124 @@ public class ReplayScene extends Scene {
         renderer.drawText(hint, w / 2f - hw / 2f, h - 60, 12f, 0.7f, 0.7f, 0.7f, 1f);
     }
 
+    /**
+     * 选中录像的缩略图和摘要
+     */
+    private void renderDetails(File file) {
+        RecordingMetadata info = metadata.get(file);
+        if (info == null) {
+            String state = metadataFailed.contains(file) ? "NO INFO" : "LOADING...";
+            renderer.drawText(state, PANEL_X, LIST_TOP, 12f, 0.7f, 0.7f, 0.7f, 1f);
+            return;
+        }
+        float panelW = RecordingMetadata.THUMBNAIL_WIDTH * THUMBNAIL_CELL;
+        float panelH = RecordingMetadata.THUMBNAIL_HEIGHT * THUMBNAIL_CELL;
+        renderer.drawRect(PANEL_X, LIST_TOP - 6, panelW, panelH, 0.12f, 0.12f, 0.16f, 1f);
+        // 缩略图：角色出现得越多的位置越亮
+        for (int row = 0; row < info.getThumbnailHeight(); row++) {
+            for (int column = 0; column < info.getThumbnailWidth(); column++) {
+                int value = info.getThumbnailCell(column, row);
+                if (value > 0) {
+                    float v = value / 255f;
+                    renderer.drawRect(PANEL_X + column * THUMBNAIL_CELL, LIST_TOP - 6 + row * THUMBNAIL_CELL,
+                            THUMBNAIL_CELL, THUMBNAIL_CELL, 0.3f + 0.7f * v, 0.3f + 0.5f * v, 0.2f, 1f);
+                }
+            }
+        }
+        float y = LIST_TOP + panelH + 10;
+        String[] lines = {
+                "DURATION " + formatDuration(info.getDuration()),
+                "FRAMES " + info.getFrameCount(),
+                "LEVEL " + info.getMaxLevel(),
+                "HEALTH " + (info.getFinalPlayerHealth() == RecordingMetadata.UNKNOWN_HEALTH ? "-"
+                        : info.getFinalPlayerHealth() + "/" + info.getFinalPlayerMaxHealth()),
+                "SIZE " + formatSize(info.getSourceSize()),
+                new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(info.getStartTimeMillis()))
+        };
+        for (String line : lines) {
+            renderer.drawText(line, PANEL_X, y, 12f, 0.85f, 0.85f, 0.85f, 1f);
+            y += 20;
+        }
+    }
+
+    private static String formatDuration(float seconds) {
+        int total = Math.round(seconds);
+        return String.format("%d:%02d", total / 60, total % 60);
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes >= 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+        }
+        return String.format("%.1f KB", bytes / 1024.0);
+    }
+
+    /**
+     * 列表区域能显示的行数
+     */
+    private int visibleRows() {
+        return Math.max(1, (int) ((renderer.getHeight() - LIST_TOP - 90) / ROW_HEIGHT));
+    }
+
+    /**
+     * 滚动列表使选中的行可见
+     */
+    private void scrollToSelection() {
+        int rows = visibleRows();
+        if (selectedIndex < scrollOffset) {
+            scrollOffset = selectedIndex;
+        } else if (selectedIndex >= scrollOffset + rows) {
+            scrollOffset = selectedIndex - rows + 1;
+        }
+    }
+
+    /**
+     * 在后台读取录像的摘要，每个文件只提交一次
+     */
+    private void requestMetadata(File file) {
+        if (!metadataRequested.add(file)) {
+            return;
+        }
+        if (metadataLoader == null) {
+            metadataLoader = Executors.newFixedThreadPool(METADATA_THREADS, task -> {
+                Thread thread = new Thread(task, "ReplayMetadataLoader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        metadataLoader.submit(() -> {
+            try {
+                metadata.put(file, RecordingMetadata.load(file.toPath()));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[ReplayScene] 无法读取录像摘要 " + file.getName() + ": " + e.getMessage());
+                metadataFailed.add(file);
+            }
+        });
+    }
+
+    /**
+     * 离开列表时停止读取尚未开始的摘要
+     */
+    private void shutdownMetadataLoader() {
+        if (metadataLoader != null) {
+            metadataLoader.shutdownNow();
+            metadataLoader = null;
+        }
+    }
+
     public void loadRecording(String recordingFilePath) {
+        shutdownMetadataLoader();
+        if (InputRecording.isInputRecordingFileName(recordingFilePath)) {
+            // 输入录像：用录下的种子和输入重新运行游戏
+            try {
+                GameScene replayScene = new GameScene("Input Replay", engine);
+                replayScene.replayInputs(InputRecording.read(Paths.get(recordingFilePath)));
+                engine.setScene(replayScene);
+            } catch (IOException e) {
+                System.err.println("无法读取输入录像: " + e.getMessage());
+            }
+            return;
+        }
         Scene recordingScene = new RecordingScene(engine, recordingFilePath);
         engine.setScene(recordingScene);
     }
@@ -0,0 +1,195 @@
+package com.gameengine.app;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameLogic;
+import com.gameengine.game.HuluPlayer;
+import com.gameengine.game.InputRecord;
+import com.gameengine.game.Record;
+import com.gameengine.math.Vector2;
+import com.gameengine.net.InputFrames;
+import com.gameengine.net.InputQueue;
+import com.gameengine.net.NetState;
+import com.gameengine.net.Room;
+import com.gameengine.scene.Scene;
+
+/**
+ * 多房间服务端中一个房间的对战场景
+ * 不渲染、不读取本地按键，所有玩家都是远程客户端；
+ * 每个 tick 的服务端流程与 OnlineGameScene 相同：应用输入、PvP、物理、技能、生成并发布快照。
+ * 由房间所在的模拟线程驱动，见 RoomManager。
+ * 房间的 GameLogic 不创建线程池，物理和碰撞在模拟线程上串行执行
+ */
+public final class RoomScene extends Scene implements Room.Simulation {
+
+    private static final float START_X = 100.0f;
+    private static final float START_Y = 300.0f;
+    private static final float GAP = 100.0f;
+
+    private final Room room;
+    private GameLogic gameLogic;
+    private final HuluPlayer[] players;
+    // 每个客户端最近一次被应用的输入序号
+    private final Map<String, Integer> appliedInputSeqs = new HashMap<>();
+    private final float[] remoteVelocity = new float[2];
+    // 房间第一次坐满后开始对战，之前只同步移动
+    private boolean started = false;
+    private float keyTimer = 0;
+
+    private RoomScene(Room room) {
+        super("Room-" + room.getName());
+        this.room = room;
+        this.players = new HuluPlayer[room.getCapacity()];
+    }
+
+    /**
+     * 创建房间场景，构造完成后再把场景交给 GameLogic
+     */
+    public static RoomScene create(Room room) {
+        RoomScene scene = new RoomScene(room);
+        scene.gameLogic = new GameLogic(scene, null, false);
+        scene.gameLogic.initializeMultiplayer(scene.players, null);
+        scene.initialize();
+        return scene;
+    }
+
+    @Override
+    public void onJoin(String addressId, String playerName) {
+        for (int i = 0; i < players.length; i++) {
+            if (players[i] != null) {
+                continue;
+            }
+            String name = playerName == null || playerName.isEmpty() ? "Hulu Player " + (i + 1) : playerName;
+            HuluPlayer player = new HuluPlayer(null, this, name, OnlineGameScene.Status.CLIENT);
+            player.getComponent(TransformComponent.class).setPosition(new Vector2(START_X + GAP * i, START_Y));
+            player.setRemoteAddress(addressId);
+            addGameObject(player);
+            players[i] = player;
+            System.out.println("[RoomScene] " + room.getName() + " 玩家 " + name + " 进入位置 " + (i + 1));
+            return;
+        }
+    }
+
+    @Override
+    public void onLeave(String addressId) {
+        for (int i = 0; i < players.length; i++) {
+            HuluPlayer player = players[i];
+            if (player != null && addressId.equals(player.getRemoteAddress())) {
+                // 失活的对象在下一次 Scene.update 中移除
+                player.setActive(false);
+                players[i] = null;
+                appliedInputSeqs.remove(addressId);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Record step(float deltaTime) {
+        update(deltaTime);
+        keyTimer += deltaTime;
+
+        if (!started && room.isFull()) {
+            started = true;
+            System.out.println("[RoomScene] " + room.getName() + " 人数已满，对战开始");
+        }
+
+        if (!gameLogic.isMultiplayerGameOver()) {
+            handlePlayerInputs();
+            if (started) {
+                gameLogic.updateMultiplayerSkillCooldowns(deltaTime);
+                gameLogic.checkMultiplayerPlayerCollisions(deltaTime);
+                gameLogic.checkMultiplayerSkillCollisions();
+            }
+            gameLogic.updatePhysics();
+            gameLogic.updateAttack(deltaTime);
+            gameLogic.updateMultiplayerParticles(deltaTime);
+            if (started) {
+                gameLogic.checkMultiplayerGameOver();
+            }
+        }
+
+        Record records = gameLogic.getRecord(keyTimer);
+        records.setServerTime(NetState.serverTime());
+        addInputAcks(records);
+        updateClientViews();
+        return records;
+    }
+
+    @Override
+    public void close() {
+        gameLogic.close();
+    }
+
+    /**
+     * 按顺序消费每个玩家的输入帧，每个 tick 一帧；没有输入帧时使用旧格式输入
+     */
+    private void handlePlayerInputs() {
+        for (HuluPlayer player : players) {
+            if (player == null || !player.isActive())
+                continue;
+            String addr = player.getRemoteAddress();
+            InputQueue queue = room.getInputQueue(addr);
+            if (queue != null && queue.consumeTick()) {
+                InputFrames.toVelocity(queue.getCurrentBits(), remoteVelocity);
+                OnlineGameScene.applyRemoteVelocity(player, remoteVelocity[0], remoteVelocity[1]);
+                appliedInputSeqs.put(addr, queue.getCurrentSeq());
+                continue;
+            }
+            InputRecord input = room.getClientInput(addr);
+            if (input != null) {
+                OnlineGameScene.applyRemoteVelocity(player, input.vx, input.vy);
+                appliedInputSeqs.put(addr, input.seq);
+            }
+        }
+    }
+
+    private void addInputAcks(Record records) {
+        for (HuluPlayer player : players) {
+            if (player == null)
+                continue;
+            Integer seq = appliedInputSeqs.get(player.getRemoteAddress());
+            records.addInputAck(player.getRemoteAddress(), player.getNetId(), seq == null ? 0 : seq);
+        }
+    }
+
+    private void updateClientViews() {
+        for (HuluPlayer player : players) {
+            if (player == null || !player.isActive())
+                continue;
+            TransformComponent transform = player.getComponent(TransformComponent.class);
+            if (transform == null)
+                continue;
+            Vector2 pos = transform.getPosition();
+            NetState.updateClientView(player.getRemoteAddress(), pos.x, pos.y);
+        }
+    }
+
+    // ========== 查询（测试与监控） ==========
+
+    public Room getRoom() {
+        return room;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public boolean isGameOver() {
+        return gameLogic.isMultiplayerGameOver();
+    }
+
+    /**
+     * 获取房间中某个会话对应的玩家
+     */
+    public HuluPlayer getPlayer(String addressId) {
+        for (HuluPlayer player : players) {
+            if (player != null && addressId.equals(player.getRemoteAddress())) {
+                return player;
+            }
+        }
+        return null;
+    }
+}
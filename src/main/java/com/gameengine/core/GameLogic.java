@@ -13,6 +13,8 @@ import com.gameengine.game.EnemySoldier;
 import com.gameengine.game.EnemyWizard;
 import com.gameengine.game.HuluPlayer;
 import com.gameengine.graphics.IRenderer;
+import com.gameengine.recording.InputRecording;
+import com.gameengine.recording.RecordingFrame;
 import com.gameengine.core.ParticleSystem;
 import com.google.gson.Gson;
 
@@ -22,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Random;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Objects;
 
 // 并行处理类导入
 import java.util.concurrent.ExecutorService;
@@ -52,6 +55,13 @@ public class GameLogic implements AutoCloseable {
 
     private boolean gameOver;
 
+    // 确定性模式：随机数使用固定种子，敌人移动和碰撞检测按固定顺序串行处理，
+    // 同样的种子和输入序列得到同样的结果，用于输入录像的录制和回放
+    private boolean deterministic = false;
+    private Random moveJitter; // 敌人移动方向的随机偏移，确定性模式下使用
+    private int inputOverride = -1; // 非负时代替键盘输入（InputRecording 的输入位）
+    private boolean stopEngineOnGameOver = true;
+
     // Multiplayer 相关字段
     private HuluPlayer[] multiplayerPlayers;
     private float[] playerSkillCooldownTimers;
@@ -65,6 +75,8 @@ public class GameLogic implements AutoCloseable {
     // 多线程通用组件
     private final int PARALLEL_THRESHOLD = 20; // 组件数量超过此值才启用并行
     private final int threadCount;
+    // 为 false 时不创建线程池，物理和碰撞始终串行（多房间服务端的房间已经各自运行在模拟线程上）
+    private final boolean parallel;
 
     // 物理更新多线程赋值
     private ExecutorService physicsExecutor;
@@ -75,6 +87,13 @@ public class GameLogic implements AutoCloseable {
     private Gson gson;
 
     public GameLogic(Scene scene, GameEngine engine) {
+        this(scene, engine, true);
+    }
+
+    /**
+     * @param parallel 是否使用线程池并行处理物理和碰撞
+     */
+    public GameLogic(Scene scene, GameEngine engine, boolean parallel) {
         this.scene = scene;
         this.engine = engine;
         this.inputManager = InputManager.getInstance();
@@ -88,6 +107,10 @@ public class GameLogic implements AutoCloseable {
 
         // 多线程池通用threadCount赋值
         this.threadCount = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        this.parallel = parallel;
+        if (!parallel) {
+            return;
+        }
         // 为避免重复创建线程池，在此初始化
         // 初始化物理更新多线程池
         physicsExecutor = Executors.newFixedThreadPool(threadCount);
@@ -150,6 +173,99 @@ public class GameLogic implements AutoCloseable {
         }
     }
 
+    /**
+     * 进入确定性模式并设置随机数种子
+     * @param logicSeed GameLogic 自身随机数的种子
+     * @param moveJitterSeed 敌人移动方向随机偏移的种子
+     */
+    public void setRandomSeeds(long logicSeed, long moveJitterSeed) {
+        this.random = new Random(logicSeed);
+        this.moveJitter = new Random(moveJitterSeed);
+        this.deterministic = true;
+    }
+
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * 用录下的输入位代替键盘输入，传入 -1 恢复读取键盘
+     */
+    public void setInputOverride(int bits) {
+        this.inputOverride = bits;
+    }
+
+    /**
+     * 玩家死亡时是否结束引擎，回放时关闭，避免回放到玩家死亡时退出游戏
+     */
+    public void setStopEngineOnGameOver(boolean stopEngineOnGameOver) {
+        this.stopEngineOnGameOver = stopEngineOnGameOver;
+    }
+
+    /**
+     * 读取当前键盘状态，按 InputRecording 的输入位返回
+     */
+    public int readInputBits() {
+        int bits = 0;
+        if (inputManager.isKeyPressed(87) || inputManager.isKeyPressed(38)) { // W或上箭头
+            bits |= InputRecording.UP;
+        }
+        if (inputManager.isKeyPressed(83) || inputManager.isKeyPressed(40)) { // S或下箭头
+            bits |= InputRecording.DOWN;
+        }
+        if (inputManager.isKeyPressed(65) || inputManager.isKeyPressed(37)) { // A或左箭头
+            bits |= InputRecording.LEFT;
+        }
+        if (inputManager.isKeyPressed(68) || inputManager.isKeyPressed(39)) { // D或右箭头
+            bits |= InputRecording.RIGHT;
+        }
+        if (inputManager.isKeyPressed(74)) { // J按键
+            bits |= InputRecording.ATTACK;
+        }
+        return bits;
+    }
+
+    /**
+     * 单人模式一帧的游戏规则，按固定顺序执行
+     * 碰撞检测（checkAiCollisions）由调用方在记录状态之后单独执行
+     */
+    public void updateSinglePlayer(float deltaTime) {
+        handlePlayerInput();
+        updatePhysics();
+        updateEnemyMovement(deltaTime);
+        updateAttack(deltaTime);
+        updateEnemyAttack(deltaTime);
+        updateEnemyKingSkills(deltaTime); // 更新国王追踪火球技能
+        updateEnemyWizardSkills(deltaTime); // 更新法师陷阱球技能
+        checkEntityAlive();
+    }
+
+    /**
+     * 当前状态的校验和，覆盖所有活跃对象的名称、位置、旋转和血量
+     * 同样的种子和输入回放到同一帧时应当相同，不同说明模拟出现了偏差
+     */
+    public int stateChecksum() {
+        int hash = gameOver ? 1 : 0;
+        hash = 31 * hash + Float.floatToIntBits(playerSkillCooldownTimer);
+        for (GameObject obj : scene.getGameObjects()) {
+            if (!obj.isActive() || obj.getidentity().equals("None"))
+                continue;
+            hash = 31 * hash + Objects.hashCode(obj.getName());
+            TransformComponent transform = obj.getComponent(TransformComponent.class);
+            if (transform != null) {
+                Vector2 pos = transform.getPosition();
+                hash = 31 * hash + Float.floatToIntBits(pos.x);
+                hash = 31 * hash + Float.floatToIntBits(pos.y);
+                hash = 31 * hash + Float.floatToIntBits(transform.getRotation());
+            }
+            LifeFeatureComponent life = obj.getComponent(LifeFeatureComponent.class);
+            if (life != null) {
+                hash = 31 * hash + life.getBlood();
+            }
+        }
+        return hash;
+    }
+
     /**
      * 返回当前游戏状态
      */
@@ -202,12 +318,14 @@ public class GameLogic implements AutoCloseable {
 
     /**
      * 记录游戏对象的当前状态
+     * @param currentLevel 当前关卡，由 LevelManager 提供
      */
-    public void updateRecords(float keyTimer, FileWriter recordingWriter) {
+    public void updateRecords(float keyTimer, FileWriter recordingWriter, int currentLevel) {
 
         Record records = new Record();
         records.setKey(keyTimer);
         records.setRecordType("object_move");
+        records.setCurrentLevel(currentLevel);
 
         // 记录玩家血量
         GameObject player = getPlayer();
@@ -246,6 +364,41 @@ public class GameLogic implements AutoCloseable {
         }
     }
 
+    /**
+     * 把当前状态写入异步录制的帧槽位
+     * 复用槽位中预先分配的对象记录，在游戏线程上调用，不做序列化和文件写入
+     * @param currentLevel 当前关卡，由 LevelManager 提供
+     */
+    public void captureRecord(float keyTimer, RecordingFrame frame, int currentLevel) {
+        Record records = frame.getRecord();
+        records.setKey(keyTimer);
+        records.setCurrentLevel(currentLevel);
+
+        // 记录玩家血量
+        GameObject player = getPlayer();
+        if (player != null) {
+            LifeFeatureComponent lifeFeature = player.getComponent(LifeFeatureComponent.class);
+            if (lifeFeature != null) {
+                records.setPlayerHealth(lifeFeature.getBlood());
+                records.setPlayerMaxHealth(100);
+            }
+        }
+
+        // 记录技能冷却百分比
+        records.setSkillCooldownPercent(getSkillCooldownPercentage());
+
+        for (GameObject obj : scene.getGameObjects()) {
+
+            if (!obj.isActive())
+                continue;
+
+            if (obj.getidentity().equals("None"))
+                continue; // 对于无身份的对象不记录
+
+            obj.fillRecord(frame.addObject());
+        }
+    }
+
     /**
      * 获取录制信息
      * 用于网络服务
@@ -299,21 +452,22 @@ public class GameLogic implements AutoCloseable {
             return;
 
         Vector2 movement = new Vector2();
+        int bits = inputOverride >= 0 ? inputOverride : readInputBits();
 
-        if (inputManager.isKeyPressed(87) || inputManager.isKeyPressed(38)) { // W或上箭头
+        if ((bits & InputRecording.UP) != 0) {
             movement.y -= 1;
         }
-        if (inputManager.isKeyPressed(83) || inputManager.isKeyPressed(40)) { // S或下箭头
+        if ((bits & InputRecording.DOWN) != 0) {
             movement.y += 1;
         }
-        if (inputManager.isKeyPressed(65) || inputManager.isKeyPressed(37)) { // A或左箭头
+        if ((bits & InputRecording.LEFT) != 0) {
             movement.x -= 1;
         }
-        if (inputManager.isKeyPressed(68) || inputManager.isKeyPressed(39)) { // D或右箭头
+        if ((bits & InputRecording.RIGHT) != 0) {
             movement.x += 1;
         }
 
-        if (inputManager.isKeyPressed(74)) { // J按键
+        if ((bits & InputRecording.ATTACK) != 0) { // J按键
 
             handlePlayerAttackJ();
 
@@ -444,7 +598,7 @@ public class GameLogic implements AutoCloseable {
             return;
 
         // 根据组件数量决定串行还是并行
-        if (physicsComponents.size() < PARALLEL_THRESHOLD) {
+        if (physicsComponents.size() < PARALLEL_THRESHOLD || !parallel) {
             updatePhysicsSerial(physicsComponents);
         } else {
             updatePhysicsParallel(physicsComponents);
@@ -558,9 +712,9 @@ public class GameLogic implements AutoCloseable {
         if (players.isEmpty() && enemies.isEmpty()) {
             return;
         }
-        // 根据对象多少决定并行或串行的方式
+        // 根据对象多少决定并行或串行的方式，确定性模式下始终串行（并行时同一个技能可能被两个敌人先后命中）
         int totalCollisions = players.size() + enemies.size();
-        if (totalCollisions < PARALLEL_THRESHOLD) {
+        if (totalCollisions < PARALLEL_THRESHOLD || deterministic || !parallel) {
             checkAiCollisionsSerial(players, enemies, playerSkills);
         } else {
             checkAiCollisionsParallel(players, enemies, playerSkills);
@@ -820,8 +974,8 @@ public class GameLogic implements AutoCloseable {
         TransformComponent playerTransform = player.getComponent(TransformComponent.class);
         Vector2 playerPos = playerTransform.getPosition();
 
-        // 根据敌人数量决定并行或串行
-        if (enemyList.size() < PARALLEL_THRESHOLD) {
+        // 根据敌人数量决定并行或串行，确定性模式下按顺序使用同一个随机数生成器，必须串行
+        if (enemyList.size() < PARALLEL_THRESHOLD || deterministic) {
             enemyList.forEach(enemy -> updateSingleEnemyMove(enemy, playerPos));
         } else {
             // 这里采用并行流处理敌人移动，而不是executor方法，以简化代码
@@ -838,7 +992,7 @@ public class GameLogic implements AutoCloseable {
         if (transform == null || physics == null)
             return;
 
-        Random random = new Random();
+        Random random = moveJitter != null ? moveJitter : new Random();
         float PlayerAngle = playerPos.subtract(transform.getPosition()).angle();
         float randomAngle = (random.nextFloat() * 60 - 45) * (float) Math.PI / 180;
         float adjustedX = (float) Math.cos(PlayerAngle + randomAngle);
@@ -1027,7 +1181,9 @@ public class GameLogic implements AutoCloseable {
                 } else if (entity.getidentity().equals("Player")) {
                     System.out.println("Game Over");
                     this.gameOver = true;
-                    engine.gameOver();
+                    if (stopEngineOnGameOver) {
+                        engine.gameOver();
+                    }
                 }
 
                 // 使实体消失（设置为不活跃状态）
@@ -7,11 +7,16 @@ import com.gameengine.math.Vector2;
 import com.gameengine.game.GameObjectRecord;
 import com.gameengine.scene.Scene;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 游戏对象基类，使用泛型组件系统
  */
 public class GameObject {
+    // 全局递增的网络 ID 生成器，保证同名对象（如多个 EnemySoldier）也能被区分
+    private static final AtomicInteger NEXT_NET_ID = new AtomicInteger(1);
+
+    protected final int netId = NEXT_NET_ID.getAndIncrement();
     protected boolean active;
     protected String name;
     protected String identity = "None";
@@ -100,9 +105,18 @@ public class GameObject {
      * 获取所有组件记录
      */
     public GameObjectRecord getRecords() {
-
         GameObjectRecord record = new GameObjectRecord();
+        fillRecord(record);
+        return record;
+    }
+
+    /**
+     * 把组件记录写入给定的对象，供录制时复用预先分配的记录对象
+     * 只写入本对象拥有的组件对应的字段，其余字段保持原值
+     */
+    public void fillRecord(GameObjectRecord record) {
         record.id = this.name;
+        record.netId = this.netId;
         record.identity = this.identity; // 记录对象身份
 
         for (Component<?> component : components) {
@@ -146,8 +160,6 @@ public class GameObject {
             }
         }
 
-        return record;
-
         // StringBuilder records = new StringBuilder();
 
         // for (Component<?> component : components) {
@@ -226,6 +238,10 @@ public class GameObject {
         this.active = active;
     }
 
+    public int getNetId() {
+        return netId;
+    }
+
     public String getName() {
         return name;
     }
@@ -4,6 +4,8 @@ import com.gameengine.components.RenderComponent.RenderType;
 
 public class GameObjectRecord {
     public String id;
+    // 稳定的网络 ID，同名对象之间也唯一（旧录像中为 0）
+    public int netId;
     // 坐标位置
     public float x;
     public float y;
@@ -27,4 +29,30 @@ public class GameObjectRecord {
     
     // 对象身份标识（Player, Enemy, Player Skill, Enemy Skill 等）
     public String identity;
+
+    /**
+     * 复制全部字段，Record.seal 用它让已发布的快照持有自己的对象
+     */
+    public GameObjectRecord copy() {
+        GameObjectRecord copy = new GameObjectRecord();
+        copy.id = id;
+        copy.netId = netId;
+        copy.x = x;
+        copy.y = y;
+        copy.rt = rt;
+        copy.height = height;
+        copy.width = width;
+        copy.alpha = alpha;
+        copy.imagePath = imagePath;
+        copy.r = r;
+        copy.g = g;
+        copy.b = b;
+        copy.a = a;
+        copy.segments = segments;
+        copy.rotation = rotation;
+        copy.currentHealth = currentHealth;
+        copy.maxHealth = maxHealth;
+        copy.identity = identity;
+        return copy;
+    }
 }
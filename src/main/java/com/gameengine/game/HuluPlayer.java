@@ -171,6 +171,14 @@ public class HuluPlayer extends GameObject {
         );
     }
     
+    /**
+     * 使用固定种子选择技能类型和技能初始位置（输入录像回放使用）
+     * 需要在第一次初始化技能之前调用
+     */
+    public void setRandomSeed(long seed) {
+        this.random = new Random(seed);
+    }
+
     /**
      * 初始化技能J
      * 葫芦娃的五行技能，按J触发
@@ -9,6 +9,8 @@ public class InputRecord {
     public String addressId;  // 使用字符串存储地址，便于 JSON 序列化
     public float vx;
     public float vy;
+    public int seq;   // 输入序号，服务端在快照中回传已处理的最大序号（旧客户端为 0）
+    public float dt;  // 该输入持续的时间（秒），客户端预测按此推进
     
     public InputRecord() {}
     
@@ -1,6 +1,7 @@
 package com.gameengine.game;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import com.google.gson.annotations.SerializedName;
 
@@ -26,6 +27,31 @@ public class Record {
     int playerMaxHealth;        // 玩家最大血量
     float skillCooldownPercent; // 技能冷却百分比 (0.0 - 1.0)
     int currentLevel;           // 当前关卡
+    double serverTime;          // 服务端生成快照的时刻（秒，服务端单调时钟，旧数据为 0）
+    
+    // 每个远程玩家的输入确认，客户端据此做预测校正（为 null 时不序列化）
+    List<InputAck> inputAcks;
+    
+    // 已发布给网络线程的快照不可再修改（transient，不参与序列化）
+    private transient boolean sealed = false;
+    
+    /**
+     * 输入确认
+     * 服务端在生成快照时已处理到的客户端输入序号，以及该客户端所控制玩家的网络 ID
+     */
+    public static class InputAck {
+        public String addressId;
+        public int netId;
+        public int lastInputSeq;
+        
+        public InputAck() {}
+        
+        public InputAck(String addressId, int netId, int lastInputSeq) {
+            this.addressId = addressId;
+            this.netId = netId;
+            this.lastInputSeq = lastInputSeq;
+        }
+    }
 
     public Record() {
         gameObjectMove = new ArrayList<GameObjectRecord>();
@@ -37,6 +63,7 @@ public class Record {
     }
 
     public void setRecordType(String Recordtype) {
+        checkMutable();
         if (Recordtype == "input") {
             type = RecordType.INPUT;
             // 这里设置为null是为了不让gson记录他们
@@ -48,9 +75,73 @@ public class Record {
     }
 
     public void setKey(float key) {
+        checkMutable();
         this.key = key;
     }
 
+    /**
+     * 复制当前快照的全局状态，并替换为给定的对象列表
+     * 用于服务端按客户端视野裁剪快照，原快照不受影响
+     */
+    public Record withGameObjects(List<GameObjectRecord> objects) {
+        Record copy = new Record();
+        copy.key = this.key;
+        copy.type = this.type;
+        copy.gameObjectMove = objects;
+        copy.inputRecords = this.inputRecords;
+        copy.playerHealth = this.playerHealth;
+        copy.playerMaxHealth = this.playerMaxHealth;
+        copy.skillCooldownPercent = this.skillCooldownPercent;
+        copy.currentLevel = this.currentLevel;
+        copy.serverTime = this.serverTime;
+        copy.inputAcks = this.inputAcks;
+        return copy;
+    }
+
+    /**
+     * 冻结快照
+     * 服务端发布快照时调用：列表替换为不可修改的副本，之后的修改会抛出异常，
+     * 网络线程序列化时不会读到模拟线程正在修改的数据。
+     * 对象列表和输入确认中的元素也复制一份，模拟线程手里的引用（包括录制时复用的记录对象）之后再写入，
+     * 不会改到已发布的快照；这些对象的字段是公开的，无法阻止写入，
+     * 快照的读者（网络线程、进程内客户端）只读取，不修改
+     * @return this
+     */
+    public Record seal() {
+        if (sealed) {
+            return this;
+        }
+        if (gameObjectMove != null) {
+            List<GameObjectRecord> objects = new ArrayList<>(gameObjectMove.size());
+            for (GameObjectRecord o : gameObjectMove) {
+                objects.add(o == null ? null : o.copy());
+            }
+            gameObjectMove = Collections.unmodifiableList(objects);
+        }
+        if (inputRecords != null) {
+            inputRecords = Collections.unmodifiableList(new ArrayList<>(inputRecords));
+        }
+        if (inputAcks != null) {
+            List<InputAck> acks = new ArrayList<>(inputAcks.size());
+            for (InputAck ack : inputAcks) {
+                acks.add(new InputAck(ack.addressId, ack.netId, ack.lastInputSeq));
+            }
+            inputAcks = Collections.unmodifiableList(acks);
+        }
+        sealed = true;
+        return this;
+    }
+    
+    public boolean isSealed() {
+        return sealed;
+    }
+    
+    private void checkMutable() {
+        if (sealed) {
+            throw new IllegalStateException("快照已发布，不能再修改");
+        }
+    }
+
     public List<GameObjectRecord> getGameObjectsMove() {
         return this.gameObjectMove;
     }
@@ -75,6 +166,7 @@ public class Record {
     }
     
     public void setPlayerHealth(int health) {
+        checkMutable();
         this.playerHealth = health;
     }
     
@@ -83,6 +175,7 @@ public class Record {
     }
     
     public void setPlayerMaxHealth(int maxHealth) {
+        checkMutable();
         this.playerMaxHealth = maxHealth;
     }
     
@@ -91,6 +184,7 @@ public class Record {
     }
     
     public void setSkillCooldownPercent(float percent) {
+        checkMutable();
         this.skillCooldownPercent = percent;
     }
     
@@ -99,6 +193,40 @@ public class Record {
     }
     
     public void setCurrentLevel(int level) {
+        checkMutable();
         this.currentLevel = level;
     }
+    
+    public double getServerTime() {
+        return serverTime;
+    }
+    
+    public void setServerTime(double serverTime) {
+        checkMutable();
+        this.serverTime = serverTime;
+    }
+    
+    public void addInputAck(String addressId, int netId, int lastInputSeq) {
+        checkMutable();
+        if (inputAcks == null) {
+            inputAcks = new ArrayList<InputAck>();
+        }
+        inputAcks.add(new InputAck(addressId, netId, lastInputSeq));
+    }
+    
+    /**
+     * 查找指定客户端的输入确认
+     * @return 没有对应确认时返回 null
+     */
+    public InputAck getInputAck(String addressId) {
+        if (inputAcks == null || addressId == null) {
+            return null;
+        }
+        for (InputAck ack : inputAcks) {
+            if (addressId.equals(ack.addressId)) {
+                return ack;
+            }
+        }
+        return null;
+    }
 }
\ No newline at end of file
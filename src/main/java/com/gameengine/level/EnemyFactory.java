@@ -23,10 +23,21 @@ public class EnemyFactory {
     private final Random random;
     
     public EnemyFactory(IRenderer renderer, Scene scene, GameLogic gameLogic) {
+        this(renderer, scene, gameLogic, new Random());
+    }
+
+    /**
+     * 使用固定种子，同样的种子生成同样位置和行为的敌人（输入录像回放使用）
+     */
+    public EnemyFactory(IRenderer renderer, Scene scene, GameLogic gameLogic, long seed) {
+        this(renderer, scene, gameLogic, new Random(seed));
+    }
+
+    private EnemyFactory(IRenderer renderer, Scene scene, GameLogic gameLogic, Random random) {
         this.renderer = renderer;
         this.scene = scene;
         this.gameLogic = gameLogic;
-        this.random = new Random();
+        this.random = random;
     }
     
     /**
@@ -0,0 +1,196 @@
+package com.gameengine.net;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 客户端预测与服务端校正
+ * 客户端发送输入的同时立即按相同的移动规则推进本地玩家的位置，不必等待服务端快照；
+ * 收到快照后以服务端位置为准，丢弃已被确认的输入，再把尚未确认的输入重新叠加上去。
+ * 校正前后预测位置的差值即为预测误差，用于衡量本地移动规则与服务端的偏差
+ *
+ * 远程实体仍然使用 NetworkBuffer 插值，只有本地玩家使用预测位置
+ */
+public class ClientPredictor {
+
+    // 与服务端联机模式的移动规则保持一致（HuluPlayer 摩擦系数、800x600 世界）
+    public static final float WORLD_WIDTH = 800f;
+    public static final float WORLD_HEIGHT = 600f;
+    public static final float PLAYER_FRICTION = 0.95f;
+
+    // 最多保留的未确认输入数（60Hz 下约 2 秒）
+    private static final int MAX_PENDING_INPUTS = 128;
+    // 单条输入最多推进的时间，避免客户端卡顿后一次跳得过远
+    private static final float MAX_INPUT_DT = 0.1f;
+
+    /**
+     * 未确认的输入
+     */
+    private static final class PendingInput {
+        final int seq;
+        final float vx;
+        final float vy;
+        final float dt;
+
+        PendingInput(int seq, float vx, float vy, float dt) {
+            this.seq = seq;
+            this.vx = vx;
+            this.vy = vy;
+            this.dt = dt;
+        }
+    }
+
+    private final Deque<PendingInput> pending = new ArrayDeque<>();
+    private final float[] predicted = new float[2];
+    private boolean hasPrediction = false;
+    private volatile int localNetId = 0;
+    private int lastAckSeq = 0;
+
+    // 预测误差统计
+    private long reconcileCount = 0;
+    private float lastError = 0;
+    private float maxError = 0;
+    private double totalError = 0;
+
+    /**
+     * 按联机模式的移动规则推进一步
+     * 位置按速度和摩擦推进后限制在世界范围内
+     * @param pos 位置 {x, y}，原地修改
+     */
+    public static void step(float[] pos, float vx, float vy, float dt) {
+        pos[0] += vx * PLAYER_FRICTION * dt;
+        pos[1] += vy * PLAYER_FRICTION * dt;
+        pos[0] = Math.max(0, Math.min(WORLD_WIDTH, pos[0]));
+        pos[1] = Math.max(0, Math.min(WORLD_HEIGHT, pos[1]));
+    }
+
+    /**
+     * 记录一条已发送的输入，并立即应用到预测位置
+     * @param seq 输入序号，应单调不减（同一输入帧持续多步时序号相同）
+     * @param dt 该输入持续的时间（秒）
+     */
+    public synchronized void recordInput(int seq, float vx, float vy, float dt) {
+        dt = Math.max(0, Math.min(MAX_INPUT_DT, dt));
+        if (pending.size() >= MAX_PENDING_INPUTS) {
+            pending.pollFirst();
+        }
+        pending.addLast(new PendingInput(seq, vx, vy, dt));
+        if (hasPrediction) {
+            step(predicted, vx, vy, dt);
+        }
+    }
+
+    /**
+     * 用服务端的权威状态校正预测
+     * @param serverX 服务端快照中本地玩家的位置
+     * @param serverY 服务端快照中本地玩家的位置
+     * @param ackSeq 服务端生成快照时已处理的最大输入序号
+     */
+    public synchronized void reconcile(float serverX, float serverY, int ackSeq) {
+        // 快照乱序或重复时不回退
+        if (hasPrediction && UdpPacketCodec.isNewer(lastAckSeq, ackSeq)) {
+            return;
+        }
+        lastAckSeq = ackSeq;
+        while (!pending.isEmpty() && !UdpPacketCodec.isNewer(pending.peekFirst().seq, ackSeq)) {
+            pending.pollFirst();
+        }
+
+        float oldX = predicted[0];
+        float oldY = predicted[1];
+        boolean hadPrediction = hasPrediction;
+
+        predicted[0] = serverX;
+        predicted[1] = serverY;
+        for (PendingInput input : pending) {
+            step(predicted, input.vx, input.vy, input.dt);
+        }
+        hasPrediction = true;
+
+        if (hadPrediction) {
+            float error = (float) Math.hypot(predicted[0] - oldX, predicted[1] - oldY);
+            lastError = error;
+            if (error > maxError) {
+                maxError = error;
+            }
+            totalError += error;
+            reconcileCount++;
+        }
+    }
+
+    /**
+     * 读取预测位置
+     * @param out 输出数组 {x, y}
+     * @return 尚未收到过服务端状态时返回 false
+     */
+    public synchronized boolean getPredictedPosition(float[] out) {
+        if (!hasPrediction) {
+            return false;
+        }
+        out[0] = predicted[0];
+        out[1] = predicted[1];
+        return true;
+    }
+
+    public synchronized boolean hasPrediction() {
+        return hasPrediction;
+    }
+
+    /**
+     * 本地玩家的网络 ID，由服务端在输入确认中告知，未知时为 0
+     */
+    public int getLocalNetId() {
+        return localNetId;
+    }
+
+    public void setLocalNetId(int localNetId) {
+        this.localNetId = localNetId;
+    }
+
+    public synchronized int getPendingInputCount() {
+        return pending.size();
+    }
+
+    public synchronized int getLastAckSeq() {
+        return lastAckSeq;
+    }
+
+    public synchronized long getReconcileCount() {
+        return reconcileCount;
+    }
+
+    /**
+     * 最近一次校正的预测误差（像素）
+     */
+    public synchronized float getLastError() {
+        return lastError;
+    }
+
+    /**
+     * 预测误差的最大值（像素）
+     */
+    public synchronized float getMaxError() {
+        return maxError;
+    }
+
+    /**
+     * 预测误差的平均值（像素）
+     */
+    public synchronized float getAverageError() {
+        return reconcileCount == 0 ? 0f : (float) (totalError / reconcileCount);
+    }
+
+    /**
+     * 清空预测状态（断线重连等）
+     */
+    public synchronized void reset() {
+        pending.clear();
+        hasPrediction = false;
+        localNetId = 0;
+        lastAckSeq = 0;
+        reconcileCount = 0;
+        lastError = 0;
+        maxError = 0;
+        totalError = 0;
+    }
+}
@@ -0,0 +1,227 @@
+package com.gameengine.net;
+
+/**
+ * 客户端与服务端的时钟同步
+ * 客户端定期发送 PING，服务端回传 PONG，按 NTP 的方式计算往返时延和时钟偏移：
+ *   t0 客户端发送  t1 服务端收到  t2 服务端发出  t3 客户端收到
+ *   delay  = (t3 - t0) - (t2 - t1)
+ *   offset = ((t1 - t0) + (t2 - t3)) / 2      （服务端时钟 - 客户端时钟）
+ * 最近若干个样本中取时延最小的一个作为偏移估计（排队越少的样本越准确）。
+ *
+ * 同时按 RFC 3550 统计快照到达抖动，并据此自适应选择插值延迟：
+ * 延迟需覆盖一个快照间隔加上若干倍抖动，才能保证插值时下一帧已经到达。
+ * 延迟变化时逐步调整，避免渲染时刻跳变
+ */
+public class ClockSync {
+
+    public static final String PING_PREFIX = "PING:";
+    public static final String PONG_PREFIX = "PONG:";
+
+    private static final int FILTER_SIZE = 8; // NTP 时钟滤波器样本数
+    private static final double MIN_DELAY_SEC = 0.05;
+    private static final double MAX_DELAY_SEC = 0.5;
+    private static final double DEFAULT_DELAY_SEC = 0.12;
+    private static final double JITTER_MULTIPLIER = 3.0;
+    private static final double SAFETY_MARGIN_SEC = 0.01;
+    private static final double DELAY_SLEW = 0.05; // 每个快照最多向目标调整的比例
+
+    // NTP 样本
+    private final double[] sampleDelay = new double[FILTER_SIZE];
+    private final double[] sampleOffset = new double[FILTER_SIZE];
+    private int sampleHead = 0;
+    private int sampleCount = 0;
+
+    private boolean synced = false;
+    private double offset = 0;
+    private double rtt = 0;
+    private double rttVar = 0;
+
+    // 快照到达统计
+    private boolean hasSnapshot = false;
+    private double lastTransit = 0;
+    private double lastServerTime = 0;
+    private double jitter = 0;
+    private double snapshotInterval = 0;
+    private double interpolationDelay = DEFAULT_DELAY_SEC;
+
+    /**
+     * 客户端单调时钟（秒）
+     */
+    public static double clientNow() {
+        return System.nanoTime() / 1_000_000_000.0;
+    }
+
+    /**
+     * 构造 PING 消息
+     */
+    public static String ping(int seq, double clientSendTime) {
+        return PING_PREFIX + seq + ":" + clientSendTime + "\n";
+    }
+
+    /**
+     * 服务端根据 PING 构造 PONG 消息
+     * @return PING 格式不合法时返回 null
+     */
+    public static String pong(String ping, double serverReceiveTime, double serverSendTime) {
+        String[] parts = ping.trim().split(":");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            int seq = Integer.parseInt(parts[1]);
+            double t0 = Double.parseDouble(parts[2]);
+            return PONG_PREFIX + seq + ":" + t0 + ":" + serverReceiveTime + ":" + serverSendTime + "\n";
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 客户端处理 PONG 消息
+     * @return 消息格式合法时返回 true
+     */
+    public boolean onPong(String pong, double clientReceiveTime) {
+        String[] parts = pong.trim().split(":");
+        if (parts.length != 5) {
+            return false;
+        }
+        try {
+            double t0 = Double.parseDouble(parts[2]);
+            double t1 = Double.parseDouble(parts[3]);
+            double t2 = Double.parseDouble(parts[4]);
+            addSample(t0, t1, t2, clientReceiveTime);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 加入一次 PING/PONG 的四个时间戳
+     */
+    public synchronized void addSample(double t0, double t1, double t2, double t3) {
+        double delay = Math.max(0, (t3 - t0) - (t2 - t1));
+        double sampleOff = ((t1 - t0) + (t2 - t3)) / 2;
+
+        sampleDelay[sampleHead] = delay;
+        sampleOffset[sampleHead] = sampleOff;
+        sampleHead = (sampleHead + 1) % FILTER_SIZE;
+        if (sampleCount < FILTER_SIZE) {
+            sampleCount++;
+        }
+
+        // 时钟滤波：取时延最小的样本
+        int best = 0;
+        for (int i = 1; i < sampleCount; i++) {
+            if (sampleDelay[i] < sampleDelay[best]) {
+                best = i;
+            }
+        }
+        offset = sampleOffset[best];
+
+        // 平滑 RTT（与 TCP 的 SRTT/RTTVAR 相同的系数）
+        if (!synced) {
+            rtt = delay;
+            rttVar = delay / 2;
+        } else {
+            rttVar += (Math.abs(delay - rtt) - rttVar) / 4;
+            rtt += (delay - rtt) / 8;
+        }
+        synced = true;
+    }
+
+    /**
+     * 记录一次快照到达，更新到达抖动和插值延迟
+     * @param serverTime 快照的服务端时间戳
+     * @param clientReceiveTime 客户端收到快照的时刻
+     */
+    public synchronized void onSnapshot(double serverTime, double clientReceiveTime) {
+        double transit = clientReceiveTime - serverTime;
+        if (hasSnapshot) {
+            double interval = serverTime - lastServerTime;
+            if (interval <= 0) {
+                return; // 重复或乱序的快照
+            }
+            jitter += (Math.abs(transit - lastTransit) - jitter) / 16;
+            snapshotInterval = snapshotInterval == 0 ? interval : snapshotInterval + (interval - snapshotInterval) / 16;
+
+            double target = snapshotInterval + JITTER_MULTIPLIER * jitter + SAFETY_MARGIN_SEC;
+            target = Math.max(MIN_DELAY_SEC, Math.min(MAX_DELAY_SEC, target));
+            interpolationDelay += (target - interpolationDelay) * DELAY_SLEW;
+        }
+        hasSnapshot = true;
+        lastTransit = transit;
+        lastServerTime = serverTime;
+    }
+
+    /**
+     * 是否已经收到过 PONG
+     */
+    public synchronized boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * 估计的时钟偏移（服务端时钟 - 客户端时钟，秒）
+     */
+    public synchronized double getOffset() {
+        return offset;
+    }
+
+    /**
+     * 平滑往返时延（秒）
+     */
+    public synchronized double getRtt() {
+        return rtt;
+    }
+
+    /**
+     * 往返时延的平均偏差（秒）
+     */
+    public synchronized double getRttVariance() {
+        return rttVar;
+    }
+
+    /**
+     * 快照到达抖动（秒，RFC 3550）
+     */
+    public synchronized double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * 估计的快照间隔（秒）
+     */
+    public synchronized double getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * 当前的插值延迟（秒）
+     */
+    public synchronized double getInterpolationDelay() {
+        return interpolationDelay;
+    }
+
+    /**
+     * 把客户端时刻换算为服务端时刻
+     */
+    public synchronized double toServerTime(double clientTime) {
+        return clientTime + offset;
+    }
+
+    public synchronized void reset() {
+        sampleHead = 0;
+        sampleCount = 0;
+        synced = false;
+        offset = 0;
+        rtt = 0;
+        rttVar = 0;
+        hasSnapshot = false;
+        lastTransit = 0;
+        lastServerTime = 0;
+        jitter = 0;
+        snapshotInterval = 0;
+        interpolationDelay = DEFAULT_DELAY_SEC;
+    }
+}
@@ -0,0 +1,148 @@
+package com.gameengine.net;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 主 Reactor 的连接分配策略
+ * 决定新接受的连接交给哪个子 Reactor，以及连接完成 JOIN 后是否迁移到另一个子 Reactor。
+ *
+ * 内置策略：
+ * roundRobin()         轮询（默认）
+ * leastConnections()   连接数最少
+ * leastBytesPerSecond() 最近吞吐量（读 + 写字节/秒）最低
+ * roomAffinity(...)    同一房间的客户端迁移到同一个子 Reactor，房间快照在该子 Reactor 上只编码一次
+ *
+ * 使用示例：
+ * MultiReactor server = new MultiReactor(8888, 4);
+ * server.setAssignmentPolicy(ConnectionAssignmentPolicy.roomAffinity(ConnectionAssignmentPolicy.leastConnections()));
+ */
+public interface ConnectionAssignmentPolicy {
+
+    /**
+     * 为新连接选择子 Reactor，在主 Reactor 线程上调用
+     */
+    SubReactor select(SubReactor[] subReactors);
+
+    /**
+     * 连接完成 JOIN 后调用，在连接当前所在的子 Reactor 线程上执行
+     * @param current 连接当前所在的子 Reactor
+     * @param addressId 连接的会话地址
+     * @return 连接应当所在的子 Reactor，与 current 不同时连接会被迁移
+     */
+    default SubReactor afterJoin(SubReactor[] subReactors, SubReactor current, String addressId) {
+        return current;
+    }
+
+    static ConnectionAssignmentPolicy roundRobin() {
+        return new RoundRobin();
+    }
+
+    static ConnectionAssignmentPolicy leastConnections() {
+        return new LeastConnections();
+    }
+
+    static ConnectionAssignmentPolicy leastBytesPerSecond() {
+        return new LeastBytesPerSecond();
+    }
+
+    /**
+     * 新房间固定在第一个加入者所在的子 Reactor 上，该连接接入时已由 fallback 选择，JOIN 后不迁移
+     * @param fallback 为新连接选择子 Reactor 的策略，连接加入房间之前都按它分配
+     */
+    static ConnectionAssignmentPolicy roomAffinity(ConnectionAssignmentPolicy fallback) {
+        return new RoomAffinity(fallback);
+    }
+
+    /**
+     * 轮询分配
+     */
+    final class RoundRobin implements ConnectionAssignmentPolicy {
+        private int next = 0;
+
+        @Override
+        public SubReactor select(SubReactor[] subReactors) {
+            SubReactor selected = subReactors[next % subReactors.length];
+            next = (next + 1) % subReactors.length;
+            return selected;
+        }
+    }
+
+    /**
+     * 分配给连接数最少的子 Reactor
+     */
+    final class LeastConnections implements ConnectionAssignmentPolicy {
+        @Override
+        public SubReactor select(SubReactor[] subReactors) {
+            SubReactor best = subReactors[0];
+            for (SubReactor sub : subReactors) {
+                if (sub.getConnectionCount() < best.getConnectionCount()) {
+                    best = sub;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * 分配给最近吞吐量最低的子 Reactor，吞吐量相同时选择连接数少的
+     */
+    final class LeastBytesPerSecond implements ConnectionAssignmentPolicy {
+        @Override
+        public SubReactor select(SubReactor[] subReactors) {
+            SubReactor best = subReactors[0];
+            double bestRate = best.getBytesPerSecond();
+            for (SubReactor sub : subReactors) {
+                double rate = sub.getBytesPerSecond();
+                if (rate < bestRate || (rate == bestRate && sub.getConnectionCount() < best.getConnectionCount())) {
+                    best = sub;
+                    bestRate = rate;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * 房间亲和：房间的第一个客户端留在当前子 Reactor，之后加入的客户端迁移过去
+     * 未启用多房间时等同于 fallback
+     */
+    final class RoomAffinity implements ConnectionAssignmentPolicy {
+        private final ConnectionAssignmentPolicy fallback;
+        private final Map<String, SubReactor> reactorsByRoom = new ConcurrentHashMap<>();
+
+        RoomAffinity(ConnectionAssignmentPolicy fallback) {
+            this.fallback = fallback == null ? new RoundRobin() : fallback;
+        }
+
+        @Override
+        public SubReactor select(SubReactor[] subReactors) {
+            return fallback.select(subReactors);
+        }
+
+        @Override
+        public SubReactor afterJoin(SubReactor[] subReactors, SubReactor current, String addressId) {
+            Room room = NetState.roomOf(addressId);
+            if (room == null) {
+                return current;
+            }
+            pruneClosedRooms();
+            return reactorsByRoom.computeIfAbsent(room.getName(), k -> current);
+        }
+
+        /**
+         * 获取房间所在的子 Reactor，房间尚无客户端时返回 null
+         */
+        public SubReactor reactorOf(String roomName) {
+            return reactorsByRoom.get(roomName);
+        }
+
+        private void pruneClosedRooms() {
+            RoomManager manager = NetState.getRoomManager();
+            if (manager == null || reactorsByRoom.size() <= manager.getRoomCount()) {
+                return;
+            }
+            reactorsByRoom.keySet().removeIf(name -> manager.getRoom(name) == null);
+        }
+    }
+}
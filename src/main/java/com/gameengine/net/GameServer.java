@@ -0,0 +1,49 @@
+package com.gameengine.net;
+
+/**
+ * 联机服务端的传输层
+ * MultiReactor（选择器 + 固定线程）和 VirtualThreadServer（每个连接一个虚拟线程）
+ * 对外提供相同的接口，协议和 NetState 的用法完全一致，可以按需切换
+ */
+public interface GameServer {
+
+    /**
+     * 启用 UDP 快照通道，必须在 start 之前调用
+     * @param udpPort UDP 监听端口，为 0 时由系统分配
+     */
+    void enableUdp(int udpPort);
+
+    void start();
+
+    void stop();
+
+    boolean isRunning();
+
+    int getPort();
+
+    /**
+     * 等待监听端口绑定完成，start 返回后调用
+     * @return 在超时前绑定成功时返回 true
+     */
+    boolean awaitBound(long timeoutMs);
+
+    /**
+     * 当前的客户端连接数
+     */
+    int getTotalConnectionCount();
+
+    /**
+     * 快照广播调度器（用于查询广播频率和延迟统计）
+     */
+    TickScheduler getTickScheduler();
+
+    /**
+     * UDP 快照通道，未启用时返回 null
+     */
+    UdpTransport getUdpTransport();
+
+    /**
+     * 进程内回环传输层，同一进程中的客户端通过它连接，不经过套接字
+     */
+    LoopbackTransport getLoopbackTransport();
+}
@@ -0,0 +1,130 @@
+package com.gameengine.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 紧凑的输入帧编码
+ * 客户端只在按键状态变化时生成新的输入帧（另有定期保活帧），每个帧带有递增的序号，
+ * 每个数据包携带最近若干个帧作为冗余，单个包丢失时后续包仍能补齐。
+ *
+ * 按键状态用一个字节的位掩码表示：
+ *   TCP 文本格式：F:最新序号:最新帧位掩码,上一帧位掩码,...
+ *   UDP 二进制格式：| 帧数(1) | 最新序号(4) | 位掩码 * 帧数 |
+ */
+public final class InputFrames {
+
+    public static final String LINE_PREFIX = "F:";
+
+    // 按键位
+    public static final int UP = 1;
+    public static final int DOWN = 2;
+    public static final int LEFT = 4;
+    public static final int RIGHT = 8;
+
+    // 每个包携带的帧数
+    public static final int REDUNDANCY = 4;
+    // 按键状态不变时的保活间隔
+    public static final long KEEPALIVE_MS = 100;
+    // 与服务端联机模式的移动速度一致
+    public static final float SPEED = 200f;
+
+    private InputFrames() {
+    }
+
+    /**
+     * 解码后的输入包
+     * bits[0] 对应 newestSeq，bits[i] 对应 newestSeq - i
+     */
+    public static final class Packet {
+        public int newestSeq;
+        public int count;
+        public final byte[] bits = new byte[REDUNDANCY];
+    }
+
+    /**
+     * 按键位掩码换算为速度，与客户端预测使用相同的规则
+     * @param out 输出 {vx, vy}
+     */
+    public static void toVelocity(int bits, float[] out) {
+        float dx = 0, dy = 0;
+        if ((bits & UP) != 0) dy -= 1;
+        if ((bits & DOWN) != 0) dy += 1;
+        if ((bits & LEFT) != 0) dx -= 1;
+        if ((bits & RIGHT) != 0) dx += 1;
+        float magnitude = (float) Math.hypot(dx, dy);
+        out[0] = magnitude > 0 ? dx / magnitude * SPEED : 0;
+        out[1] = magnitude > 0 ? dy / magnitude * SPEED : 0;
+    }
+
+    /**
+     * 编码为 TCP 文本行
+     * @param history 最近的帧，history[0] 为最新帧
+     * @param count 帧数
+     */
+    public static String encodeLine(int newestSeq, byte[] history, int count) {
+        StringBuilder sb = new StringBuilder(LINE_PREFIX.length() + 12 + count * 3);
+        sb.append(LINE_PREFIX).append(newestSeq).append(':');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(history[i] & 0xFF);
+        }
+        return sb.append('\n').toString();
+    }
+
+    /**
+     * 解码 TCP 文本行
+     * @return 格式不合法时返回 null
+     */
+    public static Packet decodeLine(String line, Packet out) {
+        if (!line.startsWith(LINE_PREFIX)) {
+            return null;
+        }
+        int colon = line.indexOf(':', LINE_PREFIX.length());
+        if (colon < 0) {
+            return null;
+        }
+        try {
+            out.newestSeq = Integer.parseInt(line.substring(LINE_PREFIX.length(), colon));
+            String[] parts = line.substring(colon + 1).trim().split(",");
+            if (parts.length == 0 || parts.length > REDUNDANCY) {
+                return null;
+            }
+            for (int i = 0; i < parts.length; i++) {
+                out.bits[i] = (byte) Integer.parseInt(parts[i]);
+            }
+            out.count = parts.length;
+            return out;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 编码为 UDP 负载
+     */
+    public static byte[] encodeBinary(int newestSeq, byte[] history, int count) {
+        ByteBuffer buf = ByteBuffer.allocate(5 + count);
+        buf.put((byte) count);
+        buf.putInt(newestSeq);
+        buf.put(history, 0, count);
+        return buf.array();
+    }
+
+    /**
+     * 解码 UDP 负载
+     * @return 格式不合法时返回 null
+     */
+    public static Packet decodeBinary(ByteBuffer payload, Packet out) {
+        if (payload.remaining() < 5) {
+            return null;
+        }
+        int count = payload.get() & 0xFF;
+        if (count == 0 || count > REDUNDANCY || payload.remaining() < 4 + count) {
+            return null;
+        }
+        out.newestSeq = payload.getInt();
+        payload.get(out.bits, 0, count);
+        out.count = count;
+        return out;
+    }
+}
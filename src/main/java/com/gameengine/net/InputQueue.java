@@ -0,0 +1,126 @@
+package com.gameengine.net;
+
+/**
+ * 服务端单个客户端的输入帧队列
+ * 网络线程按序号入队（重复和过期的帧被丢弃），模拟线程每个 tick 按顺序消费一帧，
+ * 因此两次 tick 之间的短按也不会丢失。积压过多时每个 tick 多消费几帧以追上客户端
+ */
+public class InputQueue {
+
+    private static final int CAPACITY = 64;
+    // 积压超过此帧数时每个 tick 多消费一帧
+    private static final int CATCH_UP_THRESHOLD = 4;
+
+    private final int[] seqs = new int[CAPACITY];
+    private final byte[] bits = new byte[CAPACITY];
+    private int head = 0;
+    private int size = 0;
+
+    private boolean hasReceived = false;
+    private int lastReceivedSeq = 0;
+
+    private boolean hasCurrent = false;
+    private int currentSeq = 0;
+    private int currentBits = 0;
+
+    private long receivedFrames = 0;
+    private long duplicateFrames = 0;
+    private long lostFrames = 0;
+    private long overflowFrames = 0;
+
+    /**
+     * 入队一个输入包中的所有新帧（从旧到新）
+     */
+    public synchronized void offer(InputFrames.Packet packet) {
+        for (int i = packet.count - 1; i >= 0; i--) {
+            offer(packet.newestSeq - i, packet.bits[i]);
+        }
+    }
+
+    /**
+     * 入队一帧
+     * @return 是新帧时返回 true
+     */
+    public synchronized boolean offer(int seq, byte frameBits) {
+        if (hasReceived && !UdpPacketCodec.isNewer(seq, lastReceivedSeq)) {
+            duplicateFrames++;
+            return false;
+        }
+        if (hasReceived && seq - lastReceivedSeq > 1) {
+            // 超出冗余范围的丢包
+            lostFrames += seq - lastReceivedSeq - 1;
+        }
+        hasReceived = true;
+        lastReceivedSeq = seq;
+        receivedFrames++;
+
+        if (size == CAPACITY) {
+            // 队列已满，丢弃最旧的帧
+            head = (head + 1) % CAPACITY;
+            size--;
+            overflowFrames++;
+        }
+        int tail = (head + size) % CAPACITY;
+        seqs[tail] = seq;
+        bits[tail] = frameBits;
+        size++;
+        return true;
+    }
+
+    /**
+     * 模拟线程每个 tick 调用一次，按顺序消费输入帧
+     * 没有新帧时保持上一帧的按键状态
+     * @return 已经有可用的按键状态时返回 true
+     */
+    public synchronized boolean consumeTick() {
+        int frames = size > CATCH_UP_THRESHOLD ? 2 : 1;
+        for (int i = 0; i < frames && size > 0; i++) {
+            currentSeq = seqs[head];
+            currentBits = bits[head];
+            head = (head + 1) % CAPACITY;
+            size--;
+            hasCurrent = true;
+        }
+        return hasCurrent;
+    }
+
+    /**
+     * 最近一次被消费的帧序号（用于输入确认）
+     */
+    public synchronized int getCurrentSeq() {
+        return currentSeq;
+    }
+
+    /**
+     * 当前生效的按键位掩码
+     */
+    public synchronized int getCurrentBits() {
+        return currentBits;
+    }
+
+    public synchronized int getBacklog() {
+        return size;
+    }
+
+    public synchronized long getReceivedFrames() {
+        return receivedFrames;
+    }
+
+    /**
+     * 被冗余帧重复送达或乱序到达而丢弃的帧数
+     */
+    public synchronized long getDuplicateFrames() {
+        return duplicateFrames;
+    }
+
+    /**
+     * 冗余也没能补齐的帧数
+     */
+    public synchronized long getLostFrames() {
+        return lostFrames;
+    }
+
+    public synchronized long getOverflowFrames() {
+        return overflowFrames;
+    }
+}
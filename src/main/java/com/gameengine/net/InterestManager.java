@@ -0,0 +1,313 @@
+package com.gameengine.net;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.gameengine.core.GameLogic;
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 兴趣区域（Area of Interest）管理
+ * 服务端根据每个客户端玩家的位置确定其视野区域，
+ * 广播时只发送视野范围（加上边距）内的实体
+ *
+ * 每个快照只构建一次均匀网格做空间分桶，
+ * 每个客户端只查询与视野相交的网格，裁剪代价与视野内实体数相关，而不是与世界中的实体总数相关。
+ * 进入视野使用较小的边距，离开视野使用较大的边距（滞回），避免边界附近的实体反复闪烁
+ */
+public final class InterestManager {
+
+    // 与客户端 Camera 视口一致
+    public static final float DEFAULT_VIEW_WIDTH = 800f;
+    public static final float DEFAULT_VIEW_HEIGHT = 600f;
+    public static final float DEFAULT_ENTER_MARGIN = 100f;
+    public static final float DEFAULT_LEAVE_MARGIN = 160f;
+    private static final float CELL_SIZE = 200f;
+
+    private final float viewWidth;
+    private final float viewHeight;
+    private final float enterMargin;
+    private final float leaveMargin;
+    private volatile boolean enabled = true;
+
+    private final Map<String, ClientView> views = new ConcurrentHashMap<>();
+
+    // 最近一个快照的空间网格，多个 Reactor 广播同一快照时共享
+    private Record gridRecord;
+    private SpatialGrid grid;
+
+    public InterestManager() {
+        this(DEFAULT_VIEW_WIDTH, DEFAULT_VIEW_HEIGHT, DEFAULT_ENTER_MARGIN, DEFAULT_LEAVE_MARGIN);
+    }
+
+    /**
+     * @param viewWidth 视野宽度
+     * @param viewHeight 视野高度
+     * @param enterMargin 实体进入视野时使用的边距
+     * @param leaveMargin 实体离开视野时使用的边距，应不小于 enterMargin
+     */
+    public InterestManager(float viewWidth, float viewHeight, float enterMargin, float leaveMargin) {
+        if (leaveMargin < enterMargin) {
+            throw new IllegalArgumentException("离开边距不能小于进入边距");
+        }
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.enterMargin = enterMargin;
+        this.leaveMargin = leaveMargin;
+    }
+
+    /**
+     * 单个客户端的视野状态
+     * 由负责该连接的 Reactor 线程读写，模拟线程只更新视野中心
+     */
+    private static final class ClientView {
+        volatile float centerX;
+        volatile float centerY;
+        Set<Integer> visible = new HashSet<>();
+        long enterEvents;
+        long leaveEvents;
+
+        // 同一快照重发时直接复用上一次的裁剪结果
+        Record lastSource;
+        float lastCenterX;
+        float lastCenterY;
+        Record lastFiltered;
+    }
+
+    /**
+     * 均匀网格空间分桶
+     * 使用计数排序把对象下标按网格连续存放，构建时只分配两个 int 数组
+     */
+    static final class SpatialGrid {
+        final int cols;
+        final int rows;
+        final int[] cellStart;
+        final int[] entries;
+
+        SpatialGrid(List<GameObjectRecord> objects, float worldWidth, float worldHeight) {
+            this.cols = Math.max(1, (int) Math.ceil(worldWidth / CELL_SIZE));
+            this.rows = Math.max(1, (int) Math.ceil(worldHeight / CELL_SIZE));
+            this.cellStart = new int[cols * rows + 1];
+            int n = objects.size();
+            int[] cellOf = new int[n];
+            for (int i = 0; i < n; i++) {
+                GameObjectRecord o = objects.get(i);
+                int cell = o == null ? -1 : cellIndex(centerX(o), centerY(o));
+                cellOf[i] = cell;
+                if (cell >= 0) {
+                    cellStart[cell + 1]++;
+                }
+            }
+            for (int c = 0; c < cols * rows; c++) {
+                cellStart[c + 1] += cellStart[c];
+            }
+            this.entries = new int[cellStart[cols * rows]];
+            int[] cursor = new int[cols * rows];
+            for (int i = 0; i < n; i++) {
+                int cell = cellOf[i];
+                if (cell >= 0) {
+                    entries[cellStart[cell] + cursor[cell]++] = i;
+                }
+            }
+        }
+
+        int column(float x) {
+            return Math.max(0, Math.min(cols - 1, (int) Math.floor(x / CELL_SIZE)));
+        }
+
+        int row(float y) {
+            return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / CELL_SIZE)));
+        }
+
+        int cellIndex(float x, float y) {
+            return row(y) * cols + column(x);
+        }
+    }
+
+    static float centerX(GameObjectRecord o) {
+        return o.x + o.width / 2;
+    }
+
+    static float centerY(GameObjectRecord o) {
+        return o.y + o.height / 2;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 更新客户端的视野中心（通常是该客户端控制的玩家位置）
+     * @param addressId 客户端地址字符串，与 NetState 中的地址一致
+     */
+    public void updateClientView(String addressId, float centerX, float centerY) {
+        if (addressId == null) {
+            return;
+        }
+        ClientView view = views.computeIfAbsent(addressId, k -> new ClientView());
+        view.centerX = centerX;
+        view.centerY = centerY;
+    }
+
+    /**
+     * 客户端断开后移除其视野状态
+     */
+    public void removeClient(String addressId) {
+        if (addressId != null) {
+            views.remove(addressId);
+        }
+    }
+
+    public boolean hasView(String addressId) {
+        return addressId != null && views.containsKey(addressId);
+    }
+
+    public void reset() {
+        views.clear();
+        synchronized (this) {
+            gridRecord = null;
+            grid = null;
+        }
+    }
+
+    /**
+     * 获取（必要时构建）快照对应的空间网格
+     */
+    private synchronized SpatialGrid gridFor(Record record) {
+        if (record != gridRecord) {
+            grid = new SpatialGrid(record.getGameObjectsMove(), GameLogic.WORLD_WIDTH, GameLogic.WORLD_HEIGHT);
+            gridRecord = record;
+        }
+        return grid;
+    }
+
+    /**
+     * 为指定客户端裁剪快照
+     * 没有视野信息或未启用时原样返回完整快照
+     * @param addressId 客户端地址字符串
+     * @param record 完整快照
+     * @return 只包含视野内实体的快照
+     */
+    public Record filterFor(String addressId, Record record) {
+        if (!enabled || record == null || addressId == null) {
+            return record;
+        }
+        ClientView view = views.get(addressId);
+        List<GameObjectRecord> all = record.getGameObjectsMove();
+        if (view == null || all == null) {
+            return record;
+        }
+
+        SpatialGrid g = gridFor(record);
+
+        synchronized (view) {
+            float cx = view.centerX;
+            float cy = view.centerY;
+            if (view.lastSource == record && view.lastCenterX == cx && view.lastCenterY == cy) {
+                return view.lastFiltered;
+            }
+
+            float halfW = viewWidth / 2;
+            float halfH = viewHeight / 2;
+            float enterMinX = cx - halfW - enterMargin, enterMaxX = cx + halfW + enterMargin;
+            float enterMinY = cy - halfH - enterMargin, enterMaxY = cy + halfH + enterMargin;
+            float leaveMinX = cx - halfW - leaveMargin, leaveMaxX = cx + halfW + leaveMargin;
+            float leaveMinY = cy - halfH - leaveMargin, leaveMaxY = cy + halfH + leaveMargin;
+
+            List<GameObjectRecord> out = new ArrayList<>();
+            Set<Integer> nextVisible = new HashSet<>();
+
+            // 只遍历与离开范围相交的网格
+            int c0 = g.column(leaveMinX), c1 = g.column(leaveMaxX);
+            int r0 = g.row(leaveMinY), r1 = g.row(leaveMaxY);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    int cell = r * g.cols + c;
+                    for (int e = g.cellStart[cell]; e < g.cellStart[cell + 1]; e++) {
+                        GameObjectRecord o = all.get(g.entries[e]);
+                        float px = centerX(o);
+                        float py = centerY(o);
+                        if (px < leaveMinX || px > leaveMaxX || py < leaveMinY || py > leaveMaxY) {
+                            continue;
+                        }
+                        boolean inEnter = px >= enterMinX && px <= enterMaxX && py >= enterMinY && py <= enterMaxY;
+                        boolean wasVisible = o.netId != 0 && view.visible.contains(o.netId);
+                        if (!inEnter && !wasVisible) {
+                            continue;
+                        }
+                        out.add(o);
+                        if (o.netId != 0) {
+                            nextVisible.add(o.netId);
+                            if (!wasVisible) {
+                                view.enterEvents++;
+                            }
+                        }
+                    }
+                }
+            }
+
+            // 上一帧可见、这一帧不可见（离开视野或已被销毁）的实体
+            for (Integer id : view.visible) {
+                if (!nextVisible.contains(id)) {
+                    view.leaveEvents++;
+                }
+            }
+            view.visible = nextVisible;
+
+            Record filtered = record.withGameObjects(out);
+            view.lastSource = record;
+            view.lastCenterX = cx;
+            view.lastCenterY = cy;
+            view.lastFiltered = filtered;
+            return filtered;
+        }
+    }
+
+    /**
+     * 获取客户端当前可见的实体数
+     */
+    public int getVisibleCount(String addressId) {
+        ClientView view = addressId == null ? null : views.get(addressId);
+        if (view == null) {
+            return 0;
+        }
+        synchronized (view) {
+            return view.visible.size();
+        }
+    }
+
+    /**
+     * 获取客户端累计的实体进入视野次数
+     */
+    public long getEnterCount(String addressId) {
+        ClientView view = addressId == null ? null : views.get(addressId);
+        if (view == null) {
+            return 0;
+        }
+        synchronized (view) {
+            return view.enterEvents;
+        }
+    }
+
+    /**
+     * 获取客户端累计的实体离开视野次数
+     */
+    public long getLeaveCount(String addressId) {
+        ClientView view = addressId == null ? null : views.get(addressId);
+        if (view == null) {
+            return 0;
+        }
+        synchronized (view) {
+            return view.leaveEvents;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.gameengine.net;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.gameengine.game.Record;
+import com.gameengine.util.SpscRing;
+
+/**
+ * 进程内回环传输层
+ * 主机上同时运行的客户端（与服务端在同一进程）不经过 localhost 套接字：
+ * 快照和输入通过一对单生产者单消费者环形队列直接传递对象引用，
+ * 省去 JSON 编解码、系统调用和内核缓冲区拷贝。
+ *
+ * 1. 快照：广播由 TickScheduler 驱动，调度线程把 NetState 中已冻结的快照（或按视野裁剪后的快照）
+ *    放入每个连接的快照队列并唤醒客户端接收线程；多个读者共享同一个快照对象，
+ *    客户端只读取快照，插值和预测的结果保存在自己的变量中，不写回快照里的对象，
+ *    也不写 NetState 中服务端发布的快照
+ * 2. 输入：客户端输入线程把输入帧包放入连接的输入队列，本传输层的输入线程取出后
+ *    交给 NetState.enqueueInputFrames，与 Reactor 处理 "F:" 行的效果相同
+ * 3. JOIN 和 PING 是同步调用，回复与 TCP 协议的文本完全一致，客户端沿用同一套解析逻辑
+ *
+ * 回环连接和 TCP 连接一样登记为 NetState 会话（地址形如 "loopback:1"），计入服务端连接数，
+ * 可以加入房间、参与兴趣区域裁剪；不会登记 UDP 端点
+ */
+public class LoopbackTransport implements Runnable {
+
+    public static final String ADDRESS_PREFIX = "loopback:";
+    // 快照队列容量：客户端落后超过这么多个快照时丢弃新快照
+    public static final int SNAPSHOT_CAPACITY = 16;
+    // 输入队列容量：每个包携带冗余帧，满时丢弃的包会被后续包补上
+    public static final int INPUT_CAPACITY = 64;
+    // 阻塞等待时的最长 park 时间，用于及时发现连接关闭
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final CopyOnWriteArrayList<Connection> connections = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private Runnable connectionCountUpdater;
+    private volatile boolean isRunning = false;
+    private volatile Thread thread;
+
+    private volatile long broadcastCount = 0;
+    private volatile long deliveredSnapshots = 0;
+    private volatile long receivedInputs = 0;
+
+    /**
+     * 一个进程内客户端连接
+     * 快照队列：调度线程生产、客户端接收线程消费；输入队列：客户端输入线程生产、传输层输入线程消费
+     */
+    public static final class Connection {
+        private final LoopbackTransport transport;
+        private final String addressId;
+        private final SpscRing<Record> snapshots = new SpscRing<>(SNAPSHOT_CAPACITY);
+        private final SpscRing<InputFrames.Packet> inputs = new SpscRing<>(INPUT_CAPACITY);
+        private volatile Thread snapshotReader;
+        private volatile boolean open = true;
+
+        private volatile long droppedSnapshots = 0;
+        private volatile long droppedInputs = 0;
+
+        private Connection(LoopbackTransport transport, String addressId) {
+            this.transport = transport;
+            this.addressId = addressId;
+        }
+
+        /**
+         * 会话地址，服务端以此标识该客户端
+         */
+        public String getAddressId() {
+            return addressId;
+        }
+
+        public boolean isOpen() {
+            return open;
+        }
+
+        /**
+         * 处理 JOIN，回复与 TCP 协议相同（不携带 UDP 端口）
+         * @param payload "JOIN:" 之后的内容
+         */
+        public String join(String payload) {
+            if (!open) {
+                return "JOIN-REJECT CLOSED\n";
+            }
+            String ack = NetState.join(addressId, payload);
+            // 回环连接不使用 UDP 快照通道
+            int udp = ack.indexOf(" UDP:");
+            if (udp >= 0) {
+                ack = ack.substring(0, udp) + "\n";
+            }
+            return ack;
+        }
+
+        /**
+         * 时钟同步，回复与 TCP 协议相同的 PONG 行
+         * @return PING 格式错误或连接已关闭时返回 null
+         */
+        public String ping(String ping) {
+            if (!open) {
+                return null;
+            }
+            double received = NetState.serverTime();
+            return ClockSync.pong(ping, received, NetState.serverTime());
+        }
+
+        /**
+         * 发送输入帧包，只能由一个客户端线程调用
+         * 包对象交给服务端后不可再修改
+         * @return 队列已满或连接已关闭时返回 false
+         */
+        public boolean sendInput(InputFrames.Packet packet) {
+            if (!open) {
+                return false;
+            }
+            if (!inputs.offer(packet)) {
+                droppedInputs++;
+                return false;
+            }
+            transport.wakeup();
+            return true;
+        }
+
+        /**
+         * 取出下一个快照，队列为空时阻塞
+         * 只能由一个客户端线程调用
+         * @return 连接关闭后返回 null
+         */
+        public Record takeSnapshot() {
+            snapshotReader = Thread.currentThread();
+            try {
+                while (true) {
+                    Record record = snapshots.poll();
+                    if (record != null) {
+                        return record;
+                    }
+                    if (!open) {
+                        return null;
+                    }
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                    if (Thread.currentThread().isInterrupted()) {
+                        return null;
+                    }
+                }
+            } finally {
+                snapshotReader = null;
+            }
+        }
+
+        /**
+         * 取出下一个快照，不阻塞
+         * @return 没有快照时返回 null
+         */
+        public Record pollSnapshot() {
+            return snapshots.poll();
+        }
+
+        /**
+         * 由调度线程放入快照并唤醒接收线程
+         */
+        private boolean deliver(Record record) {
+            if (!snapshots.offer(record)) {
+                // 客户端处理不过来，丢弃新快照；已排队的快照按顺序送达
+                droppedSnapshots++;
+                return false;
+            }
+            Thread reader = snapshotReader;
+            if (reader != null) {
+                LockSupport.unpark(reader);
+            }
+            return true;
+        }
+
+        /**
+         * 断开连接，服务端移除会话
+         */
+        public void close() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            Thread reader = snapshotReader;
+            if (reader != null) {
+                LockSupport.unpark(reader);
+            }
+            transport.remove(this);
+        }
+
+        public int getPendingSnapshots() {
+            return snapshots.size();
+        }
+
+        public long getDroppedSnapshots() {
+            return droppedSnapshots;
+        }
+
+        public long getDroppedInputs() {
+            return droppedInputs;
+        }
+    }
+
+    /**
+     * 设置连接数更新回调，连接建立或断开时调用
+     */
+    public void setConnectionCountUpdater(Runnable updater) {
+        this.connectionCountUpdater = updater;
+    }
+
+    /**
+     * 启动输入线程，由服务端在启动时调用
+     */
+    public void start() {
+        if (thread != null) {
+            return;
+        }
+        isRunning = true;
+        Thread t = new Thread(this, "LoopbackTransport");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    /**
+     * 停止输入线程并关闭所有连接
+     */
+    public void stop() {
+        isRunning = false;
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        wakeup();
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * 建立一个进程内连接
+     * @throws IllegalStateException 服务端未启动
+     */
+    public Connection connect() {
+        if (!isRunning) {
+            throw new IllegalStateException("服务端未启动");
+        }
+        Connection connection = new Connection(this, ADDRESS_PREFIX + nextId.incrementAndGet());
+        NetState.addClientSession(connection.addressId);
+        connections.add(connection);
+        updateConnectionCount();
+        System.out.println("[LoopbackTransport] 新的进程内连接: " + connection.addressId);
+        return connection;
+    }
+
+    private void remove(Connection connection) {
+        if (connections.remove(connection)) {
+            NetState.removeClientSession(connection.addressId);
+            updateConnectionCount();
+            System.out.println("[LoopbackTransport] 进程内连接已断开: " + connection.addressId);
+        }
+    }
+
+    private void updateConnectionCount() {
+        Runnable updater = connectionCountUpdater;
+        if (updater != null) {
+            updater.run();
+        }
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * 广播当前快照，由 TickScheduler 在调度线程上调用
+     * 只传递对象引用，不编码；没有视野信息的连接共享同一个冻结快照
+     */
+    public void requestBroadcast() {
+        if (connections.isEmpty()) {
+            return;
+        }
+        InterestManager interest = NetState.getInterestManager();
+        long delivered = 0;
+        for (Connection connection : connections) {
+            Record record = NetState.snapshotFor(connection.addressId);
+            if (record == null) {
+                continue;
+            }
+            if (connection.deliver(interest.filterFor(connection.addressId, record))) {
+                delivered++;
+            }
+        }
+        deliveredSnapshots += delivered;
+        broadcastCount++;
+    }
+
+    private void wakeup() {
+        Thread t = thread;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    /**
+     * 输入线程：取出各连接的输入帧包交给 NetState，没有输入时 park 等待
+     */
+    @Override
+    public void run() {
+        while (isRunning) {
+            long drained = 0;
+            for (Connection connection : connections) {
+                InputFrames.Packet packet;
+                while ((packet = connection.inputs.poll()) != null) {
+                    NetState.enqueueInputFrames(connection.addressId, packet);
+                    drained++;
+                }
+            }
+            if (drained > 0) {
+                receivedInputs += drained;
+            } else {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+        thread = null;
+    }
+
+    public long getBroadcastCount() {
+        return broadcastCount;
+    }
+
+    public long getDeliveredSnapshots() {
+        return deliveredSnapshots;
+    }
+
+    public long getReceivedInputs() {
+        return receivedInputs;
+    }
+}
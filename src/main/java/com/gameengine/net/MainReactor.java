@@ -7,11 +7,14 @@ import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 主 Reactor 线程
  * 负责接收客户端的连接（accept 事件）
  * 并将新连接分发给对应的子 Reactor 线程
+ * 分发方式由 ConnectionAssignmentPolicy 决定，默认轮询
  */
 public class MainReactor implements Runnable {
     
@@ -19,7 +22,10 @@ public class MainReactor implements Runnable {
     private final SubReactor[] subReactors;
     private volatile boolean isRunning = false;
     private Thread thread;
-    private int nextSubReactorIndex = 0; // 用于轮询分发连接
+    private volatile ConnectionAssignmentPolicy assignmentPolicy = ConnectionAssignmentPolicy.roundRobin();
+    // 端口绑定完成（或绑定失败）后打开
+    private final CountDownLatch bound = new CountDownLatch(1);
+    private volatile boolean isBound = false;
     
     /**
      * 构造函数
@@ -45,6 +51,19 @@ public class MainReactor implements Runnable {
         System.out.println("[MainReactor] 主 Reactor 已启动，监听端口: " + port);
     }
     
+    /**
+     * 等待主 Reactor 线程绑定端口
+     * @return 超时前完成绑定时返回 true，绑定失败或超时返回 false
+     */
+    public boolean awaitBound(long timeoutMs) {
+        try {
+            return bound.await(timeoutMs, TimeUnit.MILLISECONDS) && isBound;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
     /**
      * 停止主 Reactor
      */
@@ -56,14 +75,17 @@ public class MainReactor implements Runnable {
     }
     
     /**
-     * 轮询选择下一个子 Reactor
-     * 使用简单的轮询算法实现负载均衡
-     * @return 下一个子 Reactor
+     * 设置连接分配策略
      */
-    private SubReactor getNextSubReactor() {
-        SubReactor selected = subReactors[nextSubReactorIndex];
-        nextSubReactorIndex = (nextSubReactorIndex + 1) % subReactors.length;
-        return selected;
+    public void setAssignmentPolicy(ConnectionAssignmentPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("分配策略不能为空");
+        }
+        this.assignmentPolicy = policy;
+    }
+    
+    public ConnectionAssignmentPolicy getAssignmentPolicy() {
+        return assignmentPolicy;
     }
     
     @Override
@@ -77,6 +99,8 @@ public class MainReactor implements Runnable {
             serverChannel.bind(new InetSocketAddress(port));
             // 注册 ACCEPT 事件
             serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            isBound = true;
+            bound.countDown();
             
             System.out.println("[MainReactor] 开始接受客户端连接...");
             
@@ -104,6 +128,8 @@ public class MainReactor implements Runnable {
             System.err.println("[MainReactor] 发生错误: " + e.getMessage());
             e.printStackTrace();
         } finally {
+            // 绑定失败时也要唤醒等待者
+            bound.countDown();
             System.out.println("[MainReactor] 主 Reactor 已停止");
         }
     }
@@ -116,8 +142,8 @@ public class MainReactor implements Runnable {
         try {
             SocketChannel clientChannel = serverChannel.accept();
             if (clientChannel != null) {
-                // 轮询选择一个子 Reactor
-                SubReactor subReactor = getNextSubReactor();
+                // 按分配策略选择一个子 Reactor
+                SubReactor subReactor = assignmentPolicy.select(subReactors);
                 
                 // 将新连接注册到选中的子 Reactor
                 subReactor.registerChannel(clientChannel);
@@ -1,6 +1,8 @@
 package com.gameengine.net;
 
 import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -13,6 +15,15 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * // 创建 MultiReactor，端口 8888，使用 4 个子 Reactor（建议设置为 CPU 核心数）
  * MultiReactor multiReactor = new MultiReactor(8888, 4);
  * 
+ * // 也可以指定快照广播频率（默认 20 Hz）
+ * MultiReactor multiReactor = new MultiReactor(8888, 4, 60);
+ * 
+ * // 可选：连接分配策略（默认轮询），例如同一房间的客户端集中到同一个子 Reactor
+ * multiReactor.setAssignmentPolicy(ConnectionAssignmentPolicy.roomAffinity(ConnectionAssignmentPolicy.leastConnections()));
+ * 
+ * // 可选：快照和输入改走 UDP，TCP 只负责 JOIN 等会话控制（需在 start 之前调用）
+ * multiReactor.enableUdp(8889);
+ * 
  * // 启动服务器
  * multiReactor.start();
  * 
@@ -31,7 +42,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * //   MultiReactor server = new MultiReactor(8888, Runtime.getRuntime().availableProcessors());
  * //   server.start();
  */
-public class MultiReactor {
+public class MultiReactor implements GameServer {
     
     private final int port;
     private final int subReactorCount;
@@ -42,8 +53,18 @@ public class MultiReactor {
     // 子 Reactor 数组：负责处理读写事件
     private SubReactor[] subReactors;
     
+    // 快照广播调度器：按固定频率唤醒所有子 Reactor
+    private final TickScheduler tickScheduler;
+    
+    // 可选的 UDP 快照通道
+    private UdpTransport udpTransport;
+    
+    // 进程内回环连接（本机同一进程中的客户端）
+    private final LoopbackTransport loopbackTransport = new LoopbackTransport();
+    
     // 运行状态
     private volatile boolean isRunning = false;
+    private boolean listenersRegistered = false;
     
     /**
      * 构造函数
@@ -51,30 +72,37 @@ public class MultiReactor {
      * @param subReactorCount 子 Reactor 的数量（建议设置为 CPU 核心数）
      */
     public MultiReactor(int port, int subReactorCount) {
+        this(port, subReactorCount, TickScheduler.DEFAULT_SNAPSHOT_RATE_HZ);
+    }
+    
+    /**
+     * 构造函数
+     * @param port 服务器监听端口
+     * @param subReactorCount 子 Reactor 的数量（建议设置为 CPU 核心数）
+     * @param snapshotRateHz 每秒向客户端广播快照的次数
+     */
+    public MultiReactor(int port, int subReactorCount, int snapshotRateHz) {
         if (subReactorCount <= 0) {
             throw new IllegalArgumentException("子 Reactor 数量必须大于 0");
         }
         this.port = port;
         this.subReactorCount = subReactorCount;
+        this.tickScheduler = new TickScheduler(snapshotRateHz);
         
         // 创建子 Reactor 数组
         this.subReactors = new SubReactor[subReactorCount];
         
         try {
-            // 初始化所有子 Reactor
+            // 初始化所有子 Reactor，回调在 start 中注册
             for (int i = 0; i < subReactorCount; i++) {
                 subReactors[i] = new SubReactor(i);
-                // 设置连接数更新回调，当连接变化时更新全局连接数
-                subReactors[i].setConnectionCountUpdater(() -> {
-                    NetState.setClientCount(getTotalConnectionCount());
-                });
             }
             
             // 创建主 Reactor，传入子 Reactor 数组用于连接分发
             this.mainReactor = new MainReactor(port, subReactors);
             
             System.out.println("[MultiReactor] 初始化完成 - 端口: " + port + 
-                ", 子 Reactor 数量: " + subReactorCount);
+                ", 子 Reactor 数量: " + subReactorCount + ", 快照频率: " + snapshotRateHz + " Hz");
         } catch (IOException e) {
             System.err.println("[MultiReactor] 初始化失败: " + e.getMessage());
             e.printStackTrace();
@@ -82,10 +110,49 @@ public class MultiReactor {
         }
     }
     
+    /**
+     * 设置连接分配策略，可以在运行期间切换，只影响之后的连接
+     */
+    public void setAssignmentPolicy(ConnectionAssignmentPolicy policy) {
+        mainReactor.setAssignmentPolicy(policy);
+    }
+    
+    public ConnectionAssignmentPolicy getAssignmentPolicy() {
+        return mainReactor.getAssignmentPolicy();
+    }
+    
+    /**
+     * 连接完成 JOIN，在其所在的子 Reactor 线程上执行
+     */
+    private void onJoined(SubReactor current, SelectionKey key) {
+        String addressId = Reactor.WriteHandler.addressOf((SocketChannel) key.channel());
+        SubReactor target = mainReactor.getAssignmentPolicy().afterJoin(subReactors, current, addressId);
+        if (target != null && target != current) {
+            current.migrate(key, target);
+        }
+    }
+    
+    /**
+     * 启用 UDP 快照通道
+     * 必须在 start 之前调用；客户端在 JOIN-ACK 中得知 UDP 端口后，快照和输入改走 UDP
+     * @param udpPort UDP 监听端口，为 0 时由系统分配
+     */
+    @Override
+    public void enableUdp(int udpPort) {
+        if (isRunning) {
+            throw new IllegalStateException("UDP 通道必须在启动前启用");
+        }
+        if (udpTransport == null) {
+            udpTransport = new UdpTransport(udpPort);
+            tickScheduler.addListener(udpTransport::requestBroadcast);
+        }
+    }
+    
     /**
      * 启动所有 Reactor
      * 先启动所有子 Reactor，再启动主 Reactor
      */
+    @Override
     public void start() {
         if (isRunning) {
             System.out.println("[MultiReactor] 已经在运行中");
@@ -93,6 +160,7 @@ public class MultiReactor {
         }
         
         isRunning = true;
+        registerListeners();
         
         // 先启动所有子 Reactor
         System.out.println("[MultiReactor] 正在启动 " + subReactorCount + " 个子 Reactor...");
@@ -107,17 +175,61 @@ public class MultiReactor {
             Thread.currentThread().interrupt();
         }
         
+        // 启动 UDP 快照通道，失败时客户端继续使用 TCP
+        if (udpTransport != null) {
+            try {
+                udpTransport.start();
+            } catch (IOException e) {
+                System.err.println("[MultiReactor] UDP 通道启动失败，快照继续走 TCP: " + e.getMessage());
+            }
+        }
+        
+        loopbackTransport.start();
+        
+        // 启动快照广播调度器，并接收模拟线程的发布通知
+        tickScheduler.start();
+        NetState.addTickScheduler(tickScheduler);
+        
         // 最后启动主 Reactor
         System.out.println("[MultiReactor] 正在启动主 Reactor...");
         mainReactor.start();
+        // 等主 Reactor 绑定端口后再返回，调用方可以立即连接
+        if (!mainReactor.awaitBound(2000)) {
+            System.err.println("[MultiReactor] 端口 " + port + " 绑定失败或超时");
+        }
         
         System.out.println("[MultiReactor] 所有 Reactor 已启动，服务器运行在端口: " + port);
     }
     
+    /**
+     * 注册连接数、JOIN 和快照广播回调，只在第一次启动时执行
+     * 不在构造函数中注册，避免对象构造完成前把 this 交给其他线程
+     */
+    private void registerListeners() {
+        if (listenersRegistered) {
+            return;
+        }
+        listenersRegistered = true;
+        Runnable connectionCountUpdater = () -> {
+            NetState.setClientCount(getTotalConnectionCount());
+            tickScheduler.wakeup();
+        };
+        for (SubReactor subReactor : subReactors) {
+            // 连接变化时更新全局连接数
+            subReactor.setConnectionCountUpdater(connectionCountUpdater);
+            tickScheduler.addListener(subReactor::requestBroadcast);
+            // 连接完成 JOIN 后由分配策略决定是否迁移
+            subReactor.setJoinListener(this::onJoined);
+        }
+        loopbackTransport.setConnectionCountUpdater(connectionCountUpdater);
+        tickScheduler.addListener(loopbackTransport::requestBroadcast);
+    }
+    
     /**
      * 停止所有 Reactor
      * 先停止主 Reactor（不再接受新连接），再停止所有子 Reactor
      */
+    @Override
     public void stop() {
         if (!isRunning) {
             return;
@@ -132,6 +244,14 @@ public class MultiReactor {
             mainReactor.stop();
         }
         
+        // 停止快照广播
+        NetState.removeTickScheduler(tickScheduler);
+        tickScheduler.stop();
+        if (udpTransport != null) {
+            udpTransport.stop();
+        }
+        loopbackTransport.stop();
+        
         // 等待主 Reactor 停止
         try {
             Thread.sleep(100);
@@ -151,10 +271,11 @@ public class MultiReactor {
     
     /**
      * 获取当前总连接数
-     * 遍历所有子 Reactor 统计连接数
+     * 遍历所有子 Reactor 统计连接数，包括进程内回环连接
      */
+    @Override
     public int getTotalConnectionCount() {
-        int total = 0;
+        int total = loopbackTransport.getConnectionCount();
         for (SubReactor subReactor : subReactors) {
             total += subReactor.getConnectionCount();
         }
@@ -177,17 +298,66 @@ public class MultiReactor {
     /**
      * 检查是否正在运行
      */
+    @Override
     public boolean isRunning() {
         return isRunning;
     }
     
+    @Override
+    public boolean awaitBound(long timeoutMs) {
+        return mainReactor.awaitBound(timeoutMs);
+    }
+    
     /**
      * 获取端口号
      */
+    @Override
     public int getPort() {
         return port;
     }
     
+    /**
+     * 获取快照广播调度器（用于查询广播频率和延迟统计）
+     */
+    @Override
+    public TickScheduler getTickScheduler() {
+        return tickScheduler;
+    }
+    
+    /**
+     * 获取 UDP 快照通道，未启用时返回 null
+     */
+    @Override
+    public UdpTransport getUdpTransport() {
+        return udpTransport;
+    }
+    
+    /**
+     * 获取进程内回环传输层
+     */
+    @Override
+    public LoopbackTransport getLoopbackTransport() {
+        return loopbackTransport;
+    }
+    
+    /**
+     * 获取子 Reactor（用于查询负载统计）
+     */
+    public SubReactor getSubReactor(int index) {
+        return subReactors[index];
+    }
+    
+    /**
+     * 打印各子 Reactor 的负载
+     */
+    public void printLoad() {
+        for (SubReactor sub : subReactors) {
+            System.out.println(String.format("[MultiReactor] SubReactor-%d 连接 %d，房间 %d，吞吐 %.1f KB/s，上次广播编码 %d 次 / %.2f ms",
+                    sub.getId(), sub.getConnectionCount(), sub.getRoomCount(), sub.getBytesPerSecond() / 1024.0,
+                    sub.getLastBroadcastEncodes(), sub.getLastBroadcastMillis()));
+        }
+    }
+    
     /**
      * 获取子 Reactor 数量
      */
@@ -1,10 +1,19 @@
 package com.gameengine.net;
 
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.gameengine.game.InputRecord;
 import com.gameengine.game.Record;
@@ -12,11 +21,17 @@ import com.gameengine.game.Record;
 /**
  * 网络状态管理类
  * 用于在服务端和客户端之间共享状态
+ *
+ * 线程模型：模拟线程是快照的唯一写者，网络线程（Reactor、虚拟线程、UDP）只读快照、只写各自连接的输入槽。
+ * 1. 快照：模拟线程冻结（Record.seal）后写入 volatile 引用，读线程拿到的快照不会再被修改
+ * 2. 会话：并发 Map，增删查都不加全局锁
+ * 3. 输入：每个连接一个输入槽，网络线程写入、模拟线程按会话直接读取，不复制整张表
+ * 网络线程的任何操作都不会阻塞模拟线程
  */
 public final class NetState {
     
     // 客户端连接管理
-    private static int clientCount = 0;
+    private static volatile int clientCount = 0;
     
     public static void setClientCount(int count) {
         clientCount = count;
@@ -26,62 +41,396 @@ public final class NetState {
         return clientCount;
     }
 
+    /**
+     * 会话（一个 TCP 连接）
+     */
+    static final class Session {
+        final String addressId;
+        final long order; // 连接顺序，用于按加入顺序分配玩家
+        final InetAddress peer; // TCP 对端 IP，进程内回环连接为 null
+        final String udpToken; // 随机令牌，在 JOIN-ACK 中下发，登记 UDP 端点时必须出示
+        volatile boolean udp = false; // 已登记 UDP 端点，快照不再走 TCP
+
+        Session(String addressId, long order, InetAddress peer) {
+            this.addressId = addressId;
+            this.order = order;
+            this.peer = peer;
+            this.udpToken = newUdpToken();
+        }
+    }
+
+    /**
+     * 单个客户端的输入槽
+     * 网络线程写入，模拟线程读取；输入帧队列在第一次收到输入帧时创建
+     */
+    static final class InputSlot {
+        volatile InputRecord latest;
+        private volatile InputQueue frames;
+
+        InputQueue frames() {
+            InputQueue queue = frames;
+            if (queue == null) {
+                synchronized (this) {
+                    queue = frames;
+                    if (queue == null) {
+                        queue = new InputQueue();
+                        frames = queue;
+                    }
+                }
+            }
+            return queue;
+        }
+
+        InputQueue framesOrNull() {
+            return frames;
+        }
+    }
+
     // 客户端地址管理
-    private static final List<String> clientAddresses = new ArrayList<>();
+    private static final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private static final AtomicLong sessionOrder = new AtomicLong();
+    private static final SecureRandom tokenRandom = new SecureRandom();
     
-    public static synchronized void addClientAddress(SocketAddress address) {
+    public static void addClientAddress(SocketAddress address) {
         if (address != null) {
-            String addrStr = address.toString();
-            if (!clientAddresses.contains(addrStr)) {
-                clientAddresses.add(addrStr);
-            }
+            InetAddress peer = address instanceof InetSocketAddress ? ((InetSocketAddress) address).getAddress() : null;
+            addSession(address.toString(), peer);
         }
     }
     
-    public static synchronized void removeClientAddress(SocketAddress address) {
+    public static void removeClientAddress(SocketAddress address) {
         if (address != null) {
-            clientAddresses.remove(address.toString());
+            removeClientSession(address.toString());
+        }
+    }
+    
+    /**
+     * 按会话地址登记客户端，用于没有套接字地址的连接（如进程内回环连接）
+     */
+    public static void addClientSession(String addrStr) {
+        addSession(addrStr, null);
+    }
+    
+    private static void addSession(String addrStr, InetAddress peer) {
+        if (addrStr != null) {
+            sessions.putIfAbsent(addrStr, new Session(addrStr, sessionOrder.incrementAndGet(), peer));
+        }
+    }
+    
+    private static String newUdpToken() {
+        return String.format("%016x%016x", tokenRandom.nextLong(), tokenRandom.nextLong());
+    }
+    
+    public static void removeClientSession(String addrStr) {
+        if (addrStr != null) {
+            sessions.remove(addrStr);
+            interestManager.removeClient(addrStr);
+            inputSlots.remove(addrStr);
+            RoomManager manager = roomManager;
+            if (manager != null) {
+                manager.leave(addrStr);
+            }
+        }
+    }
+    
+    /**
+     * 按连接顺序返回所有客户端地址
+     */
+    public static List<String> getClientAddressesSnapshot() {
+        List<Session> list = new ArrayList<>(sessions.values());
+        list.sort(Comparator.comparingLong(session -> session.order));
+        List<String> addresses = new ArrayList<>(list.size());
+        for (Session session : list) {
+            addresses.add(session.addressId);
         }
+        return addresses;
     }
     
-    public static synchronized List<String> getClientAddressesSnapshot() {
-        return new ArrayList<>(clientAddresses);
+    public static int getClientAddressCount() {
+        return sessions.size();
     }
     
-    public static synchronized int getClientAddressCount() {
-        return clientAddresses.size();
+    public static boolean hasClientAddress(String addressId) {
+        return addressId != null && sessions.containsKey(addressId);
     }
 
     // 客户端输入
-    // 使用地址字符串作为 key，存储每个客户端的最新输入
-    private static final Map<String, InputRecord> clientInputs = new ConcurrentHashMap<>();
+    // 使用地址字符串作为 key，每个客户端一个输入槽（最新输入 + 输入帧队列）
+    private static final ConcurrentHashMap<String, InputSlot> inputSlots = new ConcurrentHashMap<>();
+    
+    static InputSlot inputSlot(Map<String, InputSlot> slots, String addressId) {
+        InputSlot slot = slots.get(addressId);
+        return slot != null ? slot : slots.computeIfAbsent(addressId, k -> new InputSlot());
+    }
     
     public static void updateClientInput(InputRecord input) {
         if (input != null && input.addressId != null) {
-            clientInputs.put(input.addressId, input);
+            Room room = roomOf(input.addressId);
+            if (room != null) {
+                room.updateClientInput(input);
+                return;
+            }
+            inputSlot(inputSlots, input.addressId).latest = input;
         }
     }
     
     public static InputRecord getClientInput(String addressId) {
-        return clientInputs.get(addressId);
+        InputSlot slot = addressId == null ? null : inputSlots.get(addressId);
+        return slot == null ? null : slot.latest;
     }
     
+    /**
+     * 复制所有客户端的最新输入
+     * 每次调用都会遍历全部输入槽，模拟线程应当按会话调用 getClientInput
+     */
     public static Map<String, InputRecord> getAllClientInputs() {
-        return new ConcurrentHashMap<>(clientInputs);
+        Map<String, InputRecord> inputs = new HashMap<>();
+        for (Map.Entry<String, InputSlot> entry : inputSlots.entrySet()) {
+            InputRecord input = entry.getValue().latest;
+            if (input != null) {
+                inputs.put(entry.getKey(), input);
+            }
+        }
+        return inputs;
     }
     
     public static void clearClientInput(String addressId) {
-        clientInputs.remove(addressId);
+        InputSlot slot = addressId == null ? null : inputSlots.get(addressId);
+        if (slot != null) {
+            slot.latest = null;
+        }
+    }
+    
+    /**
+     * 把客户端发来的输入包入队（按序号入队，模拟线程每个 tick 按顺序消费）
+     * @param addressId 客户端会话地址，以服务端看到的连接地址为准
+     */
+    public static void enqueueInputFrames(String addressId, InputFrames.Packet packet) {
+        if (addressId == null || packet == null) {
+            return;
+        }
+        Room room = roomOf(addressId);
+        if (room != null) {
+            room.enqueueInputFrames(addressId, packet);
+            return;
+        }
+        inputSlot(inputSlots, addressId).frames().offer(packet);
+    }
+    
+    /**
+     * 获取客户端的输入帧队列，客户端尚未发送过输入帧时返回 null
+     */
+    public static InputQueue getInputQueue(String addressId) {
+        if (addressId == null) {
+            return null;
+        }
+        Room room = roomOf(addressId);
+        if (room != null) {
+            return room.getInputQueue(addressId);
+        }
+        InputSlot slot = inputSlots.get(addressId);
+        return slot == null ? null : slot.framesOrNull();
+    }
+    
+    // 多房间（可选）
+    // 未设置 RoomManager 时服务端只运行一局，使用上面的全局输入表和 currentRecords
+    private static volatile RoomManager roomManager;
+    
+    public static void setRoomManager(RoomManager manager) {
+        roomManager = manager;
+    }
+    
+    public static RoomManager getRoomManager() {
+        return roomManager;
+    }
+    
+    /**
+     * 获取会话所在的房间，未启用多房间或会话未加入房间时返回 null
+     */
+    public static Room roomOf(String addressId) {
+        RoomManager manager = roomManager;
+        return manager == null ? null : manager.roomOf(addressId);
+    }
+    
+    /**
+     * 处理 JOIN 消息并生成回复
+     * 未启用多房间时回复 "JOIN-ACK [UDP:端口 TOKEN:令牌]"；
+     * 启用多房间时负载 "玩家名@房间名" 加入命名房间，只有玩家名时匹配房间，
+     * 回复 "JOIN-ACK ROOM:房间名 [UDP:端口 TOKEN:令牌]"，房间已满时回复 "JOIN-REJECT ROOM-FULL"。
+     * 令牌是会话的随机 UDP 令牌，客户端登记 UDP 端点时必须出示，见 acceptUdpHello
+     * @param addressId 会话地址
+     * @param payload "JOIN:" 之后的内容
+     * @return 以换行结尾的回复
+     */
+    public static String join(String addressId, String payload) {
+        Session session = addressId == null ? null : sessions.get(addressId);
+        String udp = udpPort > 0 ? " UDP:" + udpPort + (session != null ? " TOKEN:" + session.udpToken : "") : "";
+        RoomManager manager = roomManager;
+        if (manager == null) {
+            return "JOIN-ACK" + udp + "\n";
+        }
+        String playerName = payload;
+        String roomName = null;
+        int at = payload.lastIndexOf('@');
+        if (at >= 0) {
+            playerName = payload.substring(0, at);
+            roomName = payload.substring(at + 1);
+        }
+        Room room = manager.join(addressId, playerName, roomName);
+        if (room == null) {
+            return "JOIN-REJECT ROOM-FULL\n";
+        }
+        return "JOIN-ACK ROOM:" + room.getName() + udp + "\n";
+    }
+    
+    // 客户端视野（兴趣区域）管理
+    private static final InterestManager interestManager = new InterestManager();
+    
+    public static InterestManager getInterestManager() {
+        return interestManager;
+    }
+    
+    /**
+     * 更新客户端玩家的位置，广播时据此裁剪该客户端的快照
+     */
+    public static void updateClientView(String addressId, float centerX, float centerY) {
+        interestManager.updateClientView(addressId, centerX, centerY);
+    }
+    
+    // UDP 快照通道
+    // 端口为 0 表示服务端未启用 UDP，JOIN-ACK 中不会携带 UDP 端口
+    private static volatile int udpPort = 0;
+    
+    public static void setUdpPort(int port) {
+        udpPort = port;
+    }
+    
+    public static int getUdpPort() {
+        return udpPort;
+    }
+    
+    /**
+     * 校验客户端登记 UDP 端点的 HELLO：会话存在、令牌与 JOIN-ACK 中下发的一致，
+     * 且数据报来自 TCP 对端的同一 IP；没有 TCP 对端地址的会话（进程内回环连接）不使用 UDP
+     * @param source HELLO 数据报的来源 IP
+     */
+    public static boolean acceptUdpHello(String addressId, String token, InetAddress source) {
+        Session session = addressId == null ? null : sessions.get(addressId);
+        if (session == null || token == null || session.peer == null || !session.peer.equals(source)) {
+            return false;
+        }
+        return MessageDigest.isEqual(session.udpToken.getBytes(StandardCharsets.US_ASCII),
+                token.getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * 获取会话的 UDP 令牌，会话不存在时返回 null
+     */
+    static String udpToken(String addressId) {
+        Session session = addressId == null ? null : sessions.get(addressId);
+        return session == null ? null : session.udpToken;
+    }
+    
+    /**
+     * 标记客户端已登记 UDP 端点，之后它的快照不再走 TCP
+     * 会话已断开时忽略
+     */
+    public static void markUdpClient(String addressId) {
+        Session session = addressId == null ? null : sessions.get(addressId);
+        if (session != null) {
+            session.udp = true;
+        }
+    }
+    
+    public static void unmarkUdpClient(String addressId) {
+        Session session = addressId == null ? null : sessions.get(addressId);
+        if (session != null) {
+            session.udp = false;
+        }
+    }
+    
+    public static boolean isUdpClient(String addressId) {
+        Session session = addressId == null ? null : sessions.get(addressId);
+        return session != null && session.udp;
     }
     
     // 重置所有状态
-    public static synchronized void reset() {
+    public static void reset() {
         clientCount = 0;
-        clientAddresses.clear();
-        clientInputs.clear();
+        sessions.clear();
+        inputSlots.clear();
+        interestManager.reset();
+        roomManager = null;
+        currentRecords = null;
     }
 
     // 服务端渲染管理
-    public static Record currentRecords;
+    // 模拟线程发布的最新全局快照（已冻结），只通过 publishRecords 写入；客户端收到的快照保存在 NioClient 中
+    private static volatile Record currentRecords;
+
+    // 服务端时钟起点，快照时间戳相对于此
+    private static final long serverEpochNanos = System.nanoTime();
+
+    /**
+     * 服务端单调时钟（秒），用于快照时间戳
+     */
+    public static double serverTime() {
+        return (System.nanoTime() - serverEpochNanos) / 1_000_000_000.0;
+    }
+
+    // 快照广播调度器，服务端启动时注册
+    private static final List<TickScheduler> tickSchedulers = new CopyOnWriteArrayList<>();
+
+    public static void addTickScheduler(TickScheduler scheduler) {
+        if (scheduler != null) {
+            tickSchedulers.add(scheduler);
+        }
+    }
+
+    public static void removeTickScheduler(TickScheduler scheduler) {
+        tickSchedulers.remove(scheduler);
+    }
+
+    /**
+     * 模拟线程发布新的快照，并通知调度器尽快广播
+     */
+    public static void publishRecords(Record record) {
+        currentRecords = record == null ? null : record.seal();
+        notifySnapshotPublished();
+    }
+
+    /**
+     * 获取最新发布的全局快照，尚未发布时返回 null
+     * 发给某个会话的快照应使用 snapshotFor，会话在房间中时两者不同
+     */
+    public static Record getCurrentRecords() {
+        return currentRecords;
+    }
+
+    /**
+     * 通知调度器有新快照，房间发布快照时也会调用
+     */
+    static void notifySnapshotPublished() {
+        for (TickScheduler scheduler : tickSchedulers) {
+            scheduler.onPublish();
+        }
+    }
+
+    /**
+     * 获取应当发给该会话的快照
+     * 会话在房间中时返回房间的快照，否则返回全局快照
+     */
+    public static Record snapshotFor(String addressId) {
+        Room room = roomOf(addressId);
+        return room != null ? room.getCurrentRecords() : currentRecords;
+    }
+
+    /**
+     * 是否存在可广播的快照（全局快照或任意房间）
+     */
+    static boolean hasSnapshots() {
+        RoomManager manager = roomManager;
+        return currentRecords != null || (manager != null && manager.getRoomCount() > 0);
+    }
 
 }
@@ -1,22 +1,220 @@
 package com.gameengine.net;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import com.gameengine.game.GameObjectRecord;
 import com.gameengine.game.Record;
 
 import com.google.gson.Gson;
 
+/**
+ * 客户端插值缓冲区
+ * 每个实体按稳定的网络 ID 维护独立的环形缓冲区，实体中途出现或消失不会与其他实体错配。
+ * 样本使用服务端时间戳，渲染时刻 = 服务端时间估计 - 插值延迟；
+ * 服务端时间优先由 ClockSync 的 PING/PONG 同步得到，插值延迟由快照到达抖动自适应决定；
+ * 数据迟到时按最近两个样本的速度做有限外推，超出上限后停在外推终点。
+ * 采样接口把结果写入调用方提供的数组，稳定运行时推送和采样都不分配内存
+ */
 public final class NetworkBuffer {
-    private static final Deque<Keyframe> buffer = new ArrayDeque<>();
     private static final Object lock = new Object();
     private static final double MAX_AGE_SEC = 2.0;
-    private static final double INTERP_DELAY_SEC = 0.12; // 120ms 缓冲
+    private static final double MAX_EXTRAPOLATION_SEC = 0.1; // 最多外推 100ms
+    private static final double MAX_GAP_SEC = 0.5; // 样本间隔超过此值视为重新出现，不跨越空档插值
+    private static final int HISTORY = 32; // 每个实体保留的样本数（20Hz 下约 1.6 秒）
+    private static final int OFFSET_WINDOW = 32; // 时钟偏移最小值滤波窗口
     private static final Gson gson = new Gson();
 
+    /**
+     * 单个实体的样本环形缓冲区
+     */
+    private static final class Track {
+        int key;
+        String id;
+        final double[] t = new double[HISTORY];
+        final float[] x = new float[HISTORY];
+        final float[] y = new float[HISTORY];
+        int head; // 下一个写入位置
+        int count;
+        long lastSnapshot; // 最近一次出现在哪个快照中
+        int activeIndex;
+
+        void clear() {
+            head = 0;
+            count = 0;
+        }
+
+        double newestTime() {
+            return t[(head - 1 + HISTORY) % HISTORY];
+        }
+
+        void add(double time, float px, float py) {
+            if (count > 0) {
+                double last = newestTime();
+                if (time <= last) {
+                    return; // 重复或过期样本
+                }
+                if (time - last > MAX_GAP_SEC) {
+                    clear(); // 离开视野后重新出现，不跨越空档插值
+                }
+            }
+            t[head] = time;
+            x[head] = px;
+            y[head] = py;
+            head = (head + 1) % HISTORY;
+            if (count < HISTORY) {
+                count++;
+            }
+        }
+
+        /**
+         * 在渲染时刻 time 采样位置
+         */
+        void sample(double time, float[] out) {
+            int newest = (head - 1 + HISTORY) % HISTORY;
+            if (time >= t[newest]) {
+                // 数据迟到：按最近两个样本外推，最多 MAX_EXTRAPOLATION_SEC
+                out[0] = x[newest];
+                out[1] = y[newest];
+                if (count >= 2) {
+                    int prev = (newest - 1 + HISTORY) % HISTORY;
+                    double span = t[newest] - t[prev];
+                    if (span > 0) {
+                        double ahead = Math.min(time - t[newest], MAX_EXTRAPOLATION_SEC);
+                        out[0] += (float) ((x[newest] - x[prev]) / span * ahead);
+                        out[1] += (float) ((y[newest] - y[prev]) / span * ahead);
+                    }
+                }
+                return;
+            }
+            // 从新到旧找到第一个不晚于 time 的样本
+            int later = newest;
+            for (int n = 1; n < count; n++) {
+                int i = (newest - n + HISTORY) % HISTORY;
+                if (t[i] <= time) {
+                    double u = (time - t[i]) / (t[later] - t[i]);
+                    out[0] = (float) (x[i] + (x[later] - x[i]) * u);
+                    out[1] = (float) (y[i] + (y[later] - y[i]) * u);
+                    return;
+                }
+                later = i;
+            }
+            // 比最旧的样本还早（例如刚出现的实体），停在最旧样本
+            out[0] = x[later];
+            out[1] = y[later];
+        }
+    }
+
+    /**
+     * int 键到 Track 的开放寻址哈希表（线性探测，删除时回移），查找和删除不分配内存
+     */
+    private static final class TrackMap {
+        private int[] keys;
+        private Track[] values;
+        private int size;
+
+        TrackMap(int capacity) {
+            keys = new int[capacity];
+            values = new Track[capacity];
+        }
+
+        private int slot(int key) {
+            int h = key * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & (keys.length - 1);
+        }
+
+        Track get(int key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(int key, Track track) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = slot(key);
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    values[i] = track;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = track;
+            size++;
+        }
+
+        void remove(int key) {
+            int mask = keys.length - 1;
+            int i = slot(key);
+            while (values[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == null) {
+                return;
+            }
+            values[i] = null;
+            size--;
+            // 回移后续元素，保持探测链连续
+            int j = (i + 1) & mask;
+            while (values[j] != null) {
+                int home = slot(keys[j]);
+                boolean movable = (j > i) ? (home <= i || home > j) : (home <= i && home > j);
+                if (movable) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    values[j] = null;
+                    i = j;
+                }
+                j = (j + 1) & mask;
+            }
+        }
+
+        void clear() {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            Track[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new Track[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+
+    private static final TrackMap tracks = new TrackMap(256);
+    private static Track[] active = new Track[128];
+    private static int activeCount = 0;
+    private static final List<Track> freeTracks = new ArrayList<>();
+    private static long snapshotCounter = 0;
+    private static double latestServerTime = 0;
+    private static final float[] scratch = new float[2]; // 持有 lock 时使用
+
+    // 时钟同步（RTT、偏移、抖动和自适应插值延迟）
+    private static final ClockSync clock = new ClockSync();
+
+    // 尚未完成时钟同步时使用：客户端时钟 - 服务端时钟 的估计（取窗口内最小值，过滤网络抖动带来的额外延迟）
+    private static final double[] offsetSamples = new double[OFFSET_WINDOW];
+    private static int offsetHead = 0;
+    private static int offsetCount = 0;
+    private static double clockOffset = 0;
+
     public static class Entity {
         public String id; public float x; public float y;
     }
@@ -25,12 +223,36 @@ public final class NetworkBuffer {
         public List<Entity> entities = new ArrayList<>();
     }
 
+    private static double clientNow() {
+        return ClockSync.clientNow();
+    }
+
+    /**
+     * 实体的缓冲区键：优先使用网络 ID；
+     * 旧录像或旧服务端没有网络 ID 时退化为名称哈希（映射到负数区间，不与网络 ID 冲突）
+     */
+    public static int keyOf(GameObjectRecord obj) {
+        if (obj.netId != 0) {
+            return obj.netId;
+        }
+        return obj.id == null ? 0 : (obj.id.hashCode() | 0x80000000);
+    }
+
+    private static int keyOf(String id) {
+        return id.hashCode() | 0x80000000;
+    }
+
+    /**
+     * 兼容旧接口：推入一个按名称标识实体的关键帧，kf.t 视为服务端时间
+     */
     public static void push(Keyframe kf) {
         synchronized (lock) {
-            buffer.addLast(kf);
-            // 修剪老帧
-            double now = kf.t;
-            while (!buffer.isEmpty() && now - buffer.peekFirst().t > MAX_AGE_SEC) buffer.pollFirst();
+            beginSnapshot(kf.t);
+            for (Entity e : kf.entities) {
+                if (e == null || e.id == null) continue;
+                addSample(keyOf(e.id), e.id, kf.t, e.x, e.y);
+            }
+            evictStale();
         }
     }
 
@@ -44,55 +266,191 @@ public final class NetworkBuffer {
 
     /**
      * 将服务端广播的 Record 推入插值缓冲区
+     * 没有服务端时间戳的旧快照使用客户端接收时间
      */
     public static void pushRecord(Record record) {
         if (record == null || record.getGameObjectsMove() == null) return;
         if (!"object_move".equals(record.getType())) return;
 
-        Keyframe kf = new Keyframe();
-        kf.t = System.currentTimeMillis() / 1000.0;
-        record.getGameObjectsMove().forEach(obj -> {
-            if (obj == null || obj.id == null) return;
-            Entity e = new Entity();
-            e.id = obj.id;
-            e.x = obj.x;
-            e.y = obj.y;
-            kf.entities.add(e);
-        });
-        if (!kf.entities.isEmpty()) {
-            push(kf);
+        boolean hasServerTime = record.getServerTime() > 0;
+        double now = clientNow();
+        double time = hasServerTime ? record.getServerTime() : now;
+        synchronized (lock) {
+            beginSnapshot(time);
+            if (hasServerTime) {
+                clock.onSnapshot(time, now);
+            }
+            for (GameObjectRecord obj : record.getGameObjectsMove()) {
+                if (obj == null || (obj.netId == 0 && obj.id == null)) continue;
+                addSample(keyOf(obj), obj.id, time, obj.x, obj.y);
+            }
+            evictStale();
         }
     }
 
-    public static Map<String, float[]> sample() {
-        double now = System.currentTimeMillis() / 1000.0;
-        double target = now - INTERP_DELAY_SEC; // 插值点
-        
-        Keyframe a = null, b = null;
+    private static void beginSnapshot(double serverTime) {
+        snapshotCounter++;
+        if (serverTime > latestServerTime) {
+            latestServerTime = serverTime;
+        }
+        offsetSamples[offsetHead] = clientNow() - serverTime;
+        offsetHead = (offsetHead + 1) % OFFSET_WINDOW;
+        if (offsetCount < OFFSET_WINDOW) offsetCount++;
+        double min = Double.MAX_VALUE;
+        for (int i = 0; i < offsetCount; i++) {
+            min = Math.min(min, offsetSamples[i]);
+        }
+        clockOffset = min;
+    }
+
+    private static void addSample(int key, String id, double time, float x, float y) {
+        Track track = tracks.get(key);
+        if (track == null) {
+            track = freeTracks.isEmpty() ? new Track() : freeTracks.remove(freeTracks.size() - 1);
+            track.clear();
+            track.key = key;
+            tracks.put(key, track);
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, active.length * 2);
+            }
+            track.activeIndex = activeCount;
+            active[activeCount++] = track;
+        }
+        track.id = id;
+        track.lastSnapshot = snapshotCounter;
+        track.add(time, x, y);
+    }
+
+    /**
+     * 回收长时间未出现的实体
+     */
+    private static void evictStale() {
+        for (int i = activeCount - 1; i >= 0; i--) {
+            Track track = active[i];
+            if (track.count == 0 || latestServerTime - track.newestTime() > MAX_AGE_SEC) {
+                tracks.remove(track.key);
+                Track last = active[--activeCount];
+                active[i] = last;
+                last.activeIndex = i;
+                active[activeCount] = null;
+                freeTracks.add(track);
+            }
+        }
+    }
+
+    /**
+     * 当前帧的渲染时刻（服务端时间轴）
+     */
+    public static double renderTime() {
         synchronized (lock) {
-            if (buffer.isEmpty()) return new HashMap<>();
-            a = buffer.peekFirst();
-            b = buffer.peekLast();
-            for (Keyframe k : buffer) {
-                if (k.t <= target) a = k; else { b = k; break; }
+            double now = clientNow();
+            double serverNow = clock.isSynced() ? clock.toServerTime(now) : now - clockOffset;
+            return serverNow - clock.getInterpolationDelay();
+        }
+    }
+
+    /**
+     * 获取时钟同步状态，客户端收到 PONG 时更新
+     */
+    public static ClockSync getClockSync() {
+        return clock;
+    }
+
+    /**
+     * 采样单个实体的位置
+     * @param key 实体键，见 keyOf
+     * @param renderTime 渲染时刻，通常每帧调用一次 renderTime() 获得
+     * @param out 输出数组 {x, y}
+     * @return 缓冲区中没有该实体时返回 false
+     */
+    public static boolean sample(int key, double renderTime, float[] out) {
+        synchronized (lock) {
+            Track track = tracks.get(key);
+            if (track == null || track.count == 0) {
+                return false;
             }
+            track.sample(renderTime, out);
+            return true;
         }
-        if (a == null) return new HashMap<>();
-        if (b == null) b = a;
-        double span = Math.max(1e-6, b.t - a.t);
-        double u = Math.max(0.0, Math.min(1.0, (target - a.t) / span));
+    }
+
+    /**
+     * 采样最新快照中的所有实体
+     * @param keys 输出实体键
+     * @param xs 输出 x 坐标
+     * @param ys 输出 y 坐标
+     * @return 写入的实体数，不超过输出数组长度
+     */
+    public static int sampleAll(double renderTime, int[] keys, float[] xs, float[] ys) {
+        int capacity = Math.min(keys.length, Math.min(xs.length, ys.length));
+        int n = 0;
+        synchronized (lock) {
+            for (int i = 0; i < activeCount && n < capacity; i++) {
+                Track track = active[i];
+                if (track.lastSnapshot != snapshotCounter) continue;
+                track.sample(renderTime, scratch);
+                keys[n] = track.key;
+                xs[n] = scratch[0];
+                ys[n] = scratch[1];
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 兼容旧接口：按名称返回最新快照中所有实体的插值位置（每次调用都会分配）
+     */
+    public static Map<String, float[]> sample() {
+        double target = renderTime();
         Map<String, float[]> out = new HashMap<>();
-        int n = Math.min(a.entities.size(), b.entities.size());
-        for (int i = 0; i < n; i++) {
-            Entity ea = a.entities.get(i);
-            Entity eb = b.entities.get(i);
-            if (ea == null || eb == null || ea.id == null) continue;
-            float x = (float)((1.0 - u) * ea.x + u * eb.x);
-            float y = (float)((1.0 - u) * ea.y + u * eb.y);
-            out.put(ea.id, new float[]{x, y});
+        synchronized (lock) {
+            for (int i = 0; i < activeCount; i++) {
+                Track track = active[i];
+                if (track.lastSnapshot != snapshotCounter || track.id == null) continue;
+                float[] pos = new float[2];
+                track.sample(target, pos);
+                out.put(track.id, pos);
+            }
         }
         return out;
     }
-}
 
+    /**
+     * 缓冲区中正在跟踪的实体数
+     */
+    public static int getTrackedCount() {
+        synchronized (lock) {
+            return activeCount;
+        }
+    }
+
+    /**
+     * 估计的 客户端时钟 - 服务端时钟 偏移（秒）
+     */
+    public static double getClockOffset() {
+        synchronized (lock) {
+            return clock.isSynced() ? -clock.getOffset() : clockOffset;
+        }
+    }
 
+    /**
+     * 清空缓冲区（断线重连、测试）
+     */
+    public static void reset() {
+        synchronized (lock) {
+            for (int i = 0; i < activeCount; i++) {
+                freeTracks.add(active[i]);
+                active[i] = null;
+            }
+            activeCount = 0;
+            tracks.clear();
+            snapshotCounter = 0;
+            latestServerTime = 0;
+            offsetHead = 0;
+            offsetCount = 0;
+            clockOffset = 0;
+            clock.reset();
+        }
+    }
+}
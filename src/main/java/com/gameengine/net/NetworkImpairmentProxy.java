@@ -0,0 +1,875 @@
+package com.gameengine.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 本地网络损伤代理
+ * 在客户端和服务端之间转发 TCP 和 UDP，按配置注入延迟（可选分布）、抖动、带宽限制、丢包和乱序，
+ * 用于在开发机上复现真实网络下的插值、预测和带宽表现。
+ *
+ * TCP 是可靠字节流，不会真正丢包或乱序：丢包表现为一次重传超时的停顿，之后的数据一起等待（队头阻塞）；
+ * 乱序只对 UDP 生效。带宽按方向限制，同一方向的所有连接和数据报共享（模拟同一条瓶颈链路）。
+ *
+ * 代理会改写服务端回复的 JOIN-ACK：UDP 端口换成代理的 UDP 端口，并附加 "SESSION:会话地址"，
+ * 客户端据此使用服务端看到的地址登记 UDP、匹配输入确认（与经过 NAT 时相同）。
+ *
+ * 测试中使用：
+ * NetworkImpairmentProxy proxy = new NetworkImpairmentProxy(0, "127.0.0.1", serverPort, Profile.mobile());
+ * proxy.enableUdp(0);
+ * proxy.start();
+ * client.connect("127.0.0.1", proxy.getPort());
+ *
+ * 命令行：
+ * java com.gameengine.net.NetworkImpairmentProxy --listen 9000 --target 127.0.0.1:8888 --udp 9001 --profile mobile --loss 0.05
+ */
+public class NetworkImpairmentProxy {
+
+    private static final int TCP_CHUNK_SIZE = 16 * 1024;
+    private static final int TCP_SEGMENT_SIZE = 1460;
+    private static final long MIN_RTO_MS = 200;
+
+    private final int requestedPort;
+    private final InetSocketAddress target;
+    private volatile Profile profile;
+
+    private ServerSocketChannel serverChannel;
+    private volatile boolean isRunning = false;
+    private Thread acceptThread;
+    private final Map<SocketChannel, Connection> connections = new ConcurrentHashMap<>();
+
+    // UDP 转发（可选）
+    private int requestedUdpPort = -1;
+    private volatile int udpTargetPort = 0;
+    private DatagramChannel udpChannel;
+    private final Map<SocketAddress, UdpSession> udpSessions = new ConcurrentHashMap<>();
+    private final DelayQueue<Datagram> datagrams = new DelayQueue<>();
+
+    // 每个方向一条链路，上行为客户端到服务端
+    private final Link upstream = new Link("up");
+    private final Link downstream = new Link("down");
+
+    /**
+     * 损伤配置
+     * 所有设置都按单向计算，往返延迟约为 2 * delayMs
+     */
+    public static final class Profile {
+
+        /**
+         * 延迟分布，jitterMs 为分布的宽度（均匀分布的半宽、正态分布的标准差、帕累托分布的尺度）
+         */
+        public enum Distribution {
+            CONSTANT,
+            UNIFORM,
+            NORMAL,
+            PARETO // 长尾：大部分数据包接近基础延迟，偶尔出现很大的延迟
+        }
+
+        private double delayMs = 0;
+        private double jitterMs = 0;
+        private Distribution distribution = Distribution.CONSTANT;
+        private double lossRate = 0;
+        private double reorderRate = 0;
+        private double reorderGapMs = 20;
+        private int bandwidthKbps = 0;
+        private double queueLimitMs = 500;
+        private long seed = 0;
+
+        public static Profile none() {
+            return new Profile();
+        }
+
+        public static Profile lan() {
+            return new Profile().delay(1).jitter(0.5).distribution(Distribution.UNIFORM);
+        }
+
+        public static Profile broadband() {
+            return new Profile().delay(20).jitter(5).distribution(Distribution.NORMAL)
+                    .loss(0.001).bandwidth(20_000);
+        }
+
+        public static Profile mobile() {
+            return new Profile().delay(60).jitter(25).distribution(Distribution.PARETO)
+                    .loss(0.02).reorder(0.01).bandwidth(2_000);
+        }
+
+        public static Profile lossy() {
+            return new Profile().delay(40).jitter(10).distribution(Distribution.NORMAL)
+                    .loss(0.1).reorder(0.05);
+        }
+
+        /**
+         * 按名称获取预设配置：none、lan、broadband、mobile、lossy
+         */
+        public static Profile named(String name) {
+            switch (name.toLowerCase()) {
+                case "none": return none();
+                case "lan": return lan();
+                case "broadband": return broadband();
+                case "mobile": return mobile();
+                case "lossy": return lossy();
+                default: throw new IllegalArgumentException("未知的网络配置: " + name);
+            }
+        }
+
+        /** 单向基础延迟（毫秒） */
+        public Profile delay(double ms) {
+            this.delayMs = Math.max(0, ms);
+            return this;
+        }
+
+        /** 抖动（毫秒），含义由延迟分布决定 */
+        public Profile jitter(double ms) {
+            this.jitterMs = Math.max(0, ms);
+            return this;
+        }
+
+        public Profile distribution(Distribution distribution) {
+            this.distribution = distribution == null ? Distribution.CONSTANT : distribution;
+            return this;
+        }
+
+        /** 丢包率 [0, 1]，TCP 按 MSS 大小的分段计算 */
+        public Profile loss(double rate) {
+            this.lossRate = clamp01(rate);
+            return this;
+        }
+
+        /** UDP 乱序率 [0, 1]，被选中的数据报额外延后 reorderGapMs，让后面的数据报先到 */
+        public Profile reorder(double rate) {
+            this.reorderRate = clamp01(rate);
+            return this;
+        }
+
+        public Profile reorderGap(double ms) {
+            this.reorderGapMs = Math.max(0, ms);
+            return this;
+        }
+
+        /** 单向带宽上限（千比特/秒），0 表示不限 */
+        public Profile bandwidth(int kbps) {
+            this.bandwidthKbps = Math.max(0, kbps);
+            return this;
+        }
+
+        /**
+         * 链路缓冲上限（毫秒），排队超过该时长时 UDP 尾部丢弃、TCP 阻塞发送方
+         */
+        public Profile queueLimit(double ms) {
+            this.queueLimitMs = Math.max(0, ms);
+            return this;
+        }
+
+        /** 随机数种子，0 表示每次运行不同 */
+        public Profile seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public double getDelayMs() { return delayMs; }
+        public double getJitterMs() { return jitterMs; }
+        public Distribution getDistribution() { return distribution; }
+        public double getLossRate() { return lossRate; }
+        public double getReorderRate() { return reorderRate; }
+        public int getBandwidthKbps() { return bandwidthKbps; }
+        public long getSeed() { return seed; }
+
+        Profile copy() {
+            Profile p = new Profile();
+            p.delayMs = delayMs;
+            p.jitterMs = jitterMs;
+            p.distribution = distribution;
+            p.lossRate = lossRate;
+            p.reorderRate = reorderRate;
+            p.reorderGapMs = reorderGapMs;
+            p.bandwidthKbps = bandwidthKbps;
+            p.queueLimitMs = queueLimitMs;
+            p.seed = seed;
+            return p;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("delay=%.1fms jitter=%.1fms(%s) loss=%.3f reorder=%.3f bandwidth=%s",
+                    delayMs, jitterMs, distribution, lossRate, reorderRate,
+                    bandwidthKbps > 0 ? bandwidthKbps + "kbps" : "unlimited");
+        }
+
+        private static double clamp01(double v) {
+            return Math.max(0, Math.min(1, v));
+        }
+    }
+
+    /**
+     * 单向链路：串行发送（带宽）+ 传播延迟 + 丢包/乱序，计算每个数据包的送达时刻
+     */
+    static final class Link {
+        final String name;
+        private Random random = new Random();
+        private long seed = 0;
+        private long busyUntilNanos = 0;
+        private long packets = 0;
+        private long dropped = 0;
+        private long reordered = 0;
+        private long stalls = 0;
+        private final AtomicLong deliveredBytes = new AtomicLong();
+        private final AtomicLong deliveredPackets = new AtomicLong();
+
+        Link(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 计算数据包的送达时刻
+         * @param stream 是否为 TCP 字节流：丢包变为重传停顿，不做乱序
+         * @return 送达时刻（System.nanoTime 时间轴），被丢弃时返回 -1
+         */
+        synchronized long schedule(Profile p, int size, boolean stream) {
+            if (p.seed != 0 && p.seed != seed) {
+                seed = p.seed;
+                random = new Random(p.seed ^ name.hashCode());
+            }
+            long now = System.nanoTime();
+            packets++;
+
+            long start = Math.max(now, busyUntilNanos);
+            if (!stream && p.queueLimitMs > 0 && start - now > millisToNanos(p.queueLimitMs)) {
+                // 链路缓冲已满，尾部丢弃
+                dropped++;
+                return -1;
+            }
+            busyUntilNanos = p.bandwidthKbps > 0 ? start + size * 8_000_000L / p.bandwidthKbps : now;
+            long due = busyUntilNanos + millisToNanos(sampleDelay(p));
+
+            if (isLost(p, size, stream)) {
+                if (!stream) {
+                    dropped++;
+                    return -1;
+                }
+                // TCP：等待一次重传超时后送达
+                stalls++;
+                due += millisToNanos(Math.max(MIN_RTO_MS, 2 * p.delayMs + 4 * p.jitterMs));
+            } else if (!stream && p.reorderRate > 0 && random.nextDouble() < p.reorderRate) {
+                reordered++;
+                due += millisToNanos(p.reorderGapMs);
+            }
+            return due;
+        }
+
+        /**
+         * 链路上尚未发送完的排队时长
+         */
+        synchronized long backlogNanos() {
+            return Math.max(0, busyUntilNanos - System.nanoTime());
+        }
+
+        void onDelivered(int size) {
+            deliveredBytes.addAndGet(size);
+            deliveredPackets.incrementAndGet();
+        }
+
+        private double sampleDelay(Profile p) {
+            double d = p.delayMs;
+            double j = p.jitterMs;
+            switch (p.distribution) {
+                case UNIFORM:
+                    d += (random.nextDouble() * 2 - 1) * j;
+                    break;
+                case NORMAL:
+                    d += random.nextGaussian() * j;
+                    break;
+                case PARETO:
+                    // 形状参数 2.5，平均额外延迟约为 2/3 * jitter
+                    d += j * (Math.pow(1 - random.nextDouble(), -1 / 2.5) - 1);
+                    break;
+                default:
+                    break;
+            }
+            return Math.max(0, d);
+        }
+
+        private boolean isLost(Profile p, int size, boolean stream) {
+            if (p.lossRate <= 0) {
+                return false;
+            }
+            int segments = stream ? (size + TCP_SEGMENT_SIZE - 1) / TCP_SEGMENT_SIZE : 1;
+            double delivered = Math.pow(1 - p.lossRate, segments);
+            return random.nextDouble() >= delivered;
+        }
+
+        synchronized long getPackets() { return packets; }
+        synchronized long getDropped() { return dropped; }
+        synchronized long getReordered() { return reordered; }
+        synchronized long getStalls() { return stalls; }
+        long getDeliveredBytes() { return deliveredBytes.get(); }
+        long getDeliveredPackets() { return deliveredPackets.get(); }
+
+        private static long millisToNanos(double ms) {
+            return (long) (ms * 1_000_000L);
+        }
+    }
+
+    /**
+     * 延迟送达的 TCP 数据块
+     */
+    private static final class Chunk {
+        static final Chunk EOF = new Chunk(0, null);
+        final long dueNanos;
+        final byte[] data;
+
+        Chunk(long dueNanos, byte[] data) {
+            this.dueNanos = dueNanos;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 延迟送达的 UDP 数据报，DelayQueue 按送达时刻排序
+     */
+    private static final class Datagram implements Delayed {
+        final long dueNanos;
+        final byte[] data;
+        final DatagramChannel channel;
+        final SocketAddress to; // 为 null 时使用已连接的通道
+        final Link link;
+
+        Datagram(long dueNanos, byte[] data, DatagramChannel channel, SocketAddress to, Link link) {
+            this.dueNanos = dueNanos;
+            this.data = data;
+            this.channel = channel;
+            this.to = to;
+            this.link = link;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(dueNanos, ((Datagram) o).dueNanos);
+        }
+    }
+
+    /**
+     * 一个被代理的 TCP 连接，每个方向一个读线程和一个按送达时刻写出的写线程（虚拟线程）
+     */
+    private final class Connection {
+        final SocketChannel client;
+        final SocketChannel server;
+        final String sessionId; // 服务端看到的客户端地址
+
+        Connection(SocketChannel client, SocketChannel server) throws IOException {
+            this.client = client;
+            this.server = server;
+            this.sessionId = server.getLocalAddress().toString();
+        }
+
+        void start() {
+            pipe(client, server, upstream, false);
+            pipe(server, client, downstream, true);
+        }
+
+        private void pipe(SocketChannel source, SocketChannel sink, Link link, boolean rewriteJoinAck) {
+            BlockingQueue<Chunk> queue = new LinkedBlockingQueue<>();
+            Thread.ofVirtual().name("proxy-" + link.name + "-read").start(() -> {
+                JoinAckRewriter rewriter = rewriteJoinAck ? new JoinAckRewriter(sessionId) : null;
+                ByteBuffer in = ByteBuffer.allocate(TCP_CHUNK_SIZE);
+                long lastDue = 0;
+                try {
+                    while (isRunning) {
+                        in.clear();
+                        int n = source.read(in);
+                        if (n < 0) {
+                            break;
+                        }
+                        byte[] data = new byte[n];
+                        System.arraycopy(in.array(), 0, data, 0, n);
+                        if (rewriter != null) {
+                            data = rewriter.process(data);
+                            if (data.length == 0) {
+                                continue;
+                            }
+                        }
+                        Profile p = profile;
+                        // 字节流按序送达：不早于前一个数据块
+                        lastDue = Math.max(lastDue, link.schedule(p, data.length, true));
+                        queue.put(new Chunk(lastDue, data));
+                        // 链路缓冲已满时暂停读取，由 TCP 窗口向发送方施加背压
+                        long limit = Link.millisToNanos(p.queueLimitMs);
+                        long backlog;
+                        while (limit > 0 && (backlog = link.backlogNanos()) > limit) {
+                            LockSupport.parkNanos(backlog - limit);
+                        }
+                    }
+                } catch (IOException | InterruptedException e) {
+                    // 连接关闭
+                } finally {
+                    queue.offer(Chunk.EOF);
+                }
+            });
+            Thread.ofVirtual().name("proxy-" + link.name + "-write").start(() -> {
+                try {
+                    while (true) {
+                        Chunk chunk = queue.take();
+                        if (chunk == Chunk.EOF) {
+                            break;
+                        }
+                        long wait;
+                        while ((wait = chunk.dueNanos - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        ByteBuffer out = ByteBuffer.wrap(chunk.data);
+                        while (out.hasRemaining()) {
+                            sink.write(out);
+                        }
+                        link.onDelivered(chunk.data.length);
+                    }
+                } catch (IOException | InterruptedException e) {
+                    // 连接关闭
+                } finally {
+                    close();
+                }
+            });
+        }
+
+        void close() {
+            if (connections.remove(client) != null) {
+                System.out.println("[ImpairmentProxy] 连接关闭: " + sessionId);
+            }
+            closeQuietly(client);
+            closeQuietly(server);
+        }
+    }
+
+    /**
+     * 改写服务端发往客户端的第一条 JOIN-ACK，之后的数据原样转发
+     */
+    private final class JoinAckRewriter {
+        private final String sessionId;
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private boolean done = false;
+
+        JoinAckRewriter(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        byte[] process(byte[] data) {
+            if (done) {
+                return data;
+            }
+            pending.write(data, 0, data.length);
+            byte[] buf = pending.toByteArray();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(buf.length + 64);
+            int start = 0;
+            int end;
+            while (!done && (end = indexOf(buf, (byte) '\n', start)) >= 0) {
+                String line = new String(buf, start, end - start, StandardCharsets.UTF_8);
+                if (line.startsWith("JOIN-ACK")) {
+                    byte[] rewritten = (rewrite(line) + "\n").getBytes(StandardCharsets.UTF_8);
+                    out.write(rewritten, 0, rewritten.length);
+                    done = true;
+                } else {
+                    out.write(buf, start, end - start + 1);
+                }
+                start = end + 1;
+            }
+            pending.reset();
+            if (done) {
+                out.write(buf, start, buf.length - start);
+            } else {
+                pending.write(buf, start, buf.length - start);
+            }
+            return out.toByteArray();
+        }
+
+        private String rewrite(String line) {
+            String result = line;
+            int serverUdpPort = NioClient.parseUdpPort(line);
+            if (serverUdpPort > 0) {
+                if (udpTargetPort == 0) {
+                    udpTargetPort = serverUdpPort;
+                }
+                int proxyUdpPort = getUdpPort();
+                if (proxyUdpPort > 0) {
+                    result = result.replace("UDP:" + serverUdpPort, "UDP:" + proxyUdpPort);
+                }
+            }
+            return result + " SESSION:" + sessionId;
+        }
+
+        private int indexOf(byte[] buf, byte b, int from) {
+            for (int i = from; i < buf.length; i++) {
+                if (buf[i] == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 一个客户端 UDP 端点，对应一个连接到服务端 UDP 端口的上游通道
+     */
+    private final class UdpSession {
+        final SocketAddress clientEndpoint;
+        final DatagramChannel upstreamChannel;
+
+        UdpSession(SocketAddress clientEndpoint) throws IOException {
+            this.clientEndpoint = clientEndpoint;
+            this.upstreamChannel = DatagramChannel.open();
+            this.upstreamChannel.connect(new InetSocketAddress(target.getAddress(), udpTargetPort));
+        }
+
+        void start() {
+            Thread.ofVirtual().name("proxy-udp-reply").start(this::receiveReplies);
+        }
+
+        private void receiveReplies() {
+            ByteBuffer in = ByteBuffer.allocate(65536);
+            try {
+                while (isRunning && upstreamChannel.isOpen()) {
+                    in.clear();
+                    int n = upstreamChannel.read(in);
+                    if (n > 0) {
+                        byte[] data = new byte[n];
+                        System.arraycopy(in.array(), 0, data, 0, n);
+                        scheduleDatagram(downstream, data, udpChannel, clientEndpoint);
+                    }
+                }
+            } catch (IOException e) {
+                // 通道关闭或服务端不可达
+            }
+        }
+    }
+
+    /**
+     * @param listenPort 代理监听的 TCP 端口，为 0 时由系统分配
+     * @param targetHost 服务端地址
+     * @param targetPort 服务端 TCP 端口
+     * @param profile 损伤配置
+     */
+    public NetworkImpairmentProxy(int listenPort, String targetHost, int targetPort, Profile profile) {
+        this.requestedPort = listenPort;
+        this.target = new InetSocketAddress(targetHost, targetPort);
+        // 不调用可被重写的 setProfile，避免构造完成前把 this 交给子类
+        this.profile = profile == null ? Profile.none() : profile.copy();
+    }
+
+    /**
+     * 同时代理 UDP 快照通道，必须在 start 之前调用
+     * 服务端的 UDP 端口默认从 JOIN-ACK 中获得，也可以用 setUdpTarget 指定
+     * @param udpPort 代理监听的 UDP 端口，为 0 时由系统分配
+     */
+    public void enableUdp(int udpPort) {
+        this.requestedUdpPort = udpPort;
+    }
+
+    public void setUdpTarget(int udpPort) {
+        this.udpTargetPort = udpPort;
+    }
+
+    /**
+     * 替换损伤配置，运行中也可调用，之后的数据包使用新配置
+     */
+    public void setProfile(Profile profile) {
+        this.profile = profile == null ? Profile.none() : profile.copy();
+    }
+
+    public Profile getProfile() {
+        return profile.copy();
+    }
+
+    public void start() throws IOException {
+        if (isRunning) {
+            return;
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(requestedPort));
+        if (requestedUdpPort >= 0) {
+            udpChannel = DatagramChannel.open();
+            udpChannel.bind(new InetSocketAddress(requestedUdpPort));
+        }
+        isRunning = true;
+
+        acceptThread = new Thread(this::acceptLoop, "ImpairmentProxy-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        Thread.ofVirtual().name("proxy-udp-deliver").start(this::deliverDatagrams);
+        if (udpChannel != null) {
+            Thread.ofVirtual().name("proxy-udp-receive").start(this::receiveDatagrams);
+        }
+        System.out.println("[ImpairmentProxy] 已启动，TCP " + getPort() + " -> " + target
+                + (udpChannel != null ? "，UDP " + getUdpPort() : "") + "，" + profile);
+    }
+
+    public void stop() {
+        if (!isRunning) {
+            return;
+        }
+        isRunning = false;
+        closeQuietly(serverChannel);
+        closeQuietly(udpChannel);
+        for (Connection connection : connections.values()) {
+            connection.close();
+        }
+        for (UdpSession session : udpSessions.values()) {
+            closeQuietly(session.upstreamChannel);
+        }
+        udpSessions.clear();
+        datagrams.clear();
+        if (acceptThread != null) {
+            acceptThread.interrupt();
+            acceptThread = null;
+        }
+        System.out.println("[ImpairmentProxy] 已停止 " + getStatsSummary());
+    }
+
+    private void acceptLoop() {
+        while (isRunning) {
+            SocketChannel client = null;
+            try {
+                client = serverChannel.accept();
+                SocketChannel server = SocketChannel.open(target);
+                server.socket().setTcpNoDelay(true);
+                client.socket().setTcpNoDelay(true);
+                Connection connection = new Connection(client, server);
+                connections.put(client, connection);
+                connection.start();
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (isRunning) {
+                    System.err.println("[ImpairmentProxy] 无法连接服务端: " + e.getMessage());
+                }
+                closeQuietly(client);
+            }
+        }
+    }
+
+    private void receiveDatagrams() {
+        ByteBuffer in = ByteBuffer.allocate(65536);
+        while (isRunning) {
+            try {
+                in.clear();
+                SocketAddress from = udpChannel.receive(in);
+                if (from == null || udpTargetPort == 0) {
+                    // 尚不知道服务端的 UDP 端口
+                    continue;
+                }
+                UdpSession session = udpSessions.get(from);
+                if (session == null) {
+                    session = new UdpSession(from);
+                    udpSessions.put(from, session);
+                    session.start();
+                }
+                byte[] data = new byte[in.position()];
+                System.arraycopy(in.array(), 0, data, 0, data.length);
+                scheduleDatagram(upstream, data, session.upstreamChannel, null);
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (isRunning) {
+                    System.err.println("[ImpairmentProxy] UDP 接收失败: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void scheduleDatagram(Link link, byte[] data, DatagramChannel channel, SocketAddress to) {
+        long due = link.schedule(profile, data.length, false);
+        if (due >= 0) {
+            datagrams.put(new Datagram(due, data, channel, to, link));
+        }
+    }
+
+    private void deliverDatagrams() {
+        while (isRunning) {
+            try {
+                Datagram d = datagrams.poll(100, TimeUnit.MILLISECONDS);
+                if (d == null) {
+                    continue;
+                }
+                ByteBuffer out = ByteBuffer.wrap(d.data);
+                if (d.to != null) {
+                    d.channel.send(out, d.to);
+                } else {
+                    d.channel.write(out);
+                }
+                d.link.onDelivered(d.data.length);
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException e) {
+                // 对端已关闭或不可达，与真实网络一样直接丢弃
+            }
+        }
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    // ========== 查询（测试与监控） ==========
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * 代理的 TCP 监听端口，客户端连接这个端口
+     */
+    public int getPort() {
+        return serverChannel == null ? 0 : serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * 代理的 UDP 监听端口，未启用 UDP 时返回 0
+     */
+    public int getUdpPort() {
+        DatagramChannel ch = udpChannel;
+        return ch == null ? 0 : ch.socket().getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    public int getUdpClientCount() {
+        return udpSessions.size();
+    }
+
+    /** 已送达服务端的字节数（TCP + UDP） */
+    public long getUpstreamBytes() {
+        return upstream.getDeliveredBytes();
+    }
+
+    /** 已送达客户端的字节数（TCP + UDP） */
+    public long getDownstreamBytes() {
+        return downstream.getDeliveredBytes();
+    }
+
+    /** 已送达的数据包数（TCP 数据块 + UDP 数据报） */
+    public long getDeliveredPackets() {
+        return upstream.getDeliveredPackets() + downstream.getDeliveredPackets();
+    }
+
+    /** 被丢弃的 UDP 数据报数（随机丢包 + 缓冲区满） */
+    public long getDroppedPackets() {
+        return upstream.getDropped() + downstream.getDropped();
+    }
+
+    /** 被延后造成乱序的 UDP 数据报数 */
+    public long getReorderedPackets() {
+        return upstream.getReordered() + downstream.getReordered();
+    }
+
+    /** TCP 丢包造成的重传停顿次数 */
+    public long getTcpStalls() {
+        return upstream.getStalls() + downstream.getStalls();
+    }
+
+    public String getStatsSummary() {
+        return String.format("连接: %d, UDP 端点: %d, 上行: %d 字节, 下行: %d 字节, 丢弃: %d, 乱序: %d, TCP 停顿: %d",
+                getConnectionCount(), getUdpClientCount(), getUpstreamBytes(), getDownstreamBytes(),
+                getDroppedPackets(), getReorderedPackets(), getTcpStalls());
+    }
+
+    // ========== 命令行 ==========
+
+    /**
+     * 命令行启动代理，参数：
+     * --listen 端口           代理 TCP 端口（默认 9000）
+     * --target 主机:端口       服务端地址（必需）
+     * --udp 端口              同时代理 UDP，0 表示自动分配
+     * --udp-target 端口       服务端 UDP 端口（默认从 JOIN-ACK 获得）
+     * --profile 名称          预设：none、lan、broadband、mobile、lossy
+     * --delay/--jitter 毫秒、--distribution constant|uniform|normal|pareto、
+     * --loss/--reorder 比例、--bandwidth 千比特每秒、--seed 种子  覆盖预设中的对应项
+     */
+    public static void main(String[] args) throws Exception {
+        int listenPort = 9000;
+        String targetHost = null;
+        int targetPort = 0;
+        int udpPort = -1;
+        int udpTarget = 0;
+        Profile profile = Profile.none();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                String value = i + 1 < args.length ? args[++i] : "";
+                switch (arg) {
+                    case "--listen": listenPort = Integer.parseInt(value); break;
+                    case "--target": {
+                        int colon = value.lastIndexOf(':');
+                        targetHost = value.substring(0, colon);
+                        targetPort = Integer.parseInt(value.substring(colon + 1));
+                        break;
+                    }
+                    case "--udp": udpPort = Integer.parseInt(value); break;
+                    case "--udp-target": udpTarget = Integer.parseInt(value); break;
+                    case "--profile": profile = Profile.named(value); break;
+                    case "--delay": profile.delay(Double.parseDouble(value)); break;
+                    case "--jitter": profile.jitter(Double.parseDouble(value)); break;
+                    case "--distribution":
+                        profile.distribution(Profile.Distribution.valueOf(value.toUpperCase()));
+                        break;
+                    case "--loss": profile.loss(Double.parseDouble(value)); break;
+                    case "--reorder": profile.reorder(Double.parseDouble(value)); break;
+                    case "--bandwidth": profile.bandwidth(Integer.parseInt(value)); break;
+                    case "--seed": profile.seed(Long.parseLong(value)); break;
+                    default: throw new IllegalArgumentException("未知参数: " + arg);
+                }
+            }
+            if (targetHost == null) {
+                throw new IllegalArgumentException("缺少 --target 主机:端口");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[ImpairmentProxy] " + e.getMessage());
+            System.err.println("用法: NetworkImpairmentProxy --target 主机:端口 [--listen 端口] [--udp 端口] "
+                    + "[--udp-target 端口] [--profile none|lan|broadband|mobile|lossy] [--delay 毫秒] [--jitter 毫秒] "
+                    + "[--distribution constant|uniform|normal|pareto] [--loss 比例] [--reorder 比例] "
+                    + "[--bandwidth kbps] [--seed 种子]");
+            System.exit(1);
+            return;
+        }
+
+        NetworkImpairmentProxy proxy = new NetworkImpairmentProxy(listenPort, targetHost, targetPort, profile);
+        if (udpPort >= 0) {
+            proxy.enableUdp(udpPort);
+        }
+        if (udpTarget > 0) {
+            proxy.setUdpTarget(udpTarget);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(proxy::stop));
+        proxy.start();
+        while (proxy.isRunning()) {
+            Thread.sleep(5000);
+            System.out.println("[ImpairmentProxy] " + proxy.getStatsSummary());
+        }
+    }
+}
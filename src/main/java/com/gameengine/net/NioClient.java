@@ -1,34 +1,69 @@
 package com.gameengine.net;
 
 import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
 
-import com.gameengine.game.InputRecord;
+import com.gameengine.game.GameObjectRecord;
 import com.gameengine.game.Record;
 
 import com.gameengine.input.InputManager;
 import com.google.gson.Gson;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketTimeoutException;
 
 /**
  * NIO 客户端
  * 负责连接服务器并发送玩家输入
+ * 服务端在 JOIN-ACK 中携带 UDP 端口时，快照和输入改走 UDP，TCP 只保留会话控制
+ * 各个循环运行在虚拟线程上，接收循环阻塞读取，不做轮询
+ * 与服务端在同一进程时可以用 connectLocal 走进程内回环传输层，协议流程和接收路径与远程客户端相同
  */
 public class NioClient {
     private SocketChannel channel;
+    private LoopbackTransport.Connection local; // 进程内连接，与 channel 二选一
     private volatile boolean inputLoopStarted = false;
     private volatile boolean stateLoopStarted = false;
     private volatile boolean connected = false;
     private String myAddressId;
+    private volatile String joinedRoom; // 服务端分配的房间，未启用多房间时为 null
+    private String udpToken; // JOIN-ACK 中下发的 UDP 令牌，随 HELLO 发回服务端
+    private String host;
     private static final Gson gson = new Gson();
 
+    private static final long JOIN_TIMEOUT_MS = 3000;
+
+    // UDP 快照通道（可选）
+    private static final long HELLO_INTERVAL_MS = 500;
+
+    // 时钟同步
+    private static final int FAST_PING_COUNT = 5;
+    private static final long FAST_PING_INTERVAL_MS = 100;
+    private static final long PING_INTERVAL_MS = 1000;
+    private boolean udpEnabled = true;
+    private DatagramChannel udpChannel;
+    private volatile boolean udpLoopStarted = false;
+    private volatile boolean udpActive = false; // 已经通过 UDP 收到过快照
+    private final UdpReassembler udpReassembler = new UdpReassembler();
+    private int inputSequence = 0;
+    private volatile long udpSnapshotCount = 0;
+    private volatile Record latestRecord;
+
+    // 本地玩家预测
+    private final ClientPredictor predictor = new ClientPredictor();
+    private int inputSeq = 0;
+
     public boolean connect(String host, int port) {
         try {
             channel = SocketChannel.open();
             channel.configureBlocking(true);
             channel.connect(new InetSocketAddress(host, port));
+            this.host = host;
             myAddressId = channel.getLocalAddress().toString();
             connected = true;
             System.out.println("[Client] Connected to server: " + channel.getRemoteAddress());
@@ -39,28 +74,105 @@ public class NioClient {
         }
     }
 
+    /**
+     * 通过进程内回环传输层连接同一进程中的服务端
+     * 快照和输入以对象引用经环形队列传递，不经过套接字和 JSON 编解码
+     */
+    public boolean connectLocal(GameServer server) {
+        if (server == null || !server.isRunning()) {
+            System.err.println("[Client] Local connection failed: server is not running");
+            return false;
+        }
+        local = server.getLoopbackTransport().connect();
+        myAddressId = local.getAddressId();
+        connected = true;
+        System.out.println("[Client] Connected to in-process server: " + myAddressId);
+        return true;
+    }
+
+    /**
+     * 是否通过进程内回环传输层连接
+     */
+    public boolean isLocal() {
+        return local != null;
+    }
+
+    private boolean hasTransport() {
+        return channel != null || local != null;
+    }
+
+    private boolean isOpen() {
+        return local != null ? local.isOpen() : channel.isOpen();
+    }
+
     public boolean join(String name) {
-        if (channel == null || !connected) return false;
+        return join(name, null);
+    }
+
+    /**
+     * 加入服务端的指定房间
+     * 服务端启用多房间时，roomName 为空表示由服务端匹配一个未满的房间；
+     * 服务端未启用多房间时忽略房间名
+     * @return 房间已满或超时未收到 JOIN-ACK 时返回 false
+     */
+    public boolean join(String name, String roomName) {
+        if (!hasTransport() || !connected) return false;
+
+        String payload = roomName == null || roomName.isEmpty() ? name : name + "@" + roomName;
+        if (local != null) {
+            String response = local.join(payload);
+            if (!response.contains("JOIN-ACK")) {
+                System.err.println("[Client] Join rejected: room is full");
+                return false;
+            }
+            joinedRoom = parseRoomName(response);
+            System.out.println("[Client] Joined successfully" + (joinedRoom != null ? " room " + joinedRoom : ""));
+            return true;
+        }
 
         try {
-            ByteBuffer out = ByteBuffer.wrap(("JOIN:" + name + "\n").getBytes());
+            ByteBuffer out = ByteBuffer.wrap(("JOIN:" + payload + "\n").getBytes());
             while (out.hasRemaining()) channel.write(out);
 
-            ByteBuffer in = ByteBuffer.allocate(4096);
+            // 阻塞等待 JOIN-ACK，超时由套接字读超时控制
+            byte[] in = new byte[4096];
             StringBuilder response = new StringBuilder();
-            long startTime = System.currentTimeMillis();
-
-            while (System.currentTimeMillis() - startTime < 3000) {
-                in.clear();
-                int n = channel.read(in);
-                if (n > 0) {
-                    response.append(new String(in.array(), 0, n));
-                    if (response.toString().contains("JOIN-ACK")) {
-                        System.out.println("[Client] Joined successfully");
-                        return true;
+            long deadline = System.currentTimeMillis() + JOIN_TIMEOUT_MS;
+            InputStream stream = channel.socket().getInputStream();
+
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) break;
+                channel.socket().setSoTimeout((int) remaining);
+                int n;
+                try {
+                    n = stream.read(in);
+                } catch (SocketTimeoutException e) {
+                    break;
+                }
+                if (n < 0) {
+                    System.err.println("[Client] Join failed: connection closed");
+                    return false;
+                }
+                response.append(new String(in, 0, n));
+                if (response.toString().contains("JOIN-REJECT")) {
+                    channel.socket().setSoTimeout(0);
+                    System.err.println("[Client] Join rejected: room is full");
+                    return false;
+                }
+                if (response.toString().contains("JOIN-ACK")) {
+                    channel.socket().setSoTimeout(0);
+                    joinedRoom = parseRoomName(response.toString());
+                    // 经过代理或 NAT 时，以服务端看到的会话地址为准
+                    String session = parseSession(response.toString());
+                    if (session != null) {
+                        myAddressId = session;
                     }
+                    udpToken = parseToken(response.toString());
+                    System.out.println("[Client] Joined successfully" + (joinedRoom != null ? " room " + joinedRoom : ""));
+                    openUdp(parseUdpPort(response.toString()));
+                    return true;
                 }
-                try { Thread.sleep(50); } catch (InterruptedException ignored) {}
             }
 
             System.err.println("[Client] Join timeout");
@@ -74,47 +186,94 @@ public class NioClient {
 
     /**
      * 启动输入发送循环
-     * 持续读取玩家输入并发送给服务器
+     * 按键状态变化时生成新的输入帧，状态不变时每 KEEPALIVE_MS 发送一次保活帧；
+     * 每个包携带最近 REDUNDANCY 个帧，单个包丢失不会丢掉按键变化
      */
     public void startInputLoop(final InputManager input) {
-        if (channel == null || inputLoopStarted || !connected) return;
+        if (!hasTransport() || inputLoopStarted || !connected) return;
         inputLoopStarted = true;
 
-        Thread t = new Thread(() -> {
+        Thread.ofVirtual().name("client-input-loop").start(() -> {
+            long lastStepNanos = System.nanoTime();
+            long lastFrameNanos = 0;
+            int lastBits = -1;
+            byte[] history = new byte[InputFrames.REDUNDANCY];
+            int historySize = 0;
+            float[] velocity = new float[2];
             try {
-                while (channel.isOpen() && connected) {
-                    float dx = 0, dy = 0;
+                while (isOpen() && connected) {
+                    int bits = 0;
                     
                     // 读取方向键输入
-                    if (input.isKeyPressed(87) || input.isKeyPressed(265)) dy -= 1; // W / Up
-                    if (input.isKeyPressed(83) || input.isKeyPressed(264)) dy += 1; // S / Down
-                    if (input.isKeyPressed(65) || input.isKeyPressed(263)) dx -= 1; // A / Left
-                    if (input.isKeyPressed(68) || input.isKeyPressed(262)) dx += 1; // D / Right
-                    
-                    float speed = 200f;
-                    float magnitude = (float) Math.hypot(dx, dy);
-                    float vx = magnitude > 0 ? (dx / magnitude) * speed : 0;
-                    float vy = magnitude > 0 ? (dy / magnitude) * speed : 0;
+                    if (input.isKeyPressed(87) || input.isKeyPressed(265)) bits |= InputFrames.UP;    // W / Up
+                    if (input.isKeyPressed(83) || input.isKeyPressed(264)) bits |= InputFrames.DOWN;  // S / Down
+                    if (input.isKeyPressed(65) || input.isKeyPressed(263)) bits |= InputFrames.LEFT;  // A / Left
+                    if (input.isKeyPressed(68) || input.isKeyPressed(262)) bits |= InputFrames.RIGHT; // D / Right
 
-                    // 创建输入记录
-                    InputRecord inputRecord = new InputRecord(myAddressId, vx, vy);
-                    String json = gson.toJson(inputRecord) + "\n";
+                    long now = System.nanoTime();
+                    if (bits != lastBits || now - lastFrameNanos >= InputFrames.KEEPALIVE_MS * 1_000_000L) {
+                        // 新的输入帧，放到历史最前面
+                        System.arraycopy(history, 0, history, 1, InputFrames.REDUNDANCY - 1);
+                        history[0] = (byte) bits;
+                        historySize = Math.min(historySize + 1, InputFrames.REDUNDANCY);
+                        inputSeq++;
+                        lastBits = bits;
+                        lastFrameNanos = now;
+                        sendFrames(history, historySize);
+                    }
 
-                    ByteBuffer out = ByteBuffer.wrap(json.getBytes());
-                    while (out.hasRemaining()) channel.write(out);
+                    // 本地立即应用，不等待服务端快照；预测步使用当前帧的序号
+                    InputFrames.toVelocity(bits, velocity);
+                    float dt = (now - lastStepNanos) / 1_000_000_000f;
+                    lastStepNanos = now;
+                    predictor.recordInput(inputSeq, velocity[0], velocity[1], dt);
                     
                     try { Thread.sleep(16); } catch (InterruptedException ignored) {} // ~60fps
                 }
             } catch (Exception e) {
                 System.err.println("[Client] Input loop error: " + e.getMessage());
             }
-        }, "client-input-loop");
-        t.setDaemon(true);
-        t.start();
+        });
+    }
+
+    /**
+     * 发送最近的输入帧，启用 UDP 时走数据报，否则走 TCP 文本行
+     * @param history 最近的帧，history[0] 为最新帧
+     */
+    private void sendFrames(byte[] history, int count) throws IOException {
+        if (local != null) {
+            // 进程内连接直接传递输入帧包，队列满时丢弃，后续包携带的冗余帧会补上
+            InputFrames.Packet packet = new InputFrames.Packet();
+            packet.newestSeq = inputSeq;
+            packet.count = count;
+            System.arraycopy(history, 0, packet.bits, 0, count);
+            local.sendInput(packet);
+            return;
+        }
+        DatagramChannel udp = udpChannel;
+        if (udp != null && udp.isOpen()) {
+            byte[] payload = InputFrames.encodeBinary(inputSeq, history, count);
+            try {
+                udp.write(UdpPacketCodec.single(UdpPacketCodec.KIND_INPUT_FRAMES, ++inputSequence, payload));
+            } catch (PortUnreachableException ignored) {
+                // 不可靠通道，后续包携带的冗余帧会补上
+            }
+            return;
+        }
+        ByteBuffer out = ByteBuffer.wrap(InputFrames.encodeLine(inputSeq, history, count).getBytes());
+        while (out.hasRemaining()) channel.write(out);
     }
 
     public void disconnect() {
         connected = false;
+        if (local != null) {
+            local.close();
+        }
+        if (udpChannel != null) {
+            try {
+                udpChannel.close();
+            } catch (IOException ignored) {}
+        }
         if (channel != null) {
             try {
                 channel.close();
@@ -123,44 +282,57 @@ public class NioClient {
     }
 
     public boolean isConnected() {
-        return connected && channel != null && channel.isOpen();
+        return connected && hasTransport() && isOpen();
     }
 
     public String getMyAddressId() {
         return myAddressId;
     }
 
+    /**
+     * 获取服务端分配的房间名，服务端未启用多房间时返回 null
+     */
+    public String getRoomName() {
+        return joinedRoom;
+    }
+
     public void startStateReceiveLoop() {
-        if (channel == null || stateLoopStarted || !connected) return;
+        if (!hasTransport() || stateLoopStarted || !connected) return;
         stateLoopStarted = true;
 
-        Thread t = new Thread(() -> {
+        if (local != null) {
+            startLocalReceiveLoop();
+            startClockSyncLoop();
+            return;
+        }
+
+        Thread.ofVirtual().name("client-state-loop").start(() -> {
             ByteBuffer in = ByteBuffer.allocate(4096);
             StringBuilder sb = new StringBuilder();
             try {
                 while (channel.isOpen() && connected) {
                     in.clear();
+                    // 阻塞读取，虚拟线程在等待时让出载体线程
                     int n = channel.read(in);
-                    if (n <= 0) {
-                        try {
-                            Thread.sleep(10);
-                        } catch (InterruptedException ignored) {
-                        }
-                        continue;
+                    if (n < 0) {
+                        System.out.println("[Client] Server closed the connection");
+                        break;
                     }
+                    double receivedAt = ClockSync.clientNow();
                     sb.append(new String(in.array(), 0, n));
                     int idx;
                     while ((idx = sb.indexOf("\n")) >= 0) {
                         String line = sb.substring(0, idx).trim();
                         sb.delete(0, idx + 1);
                         if (line.isEmpty()) continue;
+                        if (line.startsWith(ClockSync.PONG_PREFIX)) {
+                            NetworkBuffer.getClockSync().onPong(line, receivedAt);
+                            continue;
+                        }
                         try {
                             Record record = gson.fromJson(line, Record.class);
                             if (record != null) {
-                                // 保存最新快照
-                                NetState.currentRecords = record;
-                                // 推入插值缓冲区
-                                NetworkBuffer.pushRecord(record);
+                                applyRecord(record);
                             }
                         } catch (Exception e) {
                             System.err.println("[Client] Failed to parse state: " + e.getMessage());
@@ -170,8 +342,300 @@ public class NioClient {
             } catch (IOException e) {
                 System.err.println("[Client] State receive loop error: " + e.getMessage());
             }
-        }, "client-state-loop");
-        t.setDaemon(true);
-        t.start();
+        });
+
+        startUdpReceiveLoop();
+        startClockSyncLoop();
+    }
+
+    /**
+     * 进程内快照接收循环，快照队列为空时阻塞
+     * 收到的是服务端冻结的快照对象本身，与 TCP/UDP 收到的快照走同一个 applyRecord
+     */
+    private void startLocalReceiveLoop() {
+        final LoopbackTransport.Connection connection = local;
+        Thread.ofVirtual().name("client-loopback-loop").start(() -> {
+            while (connected) {
+                Record record = connection.takeSnapshot();
+                if (record == null) {
+                    if (!connection.isOpen()) {
+                        System.out.println("[Client] Server closed the connection");
+                    }
+                    break;
+                }
+                applyRecord(record);
+            }
+        });
+    }
+
+    /**
+     * 时钟同步循环
+     * 连接初期快速发送几次 PING 尽快得到偏移估计，之后每秒一次
+     */
+    private void startClockSyncLoop() {
+        Thread.ofVirtual().name("client-clock-sync").start(() -> {
+            int seq = 0;
+            try {
+                while (isOpen() && connected) {
+                    String ping = ClockSync.ping(++seq, ClockSync.clientNow());
+                    if (local != null) {
+                        String pong = local.ping(ping);
+                        if (pong != null) {
+                            NetworkBuffer.getClockSync().onPong(pong, ClockSync.clientNow());
+                        }
+                    } else {
+                        ByteBuffer out = ByteBuffer.wrap(ping.getBytes());
+                        while (out.hasRemaining()) channel.write(out);
+                    }
+                    long interval = seq < FAST_PING_COUNT ? FAST_PING_INTERVAL_MS : PING_INTERVAL_MS;
+                    try { Thread.sleep(interval); } catch (InterruptedException e) { return; }
+                }
+            } catch (IOException e) {
+                if (connected) {
+                    System.err.println("[Client] Clock sync loop error: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * 平滑往返时延（毫秒），尚未完成时钟同步时为 0
+     */
+    public double getRttMillis() {
+        return NetworkBuffer.getClockSync().getRtt() * 1000.0;
+    }
+
+    /**
+     * 时钟偏移（服务端时钟 - 客户端时钟，毫秒）
+     */
+    public double getClockOffsetMillis() {
+        return NetworkBuffer.getClockSync().getOffset() * 1000.0;
+    }
+
+    /**
+     * 快照到达抖动（毫秒）
+     */
+    public double getJitterMillis() {
+        return NetworkBuffer.getClockSync().getJitter() * 1000.0;
+    }
+
+    /**
+     * 当前自适应插值延迟（毫秒）
+     */
+    public double getInterpolationDelayMillis() {
+        return NetworkBuffer.getClockSync().getInterpolationDelay() * 1000.0;
+    }
+
+    public boolean isClockSynced() {
+        return NetworkBuffer.getClockSync().isSynced();
+    }
+
+    /**
+     * 应用收到的快照
+     */
+    private void applyRecord(Record record) {
+        reconcileLocalPlayer(record);
+        // 保存最新快照；客户端只写自己的字段，NetState 中的快照属于服务端
+        latestRecord = record;
+        // 推入插值缓冲区
+        NetworkBuffer.pushRecord(record);
+    }
+
+    /**
+     * 用快照中本地玩家的权威位置校正预测
+     */
+    private void reconcileLocalPlayer(Record record) {
+        Record.InputAck ack = record.getInputAck(myAddressId);
+        if (ack == null || record.getGameObjectsMove() == null) return;
+        predictor.setLocalNetId(ack.netId);
+        for (GameObjectRecord obj : record.getGameObjectsMove()) {
+            if (obj != null && obj.netId == ack.netId) {
+                predictor.reconcile(obj.x, obj.y, ack.lastInputSeq);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 获取本地玩家预测器（预测位置和预测误差统计）
+     */
+    public ClientPredictor getPredictor() {
+        return predictor;
+    }
+
+    /**
+     * 从 JOIN-ACK 中解析 UDP 端口，格式为 "JOIN-ACK UDP:端口"
+     * @return UDP 端口，服务端未启用 UDP 时返回 0
+     */
+    static int parseUdpPort(String ack) {
+        int idx = ack.indexOf("UDP:");
+        if (idx < 0) return 0;
+        int start = idx + 4;
+        int end = start;
+        while (end < ack.length() && Character.isDigit(ack.charAt(end))) end++;
+        if (end == start) return 0;
+        try {
+            return Integer.parseInt(ack.substring(start, end));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 从 JOIN-ACK 中解析房间名，格式为 "JOIN-ACK ROOM:房间名 [UDP:端口]"
+     * @return 房间名，服务端未启用多房间时返回 null
+     */
+    static String parseRoomName(String ack) {
+        int idx = ack.indexOf("ROOM:");
+        if (idx < 0) return null;
+        int start = idx + 5;
+        int end = start;
+        while (end < ack.length() && !Character.isWhitespace(ack.charAt(end))) end++;
+        return end == start ? null : ack.substring(start, end);
+    }
+
+    /**
+     * 从 JOIN-ACK 中解析 UDP 令牌，格式为 "JOIN-ACK ... UDP:端口 TOKEN:令牌"
+     * @return 令牌，服务端未启用 UDP 时返回 null
+     */
+    static String parseToken(String ack) {
+        int idx = ack.indexOf("TOKEN:");
+        if (idx < 0) return null;
+        int start = idx + 6;
+        int end = start;
+        while (end < ack.length() && !Character.isWhitespace(ack.charAt(end))) end++;
+        return end == start ? null : ack.substring(start, end);
+    }
+
+    /**
+     * 从 JOIN-ACK 中解析会话地址，格式为 "JOIN-ACK ... SESSION:会话地址"
+     * 由网络代理附加，服务端直连时不携带
+     * @return 会话地址，未携带时返回 null
+     */
+    static String parseSession(String ack) {
+        int idx = ack.indexOf("SESSION:");
+        if (idx < 0) return null;
+        int start = idx + 8;
+        int end = start;
+        while (end < ack.length() && !Character.isWhitespace(ack.charAt(end))) end++;
+        return end == start ? null : ack.substring(start, end);
+    }
+
+    /**
+     * 打开到服务端的 UDP 通道并发送 HELLO 登记端点
+     */
+    private void openUdp(int udpPort) {
+        if (!udpEnabled || udpPort <= 0 || udpToken == null || udpChannel != null) return;
+        try {
+            DatagramChannel udp = DatagramChannel.open();
+            udp.connect(new InetSocketAddress(host, udpPort));
+            udpChannel = udp;
+            sendHello();
+            System.out.println("[Client] UDP snapshot channel opened: " + udp.getRemoteAddress());
+        } catch (IOException e) {
+            System.err.println("[Client] UDP unavailable, using TCP: " + e.getMessage());
+            udpChannel = null;
+        }
+    }
+
+    private void sendHello() throws IOException {
+        byte[] payload = (myAddressId + " " + udpToken).getBytes(StandardCharsets.UTF_8);
+        try {
+            udpChannel.write(UdpPacketCodec.single(UdpPacketCodec.KIND_HELLO, 0, payload));
+        } catch (PortUnreachableException ignored) {
+        }
+    }
+
+    /**
+     * UDP 快照接收循环，阻塞读取数据报
+     * 另有一个虚拟线程在收到第一个 UDP 快照之前定期重发 HELLO（HELLO 本身也可能丢失）
+     */
+    private void startUdpReceiveLoop() {
+        final DatagramChannel udp = udpChannel;
+        if (udp == null || udpLoopStarted) return;
+        udpLoopStarted = true;
+
+        Thread.ofVirtual().name("client-udp-loop").start(() -> {
+            ByteBuffer in = ByteBuffer.allocate(65536);
+            try {
+                while (udp.isOpen() && connected) {
+                    in.clear();
+                    try {
+                        udp.read(in);
+                    } catch (PortUnreachableException e) {
+                        continue;
+                    }
+                    in.flip();
+                    handleSnapshotDatagram(in);
+                }
+            } catch (IOException e) {
+                if (connected) {
+                    System.err.println("[Client] UDP receive loop error: " + e.getMessage());
+                }
+            }
+        });
+
+        Thread.ofVirtual().name("client-udp-hello").start(() -> {
+            try {
+                while (!udpActive && udp.isOpen() && connected) {
+                    Thread.sleep(HELLO_INTERVAL_MS);
+                    if (!udpActive) {
+                        sendHello();
+                    }
+                }
+            } catch (InterruptedException | IOException ignored) {
+            }
+        });
+    }
+
+    private void handleSnapshotDatagram(ByteBuffer packet) {
+        if (packet.remaining() < UdpPacketCodec.HEADER_SIZE
+                || packet.get(packet.position() + 3) != UdpPacketCodec.KIND_SNAPSHOT) {
+            return;
+        }
+        byte[] payload = udpReassembler.accept(packet);
+        if (payload == null) return;
+        try {
+            Record record = gson.fromJson(new String(payload, StandardCharsets.UTF_8), Record.class);
+            if (record != null) {
+                udpActive = true;
+                udpSnapshotCount++;
+                applyRecord(record);
+            }
+        } catch (Exception e) {
+            System.err.println("[Client] Failed to parse UDP state: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 设置是否在服务端支持时使用 UDP，需在 join 之前调用
+     */
+    public void setUdpEnabled(boolean udpEnabled) {
+        this.udpEnabled = udpEnabled;
+    }
+
+    /**
+     * 是否已经通过 UDP 收到快照
+     */
+    public boolean isUdpActive() {
+        return udpActive;
+    }
+
+    public long getUdpSnapshotCount() {
+        return udpSnapshotCount;
+    }
+
+    /**
+     * UDP 快照通道的重组统计，未启用 UDP 时各项为 0
+     */
+    public UdpReassembler getUdpReassembler() {
+        return udpReassembler;
+    }
+
+    /**
+     * 最近收到的快照（TCP 或 UDP）
+     */
+    public Record getLatestRecord() {
+        return latestRecord;
     }
 }
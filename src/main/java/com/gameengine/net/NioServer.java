@@ -11,8 +11,10 @@ import java.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.gameengine.game.InputRecord;
+import com.gameengine.game.Record;
 import com.google.gson.Gson;
 
 /**
@@ -24,10 +26,13 @@ import com.google.gson.Gson;
 public class NioServer implements Runnable {
 
     private final int port;
-    private boolean isRunning;
+    private volatile boolean isRunning;
     private Thread thread;
     private final List<SocketChannel> conns = new ArrayList<>();
     private static Gson gson = new Gson();
+    private final TickScheduler tickScheduler;
+    private final AtomicBoolean broadcastRequested = new AtomicBoolean(false);
+    private volatile Selector selector;
 
     private interface Handler {
         void handle(SelectionKey key) throws IOException;
@@ -57,6 +62,7 @@ public class NioServer implements Runnable {
                 conns.add(ch);
 
                 NetState.setClientCount(conns.size()); // 更新缓存的连接数
+                tickScheduler.wakeup(); // 新连接需要尽快收到当前快照
 
                 try {
                     // 将新连接的地址添加到 NetState
@@ -122,6 +128,21 @@ public class NioServer implements Runnable {
                     ByteBuffer out = ByteBuffer.wrap("JOIN-ACK\n".getBytes());
                     while (out.hasRemaining())
                         ch.write(out);
+                } else if (s.startsWith(ClockSync.PING_PREFIX)) {
+                    // 时钟同步请求
+                    double received = NetState.serverTime();
+                    String pong = ClockSync.pong(s, received, NetState.serverTime());
+                    if (pong != null) {
+                        ByteBuffer out = ByteBuffer.wrap(pong.getBytes());
+                        while (out.hasRemaining())
+                            ch.write(out);
+                    }
+                } else if (s.startsWith(InputFrames.LINE_PREFIX)) {
+                    // 输入帧，以连接地址作为会话标识
+                    InputFrames.Packet packet = InputFrames.decodeLine(s, new InputFrames.Packet());
+                    if (packet != null) {
+                        NetState.enqueueInputFrames(ch.getRemoteAddress().toString(), packet);
+                    }
                 } else if (s.contains("INPUT")) {
                     // 获取客户端玩家的输入
                     String payload = s;
@@ -143,7 +164,32 @@ public class NioServer implements Runnable {
     }
 
     public NioServer(int port) {
+        this(port, TickScheduler.DEFAULT_SNAPSHOT_RATE_HZ);
+    }
+
+    /**
+     * @param port 服务器端口
+     * @param snapshotRateHz 每秒向客户端广播快照的次数
+     */
+    public NioServer(int port, int snapshotRateHz) {
         this.port = port;
+        this.tickScheduler = new TickScheduler(snapshotRateHz);
+        this.tickScheduler.addListener(this::requestBroadcast);
+    }
+
+    /**
+     * 由 TickScheduler 调用，唤醒 selector 进行一次广播
+     */
+    private void requestBroadcast() {
+        broadcastRequested.set(true);
+        Selector s = selector;
+        if (s != null) {
+            s.wakeup();
+        }
+    }
+
+    public TickScheduler getTickScheduler() {
+        return tickScheduler;
     }
 
     public void start() {
@@ -153,11 +199,15 @@ public class NioServer implements Runnable {
         thread = new Thread(this, "Nio Server");
         thread.setDaemon(true);
         thread.start();
+        tickScheduler.start();
+        NetState.addTickScheduler(tickScheduler);
         System.out.println("[Server] Started on port " + port);
     }
 
     public void stop() {
         isRunning = false;
+        NetState.removeTickScheduler(tickScheduler);
+        tickScheduler.stop();
         if (thread != null) {
             thread.interrupt();
         }
@@ -168,17 +218,16 @@ public class NioServer implements Runnable {
         try (Selector selector = Selector.open(); // 多路复用
                 ServerSocketChannel ssc = ServerSocketChannel.open() // 打开服务端 NIO 接口
         ) {
+            this.selector = selector;
             ssc.configureBlocking(false); // 开启非阻塞模式
             ssc.bind(new InetSocketAddress(port)); // 绑定端口
             SelectionKey serverKey = ssc.register(selector, SelectionKey.OP_ACCEPT); // 将 ServerSocketChannel 注册到 Selector 并监听 OP_ACCEPT 事件
 
             ByteBuffer buffer = ByteBuffer.allocate(1024); // 分配一个缓冲区
             serverKey.attach(new AcceptHandler(selector, ssc, buffer));
-            long lastBoradcastTime = System.currentTimeMillis();
-            // 记载上一次向客户端广播状态的时间戳，以实现每50毫秒一次广播
 
             while (isRunning) {
-                selector.select(250); // 最多阻塞250毫秒
+                selector.select(); // 阻塞直到有事件或被 TickScheduler 唤醒
                 // 返回这次 select 操作中所有发生事件的 SelectionKey 集合
                 // 并将其转换为可迭代对象
                 Iterator<SelectionKey> it = selector.selectedKeys().iterator();
@@ -196,10 +245,10 @@ public class NioServer implements Runnable {
                     }
                 }
                 // 在这里，将服务端所处理的所有渲染运算都广播给客户端
-                long now = System.currentTimeMillis();
-                if (now - lastBoradcastTime >= 50) {
-                    lastBoradcastTime = now;
-                    String json = gson.toJson(NetState.currentRecords);
+                // 广播时机由 TickScheduler 按快照频率决定
+                Record snapshot = NetState.getCurrentRecords();
+                if (broadcastRequested.getAndSet(false) && snapshot != null) {
+                    String json = gson.toJson(snapshot);
                     if (json != null && !json.isEmpty()) {
                         // 追加换行符，方便客户端按行解析
                         json = json + "\n";
@@ -1,12 +1,18 @@
 package com.gameengine.net;
 
 import java.io.IOException;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.gameengine.game.InputRecord;
+import com.gameengine.game.Record;
 import com.google.gson.Gson;
 
 /**
@@ -29,9 +35,18 @@ public class Reactor {
     /**
      * 读取处理器
      * 处理客户端发送的数据
+     * 按行解析（每条消息以换行结尾），一次读取可能包含多条消息，也可能只有半条
      */
     protected static class ReadHandler implements Handler {
+        private static final int MAX_LINE_LENGTH = 64 * 1024;
+
         private final ByteBuffer buffer;
+        private byte[] line = new byte[256];
+        private int lineLength = 0;
+        private final InputFrames.Packet framePacket = new InputFrames.Packet();
+        // 供子 Reactor 统计负载、按房间迁移连接
+        private int lastReadBytes = 0;
+        private boolean joined = false;
 
         ReadHandler(ByteBuffer buffer) {
             this.buffer = buffer;
@@ -45,74 +60,206 @@ public class Reactor {
             SocketChannel ch = (SocketChannel) key.channel();
             buffer.clear();
             int n = ch.read(buffer);
+            lastReadBytes = Math.max(0, n);
 
             if (n <= 0) { // 连接异常或关闭
                 key.cancel();
-                ch.close();
-                try {
-                    NetState.removeClientAddress(ch.getRemoteAddress());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                close(ch);
                 return;
             }
 
             buffer.flip();
-            String s = new String(buffer.array(), 0, buffer.limit());
-            
+            consume(ch, buffer);
+        }
+
+        /**
+         * 按行解析已读入的字节并逐条处理
+         * 选择器模式由 handle 调用；阻塞模式下由每个连接的读线程直接调用
+         */
+        void consume(SocketChannel ch, ByteBuffer data) throws IOException {
+            byte[] bytes = data.array();
+            for (int i = data.position(); i < data.limit(); i++) {
+                byte b = bytes[i];
+                if (b == '\n') {
+                    String message = new String(line, 0, lineLength, StandardCharsets.UTF_8).trim();
+                    lineLength = 0;
+                    if (!message.isEmpty()) {
+                        handleLine(ch, message);
+                    }
+                    continue;
+                }
+                if (lineLength == line.length) {
+                    if (line.length >= MAX_LINE_LENGTH) {
+                        // 超长消息直接丢弃
+                        lineLength = 0;
+                        continue;
+                    }
+                    line = Arrays.copyOf(line, line.length * 2);
+                }
+                line[lineLength++] = b;
+            }
+            data.position(data.limit());
+        }
+
+        /**
+         * 最近一次 handle 读到的字节数
+         */
+        int getLastReadBytes() {
+            return lastReadBytes;
+        }
+
+        /**
+         * 自上次调用以来是否处理过 JOIN，调用后清除标记
+         */
+        boolean takeJoined() {
+            boolean result = joined;
+            joined = false;
+            return result;
+        }
+
+        /**
+         * 关闭连接并从全局状态中移除客户端
+         * 必须在关闭之前取得远程地址，关闭后已无法获取
+         */
+        static void close(SocketChannel ch) throws IOException {
+            SocketAddress addr = null;
+            try {
+                addr = ch.getRemoteAddress();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            ch.close();
+            NetState.removeClientAddress(addr);
+        }
+
+        private void handleLine(SocketChannel ch, String s) throws IOException {
             if (s.startsWith("JOIN:")) {
-                // 处理客户端加入请求
-                ByteBuffer out = ByteBuffer.wrap("JOIN-ACK\n".getBytes());
-                while (out.hasRemaining())
-                    ch.write(out);
+                // 处理客户端加入请求，服务端启用 UDP 时附带 UDP 端口，启用多房间时分配房间
+                write(ch, NetState.join(WriteHandler.addressOf(ch), s.substring(5)));
+                joined = true;
+            } else if (s.startsWith(ClockSync.PING_PREFIX)) {
+                // 时钟同步：回传客户端发送时刻以及服务端收到、发出的时刻
+                double received = NetState.serverTime();
+                String pong = ClockSync.pong(s, received, NetState.serverTime());
+                if (pong != null) {
+                    write(ch, pong);
+                }
+            } else if (s.startsWith(InputFrames.LINE_PREFIX)) {
+                // 处理客户端输入帧，以连接地址作为会话标识
+                InputFrames.Packet packet = InputFrames.decodeLine(s, framePacket);
+                if (packet != null) {
+                    NetState.enqueueInputFrames(WriteHandler.addressOf(ch), packet);
+                }
             } else if (s.contains("INPUT")) {
-                // 处理客户端输入
-                s = s.trim();
-                InputRecord inputRecord = gson.fromJson(s, InputRecord.class);
-                if (inputRecord != null) {
-                    NetState.updateClientInput(inputRecord);
+                // 处理客户端输入（旧格式）
+                try {
+                    InputRecord inputRecord = gson.fromJson(s, InputRecord.class);
+                    if (inputRecord != null) {
+                        NetState.updateClientInput(inputRecord);
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("[Reactor] 输入解析失败: " + e.getMessage());
                 }
             }
         }
+
+        private static void write(SocketChannel ch, String message) throws IOException {
+            ByteBuffer out = ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+            while (out.hasRemaining())
+                ch.write(out);
+        }
     }
     
     /**
      * 写入处理器
      * 用于广播游戏状态给所有客户端
+     * 广播频率由 TickScheduler 控制，这里只负责按客户端视野裁剪、编码和写出
      */
     protected static class WriteHandler {
-        private static long lastBroadcastTime = System.currentTimeMillis();
         
+        /**
+         * 一次广播的统计，由调用方传入并累加
+         */
+        static final class BroadcastStats {
+            long bytesWritten;
+            int encodes;
+        }
+
         /**
          * 广播游戏状态给指定的连接列表
          * @param connections 要广播的连接列表
          */
         public static void broadcast(List<SocketChannel> connections) throws IOException {
-            long now = System.currentTimeMillis();
-            if (now - lastBroadcastTime >= 50) { // 每50毫秒广播一次
-                lastBroadcastTime = now;
-                String json = gson.toJson(NetState.currentRecords);
-                if (json != null && !json.isEmpty()) {
-                    json = json + "\n";
-                    ByteBuffer out = ByteBuffer.wrap(json.getBytes());
-                    
-                    // 遍历所有连接并发送数据
-                    for (int i = connections.size() - 1; i >= 0; i--) {
-                        SocketChannel ch = connections.get(i);
-                        if (!ch.isOpen()) {
-                            connections.remove(i);
-                            continue;
-                        }
-                        out.rewind();
-                        try {
-                            while (out.hasRemaining())
-                                ch.write(out);
-                        } catch (IOException ignored) {
-                            // 写入失败，移除连接
-                            connections.remove(i);
-                        }
+            broadcast(connections, null);
+        }
+
+        /**
+         * 广播游戏状态给指定的连接列表，并把写出字节数和编码次数累加到 stats
+         * @param stats 统计，可以为 null
+         */
+        static void broadcast(List<SocketChannel> connections, BroadcastStats stats) throws IOException {
+            if (connections.isEmpty()) {
+                return;
+            }
+            InterestManager interest = NetState.getInterestManager();
+            // 没有视野信息的连接共享完整快照，同一个快照（同一房间）只编码一次
+            Map<Record, ByteBuffer> shared = null;
+            
+            // 遍历所有连接并发送数据
+            for (int i = connections.size() - 1; i >= 0; i--) {
+                SocketChannel ch = connections.get(i);
+                if (!ch.isOpen()) {
+                    connections.remove(i);
+                    continue;
+                }
+                String addr = addressOf(ch);
+                if (NetState.isUdpClient(addr)) {
+                    // 快照已经通过 UDP 发送
+                    continue;
+                }
+                Record record = NetState.snapshotFor(addr);
+                if (record == null) {
+                    // 所在房间尚未发布快照
+                    continue;
+                }
+                ByteBuffer out;
+                Record filtered = interest.filterFor(addr, record);
+                if (filtered == record) {
+                    if (shared == null) {
+                        shared = new IdentityHashMap<>();
+                    }
+                    out = shared.get(record);
+                    if (out == null) {
+                        out = encode(record);
+                        shared.put(record, out);
+                        if (stats != null) stats.encodes++;
                     }
+                    out.rewind();
+                } else {
+                    out = encode(filtered);
+                    if (stats != null) stats.encodes++;
                 }
+                try {
+                    while (out.hasRemaining())
+                        ch.write(out);
+                    if (stats != null) stats.bytesWritten += out.limit();
+                } catch (IOException ignored) {
+                    // 写入失败，移除连接
+                    connections.remove(i);
+                }
+            }
+        }
+        
+        static ByteBuffer encode(Record record) {
+            return ByteBuffer.wrap((gson.toJson(record) + "\n").getBytes());
+        }
+        
+        static String addressOf(SocketChannel ch) {
+            try {
+                SocketAddress addr = ch.getRemoteAddress();
+                return addr == null ? null : addr.toString();
+            } catch (IOException e) {
+                return null;
             }
         }
     }
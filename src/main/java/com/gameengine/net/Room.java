@@ -0,0 +1,231 @@
+package com.gameengine.net;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.gameengine.game.InputRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 游戏房间
+ * 每个房间有自己的模拟（Simulation）、输入表和快照流，互不干扰。
+ * 成员变化由网络线程登记为事件，房间所在的模拟线程在下一个 tick 开始时统一处理，
+ * 因此 Simulation 的所有回调都只在同一个模拟线程上执行，不需要加锁
+ */
+public class Room {
+
+    /**
+     * 房间内的游戏模拟，所有方法都在房间所属的模拟线程上调用
+     */
+    public interface Simulation {
+        /**
+         * 玩家加入房间
+         * @param addressId 玩家的会话地址
+         * @param playerName JOIN 消息中的玩家名
+         */
+        void onJoin(String addressId, String playerName);
+
+        /**
+         * 玩家离开房间（断开连接）
+         */
+        void onLeave(String addressId);
+
+        /**
+         * 推进一帧模拟
+         * @return 本帧的快照，返回 null 时不发布
+         */
+        Record step(float deltaTime);
+
+        /**
+         * 房间关闭时释放资源
+         */
+        default void close() {
+        }
+    }
+
+    private final String name;
+    private final int capacity;
+    private final boolean matchmade;
+    private Simulation simulation;
+
+    // 成员由网络线程维护，用于容量判断和快照路由
+    private final Set<String> members = ConcurrentHashMap.newKeySet();
+    // 尚未交给模拟处理的成员变化，元素为 {会话地址, 玩家名}，玩家名为 null 表示离开
+    private final ConcurrentLinkedQueue<String[]> memberEvents = new ConcurrentLinkedQueue<>();
+
+    // 房间内的客户端输入，每个成员一个输入槽
+    private final Map<String, NetState.InputSlot> inputSlots = new ConcurrentHashMap<>();
+
+    // 房间的最新快照
+    private volatile Record currentRecords;
+
+    private volatile boolean closed = false;
+    // 所在的模拟线程分片，由 RoomManager 分配
+    int shardIndex = -1;
+    private volatile long tickCount = 0;
+
+    /**
+     * @param name 房间名
+     * @param capacity 最多容纳的玩家数
+     * @param matchmade 是否为匹配创建的房间（匹配只会把玩家放进这类房间）
+     */
+    public Room(String name, int capacity, boolean matchmade) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("房间容量必须大于 0");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.matchmade = matchmade;
+    }
+
+    void setSimulation(Simulation simulation) {
+        this.simulation = simulation;
+    }
+
+    /**
+     * 尝试加入房间
+     * @return 房间已满或已关闭时返回 false
+     */
+    synchronized boolean addMember(String addressId, String playerName) {
+        if (closed || members.size() >= capacity) {
+            return false;
+        }
+        if (members.add(addressId)) {
+            memberEvents.add(new String[]{addressId, playerName == null ? "" : playerName});
+        }
+        return true;
+    }
+
+    /**
+     * 移除成员
+     * @return 移除后房间为空时返回 true
+     */
+    synchronized boolean removeMember(String addressId) {
+        if (members.remove(addressId)) {
+            memberEvents.add(new String[]{addressId, null});
+            inputSlots.remove(addressId);
+        }
+        return members.isEmpty();
+    }
+
+    /**
+     * 推进一帧，由模拟线程调用
+     */
+    void tick(float deltaTime) {
+        if (simulation == null) {
+            return;
+        }
+        String[] event;
+        while ((event = memberEvents.poll()) != null) {
+            if (event[1] != null) {
+                simulation.onJoin(event[0], event[1]);
+            } else {
+                simulation.onLeave(event[0]);
+            }
+        }
+        Record record = simulation.step(deltaTime);
+        tickCount++;
+        if (record != null) {
+            publish(record);
+        }
+    }
+
+    /**
+     * 冻结并发布房间快照，并通知调度器广播
+     */
+    public void publish(Record record) {
+        currentRecords = record.seal();
+        NetState.notifySnapshotPublished();
+    }
+
+    /**
+     * 关闭房间，由模拟线程在移出分片时调用
+     */
+    void close() {
+        closed = true;
+        if (simulation != null) {
+            simulation.close();
+        }
+    }
+
+    // ========== 输入 ==========
+
+    void enqueueInputFrames(String addressId, InputFrames.Packet packet) {
+        if (members.contains(addressId)) {
+            NetState.inputSlot(inputSlots, addressId).frames().offer(packet);
+        }
+    }
+
+    void updateClientInput(InputRecord input) {
+        if (members.contains(input.addressId)) {
+            NetState.inputSlot(inputSlots, input.addressId).latest = input;
+        }
+    }
+
+    /**
+     * 获取成员的输入帧队列，尚未发送过输入帧时返回 null
+     */
+    public InputQueue getInputQueue(String addressId) {
+        NetState.InputSlot slot = addressId == null ? null : inputSlots.get(addressId);
+        return slot == null ? null : slot.framesOrNull();
+    }
+
+    /**
+     * 获取成员最近一次上报的输入（旧格式）
+     */
+    public InputRecord getClientInput(String addressId) {
+        NetState.InputSlot slot = addressId == null ? null : inputSlots.get(addressId);
+        return slot == null ? null : slot.latest;
+    }
+
+    // ========== 查询 ==========
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isMatchmade() {
+        return matchmade;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getMemberCount() {
+        return members.size();
+    }
+
+    public boolean isFull() {
+        return members.size() >= capacity;
+    }
+
+    public boolean hasMember(String addressId) {
+        return addressId != null && members.contains(addressId);
+    }
+
+    public List<String> getMembersSnapshot() {
+        return Collections.unmodifiableList(new ArrayList<>(members));
+    }
+
+    public Record getCurrentRecords() {
+        return currentRecords;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    Simulation getSimulation() {
+        return simulation;
+    }
+}
@@ -0,0 +1,191 @@
+package com.gameengine.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 房间管理器
+ * 同一个服务端进程同时运行多局对战：所有客户端连接到同一个监听端口，
+ * JOIN 时指定房间名加入（或创建）命名房间，不指定时匹配进一个未满的房间。
+ * 每个房间有独立的模拟、输入表和快照流，房间按负载分布在 SimulationPool 的固定线程上。
+ *
+ * 使用示例：
+ * RoomManager rooms = new RoomManager(2, 4, 60, RoomScene::create);
+ * rooms.start();
+ * NetState.setRoomManager(rooms);
+ * server.start();
+ *
+ * 客户端 JOIN 格式："JOIN:玩家名" 匹配房间，"JOIN:玩家名@房间名" 加入命名房间；
+ * 服务端回复 "JOIN-ACK ROOM:房间名 [UDP:端口]"，房间已满时回复 "JOIN-REJECT ROOM-FULL"
+ */
+public class RoomManager {
+
+    private static final String MATCH_PREFIX = "match-";
+
+    private final int roomCapacity;
+    private final Function<Room, Room.Simulation> simulationFactory;
+    private final SimulationPool pool;
+
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final Map<String, Room> roomsBySession = new ConcurrentHashMap<>();
+    private int nextMatchId = 1;
+
+    /**
+     * @param roomCapacity 每个房间的玩家数
+     * @param simulationThreads 模拟线程数
+     * @param tickRateHz 房间模拟频率
+     * @param simulationFactory 为新房间创建模拟
+     */
+    public RoomManager(int roomCapacity, int simulationThreads, int tickRateHz,
+                       Function<Room, Room.Simulation> simulationFactory) {
+        if (roomCapacity <= 0) {
+            throw new IllegalArgumentException("房间容量必须大于 0");
+        }
+        if (simulationFactory == null) {
+            throw new IllegalArgumentException("simulationFactory 不能为空");
+        }
+        this.roomCapacity = roomCapacity;
+        this.simulationFactory = simulationFactory;
+        this.pool = new SimulationPool(simulationThreads, tickRateHz);
+    }
+
+    public void start() {
+        pool.start();
+    }
+
+    /**
+     * 停止模拟线程并关闭所有房间
+     */
+    public synchronized void stop() {
+        pool.stop();
+        for (Room room : rooms.values()) {
+            pool.remove(room, room.shardIndex);
+        }
+        rooms.clear();
+        roomsBySession.clear();
+    }
+
+    /**
+     * 把会话加入房间
+     * 已在其他房间中的会话会先离开原房间
+     * @param addressId 会话地址
+     * @param playerName 玩家名
+     * @param roomName 房间名，为空时匹配一个未满的房间
+     * @return 加入的房间；命名房间已满时返回 null
+     */
+    public synchronized Room join(String addressId, String playerName, String roomName) {
+        if (addressId == null) {
+            return null;
+        }
+        leave(addressId);
+
+        Room room;
+        if (roomName == null || roomName.isEmpty()) {
+            room = findOpenMatch();
+            if (room == null) {
+                String name;
+                do {
+                    name = MATCH_PREFIX + nextMatchId++;
+                } while (rooms.containsKey(name)); // 避开同名的命名房间
+                room = createRoom(name, true);
+            }
+        } else {
+            String name = sanitize(roomName);
+            room = rooms.get(name);
+            if (room == null) {
+                room = createRoom(name, false);
+            }
+        }
+
+        if (!room.addMember(addressId, playerName)) {
+            return null;
+        }
+        roomsBySession.put(addressId, room);
+        System.out.println("[RoomManager] " + playerName + " (" + addressId + ") 加入房间 " + room.getName()
+                + " (" + room.getMemberCount() + "/" + room.getCapacity() + ")");
+        return room;
+    }
+
+    /**
+     * 会话离开所在房间，房间为空时关闭并移除
+     */
+    public synchronized void leave(String addressId) {
+        if (addressId == null) {
+            return;
+        }
+        Room room = roomsBySession.remove(addressId);
+        if (room == null) {
+            return;
+        }
+        if (room.removeMember(addressId)) {
+            rooms.remove(room.getName());
+            pool.remove(room, room.shardIndex);
+            System.out.println("[RoomManager] 房间 " + room.getName() + " 已关闭");
+        }
+    }
+
+    /**
+     * 获取会话所在的房间，未加入房间时返回 null
+     */
+    public Room roomOf(String addressId) {
+        return addressId == null ? null : roomsBySession.get(addressId);
+    }
+
+    public Room getRoom(String name) {
+        return name == null ? null : rooms.get(name);
+    }
+
+    public List<Room> getRoomsSnapshot() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    public int getRoomCapacity() {
+        return roomCapacity;
+    }
+
+    public SimulationPool getSimulationPool() {
+        return pool;
+    }
+
+    private Room findOpenMatch() {
+        Room best = null;
+        for (Room room : rooms.values()) {
+            // 优先填满人数最多的房间，尽快凑齐一局
+            if (room.isMatchmade() && !room.isFull()
+                    && (best == null || room.getMemberCount() > best.getMemberCount())) {
+                best = room;
+            }
+        }
+        return best;
+    }
+
+    private Room createRoom(String name, boolean matchmade) {
+        Room room = new Room(name, roomCapacity, matchmade);
+        room.setSimulation(simulationFactory.apply(room));
+        room.shardIndex = pool.add(room);
+        rooms.put(name, room);
+        System.out.println("[RoomManager] 创建房间 " + name + "，分配到模拟线程 " + room.shardIndex);
+        return room;
+    }
+
+    /**
+     * 房间名会出现在 JOIN-ACK 中，去掉空白等分隔字符
+     */
+    static String sanitize(String roomName) {
+        StringBuilder sb = new StringBuilder(roomName.length());
+        for (int i = 0; i < roomName.length() && sb.length() < 32; i++) {
+            char c = roomName.charAt(i);
+            if (!Character.isWhitespace(c) && c != '@' && c != ':') {
+                sb.append(c);
+            }
+        }
+        return sb.length() == 0 ? "room" : sb.toString();
+    }
+}
@@ -0,0 +1,232 @@
+package com.gameengine.net;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 房间模拟线程池
+ * 固定数量的模拟线程，每个线程负责一个分片内的所有房间，按固定步长依次推进这些房间。
+ * 新房间分配给房间数最少的分片；同一个房间始终在同一个线程上运行，模拟代码不需要加锁。
+ * 房间的加入和移除先登记到分片的队列中，由分片线程在 tick 之间处理，
+ * 因此房间关闭（Simulation.close）也发生在它自己的模拟线程上
+ */
+public class SimulationPool {
+
+    public static final int DEFAULT_TICK_RATE_HZ = 60;
+
+    /**
+     * 一个模拟线程及其负责的房间
+     */
+    private final class Shard implements Runnable {
+        final int index;
+        final CopyOnWriteArrayList<Room> rooms = new CopyOnWriteArrayList<>();
+        final ConcurrentLinkedQueue<Room> added = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<Room> removed = new ConcurrentLinkedQueue<>();
+        // 已分配但尚未关闭的房间数，用于负载均衡
+        volatile int load = 0;
+        volatile Thread thread;
+
+        // 统计（分片线程写入，其他线程读取）
+        volatile long tickCount = 0;
+        volatile long overrunCount = 0;
+        volatile long lastTickNanos = 0;
+        volatile long maxTickNanos = 0;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            float deltaTime = 1.0f / tickRateHz;
+            long nextTick = System.nanoTime();
+            while (isRunning) {
+                long now = System.nanoTime();
+                if (now < nextTick) {
+                    LockSupport.parkNanos(this, nextTick - now);
+                    continue;
+                }
+                applyMembershipChanges();
+
+                long start = System.nanoTime();
+                for (Room room : rooms) {
+                    try {
+                        room.tick(deltaTime);
+                    } catch (RuntimeException e) {
+                        // 单个房间出错不影响同一分片的其他房间
+                        System.err.println("[SimulationPool] 房间 " + room.getName() + " 模拟出错: " + e.getMessage());
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+                lastTickNanos = elapsed;
+                if (elapsed > maxTickNanos) {
+                    maxTickNanos = elapsed;
+                }
+                tickCount++;
+
+                nextTick += periodNanos;
+                if (System.nanoTime() - nextTick > periodNanos) {
+                    // 落后超过一个周期时不追帧，从当前时刻重新计时
+                    overrunCount++;
+                    nextTick = System.nanoTime();
+                }
+            }
+            // 线程退出前关闭仍在运行的房间
+            applyMembershipChanges();
+            for (Room room : rooms) {
+                room.close();
+            }
+            rooms.clear();
+        }
+
+        private void applyMembershipChanges() {
+            Room room;
+            while ((room = added.poll()) != null) {
+                rooms.add(room);
+            }
+            while ((room = removed.poll()) != null) {
+                if (rooms.remove(room)) {
+                    room.close();
+                }
+            }
+        }
+    }
+
+    private final int tickRateHz;
+    private final long periodNanos;
+    private final Shard[] shards;
+    private volatile boolean isRunning = false;
+
+    /**
+     * @param threadCount 模拟线程数
+     * @param tickRateHz 每个房间每秒模拟的帧数
+     */
+    public SimulationPool(int threadCount, int tickRateHz) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("模拟线程数必须大于 0");
+        }
+        if (tickRateHz <= 0) {
+            throw new IllegalArgumentException("模拟频率必须大于 0");
+        }
+        this.tickRateHz = tickRateHz;
+        this.periodNanos = 1_000_000_000L / tickRateHz;
+        this.shards = new Shard[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    /**
+     * 启动所有模拟线程
+     */
+    public synchronized void start() {
+        if (isRunning) {
+            return;
+        }
+        isRunning = true;
+        for (Shard shard : shards) {
+            Thread t = new Thread(shard, "RoomSim-" + shard.index);
+            t.setDaemon(true);
+            shard.thread = t;
+            t.start();
+        }
+        System.out.println("[SimulationPool] 启动 " + shards.length + " 个模拟线程，频率 " + tickRateHz + " Hz");
+    }
+
+    /**
+     * 停止所有模拟线程，并关闭仍在运行的房间
+     */
+    public synchronized void stop() {
+        if (!isRunning) {
+            return;
+        }
+        isRunning = false;
+        for (Shard shard : shards) {
+            Thread t = shard.thread;
+            if (t != null) {
+                LockSupport.unpark(t);
+                try {
+                    t.join(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                shard.thread = null;
+            }
+        }
+        System.out.println("[SimulationPool] 已停止");
+    }
+
+    /**
+     * 把房间分配给负载最小的分片
+     * @return 分片编号
+     */
+    public synchronized int add(Room room) {
+        Shard target = shards[0];
+        for (Shard shard : shards) {
+            if (shard.load < target.load) {
+                target = shard;
+            }
+        }
+        target.load++;
+        target.added.add(room);
+        return target.index;
+    }
+
+    /**
+     * 把房间移出所在分片，分片线程会在下一个 tick 前关闭它
+     * @param shardIndex add 返回的分片编号
+     */
+    public synchronized void remove(Room room, int shardIndex) {
+        Shard shard = shards[shardIndex];
+        shard.load--;
+        shard.removed.add(room);
+        if (!isRunning) {
+            // 线程未运行时直接在调用线程上处理
+            shard.applyMembershipChanges();
+        }
+    }
+
+    // ========== 统计 ==========
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    public int getThreadCount() {
+        return shards.length;
+    }
+
+    public int getTickRateHz() {
+        return tickRateHz;
+    }
+
+    /**
+     * 分片当前负责的房间数（包括尚未开始模拟的房间）
+     */
+    public int getRoomCount(int shardIndex) {
+        return shards[shardIndex].load;
+    }
+
+    public long getTickCount(int shardIndex) {
+        return shards[shardIndex].tickCount;
+    }
+
+    /**
+     * 分片一次 tick 推进全部房间所用的时间（毫秒）
+     */
+    public double getLastTickMillis(int shardIndex) {
+        return shards[shardIndex].lastTickNanos / 1_000_000.0;
+    }
+
+    public double getMaxTickMillis(int shardIndex) {
+        return shards[shardIndex].maxTickNanos / 1_000_000.0;
+    }
+
+    /**
+     * 分片落后超过一个周期的次数，持续增长说明该分片的房间过多
+     */
+    public long getOverrunCount(int shardIndex) {
+        return shards[shardIndex].overrunCount;
+    }
+}
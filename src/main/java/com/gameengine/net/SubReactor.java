@@ -6,8 +6,13 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 /**
  * 子 Reactor 线程
@@ -22,6 +27,22 @@ public class SubReactor implements Runnable {
     private Thread thread;
     private final CopyOnWriteArrayList<SocketChannel> connections = new CopyOnWriteArrayList<>();
     private Runnable connectionCountUpdater; // 连接数更新回调
+    private final AtomicBoolean broadcastRequested = new AtomicBoolean(false); // 由 TickScheduler 置位
+    private BiConsumer<SubReactor, SelectionKey> joinListener; // 连接完成 JOIN 时回调
+    
+    // 负载统计（子 Reactor 线程写入，其他线程读取）
+    // 吞吐量使用指数衰减平均，时间常数为 RATE_TAU_SECONDS
+    private static final double RATE_TAU_SECONDS = 1.0;
+    private volatile long bytesRead = 0;
+    private volatile long bytesWritten = 0;
+    private volatile double decayedRate = 0;
+    private volatile long rateUpdatedNanos = System.nanoTime();
+    private volatile long broadcastCount = 0;
+    private volatile int lastBroadcastEncodes = 0;
+    private volatile long lastBroadcastNanos = 0;
+    private final AtomicLong migratedIn = new AtomicLong(); // 由迁出方线程累加
+    private volatile long migratedOut = 0;
+    private final Reactor.WriteHandler.BroadcastStats broadcastStats = new Reactor.WriteHandler.BroadcastStats();
     
     /**
      * 构造函数
@@ -41,6 +62,14 @@ public class SubReactor implements Runnable {
         this.connectionCountUpdater = updater;
     }
     
+    /**
+     * 设置 JOIN 回调
+     * 回调在本子 Reactor 线程上执行，可以在其中把连接迁移到其他子 Reactor
+     */
+    public void setJoinListener(BiConsumer<SubReactor, SelectionKey> listener) {
+        this.joinListener = listener;
+    }
+    
     /**
      * 更新全局连接数
      */
@@ -79,6 +108,7 @@ public class SubReactor implements Runnable {
         if (thread != null) {
             thread.interrupt();
         }
+        selector.wakeup();
         // 关闭所有连接
         for (SocketChannel ch : connections) {
             try {
@@ -128,6 +158,54 @@ public class SubReactor implements Runnable {
         }
     }
     
+    /**
+     * 把连接迁移到另一个子 Reactor，必须在本子 Reactor 线程上调用
+     * 连接的读处理器（包括未读完的半行）随连接一起迁移
+     */
+    void migrate(SelectionKey key, SubReactor target) {
+        if (target == this) {
+            return;
+        }
+        SocketChannel channel = (SocketChannel) key.channel();
+        Reactor.ReadHandler handler = (Reactor.ReadHandler) key.attachment();
+        key.cancel();
+        connections.remove(channel);
+        migratedOut++;
+        if (!target.adopt(channel, handler)) {
+            // 目标子 Reactor 注册失败时连接已被关闭
+            try {
+                Reactor.ReadHandler.close(channel);
+            } catch (IOException ignored) {
+            }
+            updateGlobalConnectionCount();
+        }
+    }
+    
+    /**
+     * 接收从其他子 Reactor 迁移来的连接
+     */
+    private boolean adopt(SocketChannel channel, Reactor.ReadHandler handler) {
+        try {
+            channel.register(selector, SelectionKey.OP_READ, handler);
+        } catch (IOException e) {
+            System.err.println("[SubReactor-" + id + "] 接收迁移连接失败: " + e.getMessage());
+            return false;
+        }
+        connections.add(channel);
+        migratedIn.incrementAndGet();
+        selector.wakeup();
+        return true;
+    }
+    
+    /**
+     * 请求在下一次 select 返回后广播快照
+     * 由 TickScheduler 在调度线程上调用，只置位并唤醒 selector
+     */
+    public void requestBroadcast() {
+        broadcastRequested.set(true);
+        selector.wakeup();
+    }
+    
     /**
      * 获取当前子 Reactor 管理的连接数
      */
@@ -135,6 +213,74 @@ public class SubReactor implements Runnable {
         return connections.size();
     }
     
+    // ========== 负载统计 ==========
+    
+    /**
+     * 累加吞吐量，按距离上次更新的时间衰减旧值
+     */
+    private void recordBytes(long bytes) {
+        long now = System.nanoTime();
+        decayedRate = currentRate(now) + bytes / RATE_TAU_SECONDS;
+        rateUpdatedNanos = now;
+    }
+    
+    private double currentRate(long now) {
+        double elapsed = (now - rateUpdatedNanos) / 1_000_000_000.0;
+        return decayedRate * Math.exp(-elapsed / RATE_TAU_SECONDS);
+    }
+    
+    /**
+     * 最近的读写吞吐量（字节/秒，指数衰减平均）
+     */
+    public double getBytesPerSecond() {
+        return currentRate(System.nanoTime());
+    }
+    
+    public long getBytesRead() {
+        return bytesRead;
+    }
+    
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+    
+    public long getBroadcastCount() {
+        return broadcastCount;
+    }
+    
+    /**
+     * 最近一次广播编码快照的次数，房间亲和时应接近本子 Reactor 上的房间数
+     */
+    public int getLastBroadcastEncodes() {
+        return lastBroadcastEncodes;
+    }
+    
+    public double getLastBroadcastMillis() {
+        return lastBroadcastNanos / 1_000_000.0;
+    }
+    
+    /**
+     * 本子 Reactor 上的客户端分布在多少个房间中
+     */
+    public int getRoomCount() {
+        Set<String> rooms = new HashSet<>();
+        for (SocketChannel ch : connections) {
+            Room room = NetState.roomOf(Reactor.WriteHandler.addressOf(ch));
+            if (room != null) {
+                rooms.add(room.getName());
+            }
+        }
+        return rooms.size();
+    }
+    
+    public long getMigratedIn() {
+        return migratedIn.get();
+    }
+    
+    public long getMigratedOut() {
+        return migratedOut;
+    }
+    
     /**
      * 获取所有连接（用于广播）
      */
@@ -148,8 +294,8 @@ public class SubReactor implements Runnable {
         
         while (isRunning) {
             try {
-                // 最多阻塞 250 毫秒
-                selector.select(250);
+                // 阻塞直到有读事件、新连接或 TickScheduler 唤醒
+                selector.select();
                 
                 Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
                 while (iterator.hasNext()) {
@@ -166,11 +312,21 @@ public class SubReactor implements Runnable {
                     }
                 }
                 
-                // 定期广播游戏状态（每 50 毫秒）
-                try {
-                    Reactor.WriteHandler.broadcast(connections);
-                } catch (IOException e) {
-                    System.err.println("[SubReactor-" + id + "] 广播时发生错误: " + e.getMessage());
+                // 调度器到点后广播游戏状态
+                if (broadcastRequested.getAndSet(false)) {
+                    try {
+                        long start = System.nanoTime();
+                        broadcastStats.bytesWritten = 0;
+                        broadcastStats.encodes = 0;
+                        Reactor.WriteHandler.broadcast(connections, broadcastStats);
+                        lastBroadcastNanos = System.nanoTime() - start;
+                        lastBroadcastEncodes = broadcastStats.encodes;
+                        broadcastCount++;
+                        bytesWritten += broadcastStats.bytesWritten;
+                        recordBytes(broadcastStats.bytesWritten);
+                    } catch (IOException e) {
+                        System.err.println("[SubReactor-" + id + "] 广播时发生错误: " + e.getMessage());
+                    }
                 }
                 
             } catch (IOException e) {
@@ -198,6 +354,11 @@ public class SubReactor implements Runnable {
             if (attachment instanceof Reactor.ReadHandler) {
                 Reactor.ReadHandler handler = (Reactor.ReadHandler) attachment;
                 handler.handle(key);
+                int n = handler.getLastReadBytes();
+                if (n > 0) {
+                    bytesRead += n;
+                    recordBytes(n);
+                }
                 
                 // 检查连接是否已关闭
                 SocketChannel channel = (SocketChannel) key.channel();
@@ -205,6 +366,9 @@ public class SubReactor implements Runnable {
                     // 连接已关闭，从列表中移除
                     connections.remove(channel);
                     updateGlobalConnectionCount();
+                } else if (handler.takeJoined() && joinListener != null) {
+                    // 交给分配策略决定是否迁移到其他子 Reactor
+                    joinListener.accept(this, key);
                 }
             }
         } catch (IOException e) {
@@ -0,0 +1,239 @@
+package com.gameengine.net;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 服务端快照广播调度器
+ * 由模拟线程发布新的 Record 驱动，按照固定的快照频率（如 20/30/60 Hz）唤醒各个 Reactor 进行广播
+ *
+ * 调度线程在没有快照时 park 阻塞，不做任何轮询；
+ * 收到发布通知后，若距离上一次广播已满一个周期则立即触发，否则精确 park 到下一个周期点再触发。
+ * 模拟停滞时按周期重发当前快照，保证客户端仍能收到状态。
+ * 同时统计每次广播相对于模拟发布时刻的延迟（lateness）
+ */
+public class TickScheduler implements Runnable {
+
+    public static final int DEFAULT_SNAPSHOT_RATE_HZ = 20;
+
+    private final int snapshotRateHz;
+    private final long periodNanos;
+    private final CopyOnWriteArrayList<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean isRunning = false;
+    private volatile Thread thread;
+
+    // 模拟线程写入，调度线程读取；多个房间的模拟线程可能同时发布，版本号原子递增
+    private final AtomicLong publishedVersion = new AtomicLong();
+    private volatile long publishedAtNanos = 0;
+
+    // 仅由调度线程访问
+    private long dispatchedVersion = 0;
+    private long nextTickNanos = 0;
+
+    // 广播延迟统计（调度线程写入，其他线程读取）
+    private volatile long broadcastCount = 0;
+    private volatile long resendCount = 0;
+    private volatile long lastLatenessNanos = 0;
+    private volatile long maxLatenessNanos = 0;
+    private volatile long totalLatenessNanos = 0;
+
+    /**
+     * 使用默认快照频率创建调度器
+     */
+    public TickScheduler() {
+        this(DEFAULT_SNAPSHOT_RATE_HZ);
+    }
+
+    /**
+     * @param snapshotRateHz 每秒广播快照的次数
+     */
+    public TickScheduler(int snapshotRateHz) {
+        if (snapshotRateHz <= 0) {
+            throw new IllegalArgumentException("快照频率必须大于 0");
+        }
+        this.snapshotRateHz = snapshotRateHz;
+        this.periodNanos = 1_000_000_000L / snapshotRateHz;
+    }
+
+    /**
+     * 注册广播回调，每个周期最多被调用一次
+     * 回调运行在调度线程上，应当只做唤醒 selector 之类的轻量操作
+     */
+    public void addListener(Runnable listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 启动调度线程
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        isRunning = true;
+        thread = new Thread(this, "TickScheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 停止调度线程，等待其退出后才允许重新 start
+     */
+    public synchronized void stop() {
+        isRunning = false;
+        Thread t = thread;
+        if (t != null) {
+            LockSupport.unpark(t);
+            if (t != Thread.currentThread()) {
+                try {
+                    t.join(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            thread = null;
+        }
+    }
+
+    /**
+     * 模拟线程发布了新的快照
+     * 只做版本号递增和 unpark，不会阻塞调用方
+     */
+    public void onPublish() {
+        publishedAtNanos = System.nanoTime();
+        publishedVersion.incrementAndGet();
+        Thread t = thread;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    /**
+     * 唤醒调度线程重新检查是否有快照需要广播
+     * 用于新客户端接入等事件，快照可能已被直接写入 NetState 而没有经过发布通知
+     */
+    public void wakeup() {
+        Thread t = thread;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    @Override
+    public void run() {
+        // 等待超时后 stop 已经放弃的旧线程不会与重新 start 的线程同时调度
+        while (isRunning && thread == Thread.currentThread()) {
+            long now = System.nanoTime();
+            long published = publishedVersion.get();
+            boolean fresh = published != dispatchedVersion;
+
+            // 既没有新快照也没有可重发的快照时，阻塞等待发布通知
+            if (!fresh && !NetState.hasSnapshots()) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            // 未到下一个周期点则精确等待剩余时间
+            if (now < nextTickNanos) {
+                LockSupport.parkNanos(this, nextTickNanos - now);
+                continue;
+            }
+
+            // 到点但模拟尚未发布新快照：最多再等半个周期，期间的发布会立即 unpark
+            if (!fresh && now < nextTickNanos + periodNanos / 2) {
+                LockSupport.parkNanos(this, nextTickNanos + periodNanos / 2 - now);
+                continue;
+            }
+
+            if (fresh) {
+                dispatchedVersion = published;
+                recordLateness(now - publishedAtNanos);
+            } else {
+                // 模拟停滞或快照由外部直接写入，按周期重发当前快照
+                resendCount++;
+            }
+
+            // 保持固定的周期网格；落后超过一个周期时从当前时刻重新对齐
+            nextTickNanos += periodNanos;
+            if (nextTickNanos <= now) {
+                nextTickNanos = now + periodNanos;
+            }
+
+            for (Runnable listener : listeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    System.err.println("[TickScheduler] 广播回调出错: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void recordLateness(long latenessNanos) {
+        if (latenessNanos < 0) {
+            latenessNanos = 0;
+        }
+        lastLatenessNanos = latenessNanos;
+        if (latenessNanos > maxLatenessNanos) {
+            maxLatenessNanos = latenessNanos;
+        }
+        totalLatenessNanos += latenessNanos;
+        broadcastCount++;
+    }
+
+    public int getSnapshotRateHz() {
+        return snapshotRateHz;
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * 携带新快照的广播次数
+     */
+    public long getBroadcastCount() {
+        return broadcastCount;
+    }
+
+    /**
+     * 因没有新快照而重发旧快照的次数
+     */
+    public long getResendCount() {
+        return resendCount;
+    }
+
+    /**
+     * 最近一次广播相对模拟发布时刻的延迟（毫秒）
+     */
+    public double getLastLatenessMillis() {
+        return lastLatenessNanos / 1_000_000.0;
+    }
+
+    /**
+     * 广播延迟的最大值（毫秒）
+     */
+    public double getMaxLatenessMillis() {
+        return maxLatenessNanos / 1_000_000.0;
+    }
+
+    /**
+     * 广播延迟的平均值（毫秒）
+     */
+    public double getAverageLatenessMillis() {
+        long count = broadcastCount;
+        return count == 0 ? 0.0 : totalLatenessNanos / 1_000_000.0 / count;
+    }
+}
@@ -0,0 +1,122 @@
+package com.gameengine.net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UDP 数据报编解码
+ * 负责数据报头的读写以及按 MTU 对负载进行分片
+ *
+ * 数据报格式（大端）：
+ * | magic(2) | version(1) | kind(1) | sequence(4) | fragmentIndex(2) | fragmentCount(2) | payload |
+ * 同一个快照的所有分片使用相同的序号，接收端由 UdpReassembler 按序号重组
+ */
+public final class UdpPacketCodec {
+
+    public static final short MAGIC = 0x4847; // "HG"
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 12;
+
+    // 以太网 MTU 1500 减去 IP/UDP 头后仍留有余量，避免 IP 层分片
+    public static final int DEFAULT_MAX_DATAGRAM_SIZE = 1200;
+    // 单个负载最多分片数，超出时直接丢弃（约 300KB）
+    public static final int MAX_FRAGMENTS = 256;
+
+    // 数据报类型
+    public static final byte KIND_HELLO = 1;     // 客户端登记 UDP 端点，负载为 "TCP 会话地址 令牌"
+    public static final byte KIND_SNAPSHOT = 2;  // 服务端快照，负载为 Record JSON
+    public static final byte KIND_INPUT = 3;     // 客户端输入，负载为 InputRecord JSON
+    public static final byte KIND_INPUT_FRAMES = 4; // 客户端输入帧，负载见 InputFrames
+
+    private UdpPacketCodec() {
+    }
+
+    /**
+     * 解析后的数据报头
+     */
+    public static final class Header {
+        public byte kind;
+        public int sequence;
+        public int fragmentIndex;
+        public int fragmentCount;
+    }
+
+    /**
+     * 将负载按 MTU 切分为若干个数据报
+     * @param kind 数据报类型
+     * @param sequence 序号，同一负载的所有分片相同
+     * @param payload 负载
+     * @param maxDatagramSize 单个数据报的最大字节数（含报头）
+     * @return 可直接发送的数据报；负载过大时返回空列表
+     */
+    public static List<ByteBuffer> fragment(byte kind, int sequence, byte[] payload, int maxDatagramSize) {
+        int chunk = maxDatagramSize - HEADER_SIZE;
+        if (chunk <= 0) {
+            throw new IllegalArgumentException("数据报大小必须大于报头长度 " + HEADER_SIZE);
+        }
+        int count = Math.max(1, (payload.length + chunk - 1) / chunk);
+        List<ByteBuffer> packets = new ArrayList<>(count);
+        if (count > MAX_FRAGMENTS) {
+            return packets;
+        }
+        for (int i = 0; i < count; i++) {
+            int offset = i * chunk;
+            int length = Math.min(chunk, payload.length - offset);
+            ByteBuffer packet = ByteBuffer.allocate(HEADER_SIZE + length);
+            writeHeader(packet, kind, sequence, i, count);
+            packet.put(payload, offset, length);
+            packet.flip();
+            packets.add(packet);
+        }
+        return packets;
+    }
+
+    /**
+     * 编码一个不分片的数据报（HELLO、INPUT 等小负载）
+     */
+    public static ByteBuffer single(byte kind, int sequence, byte[] payload) {
+        ByteBuffer packet = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        writeHeader(packet, kind, sequence, 0, 1);
+        packet.put(payload);
+        packet.flip();
+        return packet;
+    }
+
+    private static void writeHeader(ByteBuffer packet, byte kind, int sequence, int index, int count) {
+        packet.putShort(MAGIC);
+        packet.put(VERSION);
+        packet.put(kind);
+        packet.putInt(sequence);
+        packet.putShort((short) index);
+        packet.putShort((short) count);
+    }
+
+    /**
+     * 读取数据报头，读取后 packet 的 position 指向负载起点
+     * @return 报头；数据报格式不合法时返回 null
+     */
+    public static Header readHeader(ByteBuffer packet, Header out) {
+        if (packet.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        if (packet.getShort() != MAGIC || packet.get() != VERSION) {
+            return null;
+        }
+        out.kind = packet.get();
+        out.sequence = packet.getInt();
+        out.fragmentIndex = packet.getShort() & 0xFFFF;
+        out.fragmentCount = packet.getShort() & 0xFFFF;
+        if (out.fragmentCount == 0 || out.fragmentCount > MAX_FRAGMENTS || out.fragmentIndex >= out.fragmentCount) {
+            return null;
+        }
+        return out;
+    }
+
+    /**
+     * 判断序号 a 是否比 b 新，按 32 位回绕比较
+     */
+    public static boolean isNewer(int a, int b) {
+        return a - b > 0;
+    }
+}
@@ -0,0 +1,159 @@
+package com.gameengine.net;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * UDP 分片重组器
+ * 按序号收集同一负载的分片，全部到齐后交付
+ *
+ * 只交付比上一次交付更新的序号：迟到、重复或乱序到达的旧数据报直接丢弃，
+ * 新负载交付后，所有更旧的未完成负载也一并丢弃，保证接收端永远不会回退到旧状态。
+ * 非线程安全，每个接收端（客户端接收线程或服务端的每个客户端）使用独立实例
+ */
+public final class UdpReassembler {
+
+    // 同时在途的未完成负载数量上限
+    private static final int MAX_PENDING = 8;
+
+    private final Map<Integer, Pending> pending = new LinkedHashMap<>();
+    private final UdpPacketCodec.Header header = new UdpPacketCodec.Header();
+    private boolean hasDelivered = false;
+    private int lastDelivered;
+
+    private long deliveredCount = 0;
+    private long staleCount = 0;
+    private long incompleteCount = 0;
+    private long malformedCount = 0;
+
+    private static final class Pending {
+        final byte[][] parts;
+        int received;
+        int totalLength;
+
+        Pending(int count) {
+            this.parts = new byte[count][];
+        }
+    }
+
+    /**
+     * 接收一个数据报
+     * @param packet 数据报，position 位于报头起点
+     * @return 负载全部到齐时返回完整负载，否则返回 null
+     */
+    public byte[] accept(ByteBuffer packet) {
+        UdpPacketCodec.Header h = UdpPacketCodec.readHeader(packet, header);
+        if (h == null) {
+            malformedCount++;
+            return null;
+        }
+        if (hasDelivered && !UdpPacketCodec.isNewer(h.sequence, lastDelivered)) {
+            staleCount++;
+            return null;
+        }
+
+        byte[] data = new byte[packet.remaining()];
+        packet.get(data);
+
+        if (h.fragmentCount == 1) {
+            deliver(h.sequence);
+            return data;
+        }
+
+        Pending p = pending.get(h.sequence);
+        if (p == null) {
+            if (pending.size() >= MAX_PENDING) {
+                evictOldest();
+            }
+            p = new Pending(h.fragmentCount);
+            pending.put(h.sequence, p);
+        } else if (p.parts.length != h.fragmentCount) {
+            malformedCount++;
+            return null;
+        }
+        if (p.parts[h.fragmentIndex] != null) {
+            // 重复分片
+            return null;
+        }
+        p.parts[h.fragmentIndex] = data;
+        p.received++;
+        p.totalLength += data.length;
+        if (p.received < p.parts.length) {
+            return null;
+        }
+
+        byte[] payload = new byte[p.totalLength];
+        int offset = 0;
+        for (byte[] part : p.parts) {
+            System.arraycopy(part, 0, payload, offset, part.length);
+            offset += part.length;
+        }
+        pending.remove(h.sequence);
+        deliver(h.sequence);
+        return payload;
+    }
+
+    /**
+     * 记录交付的序号，并丢弃所有更旧的未完成负载
+     */
+    private void deliver(int sequence) {
+        hasDelivered = true;
+        lastDelivered = sequence;
+        deliveredCount++;
+        Iterator<Integer> it = pending.keySet().iterator();
+        while (it.hasNext()) {
+            if (!UdpPacketCodec.isNewer(it.next(), sequence)) {
+                it.remove();
+                incompleteCount++;
+            }
+        }
+    }
+
+    private void evictOldest() {
+        Integer oldest = null;
+        for (Integer seq : pending.keySet()) {
+            if (oldest == null || UdpPacketCodec.isNewer(oldest, seq)) {
+                oldest = seq;
+            }
+        }
+        if (oldest != null) {
+            pending.remove(oldest);
+            incompleteCount++;
+        }
+    }
+
+    /**
+     * 最近一次交付的序号是否存在
+     */
+    public boolean hasDelivered() {
+        return hasDelivered;
+    }
+
+    public int getLastDeliveredSequence() {
+        return lastDelivered;
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    /**
+     * 因乱序、重复或过期被丢弃的数据报数
+     */
+    public long getStaleCount() {
+        return staleCount;
+    }
+
+    /**
+     * 分片未能到齐而被放弃的负载数
+     */
+    public long getIncompleteCount() {
+        return incompleteCount;
+    }
+
+    public long getMalformedCount() {
+        return malformedCount;
+    }
+}
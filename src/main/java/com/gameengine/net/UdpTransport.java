@@ -0,0 +1,348 @@
+package com.gameengine.net;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.gameengine.game.InputRecord;
+import com.gameengine.game.Record;
+import com.google.gson.Gson;
+
+/**
+ * 服务端 UDP 快照通道
+ * 会话控制（JOIN/JOIN-ACK、断开）仍走 TCP，快照和输入走不可靠、带序号的 UDP 数据报，
+ * 避免 TCP 丢包重传时旧数据阻塞新状态（队头阻塞）
+ *
+ * 客户端收到带 UDP 端口的 JOIN-ACK 后发送 HELLO 数据报登记自己的 UDP 端点，
+ * 负载为 "TCP 会话地址 令牌"；令牌是 JOIN-ACK 中下发的会话随机令牌，
+ * 只有令牌正确、且数据报来自 TCP 对端同一 IP 的登记才会被接受，会话地址本身可以被猜到。
+ * 广播由 TickScheduler 驱动，与 SubReactor 一样只置位并唤醒 selector
+ */
+public class UdpTransport implements Runnable {
+
+    private static final Gson gson = new Gson();
+
+    private final int requestedPort;
+    private final int maxDatagramSize;
+    private DatagramChannel channel;
+    private Selector selector;
+    private volatile boolean isRunning = false;
+    private Thread thread;
+    private final AtomicBoolean broadcastRequested = new AtomicBoolean(false);
+
+    // TCP 会话地址 -> UDP 端点
+    private final Map<String, Endpoint> endpointsBySession = new ConcurrentHashMap<>();
+    // UDP 端点 -> TCP 会话地址，用于校验输入来源
+    private final Map<SocketAddress, String> sessionsByEndpoint = new ConcurrentHashMap<>();
+
+    // 仅由 UDP 线程使用的解码缓冲
+    private final UdpPacketCodec.Header header = new UdpPacketCodec.Header();
+    private final InputFrames.Packet framePacket = new InputFrames.Packet();
+
+    // 快照序号，每次广播递增，同一次广播的所有客户端共用
+    private int snapshotSequence = 0;
+
+    private volatile long sentDatagrams = 0;
+    private volatile long droppedDatagrams = 0;
+    private volatile long receivedInputs = 0;
+
+    private static final class Endpoint {
+        final SocketAddress address;
+        // 每个客户端的输入序号独立，丢弃乱序到达的旧输入
+        final UdpReassembler inputs = new UdpReassembler();
+
+        Endpoint(SocketAddress address) {
+            this.address = address;
+        }
+    }
+
+    /**
+     * @param port UDP 监听端口，为 0 时由系统分配
+     */
+    public UdpTransport(int port) {
+        this(port, UdpPacketCodec.DEFAULT_MAX_DATAGRAM_SIZE);
+    }
+
+    /**
+     * @param port UDP 监听端口，为 0 时由系统分配
+     * @param maxDatagramSize 单个数据报的最大字节数，超出时分片
+     */
+    public UdpTransport(int port, int maxDatagramSize) {
+        if (maxDatagramSize <= UdpPacketCodec.HEADER_SIZE) {
+            throw new IllegalArgumentException("数据报大小必须大于报头长度 " + UdpPacketCodec.HEADER_SIZE);
+        }
+        this.requestedPort = port;
+        this.maxDatagramSize = maxDatagramSize;
+    }
+
+    /**
+     * 绑定端口并启动 UDP 线程
+     * 启动后 NetState 中的 UDP 端口生效，之后的 JOIN-ACK 会携带该端口
+     */
+    public void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        selector = Selector.open();
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.bind(new InetSocketAddress(requestedPort));
+        channel.register(selector, SelectionKey.OP_READ);
+        NetState.setUdpPort(getPort());
+
+        isRunning = true;
+        thread = new Thread(this, "UdpTransport");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("[UdpTransport] UDP 快照通道已启动，端口: " + getPort());
+    }
+
+    /**
+     * 停止 UDP 线程，已登记的客户端回退到 TCP 快照
+     */
+    public void stop() {
+        isRunning = false;
+        NetState.setUdpPort(0);
+        for (String session : endpointsBySession.keySet()) {
+            NetState.unmarkUdpClient(session);
+        }
+        endpointsBySession.clear();
+        sessionsByEndpoint.clear();
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * 请求广播当前快照，由 TickScheduler 在调度线程上调用
+     */
+    public void requestBroadcast() {
+        broadcastRequested.set(true);
+        Selector s = selector;
+        if (s != null) {
+            s.wakeup();
+        }
+    }
+
+    @Override
+    public void run() {
+        ByteBuffer in = ByteBuffer.allocate(65536);
+        while (isRunning) {
+            try {
+                selector.select();
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if (key.isValid() && key.isReadable()) {
+                        receiveAll(in);
+                    }
+                }
+
+                if (broadcastRequested.getAndSet(false)) {
+                    broadcast();
+                }
+            } catch (IOException e) {
+                System.err.println("[UdpTransport] 处理数据报时发生错误: " + e.getMessage());
+            }
+        }
+
+        try {
+            channel.close();
+            selector.close();
+        } catch (IOException ignored) {
+        }
+        thread = null;
+        System.out.println("[UdpTransport] UDP 快照通道已停止");
+    }
+
+    /**
+     * 读空接收缓冲区中的所有数据报
+     */
+    private void receiveAll(ByteBuffer in) throws IOException {
+        while (true) {
+            in.clear();
+            SocketAddress source = channel.receive(in);
+            if (source == null) {
+                return;
+            }
+            in.flip();
+            handleDatagram(source, in);
+        }
+    }
+
+    private void handleDatagram(SocketAddress source, ByteBuffer packet) {
+        if (packet.remaining() < UdpPacketCodec.HEADER_SIZE) {
+            return;
+        }
+        byte kind = packet.get(packet.position() + 3);
+        if (kind == UdpPacketCodec.KIND_HELLO) {
+            if (UdpPacketCodec.readHeader(packet, header) != null) {
+                byte[] data = new byte[packet.remaining()];
+                packet.get(data);
+                String[] hello = new String(data, StandardCharsets.UTF_8).trim().split(" ", 2);
+                register(hello[0], hello.length > 1 ? hello[1].trim() : null, source);
+            }
+        } else if (kind == UdpPacketCodec.KIND_INPUT_FRAMES) {
+            // 输入帧自带冗余和序号，由 InputQueue 去重，不经过数据报级的过期过滤
+            String session = sessionsByEndpoint.get(source);
+            if (session == null || UdpPacketCodec.readHeader(packet, header) == null) {
+                return;
+            }
+            InputFrames.Packet frames = InputFrames.decodeBinary(packet, framePacket);
+            if (frames != null) {
+                NetState.enqueueInputFrames(session, frames);
+                receivedInputs++;
+            }
+        } else if (kind == UdpPacketCodec.KIND_INPUT) {
+            String session = sessionsByEndpoint.get(source);
+            Endpoint endpoint = session == null ? null : endpointsBySession.get(session);
+            if (endpoint == null) {
+                return;
+            }
+            byte[] payload = endpoint.inputs.accept(packet);
+            if (payload == null) {
+                return;
+            }
+            try {
+                InputRecord input = gson.fromJson(new String(payload, StandardCharsets.UTF_8), InputRecord.class);
+                if (input != null) {
+                    // 以登记的会话地址为准，忽略数据报中自报的地址
+                    input.addressId = session;
+                    NetState.updateClientInput(input);
+                    receivedInputs++;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("[UdpTransport] 输入解析失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 登记客户端的 UDP 端点，令牌或来源 IP 不匹配时忽略
+     */
+    private void register(String session, String token, SocketAddress source) {
+        InetAddress sourceIp = source instanceof InetSocketAddress ? ((InetSocketAddress) source).getAddress() : null;
+        if (!NetState.acceptUdpHello(session, token, sourceIp)) {
+            System.err.println("[UdpTransport] 拒绝来自 " + source + " 的 UDP 登记: " + session);
+            return;
+        }
+        Endpoint old = endpointsBySession.get(session);
+        if (old != null && old.address.equals(source)) {
+            return;
+        }
+        if (old != null) {
+            sessionsByEndpoint.remove(old.address);
+        }
+        endpointsBySession.put(session, new Endpoint(source));
+        sessionsByEndpoint.put(source, session);
+        NetState.markUdpClient(session);
+        System.out.println("[UdpTransport] 客户端 " + session + " 登记 UDP 端点: " + source);
+    }
+
+    /**
+     * 向所有已登记的客户端发送当前快照
+     */
+    private void broadcast() throws IOException {
+        if (endpointsBySession.isEmpty()) {
+            return;
+        }
+        int sequence = ++snapshotSequence;
+        InterestManager interest = NetState.getInterestManager();
+        // 没有视野信息的客户端共享完整快照，同一个快照（同一房间）只编码一次
+        Map<Record, List<ByteBuffer>> shared = null;
+
+        for (Map.Entry<String, Endpoint> entry : endpointsBySession.entrySet()) {
+            String session = entry.getKey();
+            Endpoint endpoint = entry.getValue();
+            if (!NetState.hasClientAddress(session)) {
+                // TCP 会话已断开
+                endpointsBySession.remove(session);
+                sessionsByEndpoint.remove(endpoint.address);
+                NetState.unmarkUdpClient(session);
+                continue;
+            }
+
+            Record record = NetState.snapshotFor(session);
+            if (record == null) {
+                continue;
+            }
+            List<ByteBuffer> packets;
+            Record filtered = interest.filterFor(session, record);
+            if (filtered == record) {
+                if (shared == null) {
+                    shared = new IdentityHashMap<>();
+                }
+                packets = shared.computeIfAbsent(record, r -> encode(r, sequence));
+            } else {
+                packets = encode(filtered, sequence);
+            }
+            if (packets.isEmpty()) {
+                droppedDatagrams++;
+                continue;
+            }
+            for (ByteBuffer packet : packets) {
+                packet.rewind();
+                if (channel.send(packet, endpoint.address) == 0) {
+                    // 发送缓冲区已满，不可靠通道直接丢弃，下一次快照会覆盖
+                    droppedDatagrams++;
+                } else {
+                    sentDatagrams++;
+                }
+            }
+        }
+    }
+
+    private List<ByteBuffer> encode(Record record, int sequence) {
+        byte[] payload = gson.toJson(record).getBytes(StandardCharsets.UTF_8);
+        return UdpPacketCodec.fragment(UdpPacketCodec.KIND_SNAPSHOT, sequence, payload, maxDatagramSize);
+    }
+
+    /**
+     * 获取实际绑定的端口
+     */
+    public int getPort() {
+        try {
+            InetSocketAddress local = channel == null ? null : (InetSocketAddress) channel.getLocalAddress();
+            return local == null ? requestedPort : local.getPort();
+        } catch (IOException e) {
+            return requestedPort;
+        }
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * 已登记 UDP 端点的客户端数
+     */
+    public int getEndpointCount() {
+        return endpointsBySession.size();
+    }
+
+    public long getSentDatagrams() {
+        return sentDatagrams;
+    }
+
+    public long getDroppedDatagrams() {
+        return droppedDatagrams;
+    }
+
+    public long getReceivedInputs() {
+        return receivedInputs;
+    }
+}
@@ -0,0 +1,356 @@
+package com.gameengine.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.gameengine.game.Record;
+
+/**
+ * 基于虚拟线程的服务端
+ * 与 MultiReactor 使用相同的协议：每个连接一个读虚拟线程（阻塞读，按行交给 Reactor.ReadHandler 处理）
+ * 和一个写虚拟线程（阻塞写快照），代码按顺序书写，不需要选择器。
+ *
+ * 广播由 TickScheduler 驱动：调度线程只唤醒广播虚拟线程，广播线程编码快照后交给各连接的写线程。
+ * 每个连接只保留最新一帧待发送的快照，慢客户端只会丢掉自己的旧快照，不会拖慢其他连接。
+ *
+ * 使用示例：
+ * GameServer server = new VirtualThreadServer(8888);
+ * server.enableUdp(8889); // 可选
+ * server.start();
+ */
+public class VirtualThreadServer implements GameServer {
+
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    private final int port;
+    private final TickScheduler tickScheduler;
+    private UdpTransport udpTransport;
+    private final LoopbackTransport loopbackTransport = new LoopbackTransport();
+    private ServerSocketChannel serverChannel;
+    private Thread acceptor;
+    private volatile boolean isRunning = false;
+
+    private final ConcurrentHashMap<SocketChannel, Connection> connections = new ConcurrentHashMap<>();
+    // 由 TickScheduler 释放许可，唤醒广播线程
+    private final Semaphore broadcastSignal = new Semaphore(0);
+
+    // 由各连接的广播线程并发累加
+    private final LongAdder droppedSnapshots = new LongAdder();
+    private boolean listenersRegistered = false;
+
+    /**
+     * 单个连接的写端
+     * 写线程等待 pending 中的最新快照，新快照会覆盖尚未写出的旧快照
+     */
+    private final class Connection {
+        final SocketChannel channel;
+        final String address;
+        final AtomicReference<ByteBuffer> pending = new AtomicReference<>();
+        final Semaphore ready = new Semaphore(0);
+
+        Connection(SocketChannel channel, String address) {
+            this.channel = channel;
+            this.address = address;
+        }
+
+        void offer(ByteBuffer snapshot) {
+            if (pending.getAndSet(snapshot) != null) {
+                droppedSnapshots.increment();
+            } else {
+                ready.release();
+            }
+        }
+
+        void writeLoop() {
+            try {
+                while (isRunning && channel.isOpen()) {
+                    ready.acquire();
+                    ByteBuffer out = pending.getAndSet(null);
+                    if (out == null) {
+                        continue;
+                    }
+                    // 阻塞模式下 write 会写完全部字节
+                    while (out.hasRemaining()) {
+                        channel.write(out);
+                    }
+                }
+            } catch (InterruptedException | IOException ignored) {
+                // 连接关闭或服务端停止，读线程负责清理
+            }
+        }
+    }
+
+    /**
+     * @param port 服务器监听端口
+     */
+    public VirtualThreadServer(int port) {
+        this(port, TickScheduler.DEFAULT_SNAPSHOT_RATE_HZ);
+    }
+
+    /**
+     * @param port 服务器监听端口
+     * @param snapshotRateHz 每秒向客户端广播快照的次数
+     */
+    public VirtualThreadServer(int port, int snapshotRateHz) {
+        this.port = port;
+        this.tickScheduler = new TickScheduler(snapshotRateHz);
+    }
+
+    @Override
+    public void enableUdp(int udpPort) {
+        if (isRunning) {
+            throw new IllegalStateException("UDP 通道必须在启动前启用");
+        }
+        if (udpTransport == null) {
+            udpTransport = new UdpTransport(udpPort);
+            tickScheduler.addListener(udpTransport::requestBroadcast);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (isRunning) {
+            System.out.println("[VirtualThreadServer] 已经在运行中");
+            return;
+        }
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            throw new RuntimeException("无法创建 VirtualThreadServer", e);
+        }
+        isRunning = true;
+        registerListeners();
+
+        if (udpTransport != null) {
+            try {
+                udpTransport.start();
+            } catch (IOException e) {
+                System.err.println("[VirtualThreadServer] UDP 通道启动失败，快照继续走 TCP: " + e.getMessage());
+            }
+        }
+
+        loopbackTransport.start();
+        Thread.ofVirtual().name("vt-broadcast").start(this::broadcastLoop);
+        tickScheduler.start();
+        NetState.addTickScheduler(tickScheduler);
+
+        acceptor = Thread.ofVirtual().name("vt-acceptor").start(this::acceptLoop);
+        System.out.println("[VirtualThreadServer] 服务器运行在端口: " + port);
+    }
+
+    /**
+     * 注册广播和连接数回调，只在第一次启动时执行；不在构造函数中注册，避免构造完成前泄漏 this
+     */
+    private void registerListeners() {
+        if (listenersRegistered) {
+            return;
+        }
+        listenersRegistered = true;
+        tickScheduler.addListener(broadcastSignal::release);
+        tickScheduler.addListener(loopbackTransport::requestBroadcast);
+        loopbackTransport.setConnectionCountUpdater(this::connectionCountChanged);
+    }
+
+    /**
+     * 端口在 start 中同步绑定，start 返回后立即可用
+     */
+    @Override
+    public boolean awaitBound(long timeoutMs) {
+        return isRunning && serverChannel != null && serverChannel.socket().isBound();
+    }
+
+    @Override
+    public void stop() {
+        if (!isRunning) {
+            return;
+        }
+        isRunning = false;
+
+        NetState.removeTickScheduler(tickScheduler);
+        tickScheduler.stop();
+        if (udpTransport != null) {
+            udpTransport.stop();
+        }
+        loopbackTransport.stop();
+        broadcastSignal.release();
+        try {
+            serverChannel.close();
+            // 阻塞在 accept 上的线程退出后监听套接字才真正关闭
+            acceptor.join(1000);
+        } catch (IOException ignored) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Connection connection : connections.values()) {
+            try {
+                connection.channel.close();
+            } catch (IOException ignored) {
+            }
+            connection.ready.release();
+        }
+        connections.clear();
+        NetState.setClientCount(0);
+        System.out.println("[VirtualThreadServer] 服务器已停止");
+    }
+
+    /**
+     * 接受连接，为每个连接启动读、写两个虚拟线程
+     */
+    private void acceptLoop() {
+        while (isRunning) {
+            SocketChannel ch;
+            try {
+                ch = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("[VirtualThreadServer] 接受连接失败: " + e.getMessage());
+                continue;
+            }
+            try {
+                SocketAddress addr = ch.getRemoteAddress();
+                Connection connection = new Connection(ch, addr.toString());
+                connections.put(ch, connection);
+                NetState.addClientAddress(addr);
+                connectionCountChanged();
+                Thread.ofVirtual().name("vt-read-" + addr).start(() -> readLoop(connection));
+                Thread.ofVirtual().name("vt-write-" + addr).start(connection::writeLoop);
+            } catch (IOException e) {
+                System.err.println("[VirtualThreadServer] 注册连接失败: " + e.getMessage());
+                try {
+                    ch.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 阻塞读取客户端消息，连接断开时清理
+     */
+    private void readLoop(Connection connection) {
+        SocketChannel ch = connection.channel;
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        Reactor.ReadHandler handler = new Reactor.ReadHandler(buffer);
+        try {
+            while (isRunning) {
+                buffer.clear();
+                if (ch.read(buffer) < 0) {
+                    break;
+                }
+                buffer.flip();
+                handler.consume(ch, buffer);
+            }
+        } catch (IOException ignored) {
+            // 连接被重置或已关闭
+        }
+        try {
+            Reactor.ReadHandler.close(ch);
+        } catch (IOException ignored) {
+        }
+        connections.remove(ch);
+        connection.ready.release();
+        connectionCountChanged();
+    }
+
+    /**
+     * 每次调度器到点后编码当前快照并交给各连接的写线程
+     */
+    private void broadcastLoop() {
+        while (isRunning) {
+            try {
+                broadcastSignal.acquire();
+                broadcastSignal.drainPermits();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (isRunning) {
+                broadcast();
+            }
+        }
+    }
+
+    private void broadcast() {
+        if (connections.isEmpty()) {
+            return;
+        }
+        InterestManager interest = NetState.getInterestManager();
+        // 没有视野信息的连接共享完整快照，同一个快照（同一房间）只编码一次
+        Map<Record, ByteBuffer> shared = null;
+        for (Connection connection : connections.values()) {
+            if (NetState.isUdpClient(connection.address)) {
+                // 快照已经通过 UDP 发送
+                continue;
+            }
+            Record record = NetState.snapshotFor(connection.address);
+            if (record == null) {
+                continue;
+            }
+            Record filtered = interest.filterFor(connection.address, record);
+            if (filtered == record) {
+                if (shared == null) {
+                    shared = new IdentityHashMap<>();
+                }
+                ByteBuffer encoded = shared.computeIfAbsent(record,
+                        r -> Reactor.WriteHandler.encode(r).asReadOnlyBuffer());
+                connection.offer(encoded.duplicate());
+            } else {
+                connection.offer(Reactor.WriteHandler.encode(filtered));
+            }
+        }
+    }
+
+    private void connectionCountChanged() {
+        NetState.setClientCount(getTotalConnectionCount());
+        tickScheduler.wakeup();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public int getTotalConnectionCount() {
+        return connections.size() + loopbackTransport.getConnectionCount();
+    }
+
+    @Override
+    public TickScheduler getTickScheduler() {
+        return tickScheduler;
+    }
+
+    @Override
+    public UdpTransport getUdpTransport() {
+        return udpTransport;
+    }
+
+    @Override
+    public LoopbackTransport getLoopbackTransport() {
+        return loopbackTransport;
+    }
+
+    /**
+     * 因写线程尚未写完而被新快照覆盖的快照数
+     */
+    public long getDroppedSnapshots() {
+        return droppedSnapshots.sum();
+    }
+}
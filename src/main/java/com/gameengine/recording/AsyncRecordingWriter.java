@@ -0,0 +1,225 @@
+package com.gameengine.recording;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.gameengine.game.Record;
+import com.gameengine.util.SpscRing;
+
+/**
+ * 异步录制写入器
+ * 游戏线程只把当前状态填入预先分配的帧槽位（beginFrame / commitFrame），
+ * 差量编码、按块压缩和文件写入都在后台写入线程中进行，由 BinaryRecordingWriter 攒成整块后写入 FileChannel。
+ *
+ * 槽位在两个单生产者单消费者队列之间流转：空闲队列（写入线程归还、游戏线程取出）
+ * 和待写队列（游戏线程放入、写入线程取出），两边都不加锁。
+ *
+ * 溢出策略：写入线程跟不上、没有空闲槽位时丢弃新的一帧，游戏线程从不阻塞；
+ * 已排队的帧按顺序写入，下一帧相对上一帧已写入的帧做差量，回放时表现为一次短暂的跳帧。
+ *
+ * 创建后调用 start 启动写入线程；start、beginFrame、commitFrame、write 和 close 只能由同一个线程（游戏线程）调用
+ */
+public class AsyncRecordingWriter implements Closeable {
+
+    // 默认槽位数，按 0.02 秒的录制间隔约为 5 秒
+    public static final int DEFAULT_CAPACITY = 256;
+    // 没有待写帧时的最长 park 时间
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    // 关闭时等待写入线程写完剩余帧的最长时间
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+
+    private final BinaryRecordingWriter writer;
+    private final SpscRing<RecordingFrame> free;
+    private final SpscRing<RecordingFrame> pending;
+    private Thread thread; // start 之前为 null
+
+    private RecordingFrame current; // 游戏线程正在填写的槽位
+    private volatile boolean closing = false;
+    private boolean closed = false;
+    private volatile IOException failure;
+
+    private long droppedFrames = 0; // 仅游戏线程写入
+    private volatile long writtenFrames = 0;
+
+    /**
+     * 创建录像文件，写入线程由 start 启动
+     */
+    public AsyncRecordingWriter(Path path) throws IOException {
+        this(new BinaryRecordingWriter(path), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param writer 由写入线程独占使用，关闭时一并关闭
+     * @param capacity 槽位数
+     */
+    public AsyncRecordingWriter(BinaryRecordingWriter writer, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("槽位数必须大于 0");
+        }
+        this.writer = writer;
+        this.free = new SpscRing<>(capacity);
+        this.pending = new SpscRing<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            free.offer(new RecordingFrame());
+        }
+    }
+
+    /**
+     * 启动写入线程，只能调用一次
+     * 不在构造函数中启动，避免对象构造完成前把 this 交给写入线程；
+     * 启动前提交的帧在启动后按顺序写入，从未启动时由 close 在调用线程上写完
+     * @return this
+     */
+    public AsyncRecordingWriter start() {
+        if (thread != null) {
+            throw new IllegalStateException("写入线程已经启动");
+        }
+        thread = new Thread(this::run, "AsyncRecordingWriter");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    /**
+     * 取出一个空闲槽位开始填写一帧
+     * @return 没有空闲槽位（本帧被丢弃）或已关闭时返回 null
+     */
+    public RecordingFrame beginFrame() {
+        if (closing) {
+            return null;
+        }
+        if (current != null) {
+            // 上一次 beginFrame 之后没有提交，直接复用
+            current.reset();
+            return current;
+        }
+        RecordingFrame frame = free.poll();
+        if (frame == null) {
+            droppedFrames++;
+            return null;
+        }
+        frame.reset();
+        current = frame;
+        return frame;
+    }
+
+    /**
+     * 提交 beginFrame 取出的槽位，交给写入线程
+     */
+    public void commitFrame() {
+        RecordingFrame frame = current;
+        if (frame == null) {
+            return;
+        }
+        current = null;
+        // 待写队列与空闲队列容量相同，槽位总数不超过容量，不会满
+        pending.offer(frame);
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 复制一帧并提交
+     * @return 本帧被丢弃时返回 false
+     */
+    public boolean write(Record record) {
+        RecordingFrame frame = beginFrame();
+        if (frame == null) {
+            return false;
+        }
+        frame.copyFrom(record);
+        commitFrame();
+        return true;
+    }
+
+    /**
+     * 写入线程：按顺序编码待写帧，写完后归还槽位
+     */
+    private void run() {
+        while (true) {
+            RecordingFrame frame = pending.poll();
+            if (frame != null) {
+                if (failure == null) {
+                    try {
+                        writer.write(frame.getRecord());
+                        writtenFrames++;
+                    } catch (IOException e) {
+                        failure = e;
+                        System.err.println("[AsyncRecordingWriter] 写入录像失败，之后的帧将被丢弃: " + e.getMessage());
+                    }
+                }
+                free.offer(frame);
+                continue;
+            }
+            if (closing) {
+                break;
+            }
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * 停止录制：写完所有已提交的帧，写出索引并关闭文件
+     * @throws IOException 写入过程中出现过错误
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        current = null;
+        closing = true;
+        if (thread != null && thread.isAlive()) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                throw new IOException("等待录像写入线程结束超时");
+            }
+        } else {
+            // 写入线程没有启动过，直接写完
+            run();
+        }
+        System.out.println("[AsyncRecordingWriter] 录制结束：写入 " + writtenFrames + " 帧，丢弃 "
+                + droppedFrames + " 帧");
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 因没有空闲槽位而丢弃的帧数
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * 已经编码写入的帧数
+     */
+    public long getWrittenFrames() {
+        return writtenFrames;
+    }
+
+    /**
+     * 已提交、尚未写入的帧数（近似值）
+     */
+    public int getPendingFrames() {
+        return pending.size();
+    }
+}
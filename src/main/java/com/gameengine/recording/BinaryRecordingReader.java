@@ -0,0 +1,366 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 二进制录像读取器
+ * 打开时只解析文件头、字符串表和索引，帧数据按块解码（每块从关键帧开始）；
+ * 文件末尾没有索引（录制中途崩溃）时顺序扫描已写完的块重建索引和字符串表。
+ * 压缩的录像在解码一块时才解压这一块，直接从映射的文件页读入，打开文件的开销与未压缩时相同。
+ * 格式见 RecordingFormat
+ */
+public class BinaryRecordingReader {
+
+    private final ByteBuffer data;
+    private final short version;
+    private final int framesPerChunk;
+    private final boolean compressed;
+    private final boolean complete;
+    private String[] strings;
+    private long[] chunkOffsets;
+    private int[] chunkFirstFrames;
+    private int[] chunkFrameCounts;
+    private float[] frameTimes;
+
+    /**
+     * 内存映射录像文件，打开时只读取文件头和末尾的索引，帧数据在 readChunk 时才被读入
+     */
+    public BinaryRecordingReader(Path path) throws IOException {
+        this(RecordingFormat.map(path));
+    }
+
+    /**
+     * 从内存中的录像数据读取
+     * @throws IOException 不是二进制录像或文件头损坏
+     */
+    public BinaryRecordingReader(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.limit() < RecordingFormat.HEADER_SIZE || data.getInt(0) != RecordingFormat.MAGIC) {
+            throw new IOException("不是二进制录像文件");
+        }
+        this.version = data.getShort(4);
+        if (version != RecordingFormat.VERSION && version != RecordingFormat.VERSION_FIXED_FRAMES) {
+            throw new IOException("不支持的录像版本: " + version);
+        }
+        int flags = data.getShort(RecordingFormat.FLAGS_OFFSET) & 0xFFFF;
+        if ((flags & ~RecordingFormat.KNOWN_FLAGS) != 0) {
+            throw new IOException("不支持的录像标志: " + flags);
+        }
+        this.compressed = (flags & RecordingFormat.FLAG_DEFLATE) != 0;
+        this.framesPerChunk = data.getInt(RecordingFormat.FRAMES_PER_CHUNK_OFFSET);
+        long stringTableOffset = data.getLong(RecordingFormat.STRING_TABLE_OFFSET);
+        long indexOffset = data.getLong(RecordingFormat.INDEX_OFFSET);
+        this.complete = stringTableOffset > 0 && indexOffset > 0 && indexOffset <= data.limit();
+        if (complete) {
+            readTrailer(stringTableOffset, indexOffset);
+        } else {
+            scanChunks();
+        }
+    }
+
+    private void readTrailer(long stringTableOffset, long indexOffset) throws IOException {
+        try {
+            ByteBuffer in = data.duplicate();
+            in.position((int) stringTableOffset);
+            strings = new String[in.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = RecordingFormat.getString(in);
+            }
+
+            in.position((int) indexOffset);
+            int chunkCount = in.getInt();
+            chunkOffsets = new long[chunkCount];
+            chunkFirstFrames = new int[chunkCount];
+            chunkFrameCounts = new int[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                chunkOffsets[i] = in.getLong();
+                chunkFirstFrames[i] = in.getInt();
+                chunkFrameCounts[i] = in.getInt();
+            }
+            frameTimes = new float[in.getInt()];
+            for (int i = 0; i < frameTimes.length; i++) {
+                frameTimes[i] = in.getFloat();
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("录像索引损坏: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 顺序扫描数据块，遇到不完整的块时停止
+     */
+    private void scanChunks() {
+        List<String> stringList = new ArrayList<>();
+        List<long[]> chunks = new ArrayList<>();
+        float[] times = new float[1024];
+        int frames = 0;
+
+        ByteBuffer in = data.duplicate();
+        in.position(RecordingFormat.HEADER_SIZE);
+        try {
+            while (in.remaining() >= 16) {
+                int start = in.position();
+                if (in.getInt() != RecordingFormat.CHUNK_MAGIC) {
+                    break;
+                }
+                int chunkFrames = in.getInt();
+                int newStrings = in.getInt();
+                if (chunkFrames <= 0 || newStrings < 0) {
+                    // 写入器不会写出空块，这是没写完的块
+                    break;
+                }
+                List<String> added = new ArrayList<>(newStrings);
+                for (int i = 0; i < newStrings; i++) {
+                    added.add(RecordingFormat.getString(in));
+                }
+                int payloadLength = in.getInt();
+                int rawLength = compressed ? in.getInt() : payloadLength;
+                if (payloadLength < 0 || rawLength < 0 || in.remaining() < payloadLength) {
+                    break;
+                }
+                int frameStart = in.position();
+                // 差量帧是变长的，解码整块得到每帧的时间；只在恢复未正常结束的文件时发生
+                stringList.addAll(added);
+                String[] known = stringList.toArray(new String[0]);
+                List<Record> decoded;
+                try {
+                    decoded = decodeFrames(payload(in, payloadLength, rawLength), chunkFrames, known);
+                } catch (RuntimeException e) {
+                    stringList.subList(stringList.size() - added.size(), stringList.size()).clear();
+                    throw e;
+                }
+                for (int i = 0; i < chunkFrames; i++) {
+                    if (frames + i >= times.length) {
+                        times = Arrays.copyOf(times, times.length * 2);
+                    }
+                    times[frames + i] = decoded.get(i).getKey();
+                }
+                in.position(frameStart + payloadLength);
+                chunks.add(new long[]{start, frames, chunkFrames});
+                frames += chunkFrames;
+            }
+        } catch (RuntimeException e) {
+            // 最后一块写了一半，丢弃
+        }
+
+        strings = stringList.toArray(new String[0]);
+        chunkOffsets = new long[chunks.size()];
+        chunkFirstFrames = new int[chunks.size()];
+        chunkFrameCounts = new int[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            chunkOffsets[i] = chunks.get(i)[0];
+            chunkFirstFrames[i] = (int) chunks.get(i)[1];
+            chunkFrameCounts[i] = (int) chunks.get(i)[2];
+        }
+        frameTimes = Arrays.copyOf(times, frames);
+    }
+
+    /**
+     * 文件是否正常结束（带有字符串表和索引）
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * 每块的帧数据是否经过 Deflate 压缩
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * 文件格式版本，1 为定长帧，2 为关键帧 + 差量
+     */
+    public short getVersion() {
+        return version;
+    }
+
+    public int getFramesPerChunk() {
+        return framesPerChunk;
+    }
+
+    public int getFrameCount() {
+        return frameTimes.length;
+    }
+
+    public int getChunkCount() {
+        return chunkOffsets.length;
+    }
+
+    public int getStringCount() {
+        return strings.length;
+    }
+
+    /**
+     * 第 index 帧的录制时间（Record.key），来自索引，不解码帧数据
+     */
+    public float getFrameTime(int index) {
+        return frameTimes[index];
+    }
+
+    public int getChunkFirstFrame(int chunkIndex) {
+        return chunkFirstFrames[chunkIndex];
+    }
+
+    public int getChunkFrameCount(int chunkIndex) {
+        return chunkFrameCounts[chunkIndex];
+    }
+
+    /**
+     * 第 index 帧所在的块
+     */
+    public int chunkOf(int frameIndex) {
+        if (frameIndex < 0 || frameIndex >= frameTimes.length) {
+            throw new IndexOutOfBoundsException("帧下标越界: " + frameIndex);
+        }
+        int lo = 0;
+        int hi = chunkFirstFrames.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (chunkFirstFrames[mid] <= frameIndex) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 解码一个数据块中的所有帧，从块开头的关键帧依次应用差量
+     */
+    public List<Record> readChunk(int chunkIndex) {
+        ByteBuffer in = data.duplicate();
+        in.position((int) chunkOffsets[chunkIndex]);
+        in.getInt(); // magic
+        int frames = in.getInt();
+        int newStrings = in.getInt();
+        for (int i = 0; i < newStrings; i++) {
+            in.position(in.position() + 2 + (in.getShort(in.position()) & 0xFFFF));
+        }
+        int payloadLength = in.getInt();
+        int rawLength = compressed ? in.getInt() : payloadLength;
+        return decodeFrames(payload(in, payloadLength, rawLength), frames, strings);
+    }
+
+    /**
+     * 块的帧数据：未压缩时就是映射的文件内容本身，压缩时解压到新的缓冲区
+     * @throws IllegalStateException 压缩数据损坏或长度与块头不符
+     */
+    private ByteBuffer payload(ByteBuffer in, int payloadLength, int rawLength) {
+        if (!compressed) {
+            return in;
+        }
+        ByteBuffer input = in.slice(in.position(), payloadLength);
+        // 多留一个字节，解压结果比块头记录的长时可以发现
+        ByteBuffer raw = ByteBuffer.allocate(rawLength + 1);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            while (!inflater.finished()) {
+                if (inflater.inflate(raw) == 0
+                        && (inflater.needsInput() || inflater.needsDictionary() || !raw.hasRemaining())) {
+                    break;
+                }
+            }
+            if (!inflater.finished() || raw.position() != rawLength) {
+                throw new IllegalStateException("压缩块不完整");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("压缩块损坏: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+        raw.flip();
+        return raw;
+    }
+
+    private List<Record> decodeFrames(ByteBuffer in, int frames, String[] table) {
+        List<Record> records = new ArrayList<>(frames);
+        if (version == RecordingFormat.VERSION_FIXED_FRAMES) {
+            for (int i = 0; i < frames; i++) {
+                records.add(readFixedFrame(in, table));
+            }
+            return records;
+        }
+        DeltaFrameCodec codec = new DeltaFrameCodec();
+        for (int i = 0; i < frames; i++) {
+            records.add(codec.decode(in, id -> string(table, id)));
+        }
+        return records;
+    }
+
+    /**
+     * 解码所有帧
+     */
+    public List<Record> readAll() {
+        List<Record> records = new ArrayList<>(frameTimes.length);
+        for (int i = 0; i < chunkOffsets.length; i++) {
+            records.addAll(readChunk(i));
+        }
+        return records;
+    }
+
+    private Record readFixedFrame(ByteBuffer in, String[] table) {
+        Record record = new Record();
+        record.setKey(in.getFloat());
+        int type = in.getInt();
+        if (type == RecordingFormat.TYPE_OBJECT_MOVE) {
+            record.setRecordType("object_move");
+        } else if (type == RecordingFormat.TYPE_INPUT) {
+            record.setRecordType("input");
+        }
+        record.setPlayerHealth(in.getInt());
+        record.setPlayerMaxHealth(in.getInt());
+        record.setSkillCooldownPercent(in.getFloat());
+        record.setCurrentLevel(in.getInt());
+        record.setServerTime(in.getDouble());
+        int entityCount = in.getInt();
+        List<GameObjectRecord> objects = record.getGameObjectsMove();
+        for (int i = 0; i < entityCount; i++) {
+            GameObjectRecord o = readFixedEntity(in, table);
+            if (objects != null) {
+                objects.add(o);
+            }
+        }
+        return record;
+    }
+
+    private GameObjectRecord readFixedEntity(ByteBuffer in, String[] table) {
+        GameObjectRecord o = new GameObjectRecord();
+        o.id = string(table, in.getInt());
+        o.netId = in.getInt();
+        o.x = in.getFloat();
+        o.y = in.getFloat();
+        o.rt = RecordingFormat.decodeRenderType(in.getInt());
+        o.height = in.getFloat();
+        o.width = in.getFloat();
+        o.alpha = in.getFloat();
+        o.imagePath = string(table, in.getInt());
+        o.r = in.getFloat();
+        o.g = in.getFloat();
+        o.b = in.getFloat();
+        o.a = in.getFloat();
+        o.segments = in.getInt();
+        o.rotation = in.getFloat();
+        o.currentHealth = in.getInt();
+        o.maxHealth = in.getInt();
+        o.identity = string(table, in.getInt());
+        return o;
+    }
+
+    private static String string(String[] table, int id) {
+        return id < 0 || id >= table.length ? null : table[id];
+    }
+}
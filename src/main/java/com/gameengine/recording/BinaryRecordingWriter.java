@@ -0,0 +1,345 @@
+package com.gameengine.recording;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 二进制录像写入器
+ * 帧先编码到内存中的块缓冲区，每块第一帧是关键帧，之后的帧只编码相对上一帧的差量；
+ * 距块内关键帧满 keyframeInterval 秒或攒满 framesPerChunk 帧后整块写入文件；
+ * 关闭时写出最后一块、完整的字符串表和帧时间索引，并回填文件头。
+ * 默认每块的帧数据在写出前单独用 Deflate 压缩，块头和索引不压缩，跳转仍然只需解压一块；
+ * 压缩在写入块时进行，和差量编码一样不需要额外的线程。
+ * 写入时顺便累计录像摘要，关闭后写到旁边的 .meta 文件，回放列表不必打开录像（见 RecordingMetadata）。
+ * 格式见 RecordingFormat
+ *
+ * 只能由一个线程使用
+ */
+public class BinaryRecordingWriter implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int framesPerChunk;
+    private final float keyframeInterval;
+    private final DeltaFrameCodec codec = new DeltaFrameCodec();
+    private final Deflater deflater; // null 表示不压缩
+
+    // 字符串表：id、图片路径、身份标识只存一次
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+    private int chunkFirstString = 0; // 当前块之前已经写出的字符串数
+
+    // 当前块的帧数据
+    private ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+    private int chunkFrames = 0;
+    private float chunkStartKey;
+    private ByteBuffer compressed;
+    private long rawFrameBytes = 0;
+    private long storedFrameBytes = 0;
+
+    // 帧时间索引
+    private final List<long[]> chunkIndex = new ArrayList<>(); // {偏移, 起始帧, 帧数}
+    private float[] frameTimes = new float[1024];
+    private int frameCount = 0;
+
+    private final RecordingMetadata.Builder metadata = new RecordingMetadata.Builder(System.currentTimeMillis());
+
+    private long position;
+    private boolean closed = false;
+
+    /**
+     * 使用默认块大小创建录像文件，已存在时覆盖
+     */
+    public BinaryRecordingWriter(Path path) throws IOException {
+        this(path, RecordingFormat.DEFAULT_FRAMES_PER_CHUNK);
+    }
+
+    /**
+     * 使用默认关键帧间隔
+     * @param framesPerChunk 每个数据块最多的帧数
+     */
+    public BinaryRecordingWriter(Path path, int framesPerChunk) throws IOException {
+        this(path, framesPerChunk, RecordingFormat.DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * 帧数据按块压缩
+     * @param framesPerChunk 每个数据块最多的帧数
+     * @param keyframeInterval 关键帧间隔（秒，按 Record.key 计算），0 表示只按帧数分块
+     */
+    public BinaryRecordingWriter(Path path, int framesPerChunk, float keyframeInterval) throws IOException {
+        this(path, framesPerChunk, keyframeInterval, true);
+    }
+
+    /**
+     * @param framesPerChunk 每个数据块最多的帧数
+     * @param keyframeInterval 关键帧间隔（秒，按 Record.key 计算），0 表示只按帧数分块
+     * @param compress 是否用 Deflate 压缩每块的帧数据
+     */
+    public BinaryRecordingWriter(Path path, int framesPerChunk, float keyframeInterval, boolean compress)
+            throws IOException {
+        if (framesPerChunk <= 0) {
+            throw new IllegalArgumentException("每块帧数必须大于 0");
+        }
+        if (!(keyframeInterval >= 0)) {
+            throw new IllegalArgumentException("关键帧间隔不能为负数");
+        }
+        this.path = path;
+        this.framesPerChunk = framesPerChunk;
+        this.keyframeInterval = keyframeInterval;
+        this.deflater = compress ? new Deflater(Deflater.DEFAULT_COMPRESSION) : null;
+        this.compressed = compress ? ByteBuffer.allocate(16 * 1024) : null;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        // 文件头中的计数和偏移在关闭时回填，崩溃留下的文件偏移为 0，读取时顺序扫描
+        ByteBuffer header = ByteBuffer.allocate(RecordingFormat.HEADER_SIZE);
+        header.putInt(RecordingFormat.MAGIC);
+        header.putShort(RecordingFormat.VERSION);
+        header.putShort((short) (compress ? RecordingFormat.FLAG_DEFLATE : 0));
+        header.putInt(framesPerChunk);
+        header.rewind();
+        writeFully(header);
+    }
+
+    /**
+     * 追加一帧
+     */
+    public void write(Record record) throws IOException {
+        if (closed) {
+            throw new IOException("录像已关闭");
+        }
+        if (chunkFrames > 0 && keyframeInterval > 0 && record.getKey() - chunkStartKey >= keyframeInterval) {
+            flushChunk();
+        }
+        boolean keyframe = chunkFrames == 0;
+        if (keyframe) {
+            chunkStartKey = record.getKey();
+        }
+        List<GameObjectRecord> objects = record.getGameObjectsMove();
+        int entityCount = objects == null ? 0 : objects.size();
+        ensureChunkCapacity(DeltaFrameCodec.MAX_FRAME_HEADER_BYTES + entityCount * DeltaFrameCodec.MAX_ENTITY_BYTES);
+        codec.encode(record, keyframe, chunk, this::intern);
+
+        if (frameCount == frameTimes.length) {
+            float[] grown = new float[frameTimes.length * 2];
+            System.arraycopy(frameTimes, 0, grown, 0, frameCount);
+            frameTimes = grown;
+        }
+        frameTimes[frameCount++] = record.getKey();
+        metadata.accept(record);
+        if (++chunkFrames >= framesPerChunk) {
+            flushChunk();
+        }
+    }
+
+    private int intern(String value) {
+        if (value == null) {
+            return RecordingFormat.NULL_STRING;
+        }
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(RecordingFormat.encodeString(value));
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+
+    private void ensureChunkCapacity(int bytes) {
+        if (chunk.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(chunk.capacity() * 2, chunk.position() + bytes));
+            chunk.flip();
+            grown.put(chunk);
+            chunk = grown;
+        }
+    }
+
+    /**
+     * 把当前块写入文件
+     */
+    private void flushChunk() throws IOException {
+        if (chunkFrames == 0) {
+            return;
+        }
+        int newStringBytes = 0;
+        for (int i = chunkFirstString; i < strings.size(); i++) {
+            newStringBytes += 2 + strings.get(i).length;
+        }
+        ByteBuffer head = ByteBuffer.allocate(20 + newStringBytes);
+        head.putInt(RecordingFormat.CHUNK_MAGIC);
+        head.putInt(chunkFrames);
+        head.putInt(strings.size() - chunkFirstString);
+        for (int i = chunkFirstString; i < strings.size(); i++) {
+            RecordingFormat.putString(head, strings.get(i));
+        }
+        int rawLength = chunk.position();
+        chunk.flip();
+        ByteBuffer payload = deflater == null ? chunk : deflate(chunk);
+        head.putInt(payload.remaining());
+        if (deflater != null) {
+            head.putInt(rawLength);
+        }
+        head.flip();
+        rawFrameBytes += rawLength;
+        storedFrameBytes += payload.remaining();
+
+        chunkIndex.add(new long[]{position, frameCount - chunkFrames, chunkFrames});
+        writeFully(head);
+        writeFully(payload);
+
+        chunk.clear();
+        chunkFrames = 0;
+        chunkFirstString = strings.size();
+    }
+
+    /**
+     * 把一块帧数据整体压缩，返回可读的压缩结果（复用同一个缓冲区）
+     */
+    private ByteBuffer deflate(ByteBuffer raw) {
+        deflater.setInput(raw);
+        deflater.finish();
+        compressed.clear();
+        while (!deflater.finished()) {
+            if (!compressed.hasRemaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(compressed.capacity() * 2);
+                compressed.flip();
+                grown.put(compressed);
+                compressed = grown;
+            }
+            deflater.deflate(compressed);
+        }
+        deflater.reset();
+        compressed.flip();
+        return compressed;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getStringCount() {
+        return strings.size();
+    }
+
+    /**
+     * 是否按块压缩帧数据
+     */
+    public boolean isCompressed() {
+        return deflater != null;
+    }
+
+    /**
+     * 已写出的块中帧数据压缩前的字节数
+     */
+    public long getRawFrameBytes() {
+        return rawFrameBytes;
+    }
+
+    /**
+     * 已写出的块中帧数据实际写入文件的字节数，不压缩时与 getRawFrameBytes 相同
+     */
+    public long getStoredFrameBytes() {
+        return storedFrameBytes;
+    }
+
+    /**
+     * 设置摘要中的录制开始时间（毫秒），默认为创建写入器的时间；转换旧录像时用于保留原来的时间
+     */
+    public void setStartTimeMillis(long startTimeMillis) {
+        metadata.setStartTimeMillis(startTimeMillis);
+    }
+
+    /**
+     * 已经写入文件的字节数（不含尚未写出的当前块）
+     */
+    public long getBytesWritten() {
+        return position;
+    }
+
+    /**
+     * 写出最后一块、字符串表和索引，并回填文件头，然后写出摘要文件；
+     * 摘要写入失败只打印警告，回放列表会在需要时重新扫描录像生成
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushChunk();
+
+            long stringTableOffset = position;
+            int tableBytes = 4;
+            for (byte[] s : strings) {
+                tableBytes += 2 + s.length;
+            }
+            ByteBuffer table = ByteBuffer.allocate(tableBytes);
+            table.putInt(strings.size());
+            for (byte[] s : strings) {
+                RecordingFormat.putString(table, s);
+            }
+            table.flip();
+            writeFully(table);
+
+            long indexOffset = position;
+            ByteBuffer index = ByteBuffer.allocate(4 + chunkIndex.size() * 16 + 4 + frameCount * 4);
+            index.putInt(chunkIndex.size());
+            for (long[] entry : chunkIndex) {
+                index.putLong(entry[0]);
+                index.putInt((int) entry[1]);
+                index.putInt((int) entry[2]);
+            }
+            index.putInt(frameCount);
+            for (int i = 0; i < frameCount; i++) {
+                index.putFloat(frameTimes[i]);
+            }
+            index.flip();
+            writeFully(index);
+
+            ByteBuffer patch = ByteBuffer.allocate(RecordingFormat.HEADER_SIZE - RecordingFormat.FRAME_COUNT_OFFSET);
+            patch.putInt(frameCount);
+            patch.putInt(chunkIndex.size());
+            patch.putInt(strings.size());
+            patch.putLong(stringTableOffset);
+            patch.putLong(indexOffset);
+            patch.flip();
+            long at = RecordingFormat.FRAME_COUNT_OFFSET;
+            while (patch.hasRemaining()) {
+                at += channel.write(patch, at);
+            }
+            channel.force(false);
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            channel.close();
+        }
+        Path sidecar = RecordingMetadata.sidecarOf(path);
+        try {
+            metadata.build(Files.size(path), Files.getLastModifiedTime(path).toMillis()).write(sidecar);
+        } catch (IOException e) {
+            System.err.println("[BinaryRecordingWriter] 无法写入录像摘要 " + sidecar + ": " + e.getMessage());
+        }
+    }
+}
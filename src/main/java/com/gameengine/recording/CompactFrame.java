@@ -0,0 +1,250 @@
+package com.gameengine.recording;
+
+import java.util.List;
+
+import com.gameengine.components.RenderComponent.RenderType;
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 紧凑的回放帧
+ * 帧里的对象按列保存在基本类型数组中（每个字段一个数组），字符串换成 SymbolTable 中的编号，
+ * RenderType 换成序号；每个对象约 BYTES_PER_OBJECT 字节，不再为每个对象保留
+ * 一个 GameObjectRecord 和三个字符串。通过 ObjectView 按下标读取，渲染时不创建对象
+ *
+ * 创建后不可修改
+ */
+public final class CompactFrame {
+
+    // 每个对象在各列中占用的字节数：3 个字符串编号、1 个渲染类型、4 个 int 和 10 个 float
+    public static final int BYTES_PER_OBJECT = 3 * 4 + 1 + 4 * 4 + 10 * 4;
+
+    private static final RenderType[] RENDER_TYPES = RenderType.values();
+
+    private final SymbolTable symbols;
+
+    // 帧的全局状态
+    private final float key;
+    private final String type;
+    private final int playerHealth;
+    private final int playerMaxHealth;
+    private final float skillCooldownPercent;
+    private final int currentLevel;
+
+    // 对象列
+    private final int count;
+    private final int[] ids;
+    private final int[] imagePaths;
+    private final int[] identities;
+    private final byte[] renderTypes; // -1 表示 null
+    private final int[] netIds;
+    private final int[] segments;
+    private final int[] currentHealth;
+    private final int[] maxHealth;
+    private final float[] x;
+    private final float[] y;
+    private final float[] width;
+    private final float[] height;
+    private final float[] alpha;
+    private final float[] rotation;
+    private final float[] r;
+    private final float[] g;
+    private final float[] b;
+    private final float[] a;
+
+    private CompactFrame(Record record, SymbolTable symbols) {
+        this.symbols = symbols;
+        this.key = record.getKey();
+        this.type = record.getType();
+        this.playerHealth = record.getPlayerHealth();
+        this.playerMaxHealth = record.getPlayerMaxHealth();
+        this.skillCooldownPercent = record.getSkillCooldownPercent();
+        this.currentLevel = record.getCurrentLevel();
+
+        List<GameObjectRecord> objects = record.getGameObjectsMove();
+        count = objects == null ? 0 : objects.size();
+        ids = new int[count];
+        imagePaths = new int[count];
+        identities = new int[count];
+        renderTypes = new byte[count];
+        netIds = new int[count];
+        segments = new int[count];
+        currentHealth = new int[count];
+        maxHealth = new int[count];
+        x = new float[count];
+        y = new float[count];
+        width = new float[count];
+        height = new float[count];
+        alpha = new float[count];
+        rotation = new float[count];
+        r = new float[count];
+        g = new float[count];
+        b = new float[count];
+        a = new float[count];
+        for (int i = 0; i < count; i++) {
+            GameObjectRecord o = objects.get(i);
+            ids[i] = symbols.intern(o.id);
+            imagePaths[i] = symbols.intern(o.imagePath);
+            identities[i] = symbols.intern(o.identity);
+            renderTypes[i] = (byte) (o.rt == null ? -1 : o.rt.ordinal());
+            netIds[i] = o.netId;
+            segments[i] = o.segments;
+            currentHealth[i] = o.currentHealth;
+            maxHealth[i] = o.maxHealth;
+            x[i] = o.x;
+            y[i] = o.y;
+            width[i] = o.width;
+            height[i] = o.height;
+            alpha[i] = o.alpha;
+            rotation[i] = o.rotation;
+            r[i] = o.r;
+            g[i] = o.g;
+            b[i] = o.b;
+            a[i] = o.a;
+        }
+    }
+
+    /**
+     * 把一帧转换为紧凑形式，字符串加入 symbols；转换后不再引用原来的 Record
+     */
+    public static CompactFrame of(Record record, SymbolTable symbols) {
+        return new CompactFrame(record, symbols);
+    }
+
+    public float getKey() {
+        return key;
+    }
+
+    /**
+     * 帧类型，与 Record.getType 相同（"object_move"、"input"）
+     */
+    public String getType() {
+        return type;
+    }
+
+    public int getPlayerHealth() {
+        return playerHealth;
+    }
+
+    public int getPlayerMaxHealth() {
+        return playerMaxHealth;
+    }
+
+    public float getSkillCooldownPercent() {
+        return skillCooldownPercent;
+    }
+
+    public int getCurrentLevel() {
+        return currentLevel;
+    }
+
+    public int getObjectCount() {
+        return count;
+    }
+
+    /**
+     * 对象列占用的字节数（不含数组头和共享的字符串表）
+     */
+    public long getObjectBytes() {
+        return (long) count * BYTES_PER_OBJECT;
+    }
+
+    /**
+     * 帧中某个对象的只读视图（享元）
+     * 一个视图可以依次指向不同帧的不同对象，读取时直接访问列数组，
+     * 用法：for (i...) { view.moveTo(frame, i); ... }
+     */
+    public static final class ObjectView {
+        private CompactFrame frame;
+        private int index;
+
+        /**
+         * 指向 frame 中第 index 个对象
+         * @return 视图本身
+         */
+        public ObjectView moveTo(CompactFrame frame, int index) {
+            if (index < 0 || index >= frame.count) {
+                throw new IndexOutOfBoundsException("对象下标越界: " + index + "/" + frame.count);
+            }
+            this.frame = frame;
+            this.index = index;
+            return this;
+        }
+
+        public String getId() {
+            return frame.symbols.get(frame.ids[index]);
+        }
+
+        public String getImagePath() {
+            return frame.symbols.get(frame.imagePaths[index]);
+        }
+
+        public String getIdentity() {
+            return frame.symbols.get(frame.identities[index]);
+        }
+
+        /**
+         * @return 录像中没有渲染类型时返回 null
+         */
+        public RenderType getRenderType() {
+            byte ordinal = frame.renderTypes[index];
+            return ordinal < 0 ? null : RENDER_TYPES[ordinal];
+        }
+
+        public int getNetId() {
+            return frame.netIds[index];
+        }
+
+        public int getSegments() {
+            return frame.segments[index];
+        }
+
+        public int getCurrentHealth() {
+            return frame.currentHealth[index];
+        }
+
+        public int getMaxHealth() {
+            return frame.maxHealth[index];
+        }
+
+        public float getX() {
+            return frame.x[index];
+        }
+
+        public float getY() {
+            return frame.y[index];
+        }
+
+        public float getWidth() {
+            return frame.width[index];
+        }
+
+        public float getHeight() {
+            return frame.height[index];
+        }
+
+        public float getAlpha() {
+            return frame.alpha[index];
+        }
+
+        public float getRotation() {
+            return frame.rotation[index];
+        }
+
+        public float getR() {
+            return frame.r[index];
+        }
+
+        public float getG() {
+            return frame.g[index];
+        }
+
+        public float getB() {
+            return frame.b[index];
+        }
+
+        public float getA() {
+            return frame.a[index];
+        }
+    }
+}
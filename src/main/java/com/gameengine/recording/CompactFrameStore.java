@@ -0,0 +1,107 @@
+package com.gameengine.recording;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.gameengine.game.Record;
+
+/**
+ * 回放用的紧凑帧缓存
+ * 从 ReplaySource 取出的帧转换为 CompactFrame 后保存，所有帧共用一个 SymbolTable；
+ * 最多保留最近访问的 capacity 帧，按每帧 75 个对象约 5 KB 计算，默认容量约 10 MB，
+ * 覆盖一分钟左右的回放，在这个范围内来回跳转不需要重新解码块或解析 JSON。
+ * 底层读取器的已解码窗口保持不变，转换只在第一次访问一帧时进行
+ *
+ * 只能由一个线程使用
+ */
+public class CompactFrameStore {
+
+    public static final int DEFAULT_CAPACITY = 2048;
+
+    private final ReplaySource source;
+    private final SymbolTable symbols = new SymbolTable();
+    private final Map<Integer, CompactFrame> frames;
+    private long convertedFrames = 0;
+
+    public CompactFrameStore(ReplaySource source) {
+        this(source, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 最多保留的帧数
+     */
+    public CompactFrameStore(ReplaySource source, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于 0");
+        }
+        this.source = source;
+        this.frames = new LinkedHashMap<Integer, CompactFrame>(Math.min(capacity, 1024) * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CompactFrame> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public int getFrameCount() {
+        return source.getFrameCount();
+    }
+
+    /**
+     * 第 index 帧的紧凑形式
+     * @return 该帧无法解析时返回 null
+     * @throws IndexOutOfBoundsException 下标越界
+     */
+    public CompactFrame getFrame(int index) {
+        CompactFrame frame = frames.get(index);
+        if (frame == null) {
+            Record record = source.getFrame(index);
+            if (record == null) {
+                return null;
+            }
+            frame = CompactFrame.of(record, symbols);
+            frames.put(index, frame);
+            convertedFrames++;
+        }
+        return frame;
+    }
+
+    /**
+     * 当前保留的帧数
+     */
+    public int getCachedFrames() {
+        return frames.size();
+    }
+
+    /**
+     * 累计转换的帧数
+     */
+    public long getConvertedFrames() {
+        return convertedFrames;
+    }
+
+    /**
+     * 不同字符串的个数
+     */
+    public int getSymbolCount() {
+        return symbols.size();
+    }
+
+    /**
+     * 当前保留的帧中对象列占用的字节数
+     */
+    public long getObjectBytes() {
+        long bytes = 0;
+        for (CompactFrame frame : frames.values()) {
+            bytes += frame.getObjectBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 释放保留的帧，不关闭底层来源
+     */
+    public void clear() {
+        frames.clear();
+    }
+}
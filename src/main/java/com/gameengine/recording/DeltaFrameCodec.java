@@ -0,0 +1,481 @@
+package com.gameengine.recording;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 关键帧 + 差量的帧编解码（录像格式版本 2）
+ * 每个数据块的第一帧是关键帧，存完整的帧；之后每帧只存相对上一帧的变化。
+ * 编码器和解码器各自保存上一帧，必须按顺序逐帧调用；一个实例只用于一个方向
+ *
+ * 帧布局：
+ * <pre>
+ * f32 key | u8 帧类型 | u8 帧头掩码 | 变化的帧头字段 | varint 对象数 | 对象...
+ * </pre>
+ * 关键帧的对象是完整对象；差量帧的对象是一串操作，按顺序对齐上一帧的对象列表：
+ * <pre>
+ * COPY n   接下来 n 个对象与上一帧相同
+ * DROP n   上一帧接下来的 n 个对象已消失
+ * DELTA m  以上一帧的下一个对象为基础，只写掩码 m 标出的变化字段
+ * SPAWN    新出现的对象，写完整对象
+ * </pre>
+ * 浮点字段的差量是两个 IEEE 位模式之差（zigzag varint），解码结果与原值逐位相同，回放不会累积误差。
+ * 差量的大小取决于坐标的量级而不只是移动距离：坐标在 16~2048 之间时，1 像素的移动是
+ * 2^13~2^19 个浮点步长，占 3 字节；坐标小于 16 时一般占 4 字节，正负号改变时占 5 字节。
+ * 所以移动中的对象每个坐标只比 f32 省一个字节左右，节省主要来自没有变化的字段和对象不写
+ */
+final class DeltaFrameCodec {
+
+    static final int KEYFRAME = 0;
+    static final int DELTA_FRAME = 1;
+
+    // 帧头掩码
+    private static final int H_TYPE = 1;
+    private static final int H_HEALTH = 1 << 1;
+    private static final int H_MAX_HEALTH = 1 << 2;
+    private static final int H_SKILL = 1 << 3;
+    private static final int H_LEVEL = 1 << 4;
+    private static final int H_SERVER_TIME = 1 << 5;
+    private static final int H_ALL = (1 << 6) - 1;
+
+    // 对象操作：高 2 位为操作，低 6 位为参数（COPY/DROP 为个数减一，DELTA 为字段掩码）
+    private static final int OP_MASK = 0xC0;
+    private static final int OP_COPY = 0x00;
+    private static final int OP_DROP = 0x40;
+    private static final int OP_DELTA = 0x80;
+    private static final int OP_SPAWN = 0xC0;
+    private static final int MAX_RUN = 64;
+
+    // 差量字段掩码，REST 表示其余不常变化的字段整体重写
+    private static final int D_X = 1;
+    private static final int D_Y = 1 << 1;
+    private static final int D_ROTATION = 1 << 2;
+    private static final int D_HEALTH = 1 << 3;
+    private static final int D_ALPHA = 1 << 4;
+    private static final int D_REST = 1 << 5;
+
+    // 对齐时向后查找同名对象的距离，超过后按新对象处理
+    private static final int LOOKAHEAD = 8;
+
+    // 编码后大小的上界，写入器据此预留缓冲区
+    static final int MAX_FRAME_HEADER_BYTES = 4 + 1 + 1 + 1 + 5 + 5 + 4 + 5 + 8 + 5;
+    private static final int MAX_REST_BYTES = 5 + 5 + 1 + 4 * 2 + 5 + 4 * 4 + 5 + 5 + 5;
+    // 操作字节（含摊到每个对象的 COPY/DROP）+ 5 个差量字段 + 其余字段
+    static final int MAX_ENTITY_BYTES = 3 + 5 * 5 + MAX_REST_BYTES;
+
+    private final List<GameObjectRecord> previous = new ArrayList<>();
+    private int prevType;
+    private int prevHealth;
+    private int prevMaxHealth;
+    private float prevSkill;
+    private int prevLevel;
+    private double prevServerTime;
+    private boolean hasKeyframe = false; // 仅解码器使用
+
+    // ========== 编码 ==========
+
+    /**
+     * 编码一帧
+     * @param keyframe 是否写成关键帧，数据块的第一帧必须是关键帧
+     * @param strings 字符串到字符串表下标的映射，null 映射为 NULL_STRING
+     */
+    void encode(Record record, boolean keyframe, ByteBuffer out, ToIntFunction<String> strings) {
+        int type = RecordingFormat.encodeRecordType(record.getType());
+        int mask = keyframe ? H_ALL : 0;
+        if (!keyframe) {
+            mask |= type != prevType ? H_TYPE : 0;
+            mask |= record.getPlayerHealth() != prevHealth ? H_HEALTH : 0;
+            mask |= record.getPlayerMaxHealth() != prevMaxHealth ? H_MAX_HEALTH : 0;
+            mask |= Float.floatToIntBits(record.getSkillCooldownPercent()) != Float.floatToIntBits(prevSkill)
+                    ? H_SKILL : 0;
+            mask |= record.getCurrentLevel() != prevLevel ? H_LEVEL : 0;
+            mask |= Double.doubleToLongBits(record.getServerTime()) != Double.doubleToLongBits(prevServerTime)
+                    ? H_SERVER_TIME : 0;
+        }
+        out.putFloat(record.getKey());
+        out.put((byte) (keyframe ? KEYFRAME : DELTA_FRAME));
+        out.put((byte) mask);
+        if ((mask & H_TYPE) != 0) {
+            out.put((byte) type);
+        }
+        if ((mask & H_HEALTH) != 0) {
+            putSignedVarInt(out, record.getPlayerHealth());
+        }
+        if ((mask & H_MAX_HEALTH) != 0) {
+            putSignedVarInt(out, record.getPlayerMaxHealth());
+        }
+        if ((mask & H_SKILL) != 0) {
+            out.putFloat(record.getSkillCooldownPercent());
+        }
+        if ((mask & H_LEVEL) != 0) {
+            putSignedVarInt(out, record.getCurrentLevel());
+        }
+        if ((mask & H_SERVER_TIME) != 0) {
+            out.putDouble(record.getServerTime());
+        }
+        prevType = type;
+        prevHealth = record.getPlayerHealth();
+        prevMaxHealth = record.getPlayerMaxHealth();
+        prevSkill = record.getSkillCooldownPercent();
+        prevLevel = record.getCurrentLevel();
+        prevServerTime = record.getServerTime();
+
+        List<GameObjectRecord> objects = record.getGameObjectsMove();
+        int count = objects == null ? 0 : objects.size();
+        putVarInt(out, count);
+        if (keyframe) {
+            for (int i = 0; i < count; i++) {
+                putFull(out, orEmpty(objects.get(i)), strings);
+            }
+        } else {
+            encodeDelta(objects, count, out, strings);
+        }
+
+        previous.clear();
+        for (int i = 0; i < count; i++) {
+            previous.add(copy(orEmpty(objects.get(i))));
+        }
+    }
+
+    private void encodeDelta(List<GameObjectRecord> objects, int count, ByteBuffer out,
+            ToIntFunction<String> strings) {
+        int cursor = 0;
+        int copies = 0;
+        for (int i = 0; i < count; i++) {
+            GameObjectRecord o = orEmpty(objects.get(i));
+            int match = findMatch(o, cursor);
+            if (match < 0) {
+                copies = flushCopies(out, copies);
+                out.put((byte) OP_SPAWN);
+                putFull(out, o, strings);
+                continue;
+            }
+            GameObjectRecord base = previous.get(match);
+            int mask = deltaMask(base, o);
+            if (match == cursor && mask == 0) {
+                copies++;
+                cursor++;
+                continue;
+            }
+            copies = flushCopies(out, copies);
+            putRun(out, OP_DROP, match - cursor);
+            cursor = match + 1;
+            if (mask == 0) {
+                copies = 1;
+                continue;
+            }
+            out.put((byte) (OP_DELTA | mask));
+            putDelta(out, base, o, mask, strings);
+        }
+        flushCopies(out, copies);
+    }
+
+    /**
+     * 在上一帧的对象中从 cursor 开始向后查找同名对象
+     */
+    private int findMatch(GameObjectRecord o, int cursor) {
+        int end = Math.min(previous.size(), cursor + LOOKAHEAD + 1);
+        for (int j = cursor; j < end; j++) {
+            if (Objects.equals(previous.get(j).id, o.id)) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    private static int flushCopies(ByteBuffer out, int copies) {
+        putRun(out, OP_COPY, copies);
+        return 0;
+    }
+
+    private static void putRun(ByteBuffer out, int op, int n) {
+        while (n > 0) {
+            int run = Math.min(n, MAX_RUN);
+            out.put((byte) (op | (run - 1)));
+            n -= run;
+        }
+    }
+
+    private static int deltaMask(GameObjectRecord base, GameObjectRecord o) {
+        int mask = 0;
+        mask |= bits(o.x) != bits(base.x) ? D_X : 0;
+        mask |= bits(o.y) != bits(base.y) ? D_Y : 0;
+        mask |= bits(o.rotation) != bits(base.rotation) ? D_ROTATION : 0;
+        mask |= o.currentHealth != base.currentHealth ? D_HEALTH : 0;
+        mask |= bits(o.alpha) != bits(base.alpha) ? D_ALPHA : 0;
+        mask |= restEquals(base, o) ? 0 : D_REST;
+        return mask;
+    }
+
+    private static boolean restEquals(GameObjectRecord p, GameObjectRecord o) {
+        return Objects.equals(p.id, o.id) && p.netId == o.netId && p.rt == o.rt
+                && bits(p.height) == bits(o.height) && bits(p.width) == bits(o.width)
+                && Objects.equals(p.imagePath, o.imagePath)
+                && bits(p.r) == bits(o.r) && bits(p.g) == bits(o.g)
+                && bits(p.b) == bits(o.b) && bits(p.a) == bits(o.a)
+                && p.segments == o.segments && p.maxHealth == o.maxHealth
+                && Objects.equals(p.identity, o.identity);
+    }
+
+    private static void putDelta(ByteBuffer out, GameObjectRecord base, GameObjectRecord o, int mask,
+            ToIntFunction<String> strings) {
+        if ((mask & D_X) != 0) {
+            putSignedVarInt(out, bits(o.x) - bits(base.x));
+        }
+        if ((mask & D_Y) != 0) {
+            putSignedVarInt(out, bits(o.y) - bits(base.y));
+        }
+        if ((mask & D_ROTATION) != 0) {
+            putSignedVarInt(out, bits(o.rotation) - bits(base.rotation));
+        }
+        if ((mask & D_HEALTH) != 0) {
+            putSignedVarInt(out, o.currentHealth - base.currentHealth);
+        }
+        if ((mask & D_ALPHA) != 0) {
+            putSignedVarInt(out, bits(o.alpha) - bits(base.alpha));
+        }
+        if ((mask & D_REST) != 0) {
+            putRest(out, o, strings);
+        }
+    }
+
+    private static void putFull(ByteBuffer out, GameObjectRecord o, ToIntFunction<String> strings) {
+        out.putFloat(o.x);
+        out.putFloat(o.y);
+        out.putFloat(o.rotation);
+        putSignedVarInt(out, o.currentHealth);
+        out.putFloat(o.alpha);
+        putRest(out, o, strings);
+    }
+
+    private static void putRest(ByteBuffer out, GameObjectRecord o, ToIntFunction<String> strings) {
+        putVarInt(out, strings.applyAsInt(o.id) + 1);
+        putSignedVarInt(out, o.netId);
+        out.put((byte) RecordingFormat.encodeRenderType(o.rt));
+        out.putFloat(o.height);
+        out.putFloat(o.width);
+        putVarInt(out, strings.applyAsInt(o.imagePath) + 1);
+        out.putFloat(o.r);
+        out.putFloat(o.g);
+        out.putFloat(o.b);
+        out.putFloat(o.a);
+        putSignedVarInt(out, o.segments);
+        putSignedVarInt(out, o.maxHealth);
+        putVarInt(out, strings.applyAsInt(o.identity) + 1);
+    }
+
+    // ========== 解码 ==========
+
+    /**
+     * 解码一帧
+     * @param strings 字符串表下标到字符串的映射
+     * @throws IllegalStateException 数据块的第一帧不是关键帧
+     */
+    Record decode(ByteBuffer in, IntFunction<String> strings) {
+        Record record = new Record();
+        record.setKey(in.getFloat());
+        int kind = in.get();
+        int mask = in.get() & 0xFF;
+        if (kind != KEYFRAME && kind != DELTA_FRAME) {
+            throw new IllegalStateException("未知的帧类型: " + kind);
+        }
+        if ((mask & H_TYPE) != 0) {
+            prevType = in.get();
+        }
+        if ((mask & H_HEALTH) != 0) {
+            prevHealth = getSignedVarInt(in);
+        }
+        if ((mask & H_MAX_HEALTH) != 0) {
+            prevMaxHealth = getSignedVarInt(in);
+        }
+        if ((mask & H_SKILL) != 0) {
+            prevSkill = in.getFloat();
+        }
+        if ((mask & H_LEVEL) != 0) {
+            prevLevel = getSignedVarInt(in);
+        }
+        if ((mask & H_SERVER_TIME) != 0) {
+            prevServerTime = in.getDouble();
+        }
+        if (prevType == RecordingFormat.TYPE_OBJECT_MOVE) {
+            record.setRecordType("object_move");
+        } else if (prevType == RecordingFormat.TYPE_INPUT) {
+            record.setRecordType("input");
+        }
+        record.setPlayerHealth(prevHealth);
+        record.setPlayerMaxHealth(prevMaxHealth);
+        record.setSkillCooldownPercent(prevSkill);
+        record.setCurrentLevel(prevLevel);
+        record.setServerTime(prevServerTime);
+
+        int count = getVarInt(in);
+        List<GameObjectRecord> objects = new ArrayList<>(count);
+        if (kind == KEYFRAME) {
+            hasKeyframe = true;
+            for (int i = 0; i < count; i++) {
+                objects.add(getFull(in, strings));
+            }
+        } else {
+            if (!hasKeyframe) {
+                throw new IllegalStateException("差量帧之前没有关键帧");
+            }
+            decodeDelta(in, count, objects, strings);
+        }
+
+        previous.clear();
+        previous.addAll(objects);
+        List<GameObjectRecord> target = record.getGameObjectsMove();
+        if (target != null) {
+            // 返回给调用方的对象与下一帧的基准分开，调用方修改不会影响后续解码
+            for (GameObjectRecord o : objects) {
+                target.add(copy(o));
+            }
+        }
+        return record;
+    }
+
+    private void decodeDelta(ByteBuffer in, int count, List<GameObjectRecord> objects,
+            IntFunction<String> strings) {
+        int cursor = 0;
+        while (objects.size() < count) {
+            int op = in.get() & 0xFF;
+            int arg = op & ~OP_MASK;
+            switch (op & OP_MASK) {
+                case OP_COPY:
+                    for (int i = 0; i <= arg; i++) {
+                        objects.add(previous.get(cursor++));
+                    }
+                    break;
+                case OP_DROP:
+                    cursor += arg + 1;
+                    break;
+                case OP_DELTA:
+                    objects.add(getDelta(in, previous.get(cursor++), arg, strings));
+                    break;
+                default:
+                    objects.add(getFull(in, strings));
+                    break;
+            }
+        }
+    }
+
+    private static GameObjectRecord getDelta(ByteBuffer in, GameObjectRecord base, int mask,
+            IntFunction<String> strings) {
+        GameObjectRecord o = copy(base);
+        if ((mask & D_X) != 0) {
+            o.x = Float.intBitsToFloat(bits(base.x) + getSignedVarInt(in));
+        }
+        if ((mask & D_Y) != 0) {
+            o.y = Float.intBitsToFloat(bits(base.y) + getSignedVarInt(in));
+        }
+        if ((mask & D_ROTATION) != 0) {
+            o.rotation = Float.intBitsToFloat(bits(base.rotation) + getSignedVarInt(in));
+        }
+        if ((mask & D_HEALTH) != 0) {
+            o.currentHealth = base.currentHealth + getSignedVarInt(in);
+        }
+        if ((mask & D_ALPHA) != 0) {
+            o.alpha = Float.intBitsToFloat(bits(base.alpha) + getSignedVarInt(in));
+        }
+        if ((mask & D_REST) != 0) {
+            getRest(in, o, strings);
+        }
+        return o;
+    }
+
+    private static GameObjectRecord getFull(ByteBuffer in, IntFunction<String> strings) {
+        GameObjectRecord o = new GameObjectRecord();
+        o.x = in.getFloat();
+        o.y = in.getFloat();
+        o.rotation = in.getFloat();
+        o.currentHealth = getSignedVarInt(in);
+        o.alpha = in.getFloat();
+        getRest(in, o, strings);
+        return o;
+    }
+
+    private static void getRest(ByteBuffer in, GameObjectRecord o, IntFunction<String> strings) {
+        o.id = strings.apply(getVarInt(in) - 1);
+        o.netId = getSignedVarInt(in);
+        o.rt = RecordingFormat.decodeRenderType(in.get());
+        o.height = in.getFloat();
+        o.width = in.getFloat();
+        o.imagePath = strings.apply(getVarInt(in) - 1);
+        o.r = in.getFloat();
+        o.g = in.getFloat();
+        o.b = in.getFloat();
+        o.a = in.getFloat();
+        o.segments = getSignedVarInt(in);
+        o.maxHealth = getSignedVarInt(in);
+        o.identity = strings.apply(getVarInt(in) - 1);
+    }
+
+    // ========== 工具方法 ==========
+
+    private static int bits(float value) {
+        return Float.floatToIntBits(value);
+    }
+
+    private static GameObjectRecord orEmpty(GameObjectRecord o) {
+        return o == null ? new GameObjectRecord() : o;
+    }
+
+    static GameObjectRecord copy(GameObjectRecord o) {
+        GameObjectRecord c = new GameObjectRecord();
+        c.id = o.id;
+        c.netId = o.netId;
+        c.x = o.x;
+        c.y = o.y;
+        c.rt = o.rt;
+        c.height = o.height;
+        c.width = o.width;
+        c.alpha = o.alpha;
+        c.imagePath = o.imagePath;
+        c.r = o.r;
+        c.g = o.g;
+        c.b = o.b;
+        c.a = o.a;
+        c.segments = o.segments;
+        c.rotation = o.rotation;
+        c.currentHealth = o.currentHealth;
+        c.maxHealth = o.maxHealth;
+        c.identity = o.identity;
+        return c;
+    }
+
+    static void putVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int getVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("varint 过长");
+    }
+
+    static void putSignedVarInt(ByteBuffer out, int value) {
+        putVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    static int getSignedVarInt(ByteBuffer in) {
+        int raw = getVarInt(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
@@ -0,0 +1,84 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.gameengine.game.Record;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * 逐帧顺序读取整个录像，供离线工具使用
+ * 二进制录像按块解码，内存中只有一块帧；旧 JSON 行录像用 Gson 的 JsonReader 流式解析，
+ * 内存中只有当前一帧。与 ReplaySource 不同，不建立任何与录像长度相关的索引
+ */
+final class FrameStream {
+
+    private static final Gson gson = new Gson();
+
+    /**
+     * 接收每一帧，帧对象在回调返回后不再被读取器引用
+     */
+    interface FrameVisitor {
+        void accept(Record record) throws IOException;
+    }
+
+    private FrameStream() {
+    }
+
+    /**
+     * 按内容识别格式，依次把每一帧交给 visitor
+     * @return 录像是否完整；录制中途崩溃的文件读到最后一个完整的帧（块）为止，返回 false
+     * @throws IOException 文件不存在、不可读或二进制录像文件头损坏
+     */
+    static boolean forEach(Path input, FrameVisitor visitor) throws IOException {
+        if (RecordingFormat.isBinaryRecording(input)) {
+            return forEachBinary(input, visitor);
+        }
+        return forEachJson(input, visitor);
+    }
+
+    private static boolean forEachBinary(Path input, FrameVisitor visitor) throws IOException {
+        BinaryRecordingReader reader = new BinaryRecordingReader(input);
+        for (int chunk = 0; chunk < reader.getChunkCount(); chunk++) {
+            for (Record record : reader.readChunk(chunk)) {
+                visitor.accept(record);
+            }
+        }
+        return reader.isComplete();
+    }
+
+    /**
+     * 宽松模式的 JsonReader 把每一行当作一个顶层值，遇到不完整或无法解析的帧时停止
+     */
+    private static boolean forEachJson(Path input, FrameVisitor visitor) throws IOException {
+        int frames = 0;
+        try (Reader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             JsonReader json = new JsonReader(reader)) {
+            json.setLenient(true);
+            while (true) {
+                Record record;
+                try {
+                    if (json.peek() == JsonToken.END_DOCUMENT) {
+                        return true;
+                    }
+                    record = gson.fromJson(json, Record.class);
+                } catch (JsonParseException | MalformedJsonException e) {
+                    System.err.println("[FrameStream] " + input.getFileName() + " 第 " + (frames + 1)
+                            + " 帧无法解析，忽略之后的内容: " + e.getMessage());
+                    return false;
+                }
+                if (record != null) {
+                    frames++;
+                    visitor.accept(record);
+                }
+            }
+        }
+    }
+}
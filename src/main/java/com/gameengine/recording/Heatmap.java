@@ -0,0 +1,166 @@
+package com.gameengine.recording;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+/**
+ * 世界坐标上的二维累加网格
+ * 每个格子 cellSize x cellSize 像素，落在世界范围外的点计入最近的边缘格子；
+ * 同样尺寸的网格可以直接相加，用于合并多个录像的统计。
+ *
+ * 不是线程安全的，每个分析任务使用自己的网格，最后在一个线程中合并
+ */
+public final class Heatmap {
+
+    private final float worldWidth;
+    private final float worldHeight;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final double[] cells;
+    private double total = 0;
+
+    /**
+     * @param worldWidth 世界宽度（像素）
+     * @param worldHeight 世界高度（像素）
+     * @param cellSize 格子边长（像素）
+     */
+    public Heatmap(float worldWidth, float worldHeight, int cellSize) {
+        if (!(worldWidth > 0) || !(worldHeight > 0) || cellSize <= 0) {
+            throw new IllegalArgumentException("世界尺寸和格子边长必须大于 0");
+        }
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.cellSize = cellSize;
+        this.columns = (int) Math.ceil(worldWidth / cellSize);
+        this.rows = (int) Math.ceil(worldHeight / cellSize);
+        this.cells = new double[columns * rows];
+    }
+
+    /**
+     * 在世界坐标 (x, y) 处累加 weight
+     */
+    public void add(float x, float y, double weight) {
+        if (Float.isNaN(x) || Float.isNaN(y)) {
+            return;
+        }
+        int column = Math.max(0, Math.min(columns - 1, (int) Math.floor(x / cellSize)));
+        int row = Math.max(0, Math.min(rows - 1, (int) Math.floor(y / cellSize)));
+        cells[row * columns + column] += weight;
+        total += weight;
+    }
+
+    /**
+     * 把另一个同样尺寸的网格加到这个网格上
+     */
+    public void merge(Heatmap other) {
+        if (other.columns != columns || other.rows != rows || other.cellSize != cellSize) {
+            throw new IllegalArgumentException("网格尺寸不同，无法合并");
+        }
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] += other.cells[i];
+        }
+        total += other.total;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public float getWorldWidth() {
+        return worldWidth;
+    }
+
+    public float getWorldHeight() {
+        return worldHeight;
+    }
+
+    public double getCell(int column, int row) {
+        return cells[row * columns + column];
+    }
+
+    /**
+     * 所有格子的总和
+     */
+    public double getTotal() {
+        return total;
+    }
+
+    public double getMax() {
+        double max = 0;
+        for (double cell : cells) {
+            max = Math.max(max, cell);
+        }
+        return max;
+    }
+
+    /**
+     * 渲染为每个格子一个像素的图片：0 为透明黑色，按最大值归一化后取平方根从蓝色经黄色过渡到红色
+     */
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(columns, rows, BufferedImage.TYPE_INT_ARGB);
+        double max = getMax();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                double value = cells[row * columns + column];
+                image.setRGB(column, row, value <= 0 || max <= 0 ? 0 : color(Math.sqrt(value / max)));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * 写出 PNG 图片，scale 为每个格子的像素边长
+     */
+    public void writePng(Path path, int scale) throws IOException {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("缩放倍数必须大于 0");
+        }
+        BufferedImage cellsImage = toImage();
+        BufferedImage image = cellsImage;
+        if (scale > 1) {
+            image = new BufferedImage(columns * scale, rows * scale, BufferedImage.TYPE_INT_ARGB);
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    image.setRGB(x, y, cellsImage.getRGB(x / scale, y / scale));
+                }
+            }
+        }
+        if (!ImageIO.write(image, "png", path.toFile())) {
+            throw new IOException("没有可用的 PNG 编码器");
+        }
+    }
+
+    /**
+     * t 在 [0, 1] 之间：蓝 -> 黄 -> 红，越热越不透明
+     */
+    private static int color(double t) {
+        int r;
+        int g;
+        int b;
+        if (t < 0.5) {
+            double k = t * 2;
+            r = (int) (255 * k);
+            g = (int) (255 * k);
+            b = (int) (255 * (1 - k));
+        } else {
+            double k = (t - 0.5) * 2;
+            r = 255;
+            g = (int) (255 * (1 - k));
+            b = 0;
+        }
+        int a = 96 + (int) (159 * t);
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+}
@@ -0,0 +1,301 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 只记录输入的确定性录像（.hinp）
+ * 不保存对象状态，只保存随机数种子、固定步长下每一帧的玩家输入、关卡切换事件和定期的状态校验和；
+ * 回放时用同样的种子重新运行 GameLogic，逐帧喂入录下的输入，校验和不一致说明模拟出现了偏差
+ *
+ * 文件布局（大端序）：
+ * <pre>
+ * 文件头（HEADER_SIZE 字节）
+ *   magic "HINP" | u16 版本 | u16 保留 | f32 步长（秒） | i32 校验和间隔（帧）
+ *   | i64 敌人工厂种子 | i64 GameLogic 种子 | i64 敌人移动抖动种子 | i64 玩家种子
+ * 操作流，每个操作以一个字节的操作码开始：
+ *   OP_INPUT    varint 输入位 | varint 连续帧数   （游程编码，按键不变时一条记录覆盖很多帧）
+ *   OP_EVENT    varint 事件类型 | varint 关卡       （发生在已写入的最后一帧）
+ *   OP_CHECKSUM i32 校验和                          （已写入的最后一帧结束时的状态）
+ *   OP_END                                          （录制正常结束）
+ * </pre>
+ * 录制中途崩溃的文件没有 OP_END，读取到末尾为止
+ */
+public final class InputRecording {
+
+    public static final String FILE_EXTENSION = ".hinp";
+
+    static final int MAGIC = 0x48494E50; // "HINP"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 48;
+
+    // 默认 60 帧每秒，每秒一个校验和
+    public static final float DEFAULT_TICK_SECONDS = 1f / 60f;
+    public static final int DEFAULT_CHECKSUM_INTERVAL = 60;
+
+    // 输入位
+    public static final int UP = 1;
+    public static final int DOWN = 2;
+    public static final int LEFT = 4;
+    public static final int RIGHT = 8;
+    public static final int ATTACK = 16;
+    // 这一帧对话框打开，战斗逻辑暂停，只更新场景对象
+    public static final int PAUSED = 32;
+
+    // 关卡事件
+    public static final int EVENT_LEVEL_START = 1; // 开场对话结束后生成第一关
+    public static final int EVENT_NEXT_LEVEL = 2;  // 当前关卡敌人全部死亡，进入下一关
+
+    static final int OP_INPUT = 0;
+    static final int OP_EVENT = 1;
+    static final int OP_CHECKSUM = 2;
+    static final int OP_END = 3;
+
+    /**
+     * 录像使用的随机数种子
+     */
+    public static final class Seeds {
+        public final long enemyFactory;
+        public final long logic;
+        public final long moveJitter;
+        public final long player;
+
+        public Seeds(long enemyFactory, long logic, long moveJitter, long player) {
+            this.enemyFactory = enemyFactory;
+            this.logic = logic;
+            this.moveJitter = moveJitter;
+            this.player = player;
+        }
+
+        /**
+         * 为一局新游戏随机生成种子
+         */
+        public static Seeds random() {
+            Random random = new Random();
+            return new Seeds(random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong());
+        }
+    }
+
+    private final Seeds seeds;
+    private final float tickSeconds;
+    private final int checksumInterval;
+
+    private byte[] inputs = new byte[1024];
+    private int tickCount = 0;
+
+    private int[] events = new int[16]; // 每个事件 {帧, 类型, 关卡}
+    private int eventCount = 0;
+
+    private int[] checksums = new int[64]; // 每个校验和 {帧, 值}
+    private int checksumCount = 0;
+
+    private boolean complete = false;
+
+    private InputRecording(Seeds seeds, float tickSeconds, int checksumInterval) {
+        this.seeds = seeds;
+        this.tickSeconds = tickSeconds;
+        this.checksumInterval = checksumInterval;
+    }
+
+    /**
+     * 读取整个录像文件，文件只有输入和事件，通常只有几 KB
+     * @throws IOException 文件不存在或不是输入录像
+     */
+    public static InputRecording read(Path path) throws IOException {
+        return decode(RecordingFormat.map(path));
+    }
+
+    /**
+     * 从内存中的录像数据解码
+     * @throws IOException 不是输入录像或版本不支持
+     */
+    public static InputRecording decode(ByteBuffer data) throws IOException {
+        ByteBuffer in = data.duplicate();
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC) {
+            throw new IOException("不是输入录像文件");
+        }
+        short version = in.getShort();
+        if (version != VERSION) {
+            throw new IOException("不支持的输入录像版本: " + version);
+        }
+        in.getShort();
+        float tickSeconds = in.getFloat();
+        int checksumInterval = in.getInt();
+        Seeds seeds = new Seeds(in.getLong(), in.getLong(), in.getLong(), in.getLong());
+        if (!(tickSeconds > 0) || checksumInterval <= 0) {
+            throw new IOException("输入录像文件头已损坏");
+        }
+
+        InputRecording recording = new InputRecording(seeds, tickSeconds, checksumInterval);
+        try {
+            while (in.hasRemaining()) {
+                int op = in.get();
+                if (op == OP_INPUT) {
+                    int bits = DeltaFrameCodec.getVarInt(in);
+                    int run = DeltaFrameCodec.getVarInt(in);
+                    if (run <= 0) {
+                        break;
+                    }
+                    recording.addInputs(bits, run);
+                } else if (op == OP_EVENT) {
+                    int type = DeltaFrameCodec.getVarInt(in);
+                    int level = DeltaFrameCodec.getVarInt(in);
+                    recording.addEvent(recording.tickCount - 1, type, level);
+                } else if (op == OP_CHECKSUM) {
+                    recording.addChecksum(recording.tickCount - 1, in.getInt());
+                } else if (op == OP_END) {
+                    recording.complete = true;
+                    break;
+                } else {
+                    System.err.println("[InputRecording] 未知操作码 " + op + "，忽略之后的数据");
+                    break;
+                }
+            }
+        } catch (BufferUnderflowException | IllegalStateException e) {
+            // 录制中途崩溃，最后一条记录不完整
+        }
+        return recording;
+    }
+
+    /**
+     * 根据文件开头的 magic 判断是否为输入录像，文件不存在或不可读时返回 false
+     */
+    public static boolean isInputRecording(Path path) {
+        if (path == null || !Files.isRegularFile(path)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && ByteBuffer.wrap(magic).getInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 是否为输入录像，按扩展名判断
+     */
+    public static boolean isInputRecordingFileName(String name) {
+        return name != null && name.endsWith(FILE_EXTENSION);
+    }
+
+    private void addInputs(int bits, int run) {
+        if (tickCount + run > inputs.length) {
+            inputs = Arrays.copyOf(inputs, Math.max(inputs.length * 2, tickCount + run));
+        }
+        Arrays.fill(inputs, tickCount, tickCount + run, (byte) bits);
+        tickCount += run;
+    }
+
+    private void addEvent(int tick, int type, int level) {
+        if (eventCount * 3 == events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        events[eventCount * 3] = tick;
+        events[eventCount * 3 + 1] = type;
+        events[eventCount * 3 + 2] = level;
+        eventCount++;
+    }
+
+    private void addChecksum(int tick, int value) {
+        if (checksumCount * 2 == checksums.length) {
+            checksums = Arrays.copyOf(checksums, checksums.length * 2);
+        }
+        checksums[checksumCount * 2] = tick;
+        checksums[checksumCount * 2 + 1] = value;
+        checksumCount++;
+    }
+
+    public Seeds getSeeds() {
+        return seeds;
+    }
+
+    /**
+     * 固定步长（秒）
+     */
+    public float getTickSeconds() {
+        return tickSeconds;
+    }
+
+    /**
+     * 每隔多少帧记录一次校验和
+     */
+    public int getChecksumInterval() {
+        return checksumInterval;
+    }
+
+    /**
+     * 录下的帧数
+     */
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * 录像时长（秒）
+     */
+    public float getDuration() {
+        return tickCount * tickSeconds;
+    }
+
+    /**
+     * 第 tick 帧的输入位
+     * @throws IndexOutOfBoundsException 下标越界
+     */
+    public int getInput(int tick) {
+        if (tick < 0 || tick >= tickCount) {
+            throw new IndexOutOfBoundsException("帧下标越界: " + tick);
+        }
+        return inputs[tick];
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * 第 index 个事件发生的帧
+     */
+    public int getEventTick(int index) {
+        return events[index * 3];
+    }
+
+    public int getEventType(int index) {
+        return events[index * 3 + 1];
+    }
+
+    /**
+     * 事件发生后所在的关卡
+     */
+    public int getEventLevel(int index) {
+        return events[index * 3 + 2];
+    }
+
+    public int getChecksumCount() {
+        return checksumCount;
+    }
+
+    /**
+     * 第 index 个校验和对应的帧（该帧结束时的状态）
+     */
+    public int getChecksumTick(int index) {
+        return checksums[index * 2];
+    }
+
+    public int getChecksum(int index) {
+        return checksums[index * 2 + 1];
+    }
+
+    /**
+     * 录制是否正常结束
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+}
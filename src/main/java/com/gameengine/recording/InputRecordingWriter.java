@@ -0,0 +1,177 @@
+package com.gameengine.recording;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 输入录像写入器
+ * 每帧只比较一次输入位，按键不变时只增加游程长度，不做任何编码和分配；
+ * 游程结束、关卡事件和校验和写入内存缓冲区，每次写校验和时（默认每秒一次）写入文件，
+ * 游戏中途退出最多丢失最后一个校验和间隔的输入。格式见 InputRecording
+ *
+ * 只能由一个线程（游戏线程）使用
+ */
+public class InputRecordingWriter implements Closeable {
+
+    // 两个校验和之间的输入通常只有几十字节，缓冲区满时也会写出
+    private static final int BUFFER_SIZE = 4096;
+    private static final int MAX_OP_BYTES = 11;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private int runBits = -1; // 当前游程的输入位，-1 表示还没有输入
+    private int runLength = 0;
+    private int tickCount = 0;
+    private long position = 0;
+    private boolean closed = false;
+
+    /**
+     * 使用默认步长和校验和间隔
+     */
+    public InputRecordingWriter(Path path, InputRecording.Seeds seeds) throws IOException {
+        this(path, seeds, InputRecording.DEFAULT_TICK_SECONDS, InputRecording.DEFAULT_CHECKSUM_INTERVAL);
+    }
+
+    /**
+     * 创建录像文件并写出文件头，已存在时覆盖
+     * @param tickSeconds 固定步长（秒）
+     * @param checksumInterval 每隔多少帧记录一次校验和
+     */
+    public InputRecordingWriter(Path path, InputRecording.Seeds seeds, float tickSeconds, int checksumInterval)
+            throws IOException {
+        if (!(tickSeconds > 0)) {
+            throw new IllegalArgumentException("步长必须大于 0");
+        }
+        if (checksumInterval <= 0) {
+            throw new IllegalArgumentException("校验和间隔必须大于 0");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        ByteBuffer header = ByteBuffer.allocate(InputRecording.HEADER_SIZE);
+        header.putInt(InputRecording.MAGIC);
+        header.putShort(InputRecording.VERSION);
+        header.putShort((short) 0);
+        header.putFloat(tickSeconds);
+        header.putInt(checksumInterval);
+        header.putLong(seeds.enemyFactory);
+        header.putLong(seeds.logic);
+        header.putLong(seeds.moveJitter);
+        header.putLong(seeds.player);
+        header.flip();
+        writeFully(header);
+    }
+
+    /**
+     * 记录一帧的输入位
+     */
+    public void writeTick(int bits) throws IOException {
+        ensureOpen();
+        if (bits != runBits) {
+            flushRun();
+            runBits = bits;
+        }
+        runLength++;
+        tickCount++;
+    }
+
+    /**
+     * 记录发生在最近一帧中的关卡事件
+     * @param type InputRecording.EVENT_*
+     * @param level 事件发生后所在的关卡
+     */
+    public void writeEvent(int type, int level) throws IOException {
+        ensureOpen();
+        flushRun();
+        ensureCapacity();
+        buffer.put((byte) InputRecording.OP_EVENT);
+        DeltaFrameCodec.putVarInt(buffer, type);
+        DeltaFrameCodec.putVarInt(buffer, level);
+    }
+
+    /**
+     * 记录最近一帧结束时的状态校验和，并把缓冲的数据写入文件
+     */
+    public void writeChecksum(int checksum) throws IOException {
+        ensureOpen();
+        flushRun();
+        ensureCapacity();
+        buffer.put((byte) InputRecording.OP_CHECKSUM);
+        buffer.putInt(checksum);
+        flushBuffer();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("输入录像已关闭");
+        }
+    }
+
+    private void flushRun() throws IOException {
+        if (runLength == 0) {
+            return;
+        }
+        ensureCapacity();
+        buffer.put((byte) InputRecording.OP_INPUT);
+        DeltaFrameCodec.putVarInt(buffer, runBits);
+        DeltaFrameCodec.putVarInt(buffer, runLength);
+        runLength = 0;
+    }
+
+    private void ensureCapacity() throws IOException {
+        if (buffer.remaining() < MAX_OP_BYTES) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            position += channel.write(data);
+        }
+    }
+
+    /**
+     * 已记录的帧数
+     */
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * 已经写入文件的字节数（不含缓冲区中尚未写出的部分）
+     */
+    public long getBytesWritten() {
+        return position;
+    }
+
+    /**
+     * 写出最后一段输入和结束标记
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushRun();
+            ensureCapacity();
+            buffer.put((byte) InputRecording.OP_END);
+            flushBuffer();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.gameengine.game.Record;
+import com.google.gson.Gson;
+
+/**
+ * 内存映射的旧 JSON 行录像回放读取器
+ * 打开时只扫描换行符建立每一帧的偏移索引，不解析 JSON；
+ * 帧在第一次访问时才解析，只保留最近访问的 WINDOW_FRAMES 帧
+ */
+public class JsonLinesReplayReader implements ReplaySource {
+
+    // 已解码窗口的帧数，按 0.02 秒的录制间隔约为 5 秒
+    public static final int WINDOW_FRAMES = 256;
+
+    private static final Gson gson = new Gson();
+
+    private final ByteBuffer data;
+    private int[] lineStarts = new int[1024];
+    private int[] lineEnds = new int[1024];
+    private int frameCount = 0;
+
+    private final Map<Integer, Record> window =
+            new LinkedHashMap<Integer, Record>(WINDOW_FRAMES * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Record> eldest) {
+                    return size() > WINDOW_FRAMES;
+                }
+            };
+    private long decodedFrames = 0;
+
+    public JsonLinesReplayReader(Path path) throws IOException {
+        this.data = RecordingFormat.map(path);
+        indexLines();
+    }
+
+    /**
+     * 记录每个非空行的起止位置，空白行不算一帧
+     */
+    private void indexLines() {
+        int limit = data.limit();
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && data.get(end) != '\n') {
+                end++;
+            }
+            int first = start;
+            int last = end;
+            while (first < last && isWhitespace(data.get(first))) {
+                first++;
+            }
+            while (last > first && isWhitespace(data.get(last - 1))) {
+                last--;
+            }
+            if (first < last) {
+                if (frameCount == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, frameCount * 2);
+                    lineEnds = Arrays.copyOf(lineEnds, frameCount * 2);
+                }
+                lineStarts[frameCount] = first;
+                lineEnds[frameCount] = last;
+                frameCount++;
+            }
+            start = end + 1;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    @Override
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * JSON 录像没有时间索引，需要解析该帧
+     */
+    @Override
+    public float getFrameTime(int index) {
+        Record record = getFrame(index);
+        return record == null ? Float.NaN : record.getKey();
+    }
+
+    @Override
+    public Record getFrame(int index) {
+        if (index < 0 || index >= frameCount) {
+            throw new IndexOutOfBoundsException("帧下标越界: " + index);
+        }
+        if (window.containsKey(index)) {
+            return window.get(index);
+        }
+        Record record = parse(index);
+        window.put(index, record);
+        decodedFrames++;
+        return record;
+    }
+
+    private Record parse(int index) {
+        byte[] bytes = new byte[lineEnds[index] - lineStarts[index]];
+        data.get(lineStarts[index], bytes);
+        String line = new String(bytes, StandardCharsets.UTF_8);
+        try {
+            return gson.fromJson(line, Record.class);
+        } catch (Exception e) {
+            System.err.println("无法解析这一行: " + line);
+            return null;
+        }
+    }
+
+    /**
+     * 当前内存中已解析的帧数，不超过 WINDOW_FRAMES
+     */
+    public int getWindowSize() {
+        return window.size();
+    }
+
+    /**
+     * 累计解析的帧数
+     */
+    public long getDecodedFrames() {
+        return decodedFrames;
+    }
+
+    @Override
+    public void close() {
+        window.clear();
+    }
+}
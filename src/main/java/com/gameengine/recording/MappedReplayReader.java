@@ -0,0 +1,86 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.gameengine.game.Record;
+
+/**
+ * 内存映射的二进制录像回放读取器
+ * 打开时只读取文件头和末尾的帧索引，帧所在的块在第一次访问时才解码；
+ * 只保留最近访问的 WINDOW_CHUNKS 个已解码块，其余块留在映射的文件页中，
+ * 内存占用与录像长度无关
+ */
+public class MappedReplayReader implements ReplaySource {
+
+    // 已解码窗口：当前块和上一块，顺序播放跨块时不会来回解码
+    public static final int WINDOW_CHUNKS = 2;
+
+    private final BinaryRecordingReader reader;
+    private final Map<Integer, List<Record>> window =
+            new LinkedHashMap<Integer, List<Record>>(4, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<Record>> eldest) {
+                    return size() > WINDOW_CHUNKS;
+                }
+            };
+    private long decodedChunks = 0;
+
+    public MappedReplayReader(Path path) throws IOException {
+        this.reader = new BinaryRecordingReader(path);
+    }
+
+    @Override
+    public int getFrameCount() {
+        return reader.getFrameCount();
+    }
+
+    /**
+     * 来自帧索引，不解码帧数据
+     */
+    @Override
+    public float getFrameTime(int index) {
+        return reader.getFrameTime(index);
+    }
+
+    @Override
+    public Record getFrame(int index) {
+        int chunk = reader.chunkOf(index);
+        List<Record> frames = window.get(chunk);
+        if (frames == null) {
+            frames = reader.readChunk(chunk);
+            window.put(chunk, frames);
+            decodedChunks++;
+        }
+        return frames.get(index - reader.getChunkFirstFrame(chunk));
+    }
+
+    /**
+     * 录像是否正常结束，未正常结束的录像只能读到最后一个完整的块
+     */
+    public boolean isComplete() {
+        return reader.isComplete();
+    }
+
+    /**
+     * 当前内存中已解码的块数，不超过 WINDOW_CHUNKS
+     */
+    public int getWindowSize() {
+        return window.size();
+    }
+
+    /**
+     * 累计解码的块数
+     */
+    public long getDecodedChunks() {
+        return decodedChunks;
+    }
+
+    @Override
+    public void close() {
+        window.clear();
+    }
+}
@@ -0,0 +1,391 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+import com.gameengine.core.GameLogic;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * 录像批量离线分析工具（命令行）
+ * 不打开 ReplayScene，直接统计一批录像：伤害热力图、每关时长、击杀时间线和飞行道具数随时间的变化。
+ * 每个文件是 ForkJoinPool 中的一个任务，由 RecordingAnalyzer 流式解码，
+ * 任务按文件列表二分拆分，每个线程同时只解码一个文件的一块帧，解码占用的内存与录像长度无关；
+ * 所有文件分析完后在调用线程中按文件名顺序合并，结果与线程数无关。
+ *
+ * 输出到 --out 目录：
+ * - csv：recordings.csv（每个录像一行）、levels.csv、kills.csv、projectiles.csv
+ *   旧的 JSON 录像没有关卡数据，不计入每关时长，recordings.csv 的 has_levels 列为 false，kills.csv 的关卡列为空
+ * - json：summary.json（汇总和每个录像的完整结果）
+ * - damage_taken.png / damage_dealt.png：所有录像合并的伤害热力图
+ *
+ * 命令行：
+ * java com.gameengine.recording.RecordingAnalytics recordings --out analytics --format csv --threads 4
+ */
+public final class RecordingAnalytics {
+
+    // 热力图每个格子输出为 4x4 像素，默认 25 像素的格子得到 320x240 的图片
+    public static final int HEATMAP_PIXELS_PER_CELL = 4;
+
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting()
+            .serializeSpecialFloatingPointValues().create();
+
+    /**
+     * 分析配置
+     */
+    public static final class Options {
+        public List<Path> inputs = new ArrayList<>();
+        public Path output = Paths.get("analytics");
+        public boolean json = false;
+        public int threads = Runtime.getRuntime().availableProcessors();
+        public int cellSize = RecordingAnalyzer.DEFAULT_CELL_SIZE;
+        public boolean heatmaps = true;
+
+        /**
+         * 解析命令行参数，没有指定输入时分析 recordings 目录
+         * @throws IllegalArgumentException 参数不合法
+         */
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--help") || arg.equals("-h")) {
+                    throw new IllegalArgumentException("");
+                }
+                if (!arg.startsWith("--")) {
+                    options.inputs.add(Paths.get(arg));
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("参数 " + arg + " 缺少取值");
+                }
+                String value = args[++i];
+                try {
+                    switch (arg) {
+                        case "--out": options.output = Paths.get(value); break;
+                        case "--format":
+                            if (!value.equals("csv") && !value.equals("json")) {
+                                throw new IllegalArgumentException("未知的输出格式: " + value);
+                            }
+                            options.json = value.equals("json");
+                            break;
+                        case "--threads": options.threads = Integer.parseInt(value); break;
+                        case "--cell": options.cellSize = Integer.parseInt(value); break;
+                        case "--heatmap":
+                            if (!value.equals("on") && !value.equals("off")) {
+                                throw new IllegalArgumentException("--heatmap 只能是 on 或 off: " + value);
+                            }
+                            options.heatmaps = value.equals("on");
+                            break;
+                        default: throw new IllegalArgumentException("未知参数: " + arg);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("参数 " + arg + " 需要整数: " + value);
+                }
+            }
+            if (options.threads <= 0 || options.cellSize <= 0) {
+                throw new IllegalArgumentException("线程数和格子边长必须为正数");
+            }
+            if (options.inputs.isEmpty()) {
+                options.inputs.add(Paths.get("recordings"));
+            }
+            return options;
+        }
+
+        public static String usage() {
+            return "用法: RecordingAnalytics [录像文件或目录...] [--out analytics] [--format csv|json]\n"
+                    + "                          [--threads N] [--cell 25] [--heatmap on|off]";
+        }
+    }
+
+    /**
+     * 一批录像的汇总，json 格式时整体写入 summary.json
+     */
+    public static final class Summary {
+        public int recordings;
+        public int failed;
+        public int withoutLevels;   // 没有关卡数据的旧 JSON 录像数
+        public long frames;
+        public float duration;
+        public long damageTaken;
+        public long damageDealt;
+        public int kills;
+        public Map<Integer, Float> levelSeconds = new TreeMap<>();        // 所有录像在各关的总时长
+        public Map<Integer, Float> averageLevelSeconds = new TreeMap<>(); // 到达过该关的录像的平均时长
+        public int[] killsPerMinute = new int[0];
+        // 第 i 秒内平均每帧的飞行道具数，对录像长度超过 i 秒的录像取平均
+        public float[] playerProjectiles = new float[0];
+        public float[] enemyProjectiles = new float[0];
+        public List<RecordingReport> reports = new ArrayList<>();
+
+        public transient Heatmap damageTakenMap;
+        public transient Heatmap damageDealtMap;
+    }
+
+    /**
+     * 把文件列表二分拆分为子任务，叶子任务分析一个文件，按原顺序拼接结果
+     */
+    static final class AnalyzeTask extends RecursiveTask<List<RecordingReport>> {
+        private static final long serialVersionUID = 1L;
+
+        // 任务只在本进程的 ForkJoinPool 中执行，不会被序列化
+        private final transient List<Path> files;
+        private final int from;
+        private final int to;
+        private final int cellSize;
+
+        AnalyzeTask(List<Path> files, int from, int to, int cellSize) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.cellSize = cellSize;
+        }
+
+        @Override
+        protected List<RecordingReport> compute() {
+            if (to - from <= 1) {
+                List<RecordingReport> reports = new ArrayList<>(1);
+                if (to > from) {
+                    reports.add(RecordingAnalyzer.analyze(files.get(from), cellSize));
+                }
+                return reports;
+            }
+            int mid = (from + to) >>> 1;
+            AnalyzeTask left = new AnalyzeTask(files, from, mid, cellSize);
+            left.fork();
+            List<RecordingReport> right = new AnalyzeTask(files, mid, to, cellSize).compute();
+            List<RecordingReport> reports = left.join();
+            reports.addAll(right);
+            return reports;
+        }
+    }
+
+    private RecordingAnalytics() {
+    }
+
+    /**
+     * 找出输入中的录像文件（.hrec 和旧的 .json），目录只查找第一层，按文件名排序
+     * @throws IOException 输入不存在或目录不可读
+     */
+    public static List<Path> findRecordings(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> entries = Files.list(input)) {
+                    entries.filter(p -> Files.isRegularFile(p)
+                                    && RecordingFormat.isRecordingFileName(p.getFileName().toString()))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else if (Files.isRegularFile(input)) {
+                files.add(input);
+            } else {
+                throw new IOException("找不到录像文件或目录: " + input);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 在 threads 个线程的 ForkJoinPool 中并行分析所有文件并合并结果
+     */
+    public static Summary analyze(List<Path> files, int threads, int cellSize) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<RecordingReport> reports;
+        try {
+            reports = pool.invoke(new AnalyzeTask(files, 0, files.size(), cellSize));
+        } finally {
+            pool.shutdown();
+        }
+        return merge(reports, cellSize);
+    }
+
+    static Summary merge(List<RecordingReport> reports, int cellSize) {
+        Summary summary = new Summary();
+        summary.damageTakenMap = new Heatmap(GameLogic.WORLD_WIDTH, GameLogic.WORLD_HEIGHT, cellSize);
+        summary.damageDealtMap = new Heatmap(GameLogic.WORLD_WIDTH, GameLogic.WORLD_HEIGHT, cellSize);
+        Map<Integer, Integer> levelVisits = new TreeMap<>();
+        int seconds = 0;
+        for (RecordingReport report : reports) {
+            seconds = Math.max(seconds, report.playerProjectiles.length);
+        }
+        double[] playerSums = new double[seconds];
+        double[] enemySums = new double[seconds];
+        int[] covering = new int[seconds];
+
+        for (RecordingReport report : reports) {
+            summary.reports.add(report);
+            summary.recordings++;
+            if (report.error != null) {
+                summary.failed++;
+            }
+            summary.frames += report.frames;
+            summary.duration += report.duration;
+            summary.damageTaken += report.damageTaken;
+            summary.damageDealt += report.damageDealt;
+            summary.kills += report.kills.size();
+            if (!report.hasLevels) {
+                summary.withoutLevels++;
+            }
+            for (Map.Entry<Integer, Float> level : report.levelSeconds.entrySet()) {
+                summary.levelSeconds.merge(level.getKey(), level.getValue(), Float::sum);
+                levelVisits.merge(level.getKey(), 1, Integer::sum);
+            }
+            for (RecordingReport.Kill kill : report.kills) {
+                int minute = (int) (kill.time / 60);
+                if (minute >= summary.killsPerMinute.length) {
+                    summary.killsPerMinute = Arrays.copyOf(summary.killsPerMinute, minute + 1);
+                }
+                summary.killsPerMinute[minute]++;
+            }
+            for (int i = 0; i < report.playerProjectiles.length; i++) {
+                playerSums[i] += report.playerProjectiles[i];
+                enemySums[i] += report.enemyProjectiles[i];
+                covering[i]++;
+            }
+            summary.damageTakenMap.merge(report.damageTakenMap);
+            summary.damageDealtMap.merge(report.damageDealtMap);
+        }
+
+        for (Map.Entry<Integer, Float> level : summary.levelSeconds.entrySet()) {
+            summary.averageLevelSeconds.put(level.getKey(), level.getValue() / levelVisits.get(level.getKey()));
+        }
+        summary.playerProjectiles = new float[seconds];
+        summary.enemyProjectiles = new float[seconds];
+        for (int i = 0; i < seconds; i++) {
+            summary.playerProjectiles[i] = (float) (playerSums[i] / covering[i]);
+            summary.enemyProjectiles[i] = (float) (enemySums[i] / covering[i]);
+        }
+        return summary;
+    }
+
+    /**
+     * 分析并写出所有结果文件
+     * @throws IOException 输入不存在或输出目录不可写
+     */
+    public static Summary run(Options options) throws IOException {
+        List<Path> files = findRecordings(options.inputs);
+        Summary summary = analyze(files, options.threads, options.cellSize);
+        Files.createDirectories(options.output);
+        if (options.json) {
+            writeJson(summary, options.output);
+        } else {
+            writeCsv(summary, options.output);
+        }
+        if (options.heatmaps) {
+            summary.damageTakenMap.writePng(options.output.resolve("damage_taken.png"), HEATMAP_PIXELS_PER_CELL);
+            summary.damageDealtMap.writePng(options.output.resolve("damage_dealt.png"), HEATMAP_PIXELS_PER_CELL);
+        }
+        return summary;
+    }
+
+    static void writeJson(Summary summary, Path dir) throws IOException {
+        try (Writer out = Files.newBufferedWriter(dir.resolve("summary.json"), StandardCharsets.UTF_8)) {
+            gson.toJson(summary, out);
+        }
+    }
+
+    static void writeCsv(Summary summary, Path dir) throws IOException {
+        try (Writer out = Files.newBufferedWriter(dir.resolve("recordings.csv"), StandardCharsets.UTF_8)) {
+            out.write("file,frames,duration,complete,has_levels,entities_per_frame,kills,damage_taken,"
+                    + "damage_dealt,avg_projectiles,error\n");
+            for (RecordingReport r : summary.reports) {
+                out.write(csv(r.file) + "," + r.frames + "," + r.duration + "," + r.complete + "," + r.hasLevels + ","
+                        + String.format("%.2f", r.entitiesPerFrame()) + "," + r.kills.size() + ","
+                        + r.damageTaken + "," + r.damageDealt + ","
+                        + String.format("%.2f", r.averageProjectiles()) + ","
+                        + (r.error == null ? "" : csv(r.error)) + "\n");
+            }
+        }
+        try (Writer out = Files.newBufferedWriter(dir.resolve("levels.csv"), StandardCharsets.UTF_8)) {
+            out.write("file,level,seconds\n");
+            for (RecordingReport r : summary.reports) {
+                for (Map.Entry<Integer, Float> level : r.levelSeconds.entrySet()) {
+                    out.write(csv(r.file) + "," + level.getKey() + "," + level.getValue() + "\n");
+                }
+            }
+        }
+        try (Writer out = Files.newBufferedWriter(dir.resolve("kills.csv"), StandardCharsets.UTF_8)) {
+            out.write("file,time,level,enemy,x,y\n");
+            for (RecordingReport r : summary.reports) {
+                for (RecordingReport.Kill kill : r.kills) {
+                    out.write(csv(r.file) + "," + kill.time + ","
+                            + (r.hasLevels ? String.valueOf(kill.level) : "") + "," + csv(kill.enemy) + ","
+                            + kill.x + "," + kill.y + "\n");
+                }
+            }
+        }
+        try (Writer out = Files.newBufferedWriter(dir.resolve("projectiles.csv"), StandardCharsets.UTF_8)) {
+            out.write("file,second,player,enemy\n");
+            for (RecordingReport r : summary.reports) {
+                for (int i = 0; i < r.playerProjectiles.length; i++) {
+                    out.write(csv(r.file) + "," + i + "," + r.playerProjectiles[i] + "," + r.enemyProjectiles[i] + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * 含逗号、引号或换行的字段加引号，引号写两次
+     */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            if (!e.getMessage().isEmpty()) {
+                System.err.println("[RecordingAnalytics] " + e.getMessage());
+            }
+            System.err.println(Options.usage());
+            System.exit(1);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Summary summary;
+        try {
+            summary = run(options);
+        } catch (IOException e) {
+            System.err.println("[RecordingAnalytics] 分析失败: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        for (RecordingReport report : summary.reports) {
+            if (report.error != null) {
+                System.err.println("[RecordingAnalytics] " + report.file + " 读取失败: " + report.error);
+            }
+        }
+        if (summary.withoutLevels > 0) {
+            System.out.println("[RecordingAnalytics] " + summary.withoutLevels
+                    + " 个旧的 JSON 录像没有关卡数据，未计入每关时长");
+        }
+        System.out.println(String.format("[RecordingAnalytics] 分析 %d 个录像（失败 %d 个），%d 帧 / %.1f 秒，"
+                        + "击杀 %d，受到伤害 %d，造成伤害 %d，%d 线程耗时 %.1f ms，输出到 %s",
+                summary.recordings, summary.failed, summary.frames, summary.duration, summary.kills,
+                summary.damageTaken, summary.damageDealt, options.threads,
+                (System.nanoTime() - start) / 1e6, options.output));
+    }
+}
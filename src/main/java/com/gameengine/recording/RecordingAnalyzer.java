@@ -0,0 +1,210 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.gameengine.core.GameLogic;
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 单个录像的离线分析
+ * 顺序读取每一帧（FrameStream），只保留上一帧的角色列表和按秒累计的计数，内存与录像长度无关：
+ * - 伤害：同一角色相邻两帧的血量差，按角色位置累加到热力图（玩家受到的伤害、敌人受到的伤害）
+ * - 击杀：上一帧的敌人在这一帧找不到对应的对象，被击杀时剩余的血量计为最后一击的伤害
+ * - 关卡时长：按每帧所在的关卡累加帧间隔；旧的 JSON 录像每帧的关卡都是 1，视为没有关卡数据
+ * - 飞行道具：每秒内平均每帧的玩家和敌人技能对象数
+ *
+ * 旧录像的对象没有 netId，相邻两帧的角色按名字匹配同名中距离最近的一个
+ */
+public class RecordingAnalyzer {
+
+    public static final int DEFAULT_CELL_SIZE = 25;
+
+    // 相邻两帧同一角色的最大移动距离，超过时视为不同对象
+    static final float MATCH_RADIUS = 100f;
+
+    private final RecordingReport report;
+
+    private List<GameObjectRecord> previous = new ArrayList<>();
+    private List<GameObjectRecord> current = new ArrayList<>();
+    private boolean[] matched = new boolean[32];
+
+    private float startTime;
+    private float lastTime;
+    private int lastLevel;
+
+    // 按秒累计的飞行道具数和帧数
+    private double[] playerShotSums = new double[64];
+    private double[] enemyShotSums = new double[64];
+    private int[] secondFrames = new int[64];
+    private int seconds = 0;
+
+    public RecordingAnalyzer(String file, int cellSize) {
+        this.report = new RecordingReport(file);
+        report.damageTakenMap = new Heatmap(GameLogic.WORLD_WIDTH, GameLogic.WORLD_HEIGHT, cellSize);
+        report.damageDealtMap = new Heatmap(GameLogic.WORLD_WIDTH, GameLogic.WORLD_HEIGHT, cellSize);
+    }
+
+    /**
+     * 分析一个录像文件，读取失败时返回带有 error 的结果而不是抛出异常，不影响同一批的其他文件
+     */
+    public static RecordingReport analyze(Path file, int cellSize) {
+        RecordingAnalyzer analyzer = new RecordingAnalyzer(file.getFileName().toString(), cellSize);
+        if (!RecordingFormat.isBinaryRecording(file)) {
+            analyzer.ignoreLevels();
+        }
+        try {
+            analyzer.report.complete = FrameStream.forEach(file, analyzer::accept);
+        } catch (IOException | RuntimeException e) {
+            analyzer.report.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            analyzer.report.complete = false;
+        }
+        return analyzer.finish();
+    }
+
+    /**
+     * 录像没有可信的关卡数据：不统计每关时长，击杀的关卡记为 UNKNOWN_LEVEL
+     */
+    public void ignoreLevels() {
+        report.hasLevels = false;
+    }
+
+    /**
+     * 处理下一帧
+     */
+    public void accept(Record record) {
+        float time = record.getKey();
+        if (report.frames == 0) {
+            startTime = time;
+        } else if (time > lastTime && report.hasLevels) {
+            report.levelSeconds.merge(lastLevel, time - lastTime, Float::sum);
+        }
+        float elapsed = Math.max(0, time - startTime);
+
+        List<GameObjectRecord> objects = record.getGameObjectsMove();
+        current.clear();
+        int playerShots = 0;
+        int enemyShots = 0;
+        if (objects != null) {
+            for (GameObjectRecord o : objects) {
+                if (isCombatant(o)) {
+                    current.add(o);
+                } else if ("Player Skill".equals(o.identity)) {
+                    playerShots++;
+                } else if ("Enemy Skill".equals(o.identity)) {
+                    enemyShots++;
+                }
+            }
+            report.entities += objects.size();
+        }
+        matchCombatants(elapsed, report.hasLevels ? record.getCurrentLevel() : RecordingReport.UNKNOWN_LEVEL);
+        countProjectiles(elapsed, playerShots, enemyShots);
+
+        List<GameObjectRecord> swap = previous;
+        previous = current;
+        current = swap;
+        lastTime = time;
+        lastLevel = record.getCurrentLevel();
+        report.frames++;
+        report.duration = lastTime - startTime;
+    }
+
+    private static boolean isCombatant(GameObjectRecord o) {
+        return "Player".equals(o.identity) || isEnemy(o);
+    }
+
+    private static boolean isEnemy(GameObjectRecord o) {
+        return "Enemy".equals(o.identity) || "ImageEnemy".equals(o.identity);
+    }
+
+    /**
+     * 把这一帧的每个角色匹配到上一帧同名、同 netId 且距离最近的角色，累计血量差；
+     * 上一帧没有被匹配的敌人记为击杀
+     */
+    private void matchCombatants(float elapsed, int level) {
+        if (matched.length < previous.size()) {
+            matched = new boolean[previous.size() * 2];
+        }
+        Arrays.fill(matched, 0, previous.size(), false);
+        for (GameObjectRecord c : current) {
+            int best = -1;
+            float bestDistance = MATCH_RADIUS * MATCH_RADIUS;
+            for (int i = 0; i < previous.size(); i++) {
+                GameObjectRecord p = previous.get(i);
+                if (matched[i] || p.netId != c.netId || !Objects.equals(p.id, c.id)
+                        || !Objects.equals(p.identity, c.identity)) {
+                    continue;
+                }
+                float dx = p.x - c.x;
+                float dy = p.y - c.y;
+                float distance = dx * dx + dy * dy;
+                if (distance <= bestDistance) {
+                    best = i;
+                    bestDistance = distance;
+                }
+            }
+            if (best < 0) {
+                continue; // 新出现的角色
+            }
+            matched[best] = true;
+            int lost = previous.get(best).currentHealth - c.currentHealth;
+            if (lost > 0) {
+                addDamage(c, lost);
+            }
+        }
+        for (int i = 0; i < previous.size(); i++) {
+            GameObjectRecord p = previous.get(i);
+            if (matched[i] || !isEnemy(p)) {
+                continue;
+            }
+            report.kills.add(new RecordingReport.Kill(elapsed, level, p.id, p.x, p.y));
+            if (p.currentHealth > 0) {
+                addDamage(p, p.currentHealth);
+            }
+        }
+    }
+
+    private void addDamage(GameObjectRecord o, int amount) {
+        if (isEnemy(o)) {
+            report.damageDealt += amount;
+            report.damageDealtMap.add(o.x, o.y, amount);
+        } else {
+            report.damageTaken += amount;
+            report.damageTakenMap.add(o.x, o.y, amount);
+        }
+    }
+
+    private void countProjectiles(float elapsed, int playerShots, int enemyShots) {
+        int second = (int) elapsed;
+        if (second >= secondFrames.length) {
+            int size = Math.max(secondFrames.length * 2, second + 1);
+            playerShotSums = Arrays.copyOf(playerShotSums, size);
+            enemyShotSums = Arrays.copyOf(enemyShotSums, size);
+            secondFrames = Arrays.copyOf(secondFrames, size);
+        }
+        playerShotSums[second] += playerShots;
+        enemyShotSums[second] += enemyShots;
+        secondFrames[second]++;
+        seconds = Math.max(seconds, second + 1);
+    }
+
+    /**
+     * 结束分析，把按秒累计的飞行道具数换算为每帧平均值（没有帧的秒为 0）
+     */
+    public RecordingReport finish() {
+        report.playerProjectiles = new float[seconds];
+        report.enemyProjectiles = new float[seconds];
+        for (int i = 0; i < seconds; i++) {
+            if (secondFrames[i] > 0) {
+                report.playerProjectiles[i] = (float) (playerShotSums[i] / secondFrames[i]);
+                report.enemyProjectiles[i] = (float) (enemyShotSums[i] / secondFrames[i]);
+            }
+        }
+        return report;
+    }
+}
@@ -0,0 +1,206 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import com.gameengine.game.Record;
+
+/**
+ * 录像格式转换工具（命令行）
+ * 把旧的 JSON 行录像转换为二进制录像（关键帧 + 差量，默认按块压缩）；
+ * JSON 用 Gson 的 JsonReader 逐帧流式解析（见 FrameStream），每解析一帧就交给写入器，不把整个文件读入内存。
+ * 输入也可以是二进制录像，用于重新分块或压缩旧的未压缩录像，同样按块读取。
+ * 结束后打印帧数、每帧对象数、每帧字节数和压缩比
+ *
+ * 命令行：
+ * java com.gameengine.recording.RecordingConverter recordings/recording_1.json [recordings/recording_1.hrec]
+ */
+public final class RecordingConverter {
+
+    /**
+     * 转换配置，默认值与游戏内录制一致
+     */
+    public static final class Options {
+        public Path input;
+        public Path output;
+        public boolean compress = true;
+        public int framesPerChunk = RecordingFormat.DEFAULT_FRAMES_PER_CHUNK;
+        public float keyframeInterval = RecordingFormat.DEFAULT_KEYFRAME_INTERVAL;
+
+        /**
+         * 解析命令行参数，未指定输出文件时把输入文件的扩展名换成 .hrec
+         * @throws IllegalArgumentException 参数不合法
+         */
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--help") || arg.equals("-h")) {
+                    throw new IllegalArgumentException("");
+                }
+                if (!arg.startsWith("--")) {
+                    if (options.input == null) {
+                        options.input = Paths.get(arg);
+                    } else if (options.output == null) {
+                        options.output = Paths.get(arg);
+                    } else {
+                        throw new IllegalArgumentException("多余的参数: " + arg);
+                    }
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("参数 " + arg + " 缺少取值");
+                }
+                String value = args[++i];
+                try {
+                    switch (arg) {
+                        case "--compress":
+                            if (!value.equals("deflate") && !value.equals("none")) {
+                                throw new IllegalArgumentException("未知的压缩方式: " + value);
+                            }
+                            options.compress = value.equals("deflate");
+                            break;
+                        case "--frames-per-chunk": options.framesPerChunk = Integer.parseInt(value); break;
+                        case "--keyframe-interval": options.keyframeInterval = Float.parseFloat(value); break;
+                        default: throw new IllegalArgumentException("未知参数: " + arg);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("参数 " + arg + " 需要数字: " + value);
+                }
+            }
+            if (options.input == null) {
+                throw new IllegalArgumentException("缺少输入文件");
+            }
+            if (options.framesPerChunk <= 0 || !(options.keyframeInterval >= 0)) {
+                throw new IllegalArgumentException("每块帧数必须为正数，关键帧间隔不能为负数");
+            }
+            if (options.output == null) {
+                String name = options.input.getFileName().toString();
+                int dot = name.lastIndexOf('.');
+                options.output = options.input.resolveSibling(
+                        (dot > 0 ? name.substring(0, dot) : name) + RecordingFormat.FILE_EXTENSION);
+            }
+            if (options.output.toAbsolutePath().normalize().equals(options.input.toAbsolutePath().normalize())) {
+                throw new IllegalArgumentException("输出文件不能与输入文件相同: " + options.output);
+            }
+            return options;
+        }
+
+        public static String usage() {
+            return "用法: RecordingConverter 输入文件(.json|.hrec) [输出文件.hrec]\n"
+                    + "                          [--compress deflate|none] [--frames-per-chunk 250]\n"
+                    + "                          [--keyframe-interval 5]";
+        }
+    }
+
+    /**
+     * 一次转换的统计
+     */
+    public static final class Stats {
+        public long frames;
+        public long entities;
+        public int maxEntities;
+        public long inputBytes;
+        public long outputBytes;
+        public long rawFrameBytes;    // 帧数据压缩前的字节数
+        public long storedFrameBytes; // 帧数据写入文件的字节数
+        public boolean truncated;     // 输入的最后一帧不完整（录制中途崩溃）
+
+        public double entitiesPerFrame() {
+            return frames == 0 ? 0 : (double) entities / frames;
+        }
+
+        public double inputBytesPerFrame() {
+            return frames == 0 ? 0 : (double) inputBytes / frames;
+        }
+
+        public double outputBytesPerFrame() {
+            return frames == 0 ? 0 : (double) outputBytes / frames;
+        }
+
+        /**
+         * 输入文件与输出文件的大小之比
+         */
+        public double compressionRatio() {
+            return outputBytes == 0 ? 0 : (double) inputBytes / outputBytes;
+        }
+
+        /**
+         * 帧数据压缩前后的大小之比，不压缩时为 1
+         */
+        public double deflateRatio() {
+            return storedFrameBytes == 0 ? 1 : (double) rawFrameBytes / storedFrameBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("帧数: %d, 每帧对象: %.1f (最多 %d), 每帧字节: %.1f -> %.1f, "
+                            + "压缩比: %.1fx (%d -> %d 字节, 其中块压缩 %.2fx)%s",
+                    frames, entitiesPerFrame(), maxEntities, inputBytesPerFrame(), outputBytesPerFrame(),
+                    compressionRatio(), inputBytes, outputBytes, deflateRatio(),
+                    truncated ? ", 输入末尾不完整" : "");
+        }
+    }
+
+    private RecordingConverter() {
+    }
+
+    /**
+     * 按内容识别输入格式并转换为二进制录像，已存在的输出文件被覆盖
+     * @throws IOException 输入文件不存在、不可读或二进制录像损坏
+     */
+    public static Stats convert(Options options) throws IOException {
+        Stats stats = new Stats();
+        stats.inputBytes = Files.size(options.input);
+        BinaryRecordingWriter writer = new BinaryRecordingWriter(options.output, options.framesPerChunk,
+                options.keyframeInterval, options.compress);
+        try (writer) {
+            writer.setStartTimeMillis(RecordingMetadata.guessStartTime(options.input));
+            stats.truncated = !FrameStream.forEach(options.input, record -> append(record, writer, stats));
+        }
+        // 关闭时写出最后一块，之后的统计才完整
+        stats.rawFrameBytes = writer.getRawFrameBytes();
+        stats.storedFrameBytes = writer.getStoredFrameBytes();
+        stats.outputBytes = Files.size(options.output);
+        return stats;
+    }
+
+    private static void append(Record record, BinaryRecordingWriter writer, Stats stats) throws IOException {
+        writer.write(record);
+        List<?> objects = record.getGameObjectsMove();
+        int entityCount = objects == null ? 0 : objects.size();
+        stats.frames++;
+        stats.entities += entityCount;
+        stats.maxEntities = Math.max(stats.maxEntities, entityCount);
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            if (!e.getMessage().isEmpty()) {
+                System.err.println("[RecordingConverter] " + e.getMessage());
+            }
+            System.err.println(Options.usage());
+            System.exit(1);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Stats stats;
+        try {
+            stats = convert(options);
+        } catch (IOException e) {
+            System.err.println("[RecordingConverter] 转换失败: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.out.println("[RecordingConverter] " + options.input + " -> " + options.output
+                + String.format("，耗时 %.1f ms", (System.nanoTime() - start) / 1e6));
+        System.out.println("[RecordingConverter] " + stats);
+    }
+}
@@ -0,0 +1,166 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.gameengine.components.RenderComponent.RenderType;
+
+/**
+ * 二进制录像格式（.hrec）的常量和编解码工具
+ *
+ * 文件布局（大端序）：
+ * <pre>
+ * 文件头（HEADER_SIZE 字节）
+ *   magic "HREC" | u16 版本 | u16 标志 | i32 每块帧数 | i32 总帧数 | i32 块数 | i32 字符串数
+ *   | i64 字符串表偏移 | i64 索引偏移
+ * 数据块 * N（每 keyframeInterval 秒或 framesPerChunk 帧一块）
+ *   magic "CHNK" | i32 帧数 | i32 新字符串数 | 新字符串... | i32 帧数据长度 | 帧...
+ *   （FLAG_DEFLATE 时：... | i32 压缩后长度 | i32 原始长度 | Deflate 压缩的帧...）
+ * 字符串表：i32 个数 | 字符串...（u16 长度 + UTF-8）
+ * 索引：i32 块数 | 每块 (i64 偏移, i32 起始帧, i32 帧数) | i32 帧数 | 每帧 f32 时间
+ * </pre>
+ * 帧：版本 2 中每块第一帧是关键帧，其余帧是相对上一帧的差量，见 DeltaFrameCodec；
+ * 版本 1 的帧是定长帧头 FRAME_HEADER_SIZE 字节 + 每个对象定长 ENTITY_SIZE 字节。
+ * 对象的 id、图片路径、身份标识以字符串表下标存储（-1 表示 null）。
+ * 每块从关键帧开始，任意一帧都可以从所在块的开头解码得到。
+ * 文件头标志 FLAG_DEFLATE 表示每块的帧数据单独压缩，块头、字符串表和索引不压缩，
+ * 索引中的偏移仍然指向块头，跳转时只解压目标块。
+ *
+ * 写入是流式的，录制结束前不知道全部字符串，所以完整的字符串表和帧时间索引写在文件末尾，
+ * 结束录制时回填文件头中的偏移；每个数据块同时携带本块首次出现的字符串，
+ * 录制中途崩溃（文件头偏移为 0）的文件仍然可以顺序扫描读出已写完的块
+ */
+public final class RecordingFormat {
+
+    public static final String FILE_EXTENSION = ".hrec";
+    public static final String LEGACY_EXTENSION = ".json";
+
+    static final int MAGIC = 0x48524543;       // "HREC"
+    static final int CHUNK_MAGIC = 0x43484E4B; // "CHNK"
+    static final short VERSION = 2;
+    // 定长帧的旧版本，仍然可以读取
+    static final short VERSION_FIXED_FRAMES = 1;
+    static final int HEADER_SIZE = 40;
+
+    // 文件头标志位
+    static final int FLAG_DEFLATE = 1;
+    static final int KNOWN_FLAGS = FLAG_DEFLATE;
+
+    // 文件头中各字段的位置
+    static final int FLAGS_OFFSET = 6;
+    static final int FRAMES_PER_CHUNK_OFFSET = 8;
+    static final int FRAME_COUNT_OFFSET = 12;
+    static final int CHUNK_COUNT_OFFSET = 16;
+    static final int STRING_COUNT_OFFSET = 20;
+    static final int STRING_TABLE_OFFSET = 24;
+    static final int INDEX_OFFSET = 32;
+
+    // 版本 1 帧头：key, 类型, 玩家血量, 最大血量, 技能冷却, 关卡, 服务端时间, 对象数
+    static final int FRAME_HEADER_SIZE = 4 + 4 + 4 + 4 + 4 + 4 + 8 + 4;
+    // 版本 1 对象：id, netId, x, y, 渲染类型, 高, 宽, 透明度, 图片路径, r, g, b, a, 分段数, 旋转, 当前血量, 最大血量, 身份
+    static final int ENTITY_SIZE = 18 * 4;
+
+    static final int TYPE_NONE = 0;
+    static final int TYPE_OBJECT_MOVE = 1;
+    static final int TYPE_INPUT = 2;
+
+    // 默认每 5 秒一个关键帧（新的数据块），每块最多 250 帧
+    public static final float DEFAULT_KEYFRAME_INTERVAL = 5f;
+    public static final int DEFAULT_FRAMES_PER_CHUNK = 250;
+
+    static final int NULL_STRING = -1;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+
+    // 渲染类型按枚举顺序编码，新增类型只能追加在枚举末尾
+    private static final RenderType[] RENDER_TYPES = RenderType.values();
+
+    private RecordingFormat() {
+    }
+
+    /**
+     * 根据文件开头的 magic 判断是否为二进制录像，文件不存在或不可读时返回 false
+     */
+    public static boolean isBinaryRecording(Path path) {
+        if (path == null || !Files.isRegularFile(path)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && ByteBuffer.wrap(magic).getInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 是否为录像文件（二进制或旧的 JSON 行格式），按扩展名判断
+     */
+    public static boolean isRecordingFileName(String name) {
+        return name != null && (name.endsWith(FILE_EXTENSION) || name.endsWith(LEGACY_EXTENSION));
+    }
+
+    /**
+     * 以只读方式把整个文件映射到内存
+     * 映射建立后通道即可关闭，页面由操作系统按需读入；映射在缓冲区被回收时释放
+     * @throws IOException 文件不存在、不是普通文件或超过 2GB
+     */
+    static MappedByteBuffer map(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException(path.toString());
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("录像文件过大: " + size + " 字节");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    static int encodeRenderType(RenderType type) {
+        return type == null ? 0 : type.ordinal() + 1;
+    }
+
+    static RenderType decodeRenderType(int code) {
+        return code <= 0 || code > RENDER_TYPES.length ? null : RENDER_TYPES[code - 1];
+    }
+
+    static int encodeRecordType(String type) {
+        if ("object_move".equals(type)) {
+            return TYPE_OBJECT_MOVE;
+        }
+        if ("input".equals(type)) {
+            return TYPE_INPUT;
+        }
+        return TYPE_NONE;
+    }
+
+    static byte[] encodeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("字符串过长（" + bytes.length + " 字节）: "
+                    + value.substring(0, 32) + "...");
+        }
+        return bytes;
+    }
+
+    static void putString(ByteBuffer out, byte[] bytes) {
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    static String getString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
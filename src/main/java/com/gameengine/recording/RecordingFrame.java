@@ -0,0 +1,119 @@
+package com.gameengine.recording;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 异步录制环形缓冲区中的一个帧槽位
+ * 槽位和其中的对象记录都预先分配并反复使用：游戏线程填写，写入线程编码后归还，
+ * 同一时刻只属于其中一个线程
+ */
+public final class RecordingFrame {
+
+    private final Record record = new Record();
+    private final List<GameObjectRecord> pool = new ArrayList<>();
+
+    RecordingFrame() {
+        record.setRecordType("object_move");
+    }
+
+    /**
+     * 帧的全局状态，对象通过 addObject 添加
+     */
+    public Record getRecord() {
+        return record;
+    }
+
+    /**
+     * 追加一个对象记录，返回的对象所有字段都已清零
+     */
+    public GameObjectRecord addObject() {
+        List<GameObjectRecord> objects = record.getGameObjectsMove();
+        int index = objects.size();
+        if (index == pool.size()) {
+            pool.add(new GameObjectRecord());
+        }
+        GameObjectRecord o = pool.get(index);
+        clear(o);
+        objects.add(o);
+        return o;
+    }
+
+    /**
+     * 从已有的帧复制（不共享对象）
+     */
+    public void copyFrom(Record source) {
+        record.setKey(source.getKey());
+        record.setPlayerHealth(source.getPlayerHealth());
+        record.setPlayerMaxHealth(source.getPlayerMaxHealth());
+        record.setSkillCooldownPercent(source.getSkillCooldownPercent());
+        record.setCurrentLevel(source.getCurrentLevel());
+        record.setServerTime(source.getServerTime());
+        List<GameObjectRecord> objects = source.getGameObjectsMove();
+        if (objects == null) {
+            return;
+        }
+        for (GameObjectRecord s : objects) {
+            if (s == null) {
+                addObject();
+                continue;
+            }
+            GameObjectRecord o = addObject();
+            o.id = s.id;
+            o.netId = s.netId;
+            o.x = s.x;
+            o.y = s.y;
+            o.rt = s.rt;
+            o.height = s.height;
+            o.width = s.width;
+            o.alpha = s.alpha;
+            o.imagePath = s.imagePath;
+            o.r = s.r;
+            o.g = s.g;
+            o.b = s.b;
+            o.a = s.a;
+            o.segments = s.segments;
+            o.rotation = s.rotation;
+            o.currentHealth = s.currentHealth;
+            o.maxHealth = s.maxHealth;
+            o.identity = s.identity;
+        }
+    }
+
+    /**
+     * 恢复为 new Record() 的默认值，对象记录留在池中
+     */
+    void reset() {
+        record.getGameObjectsMove().clear();
+        record.setKey(0f);
+        record.setPlayerHealth(100);
+        record.setPlayerMaxHealth(100);
+        record.setSkillCooldownPercent(1.0f);
+        record.setCurrentLevel(1);
+        record.setServerTime(0);
+    }
+
+    private static void clear(GameObjectRecord o) {
+        o.id = null;
+        o.netId = 0;
+        o.x = 0;
+        o.y = 0;
+        o.rt = null;
+        o.height = 0;
+        o.width = 0;
+        o.alpha = 0;
+        o.imagePath = null;
+        o.r = 0;
+        o.g = 0;
+        o.b = 0;
+        o.a = 0;
+        o.segments = 0;
+        o.rotation = 0;
+        o.currentHealth = 0;
+        o.maxHealth = 0;
+        o.identity = null;
+    }
+}
@@ -0,0 +1,350 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.gameengine.core.GameLogic;
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 录像的摘要信息，保存在录像旁边的小文件（sidecar，录像文件名 + ".meta"）中
+ * 回放列表只读取这几十到几百字节，不打开录像本身。
+ * BinaryRecordingWriter 结束录制时写出；旧的 JSON 录像、输入录像和中途崩溃的录像没有摘要，
+ * 第一次列出时扫描一遍录像生成并保存，之后直接读取。
+ * 摘要记录生成时录像的大小和修改时间，录像被替换后自动重新生成
+ *
+ * 文件布局（大端序）：
+ * <pre>
+ * magic "HMET" | u16 版本 | u16 保留 | i64 录像大小 | i64 录像修改时间（毫秒）
+ * | i64 开始时间（毫秒） | f32 时长（秒） | i32 帧数 | i32 最高关卡 | i32 最终玩家血量 | i32 最终玩家最大血量
+ * | u8 缩略图宽 | u8 缩略图高 | 缩略图（每格一个字节，0 表示空，255 表示对象出现最多的格子）
+ * </pre>
+ */
+public final class RecordingMetadata {
+
+    public static final String FILE_EXTENSION = ".meta";
+
+    static final int MAGIC = 0x484D4554; // "HMET"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 4 + 2 + 2 + 8 + 8 + 8 + 4 + 4 + 4 + 4 + 4 + 1 + 1;
+
+    // 缩略图把 2000x1500 的世界缩成 32x24 格，每格统计角色出现的次数
+    public static final int THUMBNAIL_WIDTH = 32;
+    public static final int THUMBNAIL_HEIGHT = 24;
+
+    // 不知道玩家血量（输入录像）时为 -1
+    public static final int UNKNOWN_HEALTH = -1;
+
+    // 文件名中的毫秒时间戳，如 recording_1767126192202.json
+    private static final Pattern TIMESTAMP = Pattern.compile("(\\d{12,13})");
+
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long startTimeMillis;
+    private final float duration;
+    private final int frameCount;
+    private final int maxLevel;
+    private final int finalPlayerHealth;
+    private final int finalPlayerMaxHealth;
+    private final int thumbnailWidth;
+    private final int thumbnailHeight;
+    private final byte[] thumbnail;
+
+    RecordingMetadata(long sourceSize, long sourceModified, long startTimeMillis, float duration, int frameCount,
+                      int maxLevel, int finalPlayerHealth, int finalPlayerMaxHealth,
+                      int thumbnailWidth, int thumbnailHeight, byte[] thumbnail) {
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.startTimeMillis = startTimeMillis;
+        this.duration = duration;
+        this.frameCount = frameCount;
+        this.maxLevel = maxLevel;
+        this.finalPlayerHealth = finalPlayerHealth;
+        this.finalPlayerMaxHealth = finalPlayerMaxHealth;
+        this.thumbnailWidth = thumbnailWidth;
+        this.thumbnailHeight = thumbnailHeight;
+        this.thumbnail = thumbnail;
+    }
+
+    /**
+     * 录制过程中逐帧累计摘要，只保存计数，不引用帧对象（异步写入器的帧会被复用）
+     */
+    public static final class Builder {
+        private long startTimeMillis;
+        private int frames = 0;
+        private float firstKey;
+        private float lastKey;
+        private int maxLevel = 0;
+        private int playerHealth = UNKNOWN_HEALTH;
+        private int playerMaxHealth = UNKNOWN_HEALTH;
+        private final int[] cells = new int[THUMBNAIL_WIDTH * THUMBNAIL_HEIGHT];
+
+        /**
+         * @param startTimeMillis 录制开始的时间（毫秒）
+         */
+        public Builder(long startTimeMillis) {
+            this.startTimeMillis = startTimeMillis;
+        }
+
+        public void setStartTimeMillis(long startTimeMillis) {
+            this.startTimeMillis = startTimeMillis;
+        }
+
+        public void accept(Record record) {
+            if (frames == 0) {
+                firstKey = record.getKey();
+            }
+            lastKey = record.getKey();
+            frames++;
+            maxLevel = Math.max(maxLevel, record.getCurrentLevel());
+            playerHealth = record.getPlayerHealth();
+            playerMaxHealth = record.getPlayerMaxHealth();
+            List<GameObjectRecord> objects = record.getGameObjectsMove();
+            if (objects == null) {
+                return;
+            }
+            for (GameObjectRecord o : objects) {
+                if ("Player".equals(o.identity) || "Enemy".equals(o.identity) || "ImageEnemy".equals(o.identity)) {
+                    int column = (int) (o.x / GameLogic.WORLD_WIDTH * THUMBNAIL_WIDTH);
+                    int row = (int) (o.y / GameLogic.WORLD_HEIGHT * THUMBNAIL_HEIGHT);
+                    if (column >= 0 && column < THUMBNAIL_WIDTH && row >= 0 && row < THUMBNAIL_HEIGHT) {
+                        cells[row * THUMBNAIL_WIDTH + column]++;
+                    }
+                }
+            }
+        }
+
+        public int getFrameCount() {
+            return frames;
+        }
+
+        /**
+         * @param sourceSize 录像文件的大小
+         * @param sourceModified 录像文件的修改时间（毫秒）
+         */
+        public RecordingMetadata build(long sourceSize, long sourceModified) {
+            int max = 0;
+            for (int cell : cells) {
+                max = Math.max(max, cell);
+            }
+            byte[] thumbnail = new byte[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                // 取平方根，少量经过的格子也能看出来
+                thumbnail[i] = (byte) (cells[i] == 0 ? 0 : Math.max(1, Math.round(255 * Math.sqrt((double) cells[i] / max))));
+            }
+            return new RecordingMetadata(sourceSize, sourceModified, startTimeMillis,
+                    frames == 0 ? 0 : Math.max(0, lastKey - firstKey), frames, maxLevel,
+                    playerHealth, playerMaxHealth, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT, thumbnail);
+        }
+    }
+
+    /**
+     * 录像对应的摘要文件
+     */
+    public static Path sidecarOf(Path recording) {
+        return recording.resolveSibling(recording.getFileName() + FILE_EXTENSION);
+    }
+
+    /**
+     * 读取录像的摘要：摘要文件存在且与录像一致时直接读取，否则扫描录像生成并尽量保存（目录只读时不保存）
+     * @throws IOException 录像不存在或无法解析
+     */
+    public static RecordingMetadata load(Path recording) throws IOException {
+        RecordingMetadata cached = readFresh(recording);
+        if (cached != null) {
+            return cached;
+        }
+        RecordingMetadata scanned = scan(recording);
+        try {
+            scanned.write(sidecarOf(recording));
+        } catch (IOException e) {
+            System.err.println("[RecordingMetadata] 无法保存摘要 " + sidecarOf(recording) + ": " + e.getMessage());
+        }
+        return scanned;
+    }
+
+    /**
+     * 读取摘要文件，摘要不存在、已损坏或录像在生成摘要后被修改时返回 null
+     */
+    public static RecordingMetadata readFresh(Path recording) {
+        Path sidecar = sidecarOf(recording);
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+        try {
+            RecordingMetadata metadata = decode(ByteBuffer.wrap(Files.readAllBytes(sidecar)));
+            if (metadata.sourceSize != Files.size(recording)
+                    || metadata.sourceModified != Files.getLastModifiedTime(recording).toMillis()) {
+                return null;
+            }
+            return metadata;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 顺序扫描整个录像生成摘要，不读写摘要文件
+     * @throws IOException 录像不存在或无法解析
+     */
+    public static RecordingMetadata scan(Path recording) throws IOException {
+        if (!Files.isRegularFile(recording)) {
+            throw new NoSuchFileException(recording.toString());
+        }
+        long size = Files.size(recording);
+        long modified = Files.getLastModifiedTime(recording).toMillis();
+        if (InputRecording.isInputRecording(recording)) {
+            // 输入录像只有按键，不重新模拟就不知道血量和位置
+            InputRecording inputs = InputRecording.read(recording);
+            int maxLevel = inputs.getTickCount() > 0 ? 1 : 0;
+            for (int i = 0; i < inputs.getEventCount(); i++) {
+                maxLevel = Math.max(maxLevel, inputs.getEventLevel(i));
+            }
+            return new RecordingMetadata(size, modified, guessStartTime(recording), inputs.getDuration(),
+                    inputs.getTickCount(), maxLevel, UNKNOWN_HEALTH, UNKNOWN_HEALTH, 0, 0, new byte[0]);
+        }
+        Builder builder = new Builder(guessStartTime(recording));
+        FrameStream.forEach(recording, builder::accept);
+        return builder.build(size, modified);
+    }
+
+    /**
+     * 从文件名中的毫秒时间戳推断录制开始的时间，没有时间戳时使用文件的修改时间
+     */
+    public static long guessStartTime(Path recording) {
+        Matcher matcher = TIMESTAMP.matcher(recording.getFileName().toString());
+        long found = -1;
+        while (matcher.find()) {
+            found = Long.parseLong(matcher.group(1));
+        }
+        if (found > 0) {
+            return found;
+        }
+        try {
+            return Files.getLastModifiedTime(recording).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 写出摘要文件，已存在时覆盖
+     */
+    public void write(Path sidecar) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + thumbnail.length);
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        out.putShort((short) 0);
+        out.putLong(sourceSize);
+        out.putLong(sourceModified);
+        out.putLong(startTimeMillis);
+        out.putFloat(duration);
+        out.putInt(frameCount);
+        out.putInt(maxLevel);
+        out.putInt(finalPlayerHealth);
+        out.putInt(finalPlayerMaxHealth);
+        out.put((byte) thumbnailWidth);
+        out.put((byte) thumbnailHeight);
+        out.put(thumbnail);
+        Files.write(sidecar, out.array());
+    }
+
+    /**
+     * @throws IOException 不是摘要文件、版本不支持或数据不完整
+     */
+    static RecordingMetadata decode(ByteBuffer in) throws IOException {
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC) {
+            throw new IOException("不是录像摘要文件");
+        }
+        short version = in.getShort();
+        if (version != VERSION) {
+            throw new IOException("不支持的摘要版本: " + version);
+        }
+        in.getShort();
+        long sourceSize = in.getLong();
+        long sourceModified = in.getLong();
+        long startTime = in.getLong();
+        float duration = in.getFloat();
+        int frames = in.getInt();
+        int maxLevel = in.getInt();
+        int health = in.getInt();
+        int maxHealth = in.getInt();
+        int width = in.get() & 0xFF;
+        int height = in.get() & 0xFF;
+        if (in.remaining() < width * height) {
+            throw new IOException("摘要文件不完整");
+        }
+        byte[] thumbnail = new byte[width * height];
+        in.get(thumbnail);
+        return new RecordingMetadata(sourceSize, sourceModified, startTime, duration, frames, maxLevel,
+                health, maxHealth, width, height, thumbnail);
+    }
+
+    /**
+     * 生成摘要时录像文件的大小（字节）
+     */
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    /**
+     * 录制开始的时间（毫秒）
+     */
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    /**
+     * 录像时长（秒）
+     */
+    public float getDuration() {
+        return duration;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * 录像中到达的最高关卡，0 表示没有关卡信息
+     */
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * 最后一帧的玩家血量，未知时为 UNKNOWN_HEALTH
+     */
+    public int getFinalPlayerHealth() {
+        return finalPlayerHealth;
+    }
+
+    public int getFinalPlayerMaxHealth() {
+        return finalPlayerMaxHealth;
+    }
+
+    /**
+     * 缩略图宽度（格），没有缩略图时为 0
+     */
+    public int getThumbnailWidth() {
+        return thumbnailWidth;
+    }
+
+    public int getThumbnailHeight() {
+        return thumbnailHeight;
+    }
+
+    /**
+     * 缩略图第 (column, row) 格的亮度，0 到 255
+     */
+    public int getThumbnailCell(int column, int row) {
+        return thumbnail[row * thumbnailWidth + column] & 0xFF;
+    }
+}
@@ -0,0 +1,73 @@
+package com.gameengine.recording;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 单个录像的离线统计结果，由 RecordingAnalyzer 生成
+ * 字段直接序列化为 JSON；时间都是相对录像第一帧的秒数。
+ * 伤害热力图只用于合并和输出图片，不写入 JSON
+ */
+public final class RecordingReport {
+
+    // 旧的 JSON 录像不记录关卡，击杀的关卡记为 0
+    public static final int UNKNOWN_LEVEL = 0;
+
+    /**
+     * 一次击杀：敌人从录像中消失的那一帧
+     */
+    public static final class Kill {
+        public float time;
+        public int level;
+        public String enemy;
+        public float x;
+        public float y;
+
+        public Kill(float time, int level, String enemy, float x, float y) {
+            this.time = time;
+            this.level = level;
+            this.enemy = enemy;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    public String file;
+    public String error;           // 读取失败的原因，成功时为 null
+    public boolean complete = true; // 录制是否正常结束
+    public boolean hasLevels = true; // 是否有关卡数据，旧的 JSON 录像为 false，不统计每关时长
+    public int frames;
+    public float duration;
+    public long entities;          // 所有帧的对象数之和
+    public int damageTaken;        // 玩家损失的血量
+    public int damageDealt;        // 敌人损失的血量（含被击杀时剩余的血量）
+    public Map<Integer, Float> levelSeconds = new TreeMap<>();
+    public List<Kill> kills = new ArrayList<>();
+    // 第 i 秒内平均每帧的飞行道具数
+    public float[] playerProjectiles = new float[0];
+    public float[] enemyProjectiles = new float[0];
+
+    public transient Heatmap damageTakenMap;
+    public transient Heatmap damageDealtMap;
+
+    public RecordingReport(String file) {
+        this.file = file;
+    }
+
+    public double entitiesPerFrame() {
+        return frames == 0 ? 0 : (double) entities / frames;
+    }
+
+    /**
+     * 整个录像中平均每帧的飞行道具数
+     */
+    public double averageProjectiles() {
+        double sum = 0;
+        for (int i = 0; i < playerProjectiles.length; i++) {
+            sum += playerProjectiles[i] + enemyProjectiles[i];
+        }
+        return playerProjectiles.length == 0 ? 0 : sum / playerProjectiles.length;
+    }
+}
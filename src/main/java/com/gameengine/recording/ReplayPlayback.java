@@ -0,0 +1,209 @@
+package com.gameengine.recording;
+
+import com.gameengine.game.Record;
+
+/**
+ * 回放时钟
+ * 维护回放时间、倍速和暂停状态，把时间映射到录像中的帧：
+ * 正常播放时从当前帧向后顺序推进，跳转（seek、快进快退、按比例跳转）用帧时间二分查找，
+ * 不依赖录像长度。到达末尾后从头循环
+ *
+ * 时间都是相对第一帧的秒数
+ */
+public class ReplayPlayback {
+
+    // 可选的倍速，faster / slower 在其中切换
+    public static final float[] SPEEDS = {0.25f, 0.5f, 1f, 2f, 4f, 8f};
+    private static final int NORMAL_SPEED = 2;
+
+    private final ReplaySource source;
+    private final float startTime;
+    private final float duration;
+
+    private float time = 0f;
+    private int frameIndex = -1;  // 当前帧下标，-1 表示还没有到达第一帧
+    private Record currentFrame;  // 最近一个可以解析的帧
+    private int currentIndex = -1; // currentFrame 的下标
+    private int speedIndex = NORMAL_SPEED;
+    private boolean paused = false;
+
+    public ReplayPlayback(ReplaySource source) {
+        this.source = source;
+        int count = source.getFrameCount();
+        float first = count > 0 ? firstValidTime(0, 1) : 0f;
+        float last = count > 0 ? firstValidTime(count - 1, -1) : 0f;
+        this.startTime = Float.isNaN(first) ? 0f : first;
+        this.duration = Float.isNaN(last) ? 0f : Math.max(0f, last - startTime);
+    }
+
+    private float firstValidTime(int from, int step) {
+        for (int i = from; i >= 0 && i < source.getFrameCount(); i += step) {
+            float t = source.getFrameTime(i);
+            if (!Float.isNaN(t)) {
+                return t;
+            }
+        }
+        return Float.NaN;
+    }
+
+    /**
+     * 按倍速推进回放时间，暂停时不推进
+     * @return 当前帧是否发生变化
+     */
+    public boolean advance(float deltaTime) {
+        if (paused || source.getFrameCount() == 0) {
+            return false;
+        }
+        time += deltaTime * getSpeed();
+        if (time > duration) {
+            // 播放完毕，从头循环
+            time = 0f;
+            frameIndex = -1;
+            currentFrame = null;
+            currentIndex = -1;
+        }
+        int before = frameIndex;
+        int count = source.getFrameCount();
+        while (frameIndex + 1 < count) {
+            float t = source.getFrameTime(frameIndex + 1);
+            if (!Float.isNaN(t) && t - startTime > time) {
+                break;
+            }
+            frameIndex++;
+            Record frame = source.getFrame(frameIndex);
+            if (frame != null) {
+                currentFrame = frame;
+                currentIndex = frameIndex;
+            }
+        }
+        return frameIndex != before;
+    }
+
+    /**
+     * 跳转到指定时间，超出范围时取边界
+     */
+    public void seek(float seconds) {
+        if (source.getFrameCount() == 0) {
+            return;
+        }
+        time = Math.max(0f, Math.min(duration, seconds));
+        frameIndex = source.indexAtTime(startTime + time);
+        currentIndex = findValidFrame(frameIndex);
+        currentFrame = currentIndex < 0 ? null : source.getFrame(currentIndex);
+    }
+
+    /**
+     * 按录像长度的比例跳转
+     * @param fraction 0 到 1
+     */
+    public void seekFraction(float fraction) {
+        seek(fraction * duration);
+    }
+
+    /**
+     * 相对当前时间快进（正数）或快退（负数）
+     */
+    public void scrub(float seconds) {
+        seek(time + seconds);
+    }
+
+    /**
+     * 暂停并前进一帧
+     */
+    public void stepForward() {
+        step(1);
+    }
+
+    /**
+     * 暂停并后退一帧
+     */
+    public void stepBackward() {
+        step(-1);
+    }
+
+    private void step(int direction) {
+        paused = true;
+        int count = source.getFrameCount();
+        int index = frameIndex;
+        // 跳过无法解析的帧
+        do {
+            index += direction;
+        } while (index >= 0 && index < count && source.getFrame(index) == null);
+        if (index < 0 || index >= count) {
+            return;
+        }
+        frameIndex = index;
+        currentIndex = index;
+        currentFrame = source.getFrame(index);
+        time = Math.max(0f, Math.min(duration, currentFrame.getKey() - startTime));
+    }
+
+    /**
+     * 从 index 向前找最近一个可以解析的帧
+     * @return 帧下标，找不到时返回 -1
+     */
+    private int findValidFrame(int index) {
+        for (int i = index; i >= 0; i--) {
+            if (source.getFrame(i) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void togglePause() {
+        paused = !paused;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public void faster() {
+        speedIndex = Math.min(SPEEDS.length - 1, speedIndex + 1);
+    }
+
+    public void slower() {
+        speedIndex = Math.max(0, speedIndex - 1);
+    }
+
+    public float getSpeed() {
+        return SPEEDS[speedIndex];
+    }
+
+    /**
+     * 当前回放时间（秒）
+     */
+    public float getTime() {
+        return time;
+    }
+
+    /**
+     * 录像长度（秒）
+     */
+    public float getDuration() {
+        return duration;
+    }
+
+    public int getFrameIndex() {
+        return frameIndex;
+    }
+
+    /**
+     * 当前显示的帧的下标，可能早于 getFrameIndex（中间的帧无法解析），还没有到达第一帧时返回 -1
+     */
+    public int getCurrentFrameIndex() {
+        return currentIndex;
+    }
+
+    /**
+     * 当前显示的帧，还没有到达第一帧时返回 null
+     */
+    public Record getCurrentFrame() {
+        return currentFrame;
+    }
+}
@@ -0,0 +1,76 @@
+package com.gameengine.recording;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.gameengine.game.Record;
+
+/**
+ * 可随机访问的回放帧来源
+ * 帧按需解码，实现只在内存中保留一个小的已解码窗口；只能由一个线程使用
+ */
+public interface ReplaySource extends Closeable {
+
+    /**
+     * 帧数，打开时由索引得到，不需要解码帧数据
+     */
+    int getFrameCount();
+
+    /**
+     * 第 index 帧的录制时间（Record.key）
+     * @return 该帧无法解析时返回 Float.NaN
+     */
+    float getFrameTime(int index);
+
+    /**
+     * 第 index 帧
+     * @return 该帧无法解析时返回 null
+     * @throws IndexOutOfBoundsException 下标越界
+     */
+    Record getFrame(int index);
+
+    /**
+     * 二分查找录制时间不晚于 time 的最后一帧，只读取 O(log n) 个帧时间
+     * 无法解析的帧（时间为 NaN）跳过
+     * @return 帧下标，time 早于第一帧时返回 0
+     */
+    default int indexAtTime(float time) {
+        int lo = 0;
+        int hi = getFrameCount() - 1;
+        int result = 0;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int probe = mid;
+            float t = getFrameTime(probe);
+            while (Float.isNaN(t) && probe < hi) {
+                t = getFrameTime(++probe);
+            }
+            if (Float.isNaN(t)) {
+                hi = mid - 1;
+            } else if (t <= time) {
+                result = probe;
+                lo = probe + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 释放已解码的帧，映射的文件在缓冲区被回收时释放
+     */
+    @Override
+    void close();
+
+    /**
+     * 按文件开头的 magic 打开二进制录像（.hrec）或旧的 JSON 行录像
+     */
+    static ReplaySource open(Path path) throws IOException {
+        if (RecordingFormat.isBinaryRecording(path)) {
+            return new MappedReplayReader(path);
+        }
+        return new JsonLinesReplayReader(path);
+    }
+}
@@ -0,0 +1,49 @@
+package com.gameengine.recording;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 字符串驻留表
+ * 对象名、图片路径和身份标识在录像中反复出现，每个不同的字符串只保存一份，
+ * 帧里只存它的编号；null 的编号为 -1。只能由一个线程使用
+ */
+public final class SymbolTable {
+
+    public static final int NULL_SYMBOL = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] symbols = new String[64];
+    private int size = 0;
+
+    /**
+     * 返回字符串的编号，第一次出现时加入表中
+     */
+    public int intern(String s) {
+        if (s == null) {
+            return NULL_SYMBOL;
+        }
+        Integer id = ids.get(s);
+        if (id != null) {
+            return id;
+        }
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+        }
+        symbols[size] = s;
+        ids.put(s, size);
+        return size++;
+    }
+
+    /**
+     * 编号对应的字符串，同一个编号总是返回同一个实例
+     */
+    public String get(int id) {
+        return id == NULL_SYMBOL ? null : symbols[id];
+    }
+
+    public int size() {
+        return size;
+    }
+}
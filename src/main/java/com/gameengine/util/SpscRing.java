@@ -0,0 +1,92 @@
+package com.gameengine.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单生产者单消费者的无锁环形队列
+ * 只允许一个线程调用 offer、一个线程调用 poll，两端都不加锁也不做 CAS：
+ * 生产者只写 tail，消费者只写 head，各自用 lazySet（release 语义）发布位置，
+ * 并缓存对方的位置，只有看起来满（或空）时才重新读取对方的 volatile 位置
+ */
+public final class SpscRing<E> {
+
+    private final Object[] buffer;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong(); // 下一个要读取的位置，消费者写入
+    private final AtomicLong tail = new AtomicLong(); // 下一个要写入的位置，生产者写入
+    private long cachedHead = 0; // 仅生产者访问
+    private long cachedTail = 0; // 仅消费者访问
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    public SpscRing(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("容量必须在 1 到 2^30 之间: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 放入一个元素，只能由生产者线程调用
+     * @return 队列已满时返回 false，元素未放入
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("元素不能为空");
+        }
+        long t = tail.get();
+        if (t - cachedHead >= buffer.length) {
+            cachedHead = head.get();
+            if (t - cachedHead >= buffer.length) {
+                return false;
+            }
+        }
+        buffer[(int) t & mask] = element;
+        // 先写元素再发布位置，消费者看到新的 tail 时一定能看到元素
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * 取出一个元素，只能由消费者线程调用
+     * @return 队列为空时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head.get();
+        if (h >= cachedTail) {
+            cachedTail = tail.get();
+            if (h >= cachedTail) {
+                return null;
+            }
+        }
+        int index = (int) h & mask;
+        E element = (E) buffer[index];
+        buffer[index] = null;
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    /**
+     * 当前元素个数，其他线程调用时只是近似值
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, buffer.length));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+}
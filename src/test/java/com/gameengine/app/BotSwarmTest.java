@@ -0,0 +1,116 @@
+package com.gameengine.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.SocketChannel;
+
+import com.gameengine.net.MultiReactor;
+import com.gameengine.net.NetState;
+import com.gameengine.net.RoomManager;
+
+/**
+ * BotSwarm 机器人集群压测工具的测试用例
+ * 测试延迟直方图的分位数，以及机器人对同进程多房间服务端的完整压测流程
+ */
+public class BotSwarmTest {
+
+    private MultiReactor server;
+    private RoomManager rooms;
+    private BotSwarm swarm;
+
+    @Before
+    public void setUp() {
+        NetState.reset();
+    }
+
+    @After
+    public void tearDown() {
+        if (swarm != null) {
+            swarm.stop();
+        }
+        if (server != null) {
+            server.stop();
+        }
+        if (rooms != null) {
+            rooms.stop();
+        }
+        NetState.reset();
+    }
+
+    /**
+     * 测试延迟直方图的分位数计算
+     */
+    @Test
+    public void testLatencyHistogramPercentiles() {
+        BotSwarm.LatencyHistogram histogram = new BotSwarm.LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.5), 0);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.count());
+        assertEquals(50.1, histogram.percentile(0.5), 0.11);
+        assertEquals(99.1, histogram.percentile(0.99), 0.11);
+        assertEquals(100.1, histogram.percentile(1.0), 0.11);
+
+        histogram.record(1_000_000); // 超出范围的样本进入最后一个桶
+        assertTrue(histogram.percentile(1.0) > 4000);
+        histogram.reset();
+        assertEquals(0, histogram.count());
+    }
+
+    /**
+     * 测试机器人完成 JOIN 握手、收发数据并生成报告，逐级扩容时已有机器人保持在线
+     */
+    @Test
+    public void testSwarmAgainstEmbeddedServer() throws Exception {
+        assumeLoopbackSocketsAllowed();
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        rooms = new RoomManager(4, 1, 60, RoomScene::create);
+        rooms.start();
+        NetState.setRoomManager(rooms);
+        server = new MultiReactor(port, 2, 30);
+        server.start();
+        // 主 Reactor 在自己的线程上绑定端口
+        Thread.sleep(300);
+
+        swarm = new BotSwarm("127.0.0.1", port);
+        swarm.setServer(server, rooms);
+        BotSwarm.Report first = swarm.run(8, 500, 800);
+        assertEquals(8, first.connected);
+        assertEquals(0, first.rejected);
+        assertEquals("8 个机器人应该匹配到 2 个房间", 2, rooms.getRoomCount());
+        assertTrue(first.snapshotsPerSecondPerClient > 0);
+        assertTrue(first.bytesPerSecondPerClient > 0);
+        assertTrue("应该采集到广播延迟", first.latencySamples > 0);
+        assertTrue(first.latencyP99Millis >= first.latencyP50Millis);
+        assertFalse(Double.isNaN(first.serverTickAvgMillis));
+        assertEquals(0, first.decodeErrors);
+
+        BotSwarm.Report second = swarm.run(12, 300, 500);
+        assertEquals(12, second.connected);
+        assertEquals(12, swarm.getBotCount());
+        assertEquals(3, rooms.getRoomCount());
+        assertNotNull(BotSwarm.Report.header());
+        assertNotNull(second.toString());
+    }
+
+    private static void assumeLoopbackSocketsAllowed() {
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             SocketChannel channel = SocketChannel.open()) {
+            channel.connect(new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()));
+        } catch (SecurityException | IOException e) {
+            Assume.assumeNoException("Sandbox does not allow loopback sockets", e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.gameengine.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gameengine.net.NetState;
+
+/**
+ * DedicatedServer 专用服务端的测试用例
+ * 测试命令行参数解析、无引擎地接受客户端并推进房间模拟，以及在没有 LWJGL 的类路径上启动
+ */
+public class DedicatedServerTest {
+
+    private DedicatedServer dedicated;
+
+    @Before
+    public void setUp() {
+        NetState.reset();
+    }
+
+    @After
+    public void tearDown() {
+        if (dedicated != null) {
+            dedicated.stop();
+        }
+        NetState.reset();
+    }
+
+    /**
+     * 测试命令行参数的默认值、覆盖和非法输入
+     */
+    @Test
+    public void testParseOptions() {
+        DedicatedServer.Options defaults = DedicatedServer.Options.parse(new String[0]);
+        assertEquals(8888, defaults.port);
+        assertEquals(60, defaults.tickRateHz);
+        assertEquals(2, defaults.roomSize);
+        assertFalse(defaults.virtualThreads);
+
+        DedicatedServer.Options options = DedicatedServer.Options.parse(new String[]{
+                "--port", "9100", "--tick-hz", "30", "--reactors", "3", "--udp-port", "off",
+                "--room-size", "4", "--transport", "virtual", "--snapshot-hz", "15"});
+        assertEquals(9100, options.port);
+        assertEquals(30, options.tickRateHz);
+        assertEquals(3, options.reactors);
+        assertEquals(-1, options.udpPort);
+        assertEquals(4, options.roomSize);
+        assertTrue(options.virtualThreads);
+        assertEquals(15, options.snapshotRateHz);
+
+        String[][] invalid = {
+                {"--port"}, {"--tick-hz", "abc"}, {"--tick-hz", "0"}, {"--transport", "epoll"}, {"--unknown", "1"}
+        };
+        for (String[] args : invalid) {
+            try {
+                DedicatedServer.Options.parse(args);
+                fail("应该拒绝参数 " + String.join(" ", args));
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    /**
+     * 测试客户端加入后被匹配到房间，房间坐满后由模拟线程推进并广播快照
+     */
+    @Test
+    public void testServesClientsWithoutEngine() throws Exception {
+        DedicatedServer.Options options = new DedicatedServer.Options();
+        options.port = freePort();
+        options.udpPort = -1;
+        options.reactors = 1;
+        options.simulationThreads = 1;
+        dedicated = new DedicatedServer(options);
+        dedicated.start();
+
+        try (SocketChannel a = SocketChannel.open(new InetSocketAddress("127.0.0.1", options.port));
+             SocketChannel b = SocketChannel.open(new InetSocketAddress("127.0.0.1", options.port))) {
+            write(a, "JOIN:A\n");
+            assertTrue(readLine(a).startsWith("JOIN-ACK ROOM:match-"));
+            write(b, "JOIN:B\n");
+            assertTrue(readLine(b).startsWith("JOIN-ACK ROOM:match-"));
+            assertEquals(1, dedicated.getRoomManager().getRoomCount());
+
+            // 房间坐满后开始广播快照
+            String snapshot = readLine(a);
+            assertTrue(snapshot.startsWith("{"));
+            assertTrue(snapshot.contains("object_move"));
+            assertTrue(dedicated.getStatsLine().contains("房间: 1"));
+        }
+        dedicated.stop();
+        assertFalse(dedicated.isRunning());
+        assertNull(NetState.getRoomManager());
+    }
+
+    /**
+     * 测试专用服务端在没有 LWJGL 的类路径上也能启动和停止（不依赖窗口和本地库）
+     */
+    @Test
+    public void testStartsWithoutLwjglOnClasspath() throws Exception {
+        assumeLoopbackSocketsAllowed();
+        String classPath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        List<URL> urls = new ArrayList<>();
+        for (String entry : classPath.split(File.pathSeparator)) {
+            if (!entry.isEmpty() && !entry.toLowerCase().contains("lwjgl")) {
+                urls.add(new File(entry).toURI().toURL());
+            }
+        }
+        try (URLClassLoader loader = new URLClassLoader(urls.toArray(new URL[0]),
+                ClassLoader.getPlatformClassLoader())) {
+            try {
+                loader.loadClass("org.lwjgl.glfw.GLFW");
+                fail("隔离的类加载器中不应该有 LWJGL");
+            } catch (ClassNotFoundException expected) {
+            }
+            Assume.assumeNotNull(loader.getResource("com/gameengine/app/DedicatedServer.class"));
+
+            Class<?> optionsClass = loader.loadClass("com.gameengine.app.DedicatedServer$Options");
+            Object options = optionsClass.getMethod("parse", String[].class).invoke(null, (Object) new String[]{
+                    "--port", String.valueOf(freePort()), "--udp-port", "off", "--reactors", "1",
+                    "--sim-threads", "1", "--stats", "0"});
+            Class<?> serverClass = loader.loadClass("com.gameengine.app.DedicatedServer");
+            Object server = serverClass.getConstructor(optionsClass).newInstance(options);
+            serverClass.getMethod("start").invoke(server);
+            try {
+                assertEquals(Boolean.TRUE, serverClass.getMethod("isRunning").invoke(server));
+            } finally {
+                serverClass.getMethod("stop").invoke(server);
+            }
+        }
+    }
+
+    // ========== 辅助方法 ==========
+
+    private static int freePort() throws IOException {
+        assumeLoopbackSocketsAllowed();
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void assumeLoopbackSocketsAllowed() {
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             SocketChannel channel = SocketChannel.open()) {
+            channel.connect(new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()));
+        } catch (SecurityException | IOException e) {
+            Assume.assumeNoException("Sandbox does not allow loopback sockets", e);
+        }
+    }
+
+    private static void write(SocketChannel ch, String message) throws IOException {
+        ByteBuffer out = ByteBuffer.wrap(message.getBytes());
+        while (out.hasRemaining()) ch.write(out);
+    }
+
+    private static String readLine(SocketChannel ch) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        ByteBuffer in = ByteBuffer.allocate(1);
+        while (ch.read(in) > 0) {
+            char c = (char) in.get(0);
+            if (c == '\n') {
+                break;
+            }
+            sb.append(c);
+            in.clear();
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package com.gameengine.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.gameengine.app.testutils.FakeRenderer;
+import com.gameengine.app.testutils.TestUtils;
+import com.gameengine.core.GameEngine;
+import com.gameengine.core.GameLogic;
+import com.gameengine.dialogue.DialogueManager;
+import com.gameengine.graphics.IRenderer;
+import com.gameengine.input.InputManager;
+import com.gameengine.recording.InputRecording;
+
+/**
+ * 输入录像的录制和重新模拟回放的测试用例
+ * 测试同样的种子和输入回放得到与录制时完全相同的状态，以及种子不同时校验和发现偏差
+ */
+public class GameSceneInputReplayTest {
+
+    private static final float DT = InputRecording.DEFAULT_TICK_SECONDS;
+    // 开场对话 20 帧 + 按键脚本 215 帧 + 最后一次两帧
+    private static final int TICKS = 237;
+
+    private FakeRenderer fakeRenderer;
+    private GameEngine engine;
+    private Path dir;
+    private GameLogic logic;
+
+    @Before
+    public void setUp() throws IOException {
+        fakeRenderer = new FakeRenderer();
+        engine = TestUtils.createEngineWith((IRenderer) fakeRenderer);
+        InputManager.getInstance().reset();
+        DialogueManager.getInstance().reset();
+        dir = Files.createTempDirectory("input-replay-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (logic != null) {
+            logic.close();
+        }
+        InputManager.getInstance().reset();
+        DialogueManager.getInstance().reset();
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private GameScene newScene() {
+        if (logic != null) {
+            logic.close();
+        }
+        return new GameScene("test", engine, null, fakeRenderer, null, null, null, null);
+    }
+
+    /**
+     * 录制一段带开场对话、移动和攻击的游戏，返回结束时的状态校验和
+     */
+    private int record(Path file) {
+        GameScene scene = newScene();
+        scene.enableInputRecording(file, new InputRecording.Seeds(11L, 22L, 33L, 44L));
+        scene.initialize();
+        logic = scene.getGameLogic();
+        InputManager input = InputManager.getInstance();
+
+        // 开场对话期间只更新场景对象
+        for (int i = 0; i < 20; i++) {
+            scene.update(DT);
+        }
+        DialogueManager.getInstance().skipDialogue();
+
+        int[][] script = {{68, 40}, {83, 30}, {74, 5}, {65, 50}, {-1, 20}, {87, 25}, {74, 5}, {39, 40}};
+        for (int[] step : script) {
+            if (step[0] >= 0) {
+                input.onKeyPressed(step[0]);
+            }
+            for (int i = 0; i < step[1]; i++) {
+                scene.update(DT);
+            }
+            if (step[0] >= 0) {
+                input.onKeyReleased(step[0]);
+            }
+        }
+        // 一帧里积累了两步，两步都要模拟
+        scene.update(DT * 2);
+        scene.stopInputRecording();
+        assertEquals(TICKS, scene.getSimulatedTicks());
+        return logic.stateChecksum();
+    }
+
+    /**
+     * 测试回放重新模拟得到的每个校验和都与录制时一致，结束状态完全相同
+     */
+    @Test
+    public void testReplayReproducesRecordedGame() throws IOException {
+        Path file = dir.resolve("a" + InputRecording.FILE_EXTENSION);
+        int recordedChecksum = record(file);
+
+        InputRecording recording = InputRecording.read(file);
+        assertTrue(recording.isComplete());
+        assertEquals(TICKS, recording.getTickCount());
+        assertEquals(InputRecording.EVENT_LEVEL_START, recording.getEventType(0));
+        assertEquals(20, recording.getEventTick(0));
+        assertEquals(1, recording.getEventLevel(0));
+        assertEquals(TICKS / InputRecording.DEFAULT_CHECKSUM_INTERVAL, recording.getChecksumCount());
+        assertTrue("文件应当只有几十字节: " + Files.size(file), Files.size(file) < 200);
+
+        GameScene replay = newScene();
+        replay.replayInputs(recording);
+        replay.initialize();
+        logic = replay.getGameLogic();
+        // 回放时键盘输入被忽略
+        InputManager.getInstance().onKeyPressed(65);
+        for (int i = 0; i < 300 && !replay.isInputReplayFinished(); i++) {
+            replay.update(DT);
+        }
+        assertTrue(replay.isInputReplayFinished());
+        assertEquals(TICKS, replay.getSimulatedTicks());
+        assertEquals(0, replay.getReplayDivergences());
+        assertEquals(-1, replay.getFirstDivergentTick());
+        assertEquals(recordedChecksum, logic.stateChecksum());
+
+        // 回放结束后不再推进
+        replay.update(DT);
+        assertEquals(TICKS, replay.getSimulatedTicks());
+    }
+
+    /**
+     * 测试敌人工厂的种子不同时，敌人生成后的第一个校验和就不一致
+     */
+    @Test
+    public void testChecksumDetectsDivergence() throws IOException {
+        Path file = dir.resolve("b" + InputRecording.FILE_EXTENSION);
+        record(file);
+
+        // 修改文件头中敌人工厂种子的最低字节（Random 只使用种子的低 48 位）
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[23] ^= 0x5A;
+        InputRecording tampered = InputRecording.decode(ByteBuffer.wrap(bytes));
+
+        GameScene replay = newScene();
+        replay.replayInputs(tampered);
+        replay.initialize();
+        logic = replay.getGameLogic();
+        for (int i = 0; i < 300 && !replay.isInputReplayFinished(); i++) {
+            replay.update(DT);
+        }
+        assertTrue(replay.getReplayDivergences() > 0);
+        assertEquals(tampered.getChecksumTick(0), replay.getFirstDivergentTick());
+    }
+}
@@ -2,12 +2,19 @@ package com.gameengine.app;
 
 import com.gameengine.app.testutils.FakeRenderer;
 import com.gameengine.app.testutils.TestUtils;
+import com.gameengine.dialogue.DialogueManager;
+import com.gameengine.graphics.IRenderer;
 import com.gameengine.input.InputManager;
+import com.gameengine.level.LevelManager;
+import com.gameengine.recording.AsyncRecordingWriter;
+import com.gameengine.recording.RecordingMetadata;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class GameSceneTest {
 
@@ -33,5 +40,49 @@ public class GameSceneTest {
         fw.close();
         tmp.delete();
     }
-}
 
+    /**
+     * 录制的帧带有当前关卡，录像摘要的最高关卡来自游戏实际到达的关卡
+     */
+    @Test
+    public void testRecordingCapturesCurrentLevel() throws Exception {
+        InputManager im = InputManager.getInstance();
+        im.reset();
+        DialogueManager.getInstance().reset();
+        FakeRenderer fr = new FakeRenderer(800, 600);
+        com.gameengine.core.GameEngine engine = TestUtils.createEngineWith((IRenderer) fr);
+
+        // 关卡不生成敌人，敌人"全部死亡"后立即进入下一关
+        LevelManager levels = new LevelManager(null) {
+            @Override
+            public void spawnLevel(int levelNumber) {
+            }
+
+            @Override
+            public void spawnEndlessLevel() {
+            }
+        };
+        GameScene gs = new GameScene("test", engine, null, fr, levels, null, null, null);
+        gs.initialize();
+        Path file = Files.createTempFile("level_test", ".hrec");
+        try {
+            gs.setRecording(new AsyncRecordingWriter(file).start());
+            for (int i = 0; i < 60; i++) {
+                DialogueManager.getInstance().skipDialogue();
+                gs.update(0.05f);
+            }
+            gs.stopRecording();
+
+            Assert.assertTrue("应该进入过第二关之后", levels.getCurrentLevel() > 1);
+            RecordingMetadata metadata = RecordingMetadata.readFresh(file);
+            Assert.assertNotNull(metadata);
+            Assert.assertTrue(metadata.getMaxLevel() > 1);
+            Assert.assertTrue(metadata.getMaxLevel() <= levels.getCurrentLevel());
+        } finally {
+            gs.getGameLogic().close();
+            DialogueManager.getInstance().reset();
+            Files.deleteIfExists(RecordingMetadata.sidecarOf(file));
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -116,10 +116,38 @@ public class MenuSceneTest {
         assertTrue(true);
     }
 
+    @Test
+    public void testStartGameRecordsInputsOnlyWhenEnabled() {
+        String previous = System.getProperty(MenuScene.RECORD_INPUTS_PROPERTY);
+        try {
+            System.clearProperty(MenuScene.RECORD_INPUTS_PROPERTY);
+            assertFalse("默认不录制输入录像", startGame().isInputRecordingEnabled());
+
+            System.setProperty(MenuScene.RECORD_INPUTS_PROPERTY, "true");
+            assertTrue(startGame().isInputRecordingEnabled());
+        } finally {
+            if (previous == null) {
+                System.clearProperty(MenuScene.RECORD_INPUTS_PROPERTY);
+            } else {
+                System.setProperty(MenuScene.RECORD_INPUTS_PROPERTY, previous);
+            }
+        }
+    }
+
     @Test
     public void testRenderWithNullRendererDoesNotThrow() {
         MenuScene menu = new MenuScene(null, "MainMenu");
         // renderer is null inside menu, render should simply return without exception
         menu.render();
     }
+
+    private GameScene startGame() {
+        inputManager.reset();
+        inputManager.onKeyPressed(257);
+        MenuScene menu = new MenuScene(engine, "MainMenu");
+        menu.initialize();
+        menu.update(0.016f);
+        assertTrue(engine.getCurrentScene() instanceof GameScene);
+        return (GameScene) engine.getCurrentScene();
+    }
 }
@@ -10,6 +10,9 @@ import org.junit.Test;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -245,7 +248,61 @@ public class RecordingSceneTest {
         }
     }
 
+    @Test
+    public void testSeekOntoInputFrame_showsPrecedingObjectFrame() throws IOException {
+        // 帧 0、1、4 是对象帧，帧 2、3 是 input 帧
+        File file = File.createTempFile("recording_seek_", ".json");
+        try {
+            try (FileWriter writer = new FileWriter(file)) {
+                writer.write(objectFrameJson(0f, "a.png") + "\n");
+                writer.write(objectFrameJson(1f, "b.png") + "\n");
+                writer.write("{\"key\":2.0,\"type\":\"input\"}\n");
+                writer.write("{\"key\":3.0,\"type\":\"input\"}\n");
+                writer.write(objectFrameJson(4f, "c.png") + "\n");
+            }
+            RecordingScene scene = new RecordingScene(engine, file.getAbsolutePath());
+            InputManager input = InputManager.getInstance();
+
+            // 先跳到末尾的对象帧 c，再跳到中间的 input 帧（帧 2）
+            pressKey(scene, input, 57); // 9：跳到 90%，落在帧 3
+            pressKey(scene, input, 39); // 右箭头：跳到末尾
+            assertEquals(Arrays.asList("c.png"), renderedObjects(scene));
+            pressKey(scene, input, 53); // 5：跳到 50%，落在帧 2
+            assertEquals("跳到 input 帧后应显示它之前最近的对象帧",
+                    Arrays.asList("b.png"), renderedObjects(scene));
+            pressKey(scene, input, 48); // 0：跳回开头
+            assertEquals(Arrays.asList("a.png"), renderedObjects(scene));
+        } finally {
+            file.delete();
+        }
+    }
+
     // Helper methods
+    private static String objectFrameJson(float key, String imagePath) {
+        return "{\"key\":" + key + ",\"type\":\"object_move\",\"gameObjectMove\":[{\"id\":\"obj\","
+                + "\"rt\":\"IMAGE\",\"imagePath\":\"" + imagePath + "\",\"x\":1000.0,\"y\":750.0,"
+                + "\"width\":10.0,\"height\":10.0,\"alpha\":1.0}]}";
+    }
+
+    private static void pressKey(RecordingScene scene, InputManager input, int keyCode) {
+        input.onKeyPressed(keyCode);
+        scene.update(0f);
+        input.onKeyReleased(keyCode);
+        input.update();
+    }
+
+    private List<String> renderedObjects(RecordingScene scene) {
+        fr.drawCalls.clear();
+        scene.render();
+        List<String> paths = new ArrayList<>();
+        for (FakeRenderer.DrawCall call : fr.drawCalls) {
+            if (call.path != null && call.path.endsWith(".png") && !call.path.contains("/")) {
+                paths.add(call.path);
+            }
+        }
+        return paths;
+    }
+
     private String createTempRecordingFile() {
         try {
             File tempFile = File.createTempFile("recording_test_", ".json");
@@ -7,7 +7,12 @@ import com.gameengine.input.InputManager;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -220,4 +225,69 @@ public class ReplaySceneTest {
         scene.update(0.1f);
         scene.update(1.0f);
     }
+
+    @Test
+    public void testMetadata_loadedLazilyForVisibleRows() throws Exception {
+        // 几百个录像时只为滚动到可见范围的行读取摘要，列表按修改时间从新到旧排序
+        Path dir = Files.createTempDirectory("replay-scene-test");
+        try {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < 300; i++) {
+                Path file = dir.resolve(String.format("r%03d.json", i));
+                Files.writeString(file, "{\"key\":0.0,\"type\":\"object_move\",\"gameObjectMove\":[]}\n"
+                        + "{\"key\":" + i + ".0,\"type\":\"object_move\",\"gameObjectMove\":[]}\n");
+                file.toFile().setLastModified(now - i * 1000L);
+            }
+            ReplayScene scene = new ReplayScene(engine, null, dir.toFile());
+            scene.initialize();
+
+            Field filesField = ReplayScene.class.getDeclaredField("recordingFiles");
+            filesField.setAccessible(true);
+            @SuppressWarnings("unchecked")
+            java.util.List<File> files = (java.util.List<File>) filesField.get(scene);
+            assertEquals(300, files.size());
+            assertEquals("r000.json", files.get(0).getName());
+
+            Field requestedField = ReplayScene.class.getDeclaredField("metadataRequested");
+            requestedField.setAccessible(true);
+            Set<?> requested = (Set<?>) requestedField.get(scene);
+            Field metadataField = ReplayScene.class.getDeclaredField("metadata");
+            metadataField.setAccessible(true);
+            Map<?, ?> metadata = (Map<?, ?>) metadataField.get(scene);
+
+            scene.render();
+            int visible = requested.size();
+            assertTrue("只读取可见的行", visible > 0 && visible < 30);
+            waitForMetadata(metadata, visible);
+            fr.textCalls.clear();
+            scene.render();
+            assertTrue("显示第 12 个录像的时长", fr.textCalls.stream().anyMatch(t -> "0:12".equals(t.text)));
+
+            // PageDown 把选中项移到下一页，新出现的行开始读取
+            InputManager.getInstance().onKeyPressed(267);
+            scene.update(0.016f);
+            InputManager.getInstance().update();
+            Field selectedField = ReplayScene.class.getDeclaredField("selectedIndex");
+            selectedField.setAccessible(true);
+            assertEquals(visible, selectedField.getInt(scene));
+            scene.render();
+            assertEquals(visible * 2, requested.size());
+            waitForMetadata(metadata, visible * 2);
+        } finally {
+            try (var paths = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) paths::iterator) {
+                    Files.deleteIfExists(p);
+                }
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void waitForMetadata(Map<?, ?> metadata, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (metadata.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, metadata.size());
+    }
 }
@@ -0,0 +1,98 @@
+package com.gameengine.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gameengine.components.TransformComponent;
+import com.gameengine.game.HuluPlayer;
+import com.gameengine.game.Record;
+import com.gameengine.net.InputFrames;
+import com.gameengine.net.NetState;
+import com.gameengine.net.Room;
+import com.gameengine.net.RoomManager;
+
+/**
+ * RoomScene 无渲染房间场景的测试用例
+ * 测试玩家加入与离开、按房间输入移动玩家、满员开始对战以及快照中的输入确认
+ */
+public class RoomSceneTest {
+
+    private RoomManager manager;
+    private RoomScene scene;
+
+    @Before
+    public void setUp() {
+        NetState.reset();
+        manager = new RoomManager(2, 1, 60, room -> {
+            scene = RoomScene.create(room);
+            return scene;
+        });
+        NetState.setRoomManager(manager);
+    }
+
+    @After
+    public void tearDown() {
+        manager.stop();
+        NetState.reset();
+    }
+
+    /**
+     * 测试加入的玩家被创建并绑定会话地址，离开后从场景中移除
+     */
+    @Test
+    public void testJoinAndLeave() {
+        Room room = manager.join("/c1", "Alice", "r");
+        scene.onJoin("/c1", "Alice");
+        scene.step(1 / 60f);
+
+        HuluPlayer player = scene.getPlayer("/c1");
+        assertNotNull(player);
+        assertSame(room, scene.getRoom());
+        assertTrue(scene.getGameObjects().contains(player));
+        assertFalse("人数未满时不开始对战", scene.isStarted());
+
+        scene.onLeave("/c1");
+        scene.step(1 / 60f);
+        assertNull(scene.getPlayer("/c1"));
+        assertFalse(scene.getGameObjects().contains(player));
+    }
+
+    /**
+     * 测试房间内的输入帧驱动对应玩家移动，快照包含该玩家的输入确认
+     */
+    @Test
+    public void testInputMovesPlayerAndIsAcked() {
+        manager.join("/c1", "Alice", "r");
+        manager.join("/c2", "Bob", "r");
+        scene.onJoin("/c1", "Alice");
+        scene.onJoin("/c2", "Bob");
+        scene.step(1 / 60f);
+        assertTrue(scene.isStarted());
+
+        HuluPlayer alice = scene.getPlayer("/c1");
+        float startX = alice.getComponent(TransformComponent.class).getPosition().x;
+
+        byte[] history = {(byte) InputFrames.RIGHT, 0, 0, 0};
+        InputFrames.Packet packet = InputFrames.decodeLine(InputFrames.encodeLine(5, history, 1).trim(),
+                new InputFrames.Packet());
+        NetState.enqueueInputFrames("/c1", packet);
+
+        Record record = null;
+        for (int i = 0; i < 10; i++) {
+            record = scene.step(1 / 60f);
+        }
+        float endX = alice.getComponent(TransformComponent.class).getPosition().x;
+        assertTrue("玩家应该向右移动", endX > startX);
+
+        assertNotNull(record);
+        Record.InputAck ack = record.getInputAck("/c1");
+        assertNotNull(ack);
+        assertEquals(alice.getNetId(), ack.netId);
+        assertNotNull(record.getInputAck("/c2"));
+        boolean acked = ack.lastInputSeq == 5;
+        assertTrue("快照应该确认已应用的输入序号", acked);
+    }
+}
@@ -99,7 +99,7 @@ public class GameLogicTest {
             Files.createDirectories(targetDir);
             Path out = Files.createTempFile(targetDir, "records-", ".jsonl");
             try (FileWriter writer = new FileWriter(out.toFile())) {
-                logic.updateRecords(0.0f, writer);
+                logic.updateRecords(0.0f, writer, 1);
             }
 
             String content = Files.readString(out);
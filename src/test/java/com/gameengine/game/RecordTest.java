@@ -77,4 +77,78 @@ public class RecordTest {
         assertNotNull(record.getGameObjectsMove());
         assertTrue(record.getGameObjectsMove().isEmpty());
     }
+    
+    /**
+     * 测试冻结后的快照不可修改，列表为发布时的副本
+     */
+    @Test
+    public void testSealMakesRecordImmutable() {
+        record.setRecordType("object_move");
+        GameObjectRecord o = new GameObjectRecord();
+        o.id = "a";
+        record.getGameObjectsMove().add(o);
+        record.addInputAck("/c1", 1, 3);
+        
+        assertSame(record, record.seal());
+        assertTrue(record.isSealed());
+        assertSame("重复冻结应该无副作用", record, record.seal());
+        assertEquals(1, record.getGameObjectsMove().size());
+        assertEquals(3, record.getInputAck("/c1").lastInputSeq);
+        
+        try {
+            record.getGameObjectsMove().add(new GameObjectRecord());
+            fail("冻结后的列表应该不可修改");
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            record.setServerTime(1.0);
+            fail("冻结后不能再修改字段");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            record.addInputAck("/c2", 2, 1);
+            fail("冻结后不能再添加输入确认");
+        } catch (IllegalStateException expected) {
+        }
+    }
+    
+    /**
+     * 测试冻结后的快照持有元素的副本：发布前的引用之后再写入，不会改到已发布的快照
+     */
+    @Test
+    public void testSealCopiesElements() {
+        record.setRecordType("object_move");
+        GameObjectRecord o = new GameObjectRecord();
+        o.id = "a";
+        o.netId = 7;
+        o.x = 10f;
+        o.y = 20f;
+        record.getGameObjectsMove().add(o);
+        record.addInputAck("/c1", 7, 3);
+        Record.InputAck ack = record.getInputAck("/c1");
+        record.seal();
+        
+        o.x = 99f;
+        o.y = 99f;
+        ack.lastInputSeq = 100;
+        
+        GameObjectRecord published = record.getGameObjectsMove().get(0);
+        assertNotSame(o, published);
+        assertEquals("a", published.id);
+        assertEquals(7, published.netId);
+        assertEquals(10f, published.x, 0);
+        assertEquals(20f, published.y, 0);
+        assertEquals(3, record.getInputAck("/c1").lastInputSeq);
+    }
+    
+    /**
+     * 测试输入类型的快照（列表为 null）也能冻结
+     */
+    @Test
+    public void testSealInputRecord() {
+        record.setRecordType("input");
+        record.seal();
+        assertNull(record.getGameObjectsMove());
+        assertTrue(record.isSealed());
+    }
 }
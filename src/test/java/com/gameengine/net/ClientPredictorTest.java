@@ -0,0 +1,147 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gameengine.game.Record;
+
+/**
+ * ClientPredictor 客户端预测的测试用例
+ * 测试移动规则、未确认输入的重放以及预测误差统计
+ */
+public class ClientPredictorTest {
+
+    private static final float EPS = 1e-3f;
+
+    private ClientPredictor predictor;
+    private final float[] pos = new float[2];
+
+    @Before
+    public void setUp() {
+        predictor = new ClientPredictor();
+    }
+
+    /**
+     * 测试移动规则：按速度和摩擦推进并限制在世界范围内
+     */
+    @Test
+    public void testStepRules() {
+        float[] p = {100, 100};
+        ClientPredictor.step(p, 200, 0, 0.5f);
+        assertEquals(100 + 200 * ClientPredictor.PLAYER_FRICTION * 0.5f, p[0], EPS);
+        assertEquals(100, p[1], EPS);
+
+        float[] edge = {790, 5};
+        ClientPredictor.step(edge, 200, -200, 1f);
+        assertEquals(ClientPredictor.WORLD_WIDTH, edge[0], EPS);
+        assertEquals(0, edge[1], EPS);
+    }
+
+    /**
+     * 测试收到服务端状态之前没有预测位置
+     */
+    @Test
+    public void testNoPredictionBeforeServerState() {
+        predictor.recordInput(1, 200, 0, 0.016f);
+        assertFalse(predictor.hasPrediction());
+        assertFalse(predictor.getPredictedPosition(pos));
+    }
+
+    /**
+     * 测试输入立即应用到预测位置
+     */
+    @Test
+    public void testInputAppliedImmediately() {
+        predictor.reconcile(100, 100, 0);
+        predictor.recordInput(1, 200, 0, 0.1f);
+        assertTrue(predictor.getPredictedPosition(pos));
+        assertEquals(100 + 200 * ClientPredictor.PLAYER_FRICTION * 0.1f, pos[0], EPS);
+    }
+
+    /**
+     * 测试校正时丢弃已确认输入并重放未确认输入
+     */
+    @Test
+    public void testReconcileReplaysUnacknowledgedInputs() {
+        predictor.reconcile(100, 100, 0);
+        for (int seq = 1; seq <= 5; seq++) {
+            predictor.recordInput(seq, 200, 0, 0.1f);
+        }
+        assertEquals(5, predictor.getPendingInputCount());
+
+        // 服务端已处理到第 3 条输入
+        float step = 200 * ClientPredictor.PLAYER_FRICTION * 0.1f;
+        predictor.reconcile(100 + 3 * step, 100, 3);
+        assertEquals(2, predictor.getPendingInputCount());
+        assertTrue(predictor.getPredictedPosition(pos));
+        assertEquals(100 + 5 * step, pos[0], EPS);
+
+        // 服务端与预测一致时误差为 0
+        assertEquals(0, predictor.getLastError(), EPS);
+        assertEquals(1, predictor.getReconcileCount());
+    }
+
+    /**
+     * 测试服务端与预测不一致时记录预测误差并以服务端为准
+     */
+    @Test
+    public void testPredictionErrorMetrics() {
+        predictor.reconcile(100, 100, 0);
+        predictor.recordInput(1, 200, 0, 0.1f);
+        // 服务端认为玩家被挡住，没有移动
+        predictor.reconcile(100, 100, 1);
+        assertTrue(predictor.getPredictedPosition(pos));
+        assertEquals(100, pos[0], EPS);
+
+        float expected = 200 * ClientPredictor.PLAYER_FRICTION * 0.1f;
+        assertEquals(expected, predictor.getLastError(), EPS);
+        assertEquals(expected, predictor.getMaxError(), EPS);
+        assertEquals(expected, predictor.getAverageError(), EPS);
+
+        predictor.reconcile(100, 100, 1);
+        assertEquals(0, predictor.getLastError(), EPS);
+        assertEquals(expected, predictor.getMaxError(), EPS);
+        assertEquals(expected / 2, predictor.getAverageError(), EPS);
+    }
+
+    /**
+     * 测试乱序到达的旧快照不会回退预测
+     */
+    @Test
+    public void testOlderAckIgnored() {
+        predictor.reconcile(100, 100, 5);
+        predictor.reconcile(50, 50, 3);
+        assertTrue(predictor.getPredictedPosition(pos));
+        assertEquals(100, pos[0], EPS);
+        assertEquals(5, predictor.getLastAckSeq());
+    }
+
+    /**
+     * 测试未确认输入数量有上限
+     */
+    @Test
+    public void testPendingInputsBounded() {
+        for (int seq = 1; seq <= 1000; seq++) {
+            predictor.recordInput(seq, 0, 0, 0.016f);
+        }
+        assertTrue(predictor.getPendingInputCount() <= 128);
+    }
+
+    /**
+     * 测试快照中的输入确认查找
+     */
+    @Test
+    public void testRecordInputAck() {
+        Record record = new Record();
+        assertNull(record.getInputAck("/127.0.0.1:1"));
+        record.addInputAck("/127.0.0.1:1", 7, 42);
+        Record.InputAck ack = record.getInputAck("/127.0.0.1:1");
+        assertNotNull(ack);
+        assertEquals(7, ack.netId);
+        assertEquals(42, ack.lastInputSeq);
+        assertNull(record.getInputAck("/127.0.0.1:2"));
+        assertSame(ack, record.withGameObjects(record.getGameObjectsMove()).getInputAck("/127.0.0.1:1"));
+    }
+}
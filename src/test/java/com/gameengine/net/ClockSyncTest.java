@@ -0,0 +1,210 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * ClockSync 时钟同步的测试用例
+ * 测试 NTP 方式的偏移和时延计算、时钟滤波、抖动统计以及自适应插值延迟
+ */
+public class ClockSyncTest {
+
+    private static final double EPS = 1e-9;
+
+    private ClockSync clock;
+
+    @Before
+    public void setUp() {
+        clock = new ClockSync();
+    }
+
+    @After
+    public void tearDown() {
+        NetworkBuffer.reset();
+        NetState.reset();
+    }
+
+    /**
+     * 测试对称路径下的偏移和时延计算
+     */
+    @Test
+    public void testOffsetAndDelay() {
+        // 服务端时钟比客户端快 5 秒，单程 20ms，服务端处理 1ms
+        double t0 = 100.000;
+        double t1 = 105.020;
+        double t2 = 105.021;
+        double t3 = 100.041;
+        clock.addSample(t0, t1, t2, t3);
+        assertTrue(clock.isSynced());
+        assertEquals(5.0, clock.getOffset(), 1e-6);
+        assertEquals(0.040, clock.getRtt(), 1e-6);
+        assertEquals(105.5, clock.toServerTime(100.5), 1e-6);
+    }
+
+    /**
+     * 测试时钟滤波选择时延最小的样本
+     */
+    @Test
+    public void testFilterPrefersMinimumDelay() {
+        // 排队样本：去程多等 80ms，偏移估计偏大
+        clock.addSample(0.0, 5.100, 5.100, 0.120);
+        assertEquals(5.04, clock.getOffset(), 1e-6);
+        // 无排队样本
+        clock.addSample(1.0, 6.020, 6.020, 1.040);
+        assertEquals(5.0, clock.getOffset(), 1e-6);
+        // 之后的高时延样本不影响偏移
+        clock.addSample(2.0, 7.200, 7.200, 2.220);
+        assertEquals(5.0, clock.getOffset(), 1e-6);
+    }
+
+    /**
+     * 测试 RTT 平滑
+     */
+    @Test
+    public void testRttSmoothing() {
+        clock.addSample(0, 0.05, 0.05, 0.1);
+        assertEquals(0.1, clock.getRtt(), EPS);
+        clock.addSample(1, 1.1, 1.1, 1.2);
+        assertEquals(0.1 + (0.2 - 0.1) / 8, clock.getRtt(), EPS);
+        assertTrue(clock.getRttVariance() > 0);
+    }
+
+    /**
+     * 测试 PING/PONG 消息格式
+     */
+    @Test
+    public void testPingPongRoundTrip() {
+        String ping = ClockSync.ping(3, 12.5);
+        assertTrue(ping.startsWith(ClockSync.PING_PREFIX));
+        String pong = ClockSync.pong(ping, 20.0, 20.001);
+        assertNotNull(pong);
+        assertTrue(clock.onPong(pong, 12.6));
+        assertEquals(0.099, clock.getRtt(), 1e-6);
+
+        assertNull(ClockSync.pong("PING:abc", 1, 1));
+        assertNull(ClockSync.pong("PING:1:x", 1, 1));
+        assertFalse(clock.onPong("PONG:1:2", 3));
+    }
+
+    /**
+     * 测试稳定到达时插值延迟收敛到一个快照间隔附近
+     */
+    @Test
+    public void testStableArrivalsShrinkDelay() {
+        double interval = 0.05;
+        for (int i = 0; i < 500; i++) {
+            double server = i * interval;
+            clock.onSnapshot(server, server + 1000.0 + 0.03);
+        }
+        assertEquals(0, clock.getJitter(), 1e-9);
+        assertEquals(interval, clock.getSnapshotInterval(), 1e-6);
+        assertEquals(0.06, clock.getInterpolationDelay(), 0.005);
+    }
+
+    /**
+     * 测试到达抖动增大时插值延迟随之增大，并有上限
+     */
+    @Test
+    public void testJitterGrowsDelay() {
+        double interval = 0.05;
+        for (int i = 0; i < 500; i++) {
+            double server = i * interval;
+            double lateness = (i % 2 == 0) ? 0.0 : 0.04;
+            clock.onSnapshot(server, server + 0.03 + lateness);
+        }
+        assertEquals(0.04, clock.getJitter(), 0.005);
+        assertTrue("抖动较大时延迟应增大: " + clock.getInterpolationDelay(),
+                clock.getInterpolationDelay() > 0.15);
+
+        ClockSync extreme = new ClockSync();
+        for (int i = 0; i < 500; i++) {
+            double server = i * interval;
+            extreme.onSnapshot(server, server + ((i % 2 == 0) ? 0.0 : 1.0));
+        }
+        assertTrue(extreme.getInterpolationDelay() <= 0.5 + 1e-9);
+    }
+
+    /**
+     * 测试重复的快照不影响抖动统计
+     */
+    @Test
+    public void testDuplicateSnapshotIgnored() {
+        clock.onSnapshot(1.0, 2.0);
+        clock.onSnapshot(1.0, 2.5);
+        assertEquals(0, clock.getJitter(), EPS);
+    }
+
+    /**
+     * 测试服务端按行处理同一次读取中的多条消息并回复 PONG
+     */
+    @Test
+    public void testServerAnswersPingOnSameRead() throws Exception {
+        NetworkTestSupport.assumeLoopbackSocketsAllowed();
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        MultiReactor server = new MultiReactor(port, 1);
+        server.start();
+        try (SocketChannel ch = SocketChannel.open(new InetSocketAddress("127.0.0.1", port))) {
+            ByteBuffer out = ByteBuffer.wrap(("JOIN:P\n" + ClockSync.ping(1, 0.5)).getBytes());
+            while (out.hasRemaining()) ch.write(out);
+
+            StringBuilder sb = new StringBuilder();
+            ByteBuffer in = ByteBuffer.allocate(4096);
+            long deadline = System.currentTimeMillis() + 3000;
+            while (System.currentTimeMillis() < deadline && !sb.toString().contains(ClockSync.PONG_PREFIX)) {
+                in.clear();
+                int n = ch.read(in);
+                if (n > 0) sb.append(new String(in.array(), 0, n));
+            }
+            assertTrue(sb.toString().contains("JOIN-ACK"));
+            assertTrue(sb.toString().contains("PONG:1:0.5:"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * 测试客户端通过回环连接完成时钟同步
+     */
+    @Test
+    public void testClientSyncsOverLoopback() throws Exception {
+        NetworkTestSupport.assumeLoopbackSocketsAllowed();
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        NetworkBuffer.reset();
+        MultiReactor server = new MultiReactor(port, 1);
+        server.start();
+        NioClient client = new NioClient();
+        try {
+            assertTrue(client.connect("127.0.0.1", port));
+            assertTrue(client.join("ClockPlayer"));
+            client.startStateReceiveLoop();
+
+            long deadline = System.currentTimeMillis() + 3000;
+            while (!client.isClockSynced() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue("应该完成时钟同步", client.isClockSynced());
+            assertTrue(client.getRttMillis() >= 0 && client.getRttMillis() < 500);
+
+            // 同一进程中服务端时钟与客户端时钟的真实偏移
+            double expectedOffset = (NetState.serverTime() - ClockSync.clientNow()) * 1000.0;
+            assertEquals(expectedOffset, client.getClockOffsetMillis(), 50.0);
+        } finally {
+            client.disconnect();
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * ConnectionAssignmentPolicy 连接分配策略与子 Reactor 负载统计的测试用例
+ * 测试轮询、最少连接、最低吞吐量、房间亲和（含连接迁移）以及负载统计
+ */
+public class ConnectionAssignmentPolicyTest {
+
+    private MultiReactor server;
+    private RoomManager rooms;
+    private int testPort;
+    private final List<NioClient> clients = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        NetworkTestSupport.assumeLoopbackSocketsAllowed();
+        try (ServerSocket socket = new ServerSocket(0)) {
+            testPort = socket.getLocalPort();
+        }
+        NetState.reset();
+        server = new MultiReactor(testPort, 2, 50);
+    }
+
+    @After
+    public void tearDown() {
+        for (NioClient client : clients) {
+            client.disconnect();
+        }
+        if (server != null) {
+            server.stop();
+        }
+        if (rooms != null) {
+            rooms.stop();
+        }
+        NetworkBuffer.reset();
+        NetState.reset();
+    }
+
+    /**
+     * 测试默认的轮询策略依次分配
+     */
+    @Test
+    public void testRoundRobin() throws Exception {
+        SubReactor[] subs = {new SubReactor(0), new SubReactor(1), new SubReactor(2)};
+        ConnectionAssignmentPolicy policy = ConnectionAssignmentPolicy.roundRobin();
+        assertSame(subs[0], policy.select(subs));
+        assertSame(subs[1], policy.select(subs));
+        assertSame(subs[2], policy.select(subs));
+        assertSame(subs[0], policy.select(subs));
+        assertSame(subs[0], policy.afterJoin(subs, subs[0], "/c1"));
+        assertTrue(server.getAssignmentPolicy() instanceof ConnectionAssignmentPolicy.RoundRobin);
+    }
+
+    /**
+     * 测试最少连接策略：断开后新连接补到连接少的子 Reactor
+     */
+    @Test
+    public void testLeastConnections() throws Exception {
+        server.setAssignmentPolicy(ConnectionAssignmentPolicy.leastConnections());
+        startServer();
+        NioClient a = join("A", null);
+        NioClient b = join("B", null);
+        NioClient c = join("C", null);
+        assertTrue(waitFor(() -> server.getTotalConnectionCount() == 3, 3000));
+        assertEquals(2, server.getSubReactor(0).getConnectionCount());
+        assertEquals(1, server.getSubReactor(1).getConnectionCount());
+
+        // 断开子 Reactor 0 上的一个连接后，下一个连接仍分配给连接数最少的一方
+        a.disconnect();
+        assertTrue(waitFor(() -> server.getSubReactor(0).getConnectionCount() == 1, 3000));
+        join("D", null);
+        assertTrue(waitFor(() -> server.getTotalConnectionCount() == 3, 3000));
+        assertTrue(Math.abs(server.getSubReactor(0).getConnectionCount()
+                - server.getSubReactor(1).getConnectionCount()) <= 1);
+        assertNotNull(b);
+        assertNotNull(c);
+    }
+
+    /**
+     * 测试最低吞吐量策略：新连接避开正在收发数据的子 Reactor，并统计读写字节数
+     */
+    @Test
+    public void testLeastBytesPerSecondAndMetrics() throws Exception {
+        server.setAssignmentPolicy(ConnectionAssignmentPolicy.leastBytesPerSecond());
+        startServer();
+        try (SocketChannel busy = SocketChannel.open(new InetSocketAddress("127.0.0.1", testPort))) {
+            assertTrue(waitFor(() -> server.getSubReactor(0).getConnectionCount() == 1, 3000));
+            // 让子 Reactor 0 产生读流量
+            for (int i = 0; i < 50; i++) {
+                write(busy, ClockSync.ping(i, 0));
+            }
+            assertTrue(waitFor(() -> server.getSubReactor(0).getBytesRead() > 0, 3000));
+            assertTrue(server.getSubReactor(0).getBytesPerSecond() > 0);
+            assertEquals(0.0, server.getSubReactor(1).getBytesPerSecond(), 0.0);
+
+            try (SocketChannel idle = SocketChannel.open(new InetSocketAddress("127.0.0.1", testPort))) {
+                assertTrue("新连接应该分配给空闲的子 Reactor",
+                        waitFor(() -> server.getSubReactor(1).getConnectionCount() == 1, 3000));
+                assertNotNull(idle);
+            }
+
+            // 广播会计入写出字节数和编码次数
+            NetState.publishRecords(createRecord("global"));
+            assertTrue(waitFor(() -> server.getSubReactor(0).getBytesWritten() > 0, 3000));
+            assertTrue(server.getSubReactor(0).getBroadcastCount() > 0);
+            assertEquals(1, server.getSubReactor(0).getLastBroadcastEncodes());
+        }
+    }
+
+    /**
+     * 测试房间亲和：同一房间的客户端迁移到同一个子 Reactor，迁移后仍能收发消息
+     */
+    @Test
+    public void testRoomAffinityMigratesRoomMembers() throws Exception {
+        rooms = new RoomManager(2, 1, 60, room -> new Room.Simulation() {
+            @Override
+            public void onJoin(String addressId, String playerName) {
+            }
+
+            @Override
+            public void onLeave(String addressId) {
+            }
+
+            @Override
+            public Record step(float deltaTime) {
+                return createRecord(room.getName());
+            }
+        });
+        rooms.start();
+        NetState.setRoomManager(rooms);
+        ConnectionAssignmentPolicy.RoomAffinity policy = (ConnectionAssignmentPolicy.RoomAffinity)
+                ConnectionAssignmentPolicy.roomAffinity(ConnectionAssignmentPolicy.roundRobin());
+        server.setAssignmentPolicy(policy);
+        startServer();
+
+        // 轮询会把同一房间的两个客户端分到不同的子 Reactor
+        NioClient red1 = join("R1", "red");
+        NioClient red2 = join("R2", "red");
+        NioClient blue1 = join("B1", "blue");
+        NioClient blue2 = join("B2", "blue");
+        assertTrue(waitFor(() -> server.getTotalConnectionCount() == 4, 3000));
+
+        SubReactor redReactor = policy.reactorOf("red");
+        SubReactor blueReactor = policy.reactorOf("blue");
+        assertNotNull(redReactor);
+        assertNotNull(blueReactor);
+        assertTrue("每个房间的第二个客户端应该被迁移", waitFor(() ->
+                server.getSubReactor(0).getMigratedOut() + server.getSubReactor(1).getMigratedOut() == 2, 3000));
+        assertEquals(2, server.getSubReactor(0).getMigratedIn() + server.getSubReactor(1).getMigratedIn());
+        assertTrue(waitFor(() -> server.getSubReactor(0).getRoomCount() + server.getSubReactor(1).getRoomCount() == 2,
+                3000));
+
+        // 迁移后仍收到本房间快照，并完成时钟同步（PING/PONG 走迁移后的子 Reactor）
+        for (NioClient client : new NioClient[]{red1, red2, blue1, blue2}) {
+            client.startStateReceiveLoop();
+        }
+        for (NioClient client : new NioClient[]{red1, red2, blue1, blue2}) {
+            assertTrue(waitFor(() -> client.getLatestRecord() != null && client.isClockSynced(), 3000));
+            assertEquals(client.getRoomName(), client.getLatestRecord().getGameObjectsMove().get(0).id);
+        }
+        assertTrue(waitFor(() -> redReactor.getLastBroadcastEncodes() >= 1, 3000));
+        assertTrue("每个房间在其子 Reactor 上只编码一次",
+                redReactor.getLastBroadcastEncodes() <= redReactor.getRoomCount());
+    }
+
+    // ========== 辅助方法 ==========
+
+    private void startServer() throws InterruptedException {
+        server.start();
+        // 主 Reactor 在自己的线程上绑定端口
+        Thread.sleep(300);
+    }
+
+    private NioClient join(String name, String room) throws InterruptedException {
+        NioClient client = new NioClient();
+        clients.add(client);
+        int before = server.getTotalConnectionCount();
+        assertTrue(client.connect("127.0.0.1", testPort));
+        assertTrue(client.join(name, room));
+        // 等待连接注册完成，保证下一次分配能看到它
+        assertTrue(waitFor(() -> server.getTotalConnectionCount() > before, 3000));
+        return client;
+    }
+
+    private static void write(SocketChannel ch, String message) throws IOException {
+        ByteBuffer out = ByteBuffer.wrap(message.getBytes());
+        while (out.hasRemaining()) ch.write(out);
+    }
+
+    private static Record createRecord(String id) {
+        Record record = new Record();
+        record.setRecordType("object_move");
+        GameObjectRecord o = new GameObjectRecord();
+        o.id = id;
+        o.netId = 1;
+        record.getGameObjectsMove().add(o);
+        return record;
+    }
+
+    private interface Condition {
+        boolean check();
+    }
+
+    private static boolean waitFor(Condition condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.check()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.check();
+    }
+}
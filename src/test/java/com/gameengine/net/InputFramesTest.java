@@ -0,0 +1,94 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * InputFrames 输入帧编码的测试用例
+ * 测试文本格式和二进制格式的编解码、非法输入以及位掩码到速度的换算
+ */
+public class InputFramesTest {
+
+    private static final float EPS = 1e-4f;
+
+    /**
+     * 测试 TCP 文本格式的往返编解码
+     */
+    @Test
+    public void testLineRoundTrip() {
+        byte[] history = {InputFrames.UP | InputFrames.RIGHT, InputFrames.UP, 0, InputFrames.LEFT};
+        String line = InputFrames.encodeLine(42, history, 4);
+        assertEquals("F:42:9,1,0,4\n", line);
+
+        InputFrames.Packet packet = InputFrames.decodeLine(line.trim(), new InputFrames.Packet());
+        assertNotNull(packet);
+        assertEquals(42, packet.newestSeq);
+        assertEquals(4, packet.count);
+        assertArrayEquals(history, packet.bits);
+    }
+
+    /**
+     * 测试 UDP 二进制格式的往返编解码，负载只有几个字节
+     */
+    @Test
+    public void testBinaryRoundTrip() {
+        byte[] history = {InputFrames.DOWN, InputFrames.DOWN | InputFrames.LEFT, 0, 0};
+        byte[] payload = InputFrames.encodeBinary(-5, history, 2);
+        assertEquals(7, payload.length);
+
+        InputFrames.Packet packet = InputFrames.decodeBinary(ByteBuffer.wrap(payload), new InputFrames.Packet());
+        assertNotNull(packet);
+        assertEquals(-5, packet.newestSeq);
+        assertEquals(2, packet.count);
+        assertEquals(InputFrames.DOWN, packet.bits[0]);
+        assertEquals(InputFrames.DOWN | InputFrames.LEFT, packet.bits[1]);
+    }
+
+    /**
+     * 测试非法的文本行被拒绝
+     */
+    @Test
+    public void testMalformedLineRejected() {
+        InputFrames.Packet packet = new InputFrames.Packet();
+        assertNull(InputFrames.decodeLine("F:abc:1", packet));
+        assertNull(InputFrames.decodeLine("F:1", packet));
+        assertNull(InputFrames.decodeLine("F:1:1,x", packet));
+        assertNull(InputFrames.decodeLine("F:1:1,2,3,4,5", packet));
+        assertNull(InputFrames.decodeLine("PING:1:0.5", packet));
+    }
+
+    /**
+     * 测试非法的二进制负载被拒绝
+     */
+    @Test
+    public void testMalformedBinaryRejected() {
+        InputFrames.Packet packet = new InputFrames.Packet();
+        assertNull(InputFrames.decodeBinary(ByteBuffer.wrap(new byte[]{1, 0, 0}), packet));
+        assertNull(InputFrames.decodeBinary(ByteBuffer.wrap(new byte[]{0, 0, 0, 0, 1}), packet));
+        assertNull(InputFrames.decodeBinary(ByteBuffer.wrap(new byte[]{9, 0, 0, 0, 1, 0}), packet));
+        // 声明 3 帧但只有 1 帧
+        assertNull(InputFrames.decodeBinary(ByteBuffer.wrap(new byte[]{3, 0, 0, 0, 1, 0}), packet));
+    }
+
+    /**
+     * 测试位掩码换算为速度，斜向移动速度归一化，相反方向相互抵消
+     */
+    @Test
+    public void testToVelocity() {
+        float[] v = new float[2];
+        InputFrames.toVelocity(InputFrames.RIGHT, v);
+        assertEquals(InputFrames.SPEED, v[0], EPS);
+        assertEquals(0, v[1], EPS);
+
+        InputFrames.toVelocity(InputFrames.UP | InputFrames.LEFT, v);
+        assertEquals(InputFrames.SPEED, (float) Math.hypot(v[0], v[1]), EPS);
+        assertTrue(v[0] < 0 && v[1] < 0);
+
+        InputFrames.toVelocity(InputFrames.LEFT | InputFrames.RIGHT, v);
+        assertEquals(0, v[0], EPS);
+        assertEquals(0, v[1], EPS);
+    }
+}
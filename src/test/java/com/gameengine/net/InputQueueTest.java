@@ -0,0 +1,184 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * InputQueue 输入帧队列的测试用例
+ * 测试按序消费、冗余去重、丢包统计、积压追赶以及服务端按连接地址入队
+ */
+public class InputQueueTest {
+
+    @After
+    public void tearDown() {
+        NetState.reset();
+    }
+
+    private static InputFrames.Packet packet(int newestSeq, int... bits) {
+        InputFrames.Packet packet = new InputFrames.Packet();
+        packet.newestSeq = newestSeq;
+        packet.count = bits.length;
+        for (int i = 0; i < bits.length; i++) {
+            packet.bits[i] = (byte) bits[i];
+        }
+        return packet;
+    }
+
+    /**
+     * 测试每个 tick 按顺序消费一帧，没有新帧时保持上一帧的状态
+     */
+    @Test
+    public void testConsumesInOrder() {
+        InputQueue queue = new InputQueue();
+        assertFalse("没有输入时不应产生按键状态", queue.consumeTick());
+
+        queue.offer(1, (byte) InputFrames.UP);
+        queue.offer(2, (byte) InputFrames.LEFT);
+        assertTrue(queue.consumeTick());
+        assertEquals(1, queue.getCurrentSeq());
+        assertEquals(InputFrames.UP, queue.getCurrentBits());
+        assertTrue(queue.consumeTick());
+        assertEquals(2, queue.getCurrentSeq());
+        assertEquals(InputFrames.LEFT, queue.getCurrentBits());
+
+        assertTrue(queue.consumeTick());
+        assertEquals(2, queue.getCurrentSeq());
+        assertEquals(InputFrames.LEFT, queue.getCurrentBits());
+    }
+
+    /**
+     * 测试两次 tick 之间的短按不会被覆盖掉
+     */
+    @Test
+    public void testTapBetweenTicksNotLost() {
+        InputQueue queue = new InputQueue();
+        queue.offer(packet(1, 0));
+        queue.offer(packet(2, InputFrames.RIGHT, 0));
+        queue.offer(packet(3, 0, InputFrames.RIGHT, 0));
+
+        boolean sawTap = false;
+        for (int i = 0; i < 3; i++) {
+            queue.consumeTick();
+            sawTap |= queue.getCurrentBits() == InputFrames.RIGHT;
+        }
+        assertTrue("短按应在某个 tick 生效", sawTap);
+        assertEquals(0, queue.getCurrentBits());
+    }
+
+    /**
+     * 测试冗余帧被去重，丢失的包由后续包中的冗余帧补齐
+     */
+    @Test
+    public void testRedundancyRecoversLostPacket() {
+        InputQueue queue = new InputQueue();
+        queue.offer(packet(1, InputFrames.UP));
+        // 序号 2 的包丢失，序号 3 的包携带 3、2、1
+        queue.offer(packet(3, InputFrames.DOWN, InputFrames.LEFT, InputFrames.UP));
+
+        assertEquals(3, queue.getReceivedFrames());
+        assertEquals(1, queue.getDuplicateFrames());
+        assertEquals(0, queue.getLostFrames());
+        assertEquals(3, queue.getBacklog());
+
+        queue.consumeTick();
+        queue.consumeTick();
+        assertEquals(2, queue.getCurrentSeq());
+        assertEquals(InputFrames.LEFT, queue.getCurrentBits());
+    }
+
+    /**
+     * 测试超出冗余范围的丢包被统计，乱序到达的旧包被丢弃
+     */
+    @Test
+    public void testLossAndReorder() {
+        InputQueue queue = new InputQueue();
+        queue.offer(packet(1, InputFrames.UP));
+        queue.offer(packet(10, InputFrames.DOWN, InputFrames.DOWN));
+        assertEquals(7, queue.getLostFrames());
+
+        queue.offer(packet(5, InputFrames.LEFT, InputFrames.LEFT, InputFrames.LEFT, InputFrames.LEFT));
+        assertEquals(3, queue.getReceivedFrames());
+        assertEquals(4, queue.getDuplicateFrames());
+    }
+
+    /**
+     * 测试积压过多时每个 tick 多消费一帧以追上客户端
+     */
+    @Test
+    public void testCatchUp() {
+        InputQueue queue = new InputQueue();
+        for (int seq = 1; seq <= 10; seq++) {
+            queue.offer(seq, (byte) 0);
+        }
+        queue.consumeTick();
+        assertEquals(2, queue.getCurrentSeq());
+        assertEquals(8, queue.getBacklog());
+
+        int ticks = 1;
+        while (queue.getBacklog() > 0) {
+            queue.consumeTick();
+            ticks++;
+        }
+        assertEquals(10, queue.getCurrentSeq());
+        assertTrue("追赶时消费的 tick 数应少于帧数", ticks < 10);
+    }
+
+    /**
+     * 测试队列满时丢弃最旧的帧
+     */
+    @Test
+    public void testOverflowDropsOldest() {
+        InputQueue queue = new InputQueue();
+        for (int seq = 1; seq <= 100; seq++) {
+            queue.offer(seq, (byte) 0);
+        }
+        assertEquals(64, queue.getBacklog());
+        assertEquals(36, queue.getOverflowFrames());
+        queue.consumeTick();
+        assertEquals(38, queue.getCurrentSeq());
+    }
+
+    /**
+     * 测试服务端把 TCP 输入帧按连接地址入队
+     */
+    @Test
+    public void testServerQueuesFramesOverTcp() throws Exception {
+        NetworkTestSupport.assumeLoopbackSocketsAllowed();
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        MultiReactor server = new MultiReactor(port, 1);
+        server.start();
+        // 主 Reactor 在自己的线程上绑定端口，等待其就绪
+        Thread.sleep(300);
+        try (SocketChannel ch = SocketChannel.open(new InetSocketAddress("127.0.0.1", port))) {
+            byte[] history = {InputFrames.RIGHT, InputFrames.UP, 0, 0};
+            ByteBuffer out = ByteBuffer.wrap(InputFrames.encodeLine(2, history, 2).getBytes());
+            while (out.hasRemaining()) ch.write(out);
+
+            String addr = ch.getLocalAddress().toString();
+            InputQueue queue = null;
+            long deadline = System.currentTimeMillis() + 3000;
+            while (queue == null && System.currentTimeMillis() < deadline) {
+                queue = NetState.getInputQueue(addr);
+                Thread.sleep(10);
+            }
+            assertNotNull("服务端应为该连接建立输入队列", queue);
+            assertEquals(2, queue.getReceivedFrames());
+            queue.consumeTick();
+            assertEquals(InputFrames.UP, queue.getCurrentBits());
+            queue.consumeTick();
+            assertEquals(InputFrames.RIGHT, queue.getCurrentBits());
+        } finally {
+            server.stop();
+        }
+    }
+}
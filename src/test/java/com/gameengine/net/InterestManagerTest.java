@@ -0,0 +1,205 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * InterestManager 兴趣区域管理的测试用例
+ * 测试视野裁剪、进入/离开滞回以及大规模实体下的裁剪
+ */
+public class InterestManagerTest {
+
+    private static final String CLIENT = "/127.0.0.1:50001";
+
+    private InterestManager interest;
+
+    @Before
+    public void setUp() {
+        interest = new InterestManager(800f, 600f, 100f, 160f);
+    }
+
+    /**
+     * 测试没有视野信息的客户端收到完整快照
+     */
+    @Test
+    public void testNoViewReturnsFullRecord() {
+        Record record = createRecord(entity(1, 100, 100), entity(2, 1900, 1400));
+        assertSame(record, interest.filterFor(CLIENT, record));
+        assertFalse(interest.hasView(CLIENT));
+    }
+
+    /**
+     * 测试关闭兴趣管理后收到完整快照
+     */
+    @Test
+    public void testDisabledReturnsFullRecord() {
+        interest.updateClientView(CLIENT, 400, 300);
+        interest.setEnabled(false);
+        Record record = createRecord(entity(1, 100, 100), entity(2, 1900, 1400));
+        assertSame(record, interest.filterFor(CLIENT, record));
+    }
+
+    /**
+     * 测试只保留视野范围内的实体，全局状态保持不变
+     */
+    @Test
+    public void testFiltersEntitiesOutsideView() {
+        interest.updateClientView(CLIENT, 400, 300);
+        Record record = createRecord(entity(1, 390, 290), entity(2, 1900, 1400), entity(3, 850, 300));
+        record.setPlayerHealth(42);
+
+        Record filtered = interest.filterFor(CLIENT, record);
+        assertNotSame(record, filtered);
+        assertEquals(42, filtered.getPlayerHealth());
+        assertEquals("object_move", filtered.getType());
+        assertEquals(3, record.getGameObjectsMove().size());
+
+        List<GameObjectRecord> objects = filtered.getGameObjectsMove();
+        assertEquals(2, objects.size());
+        assertTrue(containsNetId(objects, 1));
+        assertTrue("视野边距内的实体应该可见", containsNetId(objects, 3));
+        assertFalse(containsNetId(objects, 2));
+        assertEquals(2, interest.getVisibleCount(CLIENT));
+        assertEquals(2, interest.getEnterCount(CLIENT));
+    }
+
+    /**
+     * 测试进入和离开视野使用不同边距（滞回）
+     */
+    @Test
+    public void testEnterLeaveHysteresis() {
+        interest.updateClientView(CLIENT, 400, 300);
+        // 视野右边界为 800，进入边距 100 -> 900，离开边距 160 -> 960
+
+        // 930 处于进入和离开边距之间，首次不可见
+        assertEquals(0, interest.filterFor(CLIENT, createRecord(entity(7, 930, 300))).getGameObjectsMove().size());
+
+        // 进入视野
+        assertEquals(1, interest.filterFor(CLIENT, createRecord(entity(7, 880, 300))).getGameObjectsMove().size());
+        assertEquals(1, interest.getEnterCount(CLIENT));
+
+        // 回到 930，已可见的实体保持可见
+        assertEquals(1, interest.filterFor(CLIENT, createRecord(entity(7, 930, 300))).getGameObjectsMove().size());
+        assertEquals(0, interest.getLeaveCount(CLIENT));
+
+        // 超出离开边距后离开视野
+        assertEquals(0, interest.filterFor(CLIENT, createRecord(entity(7, 990, 300))).getGameObjectsMove().size());
+        assertEquals(1, interest.getLeaveCount(CLIENT));
+        assertEquals(0, interest.getVisibleCount(CLIENT));
+    }
+
+    /**
+     * 测试实体被销毁时计为离开
+     */
+    @Test
+    public void testDespawnCountsAsLeave() {
+        interest.updateClientView(CLIENT, 400, 300);
+        interest.filterFor(CLIENT, createRecord(entity(1, 400, 300), entity(2, 420, 300)));
+        interest.filterFor(CLIENT, createRecord(entity(1, 400, 300)));
+        assertEquals(1, interest.getLeaveCount(CLIENT));
+        assertEquals(1, interest.getVisibleCount(CLIENT));
+    }
+
+    /**
+     * 测试同一快照重复广播时复用裁剪结果
+     */
+    @Test
+    public void testSameRecordIsCached() {
+        interest.updateClientView(CLIENT, 400, 300);
+        Record record = createRecord(entity(1, 400, 300));
+        Record first = interest.filterFor(CLIENT, record);
+        assertSame(first, interest.filterFor(CLIENT, record));
+
+        interest.updateClientView(CLIENT, 410, 300);
+        assertNotSame("视野移动后应重新裁剪", first, interest.filterFor(CLIENT, record));
+    }
+
+    /**
+     * 测试移除客户端后恢复完整快照
+     */
+    @Test
+    public void testRemoveClient() {
+        interest.updateClientView(CLIENT, 400, 300);
+        interest.removeClient(CLIENT);
+        Record record = createRecord(entity(1, 1900, 1400));
+        assertSame(record, interest.filterFor(CLIENT, record));
+    }
+
+    /**
+     * 测试世界边界外的实体不会导致越界
+     */
+    @Test
+    public void testEntitiesOutsideWorld() {
+        interest.updateClientView(CLIENT, 100, 100);
+        Record record = createRecord(entity(1, -1000, -1000), entity(2, 50, 50), entity(3, 5000, 5000));
+        List<GameObjectRecord> objects = interest.filterFor(CLIENT, record).getGameObjectsMove();
+        assertEquals(1, objects.size());
+        assertTrue(containsNetId(objects, 2));
+    }
+
+    /**
+     * 测试大量实体和客户端时每个客户端只收到局部实体
+     */
+    @Test
+    public void testManyEntitiesAndClients() {
+        int entityCount = 20000;
+        GameObjectRecord[] entities = new GameObjectRecord[entityCount];
+        for (int i = 0; i < entityCount; i++) {
+            entities[i] = entity(i + 1, (i * 37) % 2000, (i * 53) % 1500);
+        }
+        Record record = createRecord(entities);
+
+        int clientCount = 200;
+        long start = System.nanoTime();
+        int maxVisible = 0;
+        for (int c = 0; c < clientCount; c++) {
+            String addr = "/127.0.0.1:" + (40000 + c);
+            interest.updateClientView(addr, (c * 97) % 2000, (c * 61) % 1500);
+            Record filtered = interest.filterFor(addr, record);
+            maxVisible = Math.max(maxVisible, filtered.getGameObjectsMove().size());
+        }
+        double ms = (System.nanoTime() - start) / 1_000_000.0;
+        System.out.println("兴趣区域裁剪: " + entityCount + " 实体, " + clientCount + " 客户端, 耗时 "
+                + String.format("%.2f", ms) + "ms, 最大可见实体 " + maxVisible);
+
+        // 视野 (800+200)x(600+200) 约占世界 2000x1500 的 27%
+        assertTrue("每个客户端只应收到局部实体: " + maxVisible, maxVisible < entityCount / 2);
+        assertTrue("裁剪应足够快: " + ms, ms < 5000);
+    }
+
+    // ========== 辅助方法 ==========
+
+    private static GameObjectRecord entity(int netId, float x, float y) {
+        GameObjectRecord o = new GameObjectRecord();
+        o.id = "Entity-" + netId;
+        o.netId = netId;
+        o.x = x;
+        o.y = y;
+        return o;
+    }
+
+    private static Record createRecord(GameObjectRecord... entities) {
+        Record record = new Record();
+        record.setRecordType("object_move");
+        for (GameObjectRecord e : entities) {
+            record.getGameObjectsMove().add(e);
+        }
+        return record;
+    }
+
+    private static boolean containsNetId(List<GameObjectRecord> objects, int netId) {
+        for (GameObjectRecord o : objects) {
+            if (o.netId == netId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
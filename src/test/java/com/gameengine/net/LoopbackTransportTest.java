@@ -0,0 +1,191 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ServerSocket;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * LoopbackTransport 进程内回环传输层的测试用例
+ * 测试同一进程中的客户端不经过套接字加入、接收快照（共享冻结的快照对象）、发送输入、时钟同步以及断开
+ */
+public class LoopbackTransportTest {
+
+    private GameServer server;
+    private NioClient client;
+
+    @Before
+    public void setUp() {
+        NetState.reset();
+        NetworkBuffer.reset();
+    }
+
+    @After
+    public void tearDown() {
+        if (client != null) {
+            client.disconnect();
+        }
+        if (server != null) {
+            server.stop();
+        }
+        NetworkBuffer.reset();
+        NetState.reset();
+    }
+
+    /**
+     * 测试本地客户端加入后收到的快照就是服务端发布的冻结对象本身，没有编解码
+     */
+    @Test
+    public void testLocalClientReceivesPublishedSnapshot() throws Exception {
+        startServer(new MultiReactor(freePort(), 1, 50));
+
+        client = new NioClient();
+        assertTrue(client.connectLocal(server));
+        assertTrue(client.isLocal());
+        assertTrue(client.join("Host"));
+        String address = client.getMyAddressId();
+        assertTrue(address.startsWith(LoopbackTransport.ADDRESS_PREFIX));
+        assertTrue(NetState.hasClientAddress(address));
+        assertEquals(1, server.getTotalConnectionCount());
+        assertEquals(1, NetState.getClientCount());
+
+        client.startStateReceiveLoop();
+        Record record = createRecord();
+        NetState.publishRecords(record);
+        assertTrue(waitFor(() -> client.getLatestRecord() != null, 2000));
+        assertSame("进程内连接应该直接传递快照对象", record, client.getLatestRecord());
+        assertTrue(server.getLoopbackTransport().getDeliveredSnapshots() > 0);
+        assertTrue("回环连接也参与时钟同步", waitFor(client::isClockSynced, 3000));
+    }
+
+    /**
+     * 测试输入帧包经过输入队列进入服务端该会话的输入帧队列
+     */
+    @Test
+    public void testInputFramesReachServer() throws Exception {
+        startServer(new VirtualThreadServer(freePort(), 50));
+        LoopbackTransport.Connection connection = server.getLoopbackTransport().connect();
+        assertTrue(connection.join("Local").startsWith("JOIN-ACK"));
+
+        for (int seq = 1; seq <= 3; seq++) {
+            InputFrames.Packet packet = new InputFrames.Packet();
+            packet.newestSeq = seq;
+            packet.count = 1;
+            packet.bits[0] = (byte) InputFrames.RIGHT;
+            assertTrue(connection.sendInput(packet));
+        }
+        assertTrue(waitFor(() -> {
+            InputQueue queue = NetState.getInputQueue(connection.getAddressId());
+            return queue != null && queue.getReceivedFrames() == 3;
+        }, 2000));
+        assertEquals(3, server.getLoopbackTransport().getReceivedInputs());
+
+        String pong = connection.ping(ClockSync.ping(7, 1.5));
+        assertTrue(pong.startsWith(ClockSync.PONG_PREFIX + "7:1.5:"));
+    }
+
+    /**
+     * 测试 JOIN-ACK 不携带 UDP 端口，房间已满时与 TCP 一样被拒绝
+     */
+    @Test
+    public void testJoinUsesRoomsWithoutUdp() throws Exception {
+        MultiReactor reactor = new MultiReactor(freePort(), 1, 50);
+        reactor.enableUdp(0);
+        RoomManager rooms = new RoomManager(1, 1, 60, room -> new Room.Simulation() {
+            @Override
+            public void onJoin(String addressId, String playerName) {
+            }
+
+            @Override
+            public void onLeave(String addressId) {
+            }
+
+            @Override
+            public Record step(float deltaTime) {
+                return null;
+            }
+        });
+        NetState.setRoomManager(rooms);
+        try {
+            startServer(reactor);
+            LoopbackTransport loopback = server.getLoopbackTransport();
+            String ack = loopback.connect().join("A@arena");
+            assertTrue(ack.startsWith("JOIN-ACK ROOM:arena"));
+            assertFalse("回环连接不使用 UDP", ack.contains("UDP:"));
+            assertEquals("JOIN-REJECT ROOM-FULL\n", loopback.connect().join("B@arena"));
+        } finally {
+            rooms.stop();
+        }
+    }
+
+    /**
+     * 测试客户端断开后会话被移除，服务端停止时本地客户端收到连接关闭
+     */
+    @Test
+    public void testDisconnectAndServerStop() throws Exception {
+        startServer(new MultiReactor(freePort(), 1, 50));
+        LoopbackTransport loopback = server.getLoopbackTransport();
+
+        NioClient first = new NioClient();
+        assertTrue(first.connectLocal(server));
+        String address = first.getMyAddressId();
+        first.disconnect();
+        assertFalse(first.isConnected());
+        assertFalse(NetState.hasClientAddress(address));
+        assertEquals(0, loopback.getConnectionCount());
+        assertEquals(0, NetState.getClientCount());
+
+        client = new NioClient();
+        assertTrue(client.connectLocal(server));
+        assertTrue(client.isConnected());
+        server.stop();
+        assertFalse("服务端停止后本地连接应该关闭", client.isConnected());
+        assertFalse(new NioClient().connectLocal(server));
+    }
+
+    // ========== 辅助方法 ==========
+
+    private void startServer(GameServer gameServer) {
+        server = gameServer;
+        server.start();
+    }
+
+    private static int freePort() throws Exception {
+        NetworkTestSupport.assumeLoopbackSocketsAllowed();
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Record createRecord() {
+        Record record = new Record();
+        record.setRecordType("object_move");
+        record.setServerTime(NetState.serverTime());
+        GameObjectRecord o = new GameObjectRecord();
+        o.id = "obj";
+        o.netId = 1;
+        record.getGameObjectsMove().add(o);
+        return record;
+    }
+
+    private interface Condition {
+        boolean check();
+    }
+
+    private static boolean waitFor(Condition condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.check()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.check();
+    }
+}
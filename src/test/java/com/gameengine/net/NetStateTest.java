@@ -0,0 +1,224 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.InputRecord;
+import com.gameengine.game.Record;
+
+/**
+ * NetState 无锁共享状态的测试用例
+ * 测试快照冻结发布、会话顺序、按会话的输入槽以及并发读写
+ */
+public class NetStateTest {
+
+    @Before
+    public void setUp() {
+        NetState.reset();
+    }
+
+    @After
+    public void tearDown() {
+        NetState.reset();
+    }
+
+    /**
+     * 测试发布的快照被冻结，模拟线程无法再修改已发布的快照
+     */
+    @Test
+    public void testPublishedRecordIsSealed() {
+        Record record = createRecord(1);
+        NetState.publishRecords(record);
+
+        assertSame(record, NetState.getCurrentRecords());
+        assertTrue(record.isSealed());
+        try {
+            record.getGameObjectsMove().add(new GameObjectRecord());
+            fail("已发布的快照不应该再被修改");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    /**
+     * 测试会话快照按连接顺序返回，断开后移除会话和输入
+     */
+    @Test
+    public void testSessionsKeepConnectionOrder() {
+        for (int i = 0; i < 20; i++) {
+            NetState.addClientAddress(new InetSocketAddress("127.0.0.1", 10000 + i));
+        }
+        // 重复添加不改变顺序
+        NetState.addClientAddress(new InetSocketAddress("127.0.0.1", 10000));
+
+        List<String> addresses = NetState.getClientAddressesSnapshot();
+        assertEquals(20, addresses.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(new InetSocketAddress("127.0.0.1", 10000 + i).toString(), addresses.get(i));
+        }
+
+        InetSocketAddress first = new InetSocketAddress("127.0.0.1", 10000);
+        NetState.markUdpClient(first.toString());
+        assertTrue(NetState.isUdpClient(first.toString()));
+        InputRecord input = new InputRecord();
+        input.addressId = first.toString();
+        NetState.updateClientInput(input);
+
+        NetState.removeClientAddress(first);
+        assertFalse(NetState.hasClientAddress(first.toString()));
+        assertFalse(NetState.isUdpClient(first.toString()));
+        assertNull(NetState.getClientInput(first.toString()));
+        assertEquals(19, NetState.getClientAddressCount());
+
+        // 已断开的会话不能再登记 UDP
+        NetState.markUdpClient(first.toString());
+        assertFalse(NetState.isUdpClient(first.toString()));
+    }
+
+    /**
+     * 测试 UDP 登记必须出示 JOIN-ACK 中的令牌，且来自 TCP 对端的同一 IP
+     */
+    @Test
+    public void testUdpHelloRequiresTokenAndPeerIp() throws Exception {
+        int port = NetState.getUdpPort();
+        NetState.setUdpPort(9999);
+        try {
+            InetSocketAddress peer = new InetSocketAddress("127.0.0.1", 10000);
+            NetState.addClientAddress(peer);
+            NetState.addClientAddress(new InetSocketAddress("127.0.0.1", 10001));
+            NetState.addClientSession("loopback-1");
+            String session = peer.toString();
+            String token = NetState.udpToken(session);
+            assertEquals("JOIN-ACK UDP:9999 TOKEN:" + token + "\n", NetState.join(session, "Player"));
+            assertNotEquals("每个会话的令牌不同", token, NetState.udpToken(new InetSocketAddress("127.0.0.1", 10001).toString()));
+
+            InetAddress local = InetAddress.getByName("127.0.0.1");
+            assertTrue(NetState.acceptUdpHello(session, token, local));
+            assertFalse(NetState.acceptUdpHello(session, null, local));
+            assertFalse(NetState.acceptUdpHello(session, token.substring(1) + "0", local));
+            assertFalse("来源 IP 与 TCP 对端不同", NetState.acceptUdpHello(session, token,
+                    InetAddress.getByName("10.0.0.1")));
+            assertFalse("回环会话不使用 UDP", NetState.acceptUdpHello("loopback-1",
+                    NetState.udpToken("loopback-1"), local));
+
+            NetState.removeClientAddress(peer);
+            assertFalse(NetState.acceptUdpHello(session, token, local));
+        } finally {
+            NetState.setUdpPort(port);
+        }
+    }
+
+    /**
+     * 测试每个会话的输入槽：最新输入、清除输入以及按需创建的输入帧队列
+     */
+    @Test
+    public void testPerSessionInputSlots() {
+        assertNull(NetState.getInputQueue("/c1"));
+
+        InputRecord input = new InputRecord();
+        input.addressId = "/c1";
+        input.vx = 5;
+        NetState.updateClientInput(input);
+        assertSame(input, NetState.getClientInput("/c1"));
+        assertNull("只发送过旧格式输入时没有输入帧队列", NetState.getInputQueue("/c1"));
+        assertEquals(1, NetState.getAllClientInputs().size());
+
+        byte[] history = {(byte) InputFrames.UP, 0, 0, 0};
+        NetState.enqueueInputFrames("/c1", InputFrames.decodeLine(InputFrames.encodeLine(1, history, 1).trim(),
+                new InputFrames.Packet()));
+        InputQueue queue = NetState.getInputQueue("/c1");
+        assertNotNull(queue);
+        assertTrue(queue.consumeTick());
+        assertEquals(1, queue.getCurrentSeq());
+
+        NetState.clearClientInput("/c1");
+        assertNull(NetState.getClientInput("/c1"));
+        assertSame("清除旧格式输入不影响输入帧队列", queue, NetState.getInputQueue("/c1"));
+    }
+
+    /**
+     * 测试模拟线程发布快照、网络线程并发读取快照和写入输入时互不干扰
+     */
+    @Test
+    public void testConcurrentPublishAndInput() throws Exception {
+        final int writers = 4;
+        final int rounds = 2000;
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        final CountDownLatch done = new CountDownLatch(writers + 2);
+
+        Thread simulation = new Thread(() -> {
+            try {
+                for (int i = 0; i < rounds; i++) {
+                    NetState.publishRecords(createRecord(i));
+                    for (int w = 0; w < writers; w++) {
+                        NetState.getClientInput("/w" + w);
+                    }
+                }
+            } catch (RuntimeException e) {
+                failed.set(true);
+            } finally {
+                done.countDown();
+            }
+        });
+        Thread reader = new Thread(() -> {
+            try {
+                for (int i = 0; i < rounds; i++) {
+                    Record record = NetState.getCurrentRecords();
+                    if (record != null) {
+                        if (!record.isSealed() || record.getGameObjectsMove().size() != 1) {
+                            failed.set(true);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                failed.set(true);
+            } finally {
+                done.countDown();
+            }
+        });
+        simulation.start();
+        reader.start();
+        for (int w = 0; w < writers; w++) {
+            final String addr = "/w" + w;
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < rounds; i++) {
+                        InputRecord input = new InputRecord();
+                        input.addressId = addr;
+                        input.seq = i;
+                        NetState.updateClientInput(input);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertFalse(failed.get());
+        for (int w = 0; w < writers; w++) {
+            assertEquals(rounds - 1, NetState.getClientInput("/w" + w).seq);
+        }
+    }
+
+    // ========== 辅助方法 ==========
+
+    private static Record createRecord(int netId) {
+        Record record = new Record();
+        record.setRecordType("object_move");
+        GameObjectRecord o = new GameObjectRecord();
+        o.id = "obj";
+        o.netId = netId;
+        record.getGameObjectsMove().add(o);
+        return record;
+    }
+}
@@ -0,0 +1,232 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * NetworkBuffer 插值缓冲区的测试用例
+ * 测试按网络 ID 插值、服务端时间戳、有限外推以及写入调用方数组的采样接口
+ */
+public class NetworkBufferTest {
+
+    private static final float EPS = 1e-3f;
+    private final float[] out = new float[2];
+
+    @Before
+    public void setUp() {
+        NetworkBuffer.reset();
+    }
+
+    @After
+    public void tearDown() {
+        NetworkBuffer.reset();
+    }
+
+    /**
+     * 测试按服务端时间戳在两个样本之间插值
+     */
+    @Test
+    public void testInterpolatesOnServerTime() {
+        NetworkBuffer.pushRecord(snapshot(10.0, entity(1, 0, 0)));
+        NetworkBuffer.pushRecord(snapshot(10.1, entity(1, 100, 50)));
+
+        assertTrue(NetworkBuffer.sample(1, 10.05, out));
+        assertEquals(50, out[0], EPS);
+        assertEquals(25, out[1], EPS);
+
+        assertTrue(NetworkBuffer.sample(1, 10.025, out));
+        assertEquals(25, out[0], EPS);
+    }
+
+    /**
+     * 测试实体中途出现或消失时不会与其他实体错配
+     */
+    @Test
+    public void testEntitiesMatchedById() {
+        NetworkBuffer.pushRecord(snapshot(1.0, entity(1, 0, 0), entity(2, 500, 500)));
+        // 实体 1 消失，新实体 3 出现在列表首位
+        NetworkBuffer.pushRecord(snapshot(1.1, entity(3, 900, 900), entity(2, 600, 500)));
+
+        assertTrue(NetworkBuffer.sample(2, 1.05, out));
+        assertEquals(550, out[0], EPS);
+        assertEquals(500, out[1], EPS);
+
+        // 新实体在出现之前停在第一个样本
+        assertTrue(NetworkBuffer.sample(3, 1.05, out));
+        assertEquals(900, out[0], EPS);
+    }
+
+    /**
+     * 测试数据迟到时的外推不超过上限
+     */
+    @Test
+    public void testBoundedExtrapolation() {
+        NetworkBuffer.pushRecord(snapshot(2.0, entity(1, 0, 0)));
+        NetworkBuffer.pushRecord(snapshot(2.1, entity(1, 10, 0)));
+
+        // 速度 100/s，外推 50ms
+        assertTrue(NetworkBuffer.sample(1, 2.15, out));
+        assertEquals(15, out[0], EPS);
+
+        // 外推最多 100ms
+        assertTrue(NetworkBuffer.sample(1, 5.0, out));
+        assertEquals(20, out[0], EPS);
+    }
+
+    /**
+     * 测试离开视野后重新出现的实体不跨越空档插值
+     */
+    @Test
+    public void testGapResetsTrack() {
+        NetworkBuffer.pushRecord(snapshot(1.0, entity(1, 0, 0)));
+        NetworkBuffer.pushRecord(snapshot(3.0, entity(1, 1000, 0)));
+        assertTrue(NetworkBuffer.sample(1, 2.0, out));
+        assertEquals(1000, out[0], EPS);
+    }
+
+    /**
+     * 测试重复或过期的样本被忽略
+     */
+    @Test
+    public void testStaleSampleIgnored() {
+        NetworkBuffer.pushRecord(snapshot(1.0, entity(1, 0, 0)));
+        NetworkBuffer.pushRecord(snapshot(1.1, entity(1, 10, 0)));
+        NetworkBuffer.pushRecord(snapshot(1.05, entity(1, 999, 0)));
+        assertTrue(NetworkBuffer.sample(1, 1.05, out));
+        assertEquals(5, out[0], EPS);
+    }
+
+    /**
+     * 测试批量采样写入调用方数组，只包含最新快照中的实体并遵守数组容量
+     */
+    @Test
+    public void testSampleAllIntoCallerArrays() {
+        NetworkBuffer.pushRecord(snapshot(1.0, entity(1, 0, 0), entity(2, 0, 0), entity(3, 0, 0)));
+        NetworkBuffer.pushRecord(snapshot(1.1, entity(1, 10, 0), entity(2, 20, 0)));
+
+        int[] keys = new int[8];
+        float[] xs = new float[8];
+        float[] ys = new float[8];
+        int n = NetworkBuffer.sampleAll(1.05, keys, xs, ys);
+        assertEquals("已消失的实体不应被采样", 2, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(keys[i] == 1 ? 5 : 10, xs[i], EPS);
+        }
+
+        assertEquals(1, NetworkBuffer.sampleAll(1.05, new int[1], new float[1], new float[1]));
+    }
+
+    /**
+     * 测试长时间未出现的实体被回收
+     */
+    @Test
+    public void testStaleTracksEvicted() {
+        NetworkBuffer.pushRecord(snapshot(1.0, entity(1, 0, 0), entity(2, 0, 0)));
+        assertEquals(2, NetworkBuffer.getTrackedCount());
+        NetworkBuffer.pushRecord(snapshot(5.0, entity(2, 0, 0)));
+        assertEquals(1, NetworkBuffer.getTrackedCount());
+        assertFalse(NetworkBuffer.sample(1, 5.0, out));
+    }
+
+    /**
+     * 测试大量实体进出后哈希表仍然正确
+     */
+    @Test
+    public void testManyEntitiesChurn() {
+        for (int frame = 0; frame < 200; frame++) {
+            Record record = snapshot(frame * 0.05 + 1.0);
+            // 每帧 300 个实体，整体随帧号滑动
+            for (int id = frame * 10 + 1; id <= frame * 10 + 300; id++) {
+                record.getGameObjectsMove().add(entity(id, id, frame));
+            }
+            NetworkBuffer.pushRecord(record);
+        }
+        double last = 199 * 0.05 + 1.0;
+        for (int id = 1990 + 1; id <= 1990 + 300; id++) {
+            assertTrue("实体 " + id + " 应在缓冲区中", NetworkBuffer.sample(id, last, out));
+            assertEquals(id, out[0], EPS);
+        }
+        assertFalse(NetworkBuffer.sample(1, last, out));
+    }
+
+    /**
+     * 测试旧接口按名称返回插值结果
+     */
+    @Test
+    public void testLegacySampleByName() {
+        GameObjectRecord legacy = entity(0, 10, 20);
+        legacy.id = "Legacy";
+        NetworkBuffer.pushRecord(snapshot(0, legacy));
+        Map<String, float[]> result = NetworkBuffer.sample();
+        assertTrue(result.containsKey("Legacy"));
+        assertEquals(10, result.get("Legacy")[0], EPS);
+        assertTrue(NetworkBuffer.sample(NetworkBuffer.keyOf(legacy), NetworkBuffer.renderTime(), out));
+    }
+
+    /**
+     * 测试采样不分配内存
+     */
+    @Test
+    public void testSampleDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        org.junit.Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+
+        Record record = snapshot(1.0);
+        Record record2 = snapshot(1.1);
+        for (int id = 1; id <= 100; id++) {
+            record.getGameObjectsMove().add(entity(id, 0, 0));
+            record2.getGameObjectsMove().add(entity(id, 10, 10));
+        }
+        NetworkBuffer.pushRecord(record);
+        NetworkBuffer.pushRecord(record2);
+
+        int[] keys = new int[128];
+        float[] xs = new float[128];
+        float[] ys = new float[128];
+        for (int i = 0; i < 20000; i++) { // 预热
+            NetworkBuffer.sampleAll(1.05, keys, xs, ys);
+            NetworkBuffer.sample(1 + (i % 100), 1.05, out);
+        }
+
+        long tid = Thread.currentThread().threadId();
+        long before = mx.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < 10000; i++) {
+            NetworkBuffer.sampleAll(1.05, keys, xs, ys);
+            NetworkBuffer.sample(1 + (i % 100), 1.05, out);
+        }
+        long allocated = mx.getThreadAllocatedBytes(tid) - before;
+        System.out.println("10000 次采样分配: " + allocated + " bytes");
+        assertTrue("采样不应分配内存: " + allocated, allocated < 64 * 1024);
+    }
+
+    // ========== 辅助方法 ==========
+
+    private static GameObjectRecord entity(int netId, float x, float y) {
+        GameObjectRecord o = new GameObjectRecord();
+        o.id = "Entity";
+        o.netId = netId;
+        o.x = x;
+        o.y = y;
+        return o;
+    }
+
+    private static Record snapshot(double serverTime, GameObjectRecord... entities) {
+        Record record = new Record();
+        record.setRecordType("object_move");
+        record.setServerTime(serverTime);
+        for (GameObjectRecord e : entities) {
+            record.getGameObjectsMove().add(e);
+        }
+        return record;
+    }
+}
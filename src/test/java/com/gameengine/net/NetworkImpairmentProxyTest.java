@@ -0,0 +1,239 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * NetworkImpairmentProxy 网络损伤代理的测试用例
+ * 测试链路的延迟、带宽、丢包和乱序模型，TCP 延迟转发，以及客户端经过代理使用 UDP 快照通道
+ */
+public class NetworkImpairmentProxyTest {
+
+    private MultiReactor server;
+    private NetworkImpairmentProxy proxy;
+    private NioClient client;
+    private int serverPort;
+
+    @Before
+    public void setUp() throws Exception {
+        NetState.reset();
+    }
+
+    @After
+    public void tearDown() {
+        if (client != null) {
+            client.disconnect();
+        }
+        if (proxy != null) {
+            proxy.stop();
+        }
+        if (server != null) {
+            server.stop();
+        }
+        NetworkBuffer.reset();
+        NetState.reset();
+    }
+
+    /**
+     * 测试固定延迟和带宽限制：送达时刻 = 串行发送完成 + 传播延迟
+     */
+    @Test
+    public void testLinkDelayAndBandwidth() {
+        NetworkImpairmentProxy.Link link = new NetworkImpairmentProxy.Link("test");
+        NetworkImpairmentProxy.Profile profile = NetworkImpairmentProxy.Profile.none().delay(50).bandwidth(800);
+
+        long before = System.nanoTime();
+        long first = link.schedule(profile, 1000, false);
+        long second = link.schedule(profile, 1000, false);
+        // 800 kbps 下 1000 字节需要 10ms
+        assertTrue(first - before >= 60_000_000L);
+        assertTrue("第二个数据包要等第一个发送完", second - first >= 10_000_000L);
+        assertTrue(link.backlogNanos() > 0);
+
+        NetworkImpairmentProxy.Profile unlimited = NetworkImpairmentProxy.Profile.none().delay(50);
+        NetworkImpairmentProxy.Link fast = new NetworkImpairmentProxy.Link("fast");
+        long now = System.nanoTime();
+        long due = fast.schedule(unlimited, 100_000, false);
+        assertTrue(due - now >= 50_000_000L && due - now < 80_000_000L);
+        assertEquals(0, fast.backlogNanos());
+    }
+
+    /**
+     * 测试 UDP 按比例丢包和乱序，TCP 丢包变为重传停顿而不丢弃
+     */
+    @Test
+    public void testLinkLossAndReorder() {
+        NetworkImpairmentProxy.Profile profile = NetworkImpairmentProxy.Profile.none()
+                .loss(0.2).reorder(0.1).queueLimit(0).seed(42);
+        NetworkImpairmentProxy.Link udp = new NetworkImpairmentProxy.Link("udp");
+        int dropped = 0;
+        for (int i = 0; i < 5000; i++) {
+            if (udp.schedule(profile, 100, false) < 0) {
+                dropped++;
+            }
+        }
+        assertEquals(dropped, udp.getDropped());
+        assertTrue("丢包率应该接近 20%: " + dropped, dropped > 800 && dropped < 1200);
+        assertTrue("应该有乱序的数据报", udp.getReordered() > 250 && udp.getReordered() < 550);
+
+        NetworkImpairmentProxy.Link tcp = new NetworkImpairmentProxy.Link("tcp");
+        long now = System.nanoTime();
+        long maxDue = 0;
+        for (int i = 0; i < 100; i++) {
+            long due = tcp.schedule(profile, 1460, true);
+            assertTrue("TCP 数据不会被丢弃", due > 0);
+            maxDue = Math.max(maxDue, due);
+        }
+        assertEquals(0, tcp.getDropped());
+        assertEquals(0, tcp.getReordered());
+        assertTrue(tcp.getStalls() > 0);
+        assertTrue("丢包的分段至少等待一次重传超时", maxDue - now >= 200_000_000L);
+    }
+
+    /**
+     * 测试预设配置与按名称查找
+     */
+    @Test
+    public void testProfiles() {
+        NetworkImpairmentProxy.Profile mobile = NetworkImpairmentProxy.Profile.named("Mobile");
+        assertEquals(NetworkImpairmentProxy.Profile.Distribution.PARETO, mobile.getDistribution());
+        assertTrue(mobile.getLossRate() > 0);
+        assertTrue(mobile.getBandwidthKbps() > 0);
+        assertEquals(0, NetworkImpairmentProxy.Profile.named("none").getDelayMs(), 0);
+        assertEquals(1.0, NetworkImpairmentProxy.Profile.none().loss(3).getLossRate(), 0);
+        try {
+            NetworkImpairmentProxy.Profile.named("satellite");
+            fail("未知配置应该抛出异常");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * 测试经过代理的 TCP 往返时间包含两个方向的延迟
+     */
+    @Test
+    public void testTcpRoundTripIsDelayed() throws Exception {
+        startServer(false);
+        proxy = new NetworkImpairmentProxy(0, "127.0.0.1", serverPort,
+                NetworkImpairmentProxy.Profile.none().delay(40));
+        proxy.start();
+
+        try (SocketChannel ch = SocketChannel.open(new InetSocketAddress("127.0.0.1", proxy.getPort()))) {
+            long start = System.nanoTime();
+            write(ch, ClockSync.ping(1, 0));
+            String reply = readLine(ch);
+            long rttMs = (System.nanoTime() - start) / 1_000_000L;
+            assertTrue(reply.startsWith(ClockSync.PONG_PREFIX));
+            assertTrue("往返时间应该至少为 80ms: " + rttMs, rttMs >= 80);
+        }
+        // 写线程在数据写出之后才计数，客户端可能先读到回复
+        assertTrue(waitFor(() -> proxy.getUpstreamBytes() > 0, 1000));
+        assertTrue(waitFor(() -> proxy.getDownstreamBytes() > 0, 1000));
+    }
+
+    /**
+     * 测试客户端经过代理加入：使用服务端看到的会话地址，UDP 快照也经过代理
+     */
+    @Test
+    public void testClientThroughProxyUsesUdp() throws Exception {
+        startServer(true);
+        proxy = new NetworkImpairmentProxy(0, "127.0.0.1", serverPort,
+                NetworkImpairmentProxy.Profile.none().delay(5));
+        proxy.enableUdp(0);
+        proxy.start();
+
+        client = new NioClient();
+        assertTrue(client.connect("127.0.0.1", proxy.getPort()));
+        assertTrue(client.join("ProxyPlayer"));
+        assertTrue("客户端应该使用服务端看到的会话地址",
+                NetState.hasClientAddress(client.getMyAddressId()));
+
+        client.startStateReceiveLoop();
+        NetState.publishRecords(createRecord());
+        assertTrue(waitFor(() -> client.isUdpActive(), 3000));
+        assertEquals(1, proxy.getUdpClientCount());
+        assertTrue(NetState.isUdpClient(client.getMyAddressId()));
+    }
+
+    /**
+     * 测试 JOIN-ACK 中会话地址的解析
+     */
+    @Test
+    public void testParseSession() {
+        assertEquals("/127.0.0.1:5000", NioClient.parseSession("JOIN-ACK UDP:9999 SESSION:/127.0.0.1:5000\n"));
+        assertEquals(9999, NioClient.parseUdpPort("JOIN-ACK UDP:9999 SESSION:/127.0.0.1:5000\n"));
+        assertNull(NioClient.parseSession("JOIN-ACK\n"));
+    }
+
+    // ========== 辅助方法 ==========
+
+    private void startServer(boolean udp) throws Exception {
+        NetworkTestSupport.assumeLoopbackSocketsAllowed();
+        try (ServerSocket socket = new ServerSocket(0)) {
+            serverPort = socket.getLocalPort();
+        }
+        server = new MultiReactor(serverPort, 1, 50);
+        if (udp) {
+            server.enableUdp(0);
+        }
+        server.start();
+        // 主 Reactor 在自己的线程上绑定端口
+        Thread.sleep(300);
+    }
+
+    private static void write(SocketChannel ch, String message) throws IOException {
+        ByteBuffer out = ByteBuffer.wrap(message.getBytes());
+        while (out.hasRemaining()) ch.write(out);
+    }
+
+    private static String readLine(SocketChannel ch) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        ByteBuffer in = ByteBuffer.allocate(1);
+        while (ch.read(in) > 0) {
+            char c = (char) in.get(0);
+            if (c == '\n') {
+                break;
+            }
+            sb.append(c);
+            in.clear();
+        }
+        return sb.toString();
+    }
+
+    private static Record createRecord() {
+        Record record = new Record();
+        record.setRecordType("object_move");
+        GameObjectRecord o = new GameObjectRecord();
+        o.id = "obj";
+        o.netId = 1;
+        record.getGameObjectsMove().add(o);
+        return record;
+    }
+
+    private interface Condition {
+        boolean check();
+    }
+
+    private static boolean waitFor(Condition condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.check()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.check();
+    }
+}
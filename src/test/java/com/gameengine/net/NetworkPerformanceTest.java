@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -28,6 +29,7 @@ import static org.junit.Assert.*;
  * 3. NetState - 状态管理并发性能
  * 4. NioClient - 客户端连接和数据处理性能
  * 5. 综合性能测试 - 端到端系统性能
+ * 6. 损伤网络（NetworkImpairmentProxy）下的插值质量和带宽
  */
 public class NetworkPerformanceTest {
     
@@ -270,7 +272,7 @@ public class NetworkPerformanceTest {
         
         // 设置测试用的Record
         Record testRecord = createTestRecord(30);
-        NetState.currentRecords = testRecord;
+        NetState.publishRecords(testRecord);
         
         ExecutorService executor = Executors.newFixedThreadPool(clientCount);
         CountDownLatch latch = new CountDownLatch(clientCount);
@@ -399,7 +401,7 @@ public class NetworkPerformanceTest {
         
         // 设置游戏状态
         Record gameRecord = createTestRecord(40);
-        NetState.currentRecords = gameRecord;
+        NetState.publishRecords(gameRecord);
         
         ExecutorService executor = Executors.newFixedThreadPool(clientCount);
         CountDownLatch latch = new CountDownLatch(clientCount);
@@ -559,6 +561,122 @@ public class NetworkPerformanceTest {
         assertTrue("内存使用应该 < 50MB", memoryUsed < 50 * 1024 * 1024);
     }
     
+    /**
+     * 测试7: 损伤网络下的插值质量和带宽
+     * 客户端经过 NetworkImpairmentProxy 连接服务端，实体匀速运动，
+     * 比较插值位置与渲染时刻的真实位置，统计误差、卡顿帧和下行带宽
+     */
+    @Test
+    public void testInterpolationUnderImpairedNetwork() throws Exception {
+        NetworkTestSupport.assumeLoopbackSocketsAllowed();
+        System.out.println("\n========== 测试7: 损伤网络下的插值质量 ==========");
+        
+        String[] profiles = {"lan", "mobile"};
+        float speed = 100f; // 每秒移动的距离
+        
+        for (String name : profiles) {
+            NetState.reset();
+            NetworkBuffer.reset();
+            int port;
+            try (java.net.ServerSocket socket = new java.net.ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            MultiReactor server = new MultiReactor(port, 1, 30);
+            server.enableUdp(0);
+            NetworkImpairmentProxy proxy = new NetworkImpairmentProxy(0, HOST, port,
+                    NetworkImpairmentProxy.Profile.named(name).seed(7));
+            proxy.enableUdp(0);
+            NioClient client = new NioClient();
+            AtomicBoolean publishing = new AtomicBoolean(true);
+            Thread publisher = new Thread(() -> {
+                // 服务端模拟：30Hz 发布匀速运动的实体
+                while (publishing.get()) {
+                    Record record = new Record();
+                    record.setRecordType("object_move");
+                    double t = NetState.serverTime();
+                    record.setServerTime(t);
+                    GameObjectRecord entity = new GameObjectRecord();
+                    entity.id = "Mover";
+                    entity.netId = 1;
+                    entity.x = (float) (t * speed);
+                    record.getGameObjectsMove().add(entity);
+                    NetState.publishRecords(record);
+                    try {
+                        Thread.sleep(33);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            
+            try {
+                server.start();
+                Thread.sleep(300);
+                proxy.start();
+                publisher.start();
+                assertTrue(client.connect(HOST, proxy.getPort()));
+                assertTrue(client.join("Impaired-" + name));
+                client.startStateReceiveLoop();
+                
+                // 预热：等待时钟同步和插值延迟收敛
+                Thread.sleep(1500);
+                long bytesBefore = proxy.getDownstreamBytes();
+                long sampleStart = System.currentTimeMillis();
+                
+                GameObjectRecord key = new GameObjectRecord();
+                key.netId = 1;
+                int keyOf = NetworkBuffer.keyOf(key);
+                float[] out = new float[2];
+                int samples = 0;
+                int stalls = 0;
+                double errorSum = 0;
+                double errorMax = 0;
+                float lastX = Float.NaN;
+                while (System.currentTimeMillis() - sampleStart < 1500) {
+                    double renderTime = NetworkBuffer.renderTime();
+                    if (NetworkBuffer.sample(keyOf, renderTime, out)) {
+                        double error = Math.abs(out[0] - renderTime * speed);
+                        errorSum += error;
+                        errorMax = Math.max(errorMax, error);
+                        if (out[0] == lastX) {
+                            stalls++; // 位置没有前进，画面卡顿
+                        }
+                        lastX = out[0];
+                        samples++;
+                    }
+                    Thread.sleep(16);
+                }
+                long elapsed = System.currentTimeMillis() - sampleStart;
+                double downKbps = (proxy.getDownstreamBytes() - bytesBefore) * 8.0 / elapsed;
+                double meanError = samples > 0 ? errorSum / samples : Double.NaN;
+                
+                System.out.println("网络配置: " + name + " (" + proxy.getProfile() + ")");
+                System.out.println("  UDP 快照: " + client.isUdpActive() + ", RTT: "
+                        + String.format("%.1f", client.getRttMillis()) + "ms, 插值延迟: "
+                        + String.format("%.1f", client.getInterpolationDelayMillis()) + "ms");
+                System.out.println("  采样帧数: " + samples + ", 卡顿帧: " + stalls
+                        + ", 平均误差: " + String.format("%.2f", meanError)
+                        + ", 最大误差: " + String.format("%.2f", errorMax));
+                System.out.println("  下行带宽: " + String.format("%.1f", downKbps) + " kbps, "
+                        + proxy.getStatsSummary());
+                
+                assertTrue(name + " 下应该能插值出实体位置", samples > 0);
+                assertTrue(name + " 下行应该有数据", downKbps > 0);
+                if ("lan".equals(name)) {
+                    assertTrue("局域网下插值误差应该很小: " + meanError, meanError < speed * 0.1);
+                }
+            } finally {
+                publishing.set(false);
+                publisher.interrupt();
+                client.disconnect();
+                proxy.stop();
+                server.stop();
+                NetworkBuffer.reset();
+                NetState.reset();
+            }
+        }
+    }
+    
     // ========== 辅助方法 ==========
     
     /**
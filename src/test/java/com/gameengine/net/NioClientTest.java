@@ -182,7 +182,7 @@ public class NioClientTest {
         
         // 设置一个测试Record供服务器广播
         Record testRecord = createTestRecord();
-        NetState.currentRecords = testRecord;
+        NetState.publishRecords(testRecord);
         
         // 启动状态接收循环
         client.startStateReceiveLoop();
@@ -190,7 +190,7 @@ public class NioClientTest {
         // 等待服务器广播（至少50ms一次）
         Thread.sleep(150);
         
-        // 验证状态被接收（通过检查NetState.currentRecords是否更新）
+        // 验证状态接收循环已启动
         // 注意：由于是异步的，这里只验证循环启动成功
         assertTrue("客户端应该仍然连接", client.isConnected());
     }
@@ -339,7 +339,7 @@ public class NioClientTest {
         
         // 4. 启动状态接收循环
         Record testRecord = createTestRecord();
-        NetState.currentRecords = testRecord;
+        NetState.publishRecords(testRecord);
         client.startStateReceiveLoop();
         Thread.sleep(150);
         
@@ -254,7 +254,7 @@ public class NioServerTest {
         
         // 设置游戏状态
         Record testRecord = createTestRecord();
-        NetState.currentRecords = testRecord;
+        NetState.publishRecords(testRecord);
         
         try (SocketChannel channel = SocketChannel.open()) {
             channel.configureBlocking(true);
@@ -446,7 +446,7 @@ public class NioServerTest {
         Thread.sleep(200);
         
         // 设置空状态
-        NetState.currentRecords = null;
+        NetState.publishRecords(null);
         
         try (SocketChannel channel = SocketChannel.open()) {
             channel.configureBlocking(true);
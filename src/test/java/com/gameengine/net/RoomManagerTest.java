@@ -0,0 +1,297 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.InputRecord;
+import com.gameengine.game.Record;
+
+/**
+ * RoomManager 多房间管理的测试用例
+ * 测试匹配、命名房间、容量、离开后关闭房间、输入隔离、分片均衡以及按房间广播快照
+ */
+public class RoomManagerTest {
+
+    private RoomManager manager;
+    private final List<StubSimulation> simulations = new ArrayList<>();
+
+    /**
+     * 测试用模拟：记录回调次数，每帧发布一个以房间名为 id 的实体
+     */
+    private static final class StubSimulation implements Room.Simulation {
+        final Room room;
+        final AtomicInteger joins = new AtomicInteger();
+        final AtomicInteger updates = new AtomicInteger();
+        volatile boolean closed = false;
+        volatile String updateThread;
+
+        StubSimulation(Room room) {
+            this.room = room;
+        }
+
+        @Override
+        public void onJoin(String addressId, String playerName) {
+            joins.incrementAndGet();
+        }
+
+        @Override
+        public void onLeave(String addressId) {
+        }
+
+        @Override
+        public Record step(float deltaTime) {
+            updates.incrementAndGet();
+            updateThread = Thread.currentThread().getName();
+            Record record = new Record();
+            record.setRecordType("object_move");
+            GameObjectRecord o = new GameObjectRecord();
+            o.id = room.getName();
+            o.netId = 1;
+            record.getGameObjectsMove().add(o);
+            return record;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        NetState.reset();
+        manager = new RoomManager(2, 2, 60, room -> {
+            StubSimulation sim = new StubSimulation(room);
+            synchronized (simulations) {
+                simulations.add(sim);
+            }
+            return sim;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        manager.stop();
+        NetState.reset();
+    }
+
+    /**
+     * 测试不指定房间时先填满已有的匹配房间，满员后创建新房间
+     */
+    @Test
+    public void testMatchmakingFillsRooms() {
+        Room a = manager.join("/c1", "P1", null);
+        Room b = manager.join("/c2", "P2", null);
+        Room c = manager.join("/c3", "P3", null);
+
+        assertNotNull(a);
+        assertSame(a, b);
+        assertTrue(a.isFull());
+        assertNotSame(a, c);
+        assertTrue(c.isMatchmade());
+        assertEquals(2, manager.getRoomCount());
+        assertSame(c, manager.roomOf("/c3"));
+    }
+
+    /**
+     * 测试命名房间：同名加入同一房间，满员后拒绝，匹配不会进入命名房间
+     */
+    @Test
+    public void testNamedRoomsAndCapacity() {
+        Room r1 = manager.join("/c1", "P1", "arena");
+        Room r2 = manager.join("/c2", "P2", "arena");
+        assertSame(r1, r2);
+        assertEquals("arena", r1.getName());
+        assertFalse(r1.isMatchmade());
+
+        assertNull("命名房间满员后应该拒绝", manager.join("/c3", "P3", "arena"));
+        assertNull(manager.roomOf("/c3"));
+
+        Room matched = manager.join("/c4", "P4", null);
+        assertNotSame(r1, matched);
+    }
+
+    /**
+     * 测试最后一名玩家离开后房间被关闭并移除
+     */
+    @Test
+    public void testLeaveClosesEmptyRoom() {
+        Room room = manager.join("/c1", "P1", "solo");
+        manager.join("/c2", "P2", "solo");
+        StubSimulation sim = simulations.get(0);
+
+        manager.leave("/c1");
+        assertEquals(1, manager.getRoomCount());
+        assertFalse(room.isClosed());
+
+        manager.leave("/c2");
+        assertEquals(0, manager.getRoomCount());
+        assertNull(manager.roomOf("/c2"));
+        assertTrue("未启动模拟线程时房间应该立即关闭", room.isClosed());
+        assertTrue(sim.closed);
+    }
+
+    /**
+     * 测试 NetState 按会话把 JOIN、输入帧和旧格式输入路由到各自的房间
+     */
+    @Test
+    public void testNetStateRoutesJoinAndInput() {
+        NetState.setRoomManager(manager);
+        assertEquals("JOIN-ACK ROOM:red\n", NetState.join("/c1", "P1@red"));
+        assertEquals("JOIN-ACK ROOM:blue\n", NetState.join("/c2", "P2@blue"));
+        assertTrue(NetState.join("/c3", "P3").startsWith("JOIN-ACK ROOM:match-"));
+        manager.join("/c4", "P4", "red");
+        assertEquals("JOIN-REJECT ROOM-FULL\n", NetState.join("/c5", "P5@red"));
+
+        byte[] history = {(byte) InputFrames.UP, 0, 0, 0};
+        NetState.enqueueInputFrames("/c1", InputFrames.decodeLine(InputFrames.encodeLine(1, history, 1).trim(),
+                new InputFrames.Packet()));
+        Room red = manager.getRoom("red");
+        Room blue = manager.getRoom("blue");
+        assertNotNull(red.getInputQueue("/c1"));
+        assertNull(blue.getInputQueue("/c1"));
+        assertSame(red.getInputQueue("/c1"), NetState.getInputQueue("/c1"));
+
+        InputRecord input = new InputRecord();
+        input.addressId = "/c2";
+        input.vx = 10;
+        NetState.updateClientInput(input);
+        assertSame(input, blue.getClientInput("/c2"));
+        assertNull("房间内的输入不应进入全局输入表", NetState.getClientInput("/c2"));
+
+        // 断开连接时离开房间
+        NetState.removeClientAddress(new TestAddress("/c2"));
+        assertNull(manager.getRoom("blue"));
+    }
+
+    /**
+     * 测试未设置 RoomManager 时 JOIN 保持原有的回复格式
+     */
+    @Test
+    public void testLegacyJoinWithoutRooms() {
+        assertEquals("JOIN-ACK\n", NetState.join("/c1", "P1@red"));
+        NetState.setUdpPort(9999);
+        assertEquals("JOIN-ACK UDP:9999\n", NetState.join("/c1", "P1"));
+        NetState.setUdpPort(0);
+    }
+
+    /**
+     * 测试房间均匀分布在模拟线程上，由所属线程推进并发布各自的快照
+     */
+    @Test
+    public void testRoomsShardedAcrossSimulationThreads() throws Exception {
+        manager.start();
+        for (int i = 0; i < 4; i++) {
+            manager.join("/c" + i, "P" + i, "room" + i);
+        }
+        SimulationPool pool = manager.getSimulationPool();
+        assertEquals(2, pool.getRoomCount(0));
+        assertEquals(2, pool.getRoomCount(1));
+
+        assertTrue(waitFor(() -> {
+            for (StubSimulation sim : simulations) {
+                if (sim.updates.get() < 3) return false;
+            }
+            return true;
+        }, 3000));
+        for (StubSimulation sim : simulations) {
+            assertEquals(1, sim.joins.get());
+            assertTrue(sim.updateThread.startsWith("RoomSim-"));
+            Room room = sim.room;
+            assertEquals(room.getName(), room.getCurrentRecords().getGameObjectsMove().get(0).id);
+        }
+
+        NetState.setRoomManager(manager);
+        assertEquals("room2", NetState.snapshotFor("/c2").getGameObjectsMove().get(0).id);
+        assertNull("未加入房间的会话使用全局快照", NetState.snapshotFor("/other"));
+
+        // 房间在自己的模拟线程上关闭
+        manager.leave("/c0");
+        StubSimulation first = simulations.get(0);
+        assertTrue(waitFor(() -> first.closed, 3000));
+        assertEquals(3, pool.getRoomCount(0) + pool.getRoomCount(1));
+    }
+
+    /**
+     * 测试同一个服务端上不同房间的客户端只收到自己房间的快照
+     */
+    @Test
+    public void testClientsReceiveOwnRoomSnapshots() throws Exception {
+        NetworkTestSupport.assumeLoopbackSocketsAllowed();
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        manager.start();
+        NetState.setRoomManager(manager);
+        MultiReactor server = new MultiReactor(port, 2, 50);
+        NioClient red = new NioClient();
+        NioClient blue = new NioClient();
+        try {
+            server.start();
+            Thread.sleep(300);
+            assertTrue(red.connect("127.0.0.1", port));
+            assertTrue(blue.connect("127.0.0.1", port));
+            assertTrue(red.join("R", "red"));
+            assertTrue(blue.join("B", "blue"));
+            assertEquals("red", red.getRoomName());
+            assertEquals("blue", blue.getRoomName());
+            red.startStateReceiveLoop();
+            blue.startStateReceiveLoop();
+
+            assertTrue(waitFor(() -> red.getLatestRecord() != null && blue.getLatestRecord() != null, 3000));
+            assertEquals("red", red.getLatestRecord().getGameObjectsMove().get(0).id);
+            assertEquals("blue", blue.getLatestRecord().getGameObjectsMove().get(0).id);
+        } finally {
+            red.disconnect();
+            blue.disconnect();
+            server.stop();
+        }
+    }
+
+    // ========== 辅助方法 ==========
+
+    /**
+     * toString 返回固定会话地址的 SocketAddress
+     */
+    private static final class TestAddress extends InetSocketAddress {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+
+        TestAddress(String id) {
+            super(0);
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    private interface Condition {
+        boolean check();
+    }
+
+    private static boolean waitFor(Condition condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.check()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.check();
+    }
+}
@@ -0,0 +1,172 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.gameengine.game.Record;
+
+/**
+ * TickScheduler 快照广播调度器的测试用例
+ * 测试发布驱动、频率限制和延迟统计
+ */
+public class TickSchedulerTest {
+
+    private TickScheduler scheduler;
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            NetState.removeTickScheduler(scheduler);
+            scheduler.stop();
+        }
+        NetState.reset();
+    }
+
+    /**
+     * 测试非法频率
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRate() {
+        new TickScheduler(0);
+    }
+
+    /**
+     * 测试周期计算
+     */
+    @Test
+    public void testPeriod() {
+        scheduler = new TickScheduler(60);
+        assertEquals(60, scheduler.getSnapshotRateHz());
+        assertEquals(1_000_000_000L / 60, scheduler.getPeriodNanos());
+        assertEquals(TickScheduler.DEFAULT_SNAPSHOT_RATE_HZ, new TickScheduler().getSnapshotRateHz());
+    }
+
+    /**
+     * 测试没有发布时不会触发广播
+     */
+    @Test
+    public void testNoBroadcastWithoutPublish() throws Exception {
+        scheduler = new TickScheduler(60);
+        AtomicInteger fired = new AtomicInteger();
+        scheduler.addListener(fired::incrementAndGet);
+        scheduler.start();
+
+        Thread.sleep(150);
+        assertEquals("没有新快照时不应广播", 0, fired.get());
+        assertEquals(0, scheduler.getBroadcastCount());
+    }
+
+    /**
+     * 测试发布后立即触发广播
+     */
+    @Test
+    public void testPublishTriggersBroadcast() throws Exception {
+        scheduler = new TickScheduler(20);
+        CountDownLatch latch = new CountDownLatch(1);
+        scheduler.addListener(latch::countDown);
+        scheduler.start();
+
+        scheduler.onPublish();
+        assertTrue("发布后应很快触发广播", latch.await(500, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.getBroadcastCount());
+        assertTrue("延迟应该被记录", scheduler.getMaxLatenessMillis() >= 0);
+        assertTrue("首次广播的延迟应远小于一个周期", scheduler.getLastLatenessMillis() < 50);
+    }
+
+    /**
+     * 测试高频发布时广播次数受快照频率限制
+     */
+    @Test
+    public void testRateLimitedBroadcast() throws Exception {
+        scheduler = new TickScheduler(20);
+        AtomicInteger fired = new AtomicInteger();
+        scheduler.addListener(fired::incrementAndGet);
+        scheduler.start();
+
+        // 以约 500 Hz 发布 300ms
+        long end = System.currentTimeMillis() + 300;
+        while (System.currentTimeMillis() < end) {
+            scheduler.onPublish();
+            Thread.sleep(2);
+        }
+        Thread.sleep(120);
+
+        int count = fired.get();
+        // 20 Hz 下 300ms 约 6~8 次广播
+        assertTrue("应该有广播发生: " + count, count >= 4);
+        assertTrue("广播次数不应超过快照频率: " + count, count <= 9);
+        assertEquals(count, scheduler.getBroadcastCount());
+        assertTrue(scheduler.getAverageLatenessMillis() <= scheduler.getMaxLatenessMillis());
+    }
+
+    /**
+     * 测试 NetState.publishRecords 会通知已注册的调度器
+     */
+    @Test
+    public void testNetStatePublishNotifiesScheduler() throws Exception {
+        scheduler = new TickScheduler(30);
+        CountDownLatch latch = new CountDownLatch(1);
+        scheduler.addListener(latch::countDown);
+        scheduler.start();
+        NetState.addTickScheduler(scheduler);
+
+        Record record = new Record();
+        NetState.publishRecords(record);
+
+        assertSame(record, NetState.getCurrentRecords());
+        assertTrue("发布快照后应触发广播", latch.await(500, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 测试 stop 等待调度线程退出，之后立即 start 能启动新的调度线程
+     */
+    @Test
+    public void testRestartAfterStop() throws Exception {
+        scheduler = new TickScheduler(60);
+        AtomicReference<Thread> dispatcher = new AtomicReference<>();
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch second = new CountDownLatch(2);
+        scheduler.addListener(() -> {
+            dispatcher.set(Thread.currentThread());
+            first.countDown();
+            second.countDown();
+        });
+        scheduler.start();
+        scheduler.onPublish();
+        assertTrue(first.await(500, TimeUnit.MILLISECONDS));
+        Thread old = dispatcher.get();
+
+        scheduler.stop();
+        assertFalse("stop 返回时调度线程应已退出", old.isAlive());
+        scheduler.start();
+        assertTrue(scheduler.isRunning());
+        scheduler.onPublish();
+        assertTrue("重新启动后应继续广播", second.await(500, TimeUnit.MILLISECONDS));
+        assertNotSame(old, dispatcher.get());
+    }
+
+    /**
+     * 测试移除回调后不再被调用
+     */
+    @Test
+    public void testRemoveListener() throws Exception {
+        scheduler = new TickScheduler(60);
+        AtomicInteger fired = new AtomicInteger();
+        Runnable listener = fired::incrementAndGet;
+        scheduler.addListener(listener);
+        scheduler.removeListener(listener);
+        scheduler.start();
+
+        scheduler.onPublish();
+        Thread.sleep(100);
+        assertEquals(0, fired.get());
+        assertEquals("即使没有回调也应计数", 1, scheduler.getBroadcastCount());
+    }
+}
@@ -0,0 +1,300 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * MultiReactor 与 VirtualThreadServer 的对比基准
+ * 默认只在 10 个连接下运行，设置 -Dcom.gameengine.net.benchmark.full=true 时在 10、100、1000 个连接下测量：
+ * 1. 全部连接完成 JOIN 的耗时
+ * 2. PING/PONG 往返时延（p50/p99），期间服务端持续以 20 Hz 广播快照
+ * 3. 每个连接每秒收到的快照数
+ * 4. 服务端新增的平台线程数
+ * 客户端统一使用阻塞 SocketChannel + 虚拟线程，保证两种服务端面对相同的负载
+ */
+public class TransportBenchmarkTest {
+
+    // 完整规模耗时较长，默认的测试只跑最小规模
+    private static final int[] CONNECTION_COUNTS = Boolean.getBoolean("com.gameengine.net.benchmark.full")
+            ? new int[]{10, 100, 1000} : new int[]{10};
+    private static final long BIND_TIMEOUT_MS = 5000;
+    private static final int PING_ROUNDS = 5;
+    private static final long SNAPSHOT_WINDOW_MS = 1000;
+    // 同时进行中的连接数上限，避免超过监听队列长度（默认 50）导致 SYN 重传
+    private static final int MAX_CONCURRENT_CONNECTS = 32;
+    private static final long JOIN_TIMEOUT_MS = 60_000;
+
+    private GameServer server;
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop();
+        }
+        NetState.reset();
+    }
+
+    /**
+     * 单次测量结果
+     */
+    private static final class Result {
+        String transport;
+        int connections;
+        int joined;
+        double joinMillis;
+        double p50RttMillis;
+        double p99RttMillis;
+        double snapshotsPerClientPerSecond;
+        int serverPlatformThreads;
+    }
+
+    /**
+     * 依次运行两种传输层并打印对比表
+     */
+    @Test
+    public void testSideBySide() throws Exception {
+        NetworkTestSupport.assumeLoopbackSocketsAllowed();
+        List<Result> results = new ArrayList<>();
+        for (int count : CONNECTION_COUNTS) {
+            results.add(run("MultiReactor", count));
+            results.add(run("VirtualThread", count));
+        }
+
+        System.out.println("\n========== 传输层对比基准 ==========");
+        System.out.println(String.format("%-14s %6s %8s %10s %10s %10s %12s %8s",
+                "transport", "conns", "joined", "join(ms)", "p50(ms)", "p99(ms)", "snap/s/conn", "threads"));
+        for (Result r : results) {
+            System.out.println(String.format("%-14s %6d %8d %10.1f %10.2f %10.2f %12.1f %8d",
+                    r.transport, r.connections, r.joined, r.joinMillis, r.p50RttMillis, r.p99RttMillis,
+                    r.snapshotsPerClientPerSecond, r.serverPlatformThreads));
+        }
+
+        for (Result r : results) {
+            assertEquals(r.transport + " 的所有连接都应该完成 JOIN", r.connections, r.joined);
+            assertTrue(r.transport + " 应该回复 PING", r.p50RttMillis > 0);
+            if (r.transport.equals("VirtualThread")) {
+                // 连接数增加时不应该创建新的平台线程
+                assertTrue("虚拟线程服务端的平台线程数应该与连接数无关", r.serverPlatformThreads < 32);
+            }
+        }
+    }
+
+    private Result run(String transport, int connections) throws Exception {
+        NetState.reset();
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        server = transport.equals("MultiReactor")
+                ? new MultiReactor(port, Math.max(1, Runtime.getRuntime().availableProcessors()), 20)
+                : new VirtualThreadServer(port, 20);
+        server.start();
+        // MultiReactor 的主 Reactor 在自己的线程上绑定端口，等待绑定完成
+        assertTrue(transport + " 应该绑定端口 " + port, server.awaitBound(BIND_TIMEOUT_MS));
+        NetState.publishRecords(createRecord(10));
+
+        Result result = new Result();
+        result.transport = transport;
+        result.connections = connections;
+
+        List<BenchClient> clients = new ArrayList<>(connections);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // 1. 连接并 JOIN
+            long start = System.nanoTime();
+            List<Future<BenchClient>> joins = new ArrayList<>(connections);
+            Semaphore connecting = new Semaphore(MAX_CONCURRENT_CONNECTS);
+            for (int i = 0; i < connections; i++) {
+                final int id = i;
+                joins.add(executor.submit(() -> {
+                    connecting.acquire();
+                    try {
+                        return BenchClient.join(port, "Bench-" + id);
+                    } finally {
+                        connecting.release();
+                    }
+                }));
+            }
+            // 监听队列溢出时内核按指数退避重传 SYN，单次连接可能需要数十秒
+            long joinDeadline = System.currentTimeMillis() + JOIN_TIMEOUT_MS;
+            for (Future<BenchClient> f : joins) {
+                try {
+                    long remaining = Math.max(1, joinDeadline - System.currentTimeMillis());
+                    BenchClient c = f.get(remaining, TimeUnit.MILLISECONDS);
+                    if (c != null) clients.add(c);
+                } catch (Exception ignored) {
+                }
+            }
+            result.joinMillis = (System.nanoTime() - start) / 1_000_000.0;
+            result.joined = clients.size();
+            for (BenchClient c : clients) {
+                executor.submit(c::readLoop);
+            }
+
+            // 2. PING/PONG 往返时延
+            double[] rtts = new double[clients.size() * PING_ROUNDS];
+            AtomicLong rttIndex = new AtomicLong();
+            CountDownLatch done = new CountDownLatch(clients.size());
+            for (BenchClient c : clients) {
+                executor.submit(() -> {
+                    try {
+                        for (int r = 0; r < PING_ROUNDS; r++) {
+                            double rtt = c.ping(r);
+                            if (rtt >= 0) rtts[(int) rttIndex.getAndIncrement()] = rtt;
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await(30, TimeUnit.SECONDS);
+            int samples = (int) Math.min(rttIndex.get(), rtts.length);
+            double[] sorted = Arrays.copyOf(rtts, samples);
+            Arrays.sort(sorted);
+            result.p50RttMillis = percentile(sorted, 0.50);
+            result.p99RttMillis = percentile(sorted, 0.99);
+
+            // 3. 快照接收速率
+            long before = 0;
+            for (BenchClient c : clients) before += c.snapshots.get();
+            Thread.sleep(SNAPSHOT_WINDOW_MS);
+            long after = 0;
+            for (BenchClient c : clients) after += c.snapshots.get();
+            result.snapshotsPerClientPerSecond = clients.isEmpty() ? 0
+                    : (after - before) * 1000.0 / SNAPSHOT_WINDOW_MS / clients.size();
+
+            // 4. 服务端平台线程数（客户端只使用虚拟线程，不计入平台线程）
+            result.serverPlatformThreads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+
+            for (BenchClient c : clients) c.close();
+        }
+        server.stop();
+        server = null;
+        return result;
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, idx)];
+    }
+
+    private static Record createRecord(int entities) {
+        Record record = new Record();
+        record.setRecordType("object_move");
+        for (int i = 0; i < entities; i++) {
+            GameObjectRecord o = new GameObjectRecord();
+            o.id = "Entity-" + i;
+            o.netId = i + 1;
+            o.x = i;
+            o.y = i;
+            record.getGameObjectsMove().add(o);
+        }
+        return record;
+    }
+
+    /**
+     * 基准客户端：阻塞 SocketChannel，读线程统计快照并转交 PONG
+     */
+    private static final class BenchClient {
+        final SocketChannel channel;
+        final AtomicLong snapshots = new AtomicLong();
+        final SynchronousQueue<Long> pongs = new SynchronousQueue<>();
+
+        BenchClient(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        static BenchClient join(int port, String name) throws IOException {
+            SocketChannel ch = SocketChannel.open(new InetSocketAddress("127.0.0.1", port));
+            ByteBuffer out = ByteBuffer.wrap(("JOIN:" + name + "\n").getBytes());
+            while (out.hasRemaining()) ch.write(out);
+            // 逐字节读到 JOIN-ACK 行结束，后续快照留给读循环
+            ByteBuffer one = ByteBuffer.allocate(1);
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                one.clear();
+                if (ch.read(one) < 0) {
+                    ch.close();
+                    return null;
+                }
+                char c = (char) one.get(0);
+                if (c == '\n') {
+                    if (line.toString().startsWith("JOIN-ACK")) return new BenchClient(ch);
+                    line.setLength(0);
+                } else {
+                    line.append(c);
+                }
+            }
+        }
+
+        void readLoop() {
+            ByteBuffer in = ByteBuffer.allocate(16384);
+            StringBuilder sb = new StringBuilder();
+            try {
+                while (channel.isOpen()) {
+                    in.clear();
+                    int n = channel.read(in);
+                    if (n < 0) return;
+                    sb.append(new String(in.array(), 0, n));
+                    int idx;
+                    while ((idx = sb.indexOf("\n")) >= 0) {
+                        String line = sb.substring(0, idx);
+                        sb.delete(0, idx + 1);
+                        if (line.startsWith(ClockSync.PONG_PREFIX)) {
+                            pongs.offer(System.nanoTime(), 1, TimeUnit.SECONDS);
+                        } else if (!line.isEmpty()) {
+                            snapshots.incrementAndGet();
+                        }
+                    }
+                }
+            } catch (IOException | InterruptedException ignored) {
+            }
+        }
+
+        /**
+         * @return 往返时延（毫秒），超时返回 -1
+         */
+        double ping(int seq) {
+            try {
+                long sent = System.nanoTime();
+                ByteBuffer out = ByteBuffer.wrap(ClockSync.ping(seq, 0).getBytes());
+                while (out.hasRemaining()) channel.write(out);
+                Long received = pongs.poll(5, TimeUnit.SECONDS);
+                return received == null ? -1 : (received - sent) / 1_000_000.0;
+            } catch (IOException | InterruptedException e) {
+                return -1;
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * UdpPacketCodec 数据报编解码的测试用例
+ * 测试报头读写、按 MTU 分片以及序号回绕比较
+ */
+public class UdpPacketCodecTest {
+
+    /**
+     * 测试小负载只生成一个数据报，并能正确读回报头
+     */
+    @Test
+    public void testSinglePacketRoundTrip() {
+        byte[] payload = "hello".getBytes();
+        ByteBuffer packet = UdpPacketCodec.single(UdpPacketCodec.KIND_HELLO, 7, payload);
+        assertEquals(UdpPacketCodec.HEADER_SIZE + payload.length, packet.remaining());
+
+        UdpPacketCodec.Header header = UdpPacketCodec.readHeader(packet, new UdpPacketCodec.Header());
+        assertNotNull(header);
+        assertEquals(UdpPacketCodec.KIND_HELLO, header.kind);
+        assertEquals(7, header.sequence);
+        assertEquals(0, header.fragmentIndex);
+        assertEquals(1, header.fragmentCount);
+        assertEquals(payload.length, packet.remaining());
+    }
+
+    /**
+     * 测试大负载按 MTU 分片，每个分片都不超过最大数据报大小
+     */
+    @Test
+    public void testFragmentRespectsMtu() {
+        byte[] payload = new byte[5000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        List<ByteBuffer> packets = UdpPacketCodec.fragment(UdpPacketCodec.KIND_SNAPSHOT, 3, payload, 1200);
+        int chunk = 1200 - UdpPacketCodec.HEADER_SIZE;
+        assertEquals((payload.length + chunk - 1) / chunk, packets.size());
+
+        int total = 0;
+        UdpPacketCodec.Header header = new UdpPacketCodec.Header();
+        for (int i = 0; i < packets.size(); i++) {
+            ByteBuffer p = packets.get(i);
+            assertTrue("分片不应超过 MTU", p.remaining() <= 1200);
+            assertNotNull(UdpPacketCodec.readHeader(p, header));
+            assertEquals(i, header.fragmentIndex);
+            assertEquals(packets.size(), header.fragmentCount);
+            assertEquals(3, header.sequence);
+            total += p.remaining();
+        }
+        assertEquals(payload.length, total);
+    }
+
+    /**
+     * 测试空负载仍生成一个数据报
+     */
+    @Test
+    public void testEmptyPayload() {
+        List<ByteBuffer> packets = UdpPacketCodec.fragment(UdpPacketCodec.KIND_SNAPSHOT, 1, new byte[0], 1200);
+        assertEquals(1, packets.size());
+        assertEquals(UdpPacketCodec.HEADER_SIZE, packets.get(0).remaining());
+    }
+
+    /**
+     * 测试超过最大分片数的负载被丢弃
+     */
+    @Test
+    public void testOversizedPayloadDropped() {
+        int chunk = 100 - UdpPacketCodec.HEADER_SIZE;
+        byte[] payload = new byte[chunk * UdpPacketCodec.MAX_FRAGMENTS + 1];
+        assertTrue(UdpPacketCodec.fragment(UdpPacketCodec.KIND_SNAPSHOT, 1, payload, 100).isEmpty());
+    }
+
+    /**
+     * 测试数据报大小不大于报头时抛出异常
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDatagramSize() {
+        UdpPacketCodec.fragment(UdpPacketCodec.KIND_SNAPSHOT, 1, new byte[10], UdpPacketCodec.HEADER_SIZE);
+    }
+
+    /**
+     * 测试非法数据报被拒绝
+     */
+    @Test
+    public void testMalformedHeader() {
+        UdpPacketCodec.Header header = new UdpPacketCodec.Header();
+        assertNull("长度不足", UdpPacketCodec.readHeader(ByteBuffer.allocate(4), header));
+
+        ByteBuffer wrongMagic = ByteBuffer.allocate(UdpPacketCodec.HEADER_SIZE);
+        wrongMagic.putShort((short) 0x1234);
+        wrongMagic.flip();
+        wrongMagic.limit(UdpPacketCodec.HEADER_SIZE);
+        assertNull("魔数错误", UdpPacketCodec.readHeader(wrongMagic, header));
+
+        ByteBuffer badIndex = ByteBuffer.allocate(UdpPacketCodec.HEADER_SIZE);
+        badIndex.putShort(UdpPacketCodec.MAGIC).put(UdpPacketCodec.VERSION).put(UdpPacketCodec.KIND_SNAPSHOT)
+                .putInt(1).putShort((short) 2).putShort((short) 2);
+        badIndex.flip();
+        assertNull("分片下标越界", UdpPacketCodec.readHeader(badIndex, header));
+    }
+
+    /**
+     * 测试序号比较支持 32 位回绕
+     */
+    @Test
+    public void testSequenceWraparound() {
+        assertTrue(UdpPacketCodec.isNewer(2, 1));
+        assertFalse(UdpPacketCodec.isNewer(1, 2));
+        assertFalse(UdpPacketCodec.isNewer(5, 5));
+        assertTrue("回绕后的小序号应更新", UdpPacketCodec.isNewer(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertTrue(UdpPacketCodec.isNewer(0, -1));
+    }
+}
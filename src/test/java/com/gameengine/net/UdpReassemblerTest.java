@@ -0,0 +1,134 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * UdpReassembler 分片重组的测试用例
+ * 测试乱序分片重组、过期数据报丢弃以及未完成负载的放弃
+ */
+public class UdpReassemblerTest {
+
+    private UdpReassembler reassembler;
+
+    @Before
+    public void setUp() {
+        reassembler = new UdpReassembler();
+    }
+
+    /**
+     * 测试单个数据报直接交付
+     */
+    @Test
+    public void testSinglePacketDelivered() {
+        byte[] out = reassembler.accept(UdpPacketCodec.single(UdpPacketCodec.KIND_SNAPSHOT, 1, "abc".getBytes()));
+        assertArrayEquals("abc".getBytes(), out);
+        assertEquals(1, reassembler.getDeliveredCount());
+        assertEquals(1, reassembler.getLastDeliveredSequence());
+    }
+
+    /**
+     * 测试分片乱序到达时仍能正确重组
+     */
+    @Test
+    public void testOutOfOrderFragmentsReassembled() {
+        byte[] payload = randomPayload(10000);
+        List<ByteBuffer> packets = UdpPacketCodec.fragment(UdpPacketCodec.KIND_SNAPSHOT, 1, payload, 512);
+        Collections.shuffle(packets, new Random(42));
+
+        byte[] out = null;
+        for (int i = 0; i < packets.size(); i++) {
+            out = reassembler.accept(packets.get(i));
+            if (i < packets.size() - 1) {
+                assertNull("分片未到齐时不应交付", out);
+            }
+        }
+        assertArrayEquals(payload, out);
+    }
+
+    /**
+     * 测试比已交付序号旧的数据报被丢弃
+     */
+    @Test
+    public void testStaleDatagramsDiscarded() {
+        assertNotNull(reassembler.accept(UdpPacketCodec.single(UdpPacketCodec.KIND_SNAPSHOT, 5, new byte[]{5})));
+        assertNull("旧序号", reassembler.accept(UdpPacketCodec.single(UdpPacketCodec.KIND_SNAPSHOT, 3, new byte[]{3})));
+        assertNull("重复序号", reassembler.accept(UdpPacketCodec.single(UdpPacketCodec.KIND_SNAPSHOT, 5, new byte[]{5})));
+        assertEquals(2, reassembler.getStaleCount());
+        assertNotNull(reassembler.accept(UdpPacketCodec.single(UdpPacketCodec.KIND_SNAPSHOT, 6, new byte[]{6})));
+        assertEquals(6, reassembler.getLastDeliveredSequence());
+    }
+
+    /**
+     * 测试新负载交付后放弃更旧的未完成负载
+     */
+    @Test
+    public void testNewerDeliveryDropsIncompleteOlder() {
+        List<ByteBuffer> older = UdpPacketCodec.fragment(UdpPacketCodec.KIND_SNAPSHOT, 10, randomPayload(3000), 1200);
+        List<ByteBuffer> newer = UdpPacketCodec.fragment(UdpPacketCodec.KIND_SNAPSHOT, 11, randomPayload(3000), 1200);
+
+        // 旧快照只到了第一个分片
+        assertNull(reassembler.accept(older.get(0)));
+        for (ByteBuffer p : newer) {
+            reassembler.accept(p);
+        }
+        assertEquals(11, reassembler.getLastDeliveredSequence());
+        assertEquals(1, reassembler.getIncompleteCount());
+
+        // 旧快照剩余分片迟到，全部丢弃
+        for (int i = 1; i < older.size(); i++) {
+            assertNull(reassembler.accept(older.get(i)));
+        }
+        assertEquals(1, reassembler.getDeliveredCount());
+    }
+
+    /**
+     * 测试重复分片不会破坏重组结果
+     */
+    @Test
+    public void testDuplicateFragmentIgnored() {
+        byte[] payload = randomPayload(2500);
+        List<ByteBuffer> packets = UdpPacketCodec.fragment(UdpPacketCodec.KIND_SNAPSHOT, 1, payload, 1200);
+        assertNull(reassembler.accept(packets.get(0)));
+        packets.get(0).rewind();
+        assertNull(reassembler.accept(packets.get(0)));
+        byte[] out = null;
+        for (int i = 1; i < packets.size(); i++) {
+            out = reassembler.accept(packets.get(i));
+        }
+        assertArrayEquals(payload, out);
+    }
+
+    /**
+     * 测试非法数据报被计数并忽略
+     */
+    @Test
+    public void testMalformedCounted() {
+        assertNull(reassembler.accept(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+        assertEquals(1, reassembler.getMalformedCount());
+        assertFalse(reassembler.hasDelivered());
+    }
+
+    /**
+     * 测试序号回绕后仍能继续交付
+     */
+    @Test
+    public void testSequenceWraparound() {
+        assertNotNull(reassembler.accept(UdpPacketCodec.single(UdpPacketCodec.KIND_SNAPSHOT, Integer.MAX_VALUE, new byte[]{1})));
+        assertNotNull(reassembler.accept(UdpPacketCodec.single(UdpPacketCodec.KIND_SNAPSHOT, Integer.MIN_VALUE, new byte[]{2})));
+        assertEquals(2, reassembler.getDeliveredCount());
+    }
+
+    private static byte[] randomPayload(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,202 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+import com.gameengine.input.InputManager;
+
+/**
+ * UdpTransport UDP 快照通道的测试用例
+ * 在回环地址上测试 UDP 端点登记、分片快照接收、UDP 输入以及回退到 TCP
+ */
+public class UdpTransportTest {
+
+    private MultiReactor server;
+    private NioClient client;
+    private int testPort;
+
+    @Before
+    public void setUp() throws Exception {
+        NetworkTestSupport.assumeLoopbackSocketsAllowed();
+        try (ServerSocket socket = new ServerSocket(0)) {
+            testPort = socket.getLocalPort();
+        }
+        NetState.reset();
+        server = new MultiReactor(testPort, 1, 50);
+        server.enableUdp(0);
+        server.start();
+        // 主 Reactor 在自己的线程上绑定端口
+        Thread.sleep(300);
+        client = new NioClient();
+    }
+
+    @After
+    public void tearDown() {
+        if (client != null) {
+            client.disconnect();
+        }
+        if (server != null) {
+            server.stop();
+        }
+        InputManager.getInstance().onKeyReleased(68);
+        NetState.reset();
+    }
+
+    /**
+     * 测试 JOIN-ACK 中 UDP 端口的解析
+     */
+    @Test
+    public void testParseUdpPort() {
+        assertEquals(9999, NioClient.parseUdpPort("JOIN-ACK UDP:9999\n"));
+        assertEquals(0, NioClient.parseUdpPort("JOIN-ACK\n"));
+        assertEquals(0, NioClient.parseUdpPort("JOIN-ACK UDP:\n"));
+        assertEquals("00ff", NioClient.parseToken("JOIN-ACK UDP:9999 TOKEN:00ff\n"));
+        assertNull(NioClient.parseToken("JOIN-ACK\n"));
+    }
+
+    /**
+     * 测试需要分片的大快照通过 UDP 完整到达客户端，且不再走 TCP
+     */
+    @Test
+    public void testFragmentedSnapshotOverUdp() throws Exception {
+        assertTrue(NetState.getUdpPort() > 0);
+        assertTrue(client.connect("127.0.0.1", testPort));
+        assertTrue(client.join("UdpPlayer"));
+        client.startStateReceiveLoop();
+
+        Record record = createRecord(300);
+        NetState.publishRecords(record);
+
+        assertTrue("应该通过 UDP 收到快照", waitFor(() -> client.isUdpActive(), 3000));
+        assertEquals(1, server.getUdpTransport().getEndpointCount());
+        assertTrue(NetState.isUdpClient(client.getMyAddressId()));
+
+        Record received = client.getLatestRecord();
+        assertSame("客户端不应覆盖服务端发布的快照", record, NetState.getCurrentRecords());
+        assertEquals(300, received.getGameObjectsMove().size());
+        assertEquals("Entity-299", received.getGameObjectsMove().get(299).id);
+        assertTrue("快照应被分片", server.getUdpTransport().getSentDatagrams() > 1);
+    }
+
+    /**
+     * 测试客户端输入帧通过 UDP 到达服务端，并以登记的会话地址为准
+     */
+    @Test
+    public void testInputOverUdp() throws Exception {
+        assertTrue(client.connect("127.0.0.1", testPort));
+        assertTrue(client.join("UdpPlayer"));
+        client.startStateReceiveLoop();
+        NetState.publishRecords(createRecord(1));
+        assertTrue(waitFor(() -> client.isUdpActive(), 3000));
+
+        InputManager.getInstance().onKeyPressed(68); // D键
+        client.startInputLoop(InputManager.getInstance());
+
+        String addr = client.getMyAddressId();
+        assertTrue("服务端应该收到 UDP 输入帧", waitFor(() -> {
+            InputQueue queue = NetState.getInputQueue(addr);
+            return queue != null && queue.consumeTick() && (queue.getCurrentBits() & InputFrames.RIGHT) != 0;
+        }, 3000));
+        assertTrue(server.getUdpTransport().getReceivedInputs() > 0);
+    }
+
+    /**
+     * 测试没有对应 TCP 会话的 HELLO 被拒绝
+     */
+    @Test
+    public void testHelloWithoutSessionRejected() throws Exception {
+        try (DatagramChannel udp = DatagramChannel.open()) {
+            udp.connect(new InetSocketAddress("127.0.0.1", NetState.getUdpPort()));
+            udp.write(UdpPacketCodec.single(UdpPacketCodec.KIND_HELLO, 0,
+                    "/127.0.0.1:1".getBytes(StandardCharsets.UTF_8)));
+        }
+        Thread.sleep(200);
+        assertEquals(0, server.getUdpTransport().getEndpointCount());
+    }
+
+    /**
+     * 测试会话地址正确但令牌错误的 HELLO 被拒绝，出示 JOIN-ACK 中的令牌后才能登记
+     */
+    @Test
+    public void testHelloRequiresSessionToken() throws Exception {
+        client.setUdpEnabled(false);
+        assertTrue(client.connect("127.0.0.1", testPort));
+        assertTrue(client.join("TokenPlayer"));
+        String session = client.getMyAddressId();
+        String token = NetState.udpToken(session);
+        assertNotNull(token);
+
+        try (DatagramChannel udp = DatagramChannel.open()) {
+            udp.connect(new InetSocketAddress("127.0.0.1", NetState.getUdpPort()));
+            udp.write(UdpPacketCodec.single(UdpPacketCodec.KIND_HELLO, 0,
+                    session.getBytes(StandardCharsets.UTF_8)));
+            udp.write(UdpPacketCodec.single(UdpPacketCodec.KIND_HELLO, 0,
+                    (session + " 0123456789abcdef0123456789abcdef").getBytes(StandardCharsets.UTF_8)));
+            Thread.sleep(200);
+            assertEquals("没有令牌或令牌错误的登记应被拒绝", 0, server.getUdpTransport().getEndpointCount());
+
+            udp.write(UdpPacketCodec.single(UdpPacketCodec.KIND_HELLO, 0,
+                    (session + " " + token).getBytes(StandardCharsets.UTF_8)));
+            assertTrue(waitFor(() -> server.getUdpTransport().getEndpointCount() == 1, 3000));
+            assertTrue(NetState.isUdpClient(session));
+        }
+    }
+
+    /**
+     * 测试客户端关闭 UDP 时快照仍然通过 TCP 到达
+     */
+    @Test
+    public void testFallbackToTcp() throws Exception {
+        client.setUdpEnabled(false);
+        assertTrue(client.connect("127.0.0.1", testPort));
+        assertTrue(client.join("TcpPlayer"));
+        client.startStateReceiveLoop();
+        NetState.publishRecords(createRecord(5));
+
+        assertTrue("应该通过 TCP 收到快照", waitFor(() -> client.getLatestRecord() != null, 3000));
+        assertFalse(client.isUdpActive());
+        assertEquals(0, server.getUdpTransport().getEndpointCount());
+    }
+
+    // ========== 辅助方法 ==========
+
+    private static Record createRecord(int entities) {
+        Record record = new Record();
+        record.setRecordType("object_move");
+        for (int i = 0; i < entities; i++) {
+            GameObjectRecord o = new GameObjectRecord();
+            o.id = "Entity-" + i;
+            o.netId = i + 1;
+            o.x = i;
+            o.y = i;
+            o.imagePath = "resources/picture/enemy_" + i + ".png";
+            record.getGameObjectsMove().add(o);
+        }
+        return record;
+    }
+
+    private interface Condition {
+        boolean check();
+    }
+
+    private static boolean waitFor(Condition condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.check()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.check();
+    }
+}
@@ -0,0 +1,175 @@
+package com.gameengine.net;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * VirtualThreadServer 虚拟线程服务端的测试用例
+ * 测试与 MultiReactor 相同的协议：JOIN、PING/PONG、输入帧、快照广播、UDP 以及断开清理
+ */
+public class VirtualThreadServerTest {
+
+    private VirtualThreadServer server;
+    private NioClient client;
+    private int testPort;
+
+    @Before
+    public void setUp() throws Exception {
+        NetworkTestSupport.assumeLoopbackSocketsAllowed();
+        try (ServerSocket socket = new ServerSocket(0)) {
+            testPort = socket.getLocalPort();
+        }
+        NetState.reset();
+        server = new VirtualThreadServer(testPort, 50);
+        client = new NioClient();
+    }
+
+    @After
+    public void tearDown() {
+        if (client != null) {
+            client.disconnect();
+        }
+        if (server != null) {
+            server.stop();
+        }
+        NetworkBuffer.reset();
+        NetState.reset();
+    }
+
+    /**
+     * 测试客户端加入、收到 TCP 快照并完成时钟同步
+     */
+    @Test
+    public void testJoinSnapshotAndClockSync() throws Exception {
+        server.start();
+        assertTrue(client.connect("127.0.0.1", testPort));
+        assertTrue(client.join("VtPlayer"));
+        client.startStateReceiveLoop();
+        assertTrue(waitFor(() -> server.getTotalConnectionCount() == 1, 3000));
+        assertTrue(waitFor(() -> NetState.getClientCount() == 1, 3000));
+
+        NetState.publishRecords(createRecord(20));
+        assertTrue("应该通过 TCP 收到快照", waitFor(() -> client.getLatestRecord() != null, 3000));
+        assertEquals(20, client.getLatestRecord().getGameObjectsMove().size());
+        assertTrue("应该完成时钟同步", waitFor(client::isClockSynced, 3000));
+    }
+
+    /**
+     * 测试同一次写入中的多条消息按行处理，输入帧按连接地址入队
+     */
+    @Test
+    public void testLinesAndInputFrames() throws Exception {
+        server.start();
+        try (SocketChannel ch = SocketChannel.open(new InetSocketAddress("127.0.0.1", testPort))) {
+            byte[] history = {InputFrames.LEFT, 0, 0, 0};
+            String lines = "JOIN:P\n" + ClockSync.ping(7, 1.5) + InputFrames.encodeLine(1, history, 1);
+            ByteBuffer out = ByteBuffer.wrap(lines.getBytes());
+            while (out.hasRemaining()) ch.write(out);
+
+            StringBuilder sb = new StringBuilder();
+            ByteBuffer in = ByteBuffer.allocate(4096);
+            long deadline = System.currentTimeMillis() + 3000;
+            while (System.currentTimeMillis() < deadline && !sb.toString().contains(ClockSync.PONG_PREFIX)) {
+                in.clear();
+                int n = ch.read(in);
+                if (n > 0) sb.append(new String(in.array(), 0, n));
+            }
+            assertTrue(sb.toString().contains("JOIN-ACK"));
+            assertTrue(sb.toString().contains("PONG:7:1.5:"));
+
+            String addr = ch.getLocalAddress().toString();
+            assertTrue(waitFor(() -> NetState.getInputQueue(addr) != null, 3000));
+            InputQueue queue = NetState.getInputQueue(addr);
+            assertTrue(queue.consumeTick());
+            assertEquals(InputFrames.LEFT, queue.getCurrentBits());
+        }
+    }
+
+    /**
+     * 测试客户端断开后连接数和客户端地址被清理
+     */
+    @Test
+    public void testDisconnectCleanup() throws Exception {
+        server.start();
+        assertTrue(client.connect("127.0.0.1", testPort));
+        assertTrue(client.join("VtPlayer"));
+        String addr = client.getMyAddressId();
+        assertTrue(waitFor(() -> NetState.hasClientAddress(addr), 3000));
+
+        client.disconnect();
+        assertTrue("断开后应该移除连接", waitFor(() -> server.getTotalConnectionCount() == 0, 3000));
+        assertFalse(NetState.hasClientAddress(addr));
+        assertEquals(0, NetState.getClientCount());
+    }
+
+    /**
+     * 测试启用 UDP 时快照改走 UDP
+     */
+    @Test
+    public void testSnapshotOverUdp() throws Exception {
+        server.enableUdp(0);
+        server.start();
+        assertTrue(NetState.getUdpPort() > 0);
+        assertTrue(client.connect("127.0.0.1", testPort));
+        assertTrue(client.join("UdpPlayer"));
+        client.startStateReceiveLoop();
+
+        NetState.publishRecords(createRecord(5));
+        assertTrue("应该通过 UDP 收到快照", waitFor(client::isUdpActive, 3000));
+        assertEquals(1, server.getUdpTransport().getEndpointCount());
+    }
+
+    /**
+     * 测试停止后不再接受连接
+     */
+    @Test
+    public void testStop() throws Exception {
+        server.start();
+        assertTrue(server.isRunning());
+        server.stop();
+        assertFalse(server.isRunning());
+        assertFalse(client.connect("127.0.0.1", testPort));
+    }
+
+    // ========== 辅助方法 ==========
+
+    private static Record createRecord(int entities) {
+        Record record = new Record();
+        record.setRecordType("object_move");
+        for (int i = 0; i < entities; i++) {
+            GameObjectRecord o = new GameObjectRecord();
+            o.id = "Entity-" + i;
+            o.netId = i + 1;
+            o.x = i;
+            o.y = i;
+            record.getGameObjectsMove().add(o);
+        }
+        return record;
+    }
+
+    private interface Condition {
+        boolean check();
+    }
+
+    private static boolean waitFor(Condition condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.check()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.check();
+    }
+}
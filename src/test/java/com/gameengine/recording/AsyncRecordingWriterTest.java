@@ -0,0 +1,149 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 异步录制写入器的测试用例
+ * 测试帧按顺序完整写入、槽位复用、溢出时丢弃新帧，以及关闭后写出完整文件
+ */
+public class AsyncRecordingWriterTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("async-rec-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * 测试槽位够用时所有帧按顺序写入，关闭后文件带有完整索引
+     */
+    @Test
+    public void testWritesAllFramesInOrder() throws IOException {
+        Path file = dir.resolve("a.hrec");
+        AsyncRecordingWriter recorder = new AsyncRecordingWriter(new BinaryRecordingWriter(file, 50), 512).start();
+        for (int i = 0; i < 300; i++) {
+            assertTrue(recorder.write(frame(i)));
+        }
+        recorder.close();
+        assertEquals(300, recorder.getWrittenFrames());
+        assertEquals(0, recorder.getDroppedFrames());
+        assertEquals(0, recorder.getPendingFrames());
+
+        BinaryRecordingReader reader = new BinaryRecordingReader(file);
+        assertTrue(reader.isComplete());
+        List<Record> records = reader.readAll();
+        assertEquals(300, records.size());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(i * 0.02f, records.get(i).getKey(), 0);
+            assertEquals((float) i, records.get(i).getGameObjectsMove().get(0).x, 0);
+        }
+    }
+
+    /**
+     * 测试槽位用完时丢弃新帧而不阻塞，已排队的帧仍按顺序写入
+     */
+    @Test
+    public void testOverflowDropsNewestFrames() throws IOException {
+        Path file = dir.resolve("b.hrec");
+        AsyncRecordingWriter recorder = new AsyncRecordingWriter(new BinaryRecordingWriter(file), 4);
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (recorder.write(frame(i))) {
+                accepted++;
+            }
+        }
+        assertEquals(4, accepted);
+        assertEquals(6, recorder.getDroppedFrames());
+
+        recorder.start();
+        recorder.close();
+        List<Record> records = new BinaryRecordingReader(file).readAll();
+        assertEquals(4, records.size());
+        assertEquals(0.06f, records.get(3).getKey(), 0);
+    }
+
+    /**
+     * 测试 beginFrame 取出的槽位被清空，复用槽位时不会残留上一帧的对象字段
+     */
+    @Test
+    public void testFramesAreReusedCleanly() throws IOException {
+        Path file = dir.resolve("c.hrec");
+        AsyncRecordingWriter recorder = new AsyncRecordingWriter(new BinaryRecordingWriter(file), 1).start();
+        for (int i = 0; i < 20; i++) {
+            RecordingFrame frame;
+            // 只有一个槽位，等写入线程归还
+            while ((frame = recorder.beginFrame()) == null) {
+                Thread.yield();
+            }
+            assertTrue(frame.getRecord().getGameObjectsMove().isEmpty());
+            frame.getRecord().setKey(i);
+            GameObjectRecord o = frame.addObject();
+            assertNull("复用的对象记录应被清空", o.imagePath);
+            assertEquals(0f, o.x, 0);
+            if (i % 2 == 0) {
+                o.imagePath = "resources/picture/bee.png";
+                o.x = i;
+            }
+            recorder.commitFrame();
+        }
+        recorder.close();
+
+        List<Record> records = new BinaryRecordingReader(file).readAll();
+        assertEquals(20, records.size());
+        for (Record record : records) {
+            GameObjectRecord o = record.getGameObjectsMove().get(0);
+            boolean even = ((int) record.getKey()) % 2 == 0;
+            assertEquals(even ? "resources/picture/bee.png" : null, o.imagePath);
+        }
+    }
+
+    /**
+     * 测试关闭后不再接受新帧，重复关闭无副作用
+     */
+    @Test
+    public void testClose() throws IOException {
+        Path file = dir.resolve("d.hrec");
+        AsyncRecordingWriter recorder = new AsyncRecordingWriter(file).start();
+        recorder.write(frame(0));
+        recorder.close();
+        recorder.close();
+        assertNull(recorder.beginFrame());
+        assertFalse(recorder.write(frame(1)));
+        assertEquals(1, new BinaryRecordingReader(file).getFrameCount());
+    }
+
+    private static Record frame(int i) {
+        Record record = new Record();
+        record.setKey(i * 0.02f);
+        record.setRecordType("object_move");
+        GameObjectRecord o = new GameObjectRecord();
+        o.id = "Hulu Player";
+        o.x = i;
+        o.y = 100;
+        record.getGameObjectsMove().add(o);
+        return record;
+    }
+}
@@ -0,0 +1,274 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.gameengine.app.RecordingScene;
+import com.gameengine.components.RenderComponent.RenderType;
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 二进制录像格式的测试用例
+ * 测试写入读取往返、字符串表去重、分块与帧时间索引、未正常结束文件的恢复，
+ * 以及 RecordingScene 同时读取二进制和旧 JSON 录像
+ */
+public class BinaryRecordingTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("hrec-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * 测试所有字段在写入后原样读回，字符串只存一次
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path file = dir.resolve("a.hrec");
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file, 4)) {
+            for (int i = 0; i < 10; i++) {
+                writer.write(frame(i));
+            }
+            assertEquals(10, writer.getFrameCount());
+            assertEquals("id、两个图片路径和两个身份共 5 个字符串", 5, writer.getStringCount());
+        }
+
+        assertTrue(RecordingFormat.isBinaryRecording(file));
+        BinaryRecordingReader reader = new BinaryRecordingReader(file);
+        assertTrue(reader.isComplete());
+        assertEquals(10, reader.getFrameCount());
+        assertEquals(3, reader.getChunkCount());
+        assertEquals(5, reader.getStringCount());
+        assertEquals(0.04f, reader.getFrameTime(2), 1e-6);
+        assertEquals(2, reader.chunkOf(9));
+        assertEquals(8, reader.getChunkFirstFrame(2));
+        assertEquals(2, reader.getChunkFrameCount(2));
+
+        List<Record> records = reader.readAll();
+        assertEquals(10, records.size());
+        for (int i = 0; i < 10; i++) {
+            assertFrameEquals(frame(i), records.get(i));
+        }
+    }
+
+    /**
+     * 测试录制中途崩溃（没有写出索引）的文件仍能读出已写完的块，半块被丢弃
+     */
+    @Test
+    public void testRecoversUnfinishedFile() throws IOException {
+        Path file = dir.resolve("crash.hrec");
+        BinaryRecordingWriter writer = new BinaryRecordingWriter(file, 4);
+        for (int i = 0; i < 10; i++) {
+            writer.write(frame(i));
+        }
+        // 不调用 close：两个整块已写出，最后两帧还在内存中
+        long written = writer.getBytesWritten();
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals(written, bytes.length);
+        // 再模拟最后一块只写了一半
+        byte[] torn = new byte[bytes.length + 30];
+        System.arraycopy(bytes, 0, torn, 0, bytes.length);
+        torn[bytes.length] = 0x43;
+        torn[bytes.length + 1] = 0x48;
+        torn[bytes.length + 2] = 0x4E;
+        torn[bytes.length + 3] = 0x4B;
+        Files.write(file, torn);
+
+        BinaryRecordingReader reader = new BinaryRecordingReader(file);
+        assertFalse(reader.isComplete());
+        assertEquals(8, reader.getFrameCount());
+        assertEquals(2, reader.getChunkCount());
+        List<Record> records = reader.readAll();
+        assertFrameEquals(frame(7), records.get(7));
+    }
+
+    /**
+     * 测试按块压缩的录像逐帧相同、能按索引直接解码任意一块，压缩块损坏时恢复扫描丢弃该块
+     */
+    @Test
+    public void testCompressedChunks() throws IOException {
+        Path plain = dir.resolve("plain.hrec");
+        Path packed = dir.resolve("packed.hrec");
+        BinaryRecordingWriter plainWriter = new BinaryRecordingWriter(plain, 50, 0, false);
+        BinaryRecordingWriter packedWriter = new BinaryRecordingWriter(packed, 50, 0, true);
+        long lastChunkStart = 0;
+        for (int i = 0; i < 200; i++) {
+            if (i == 150) {
+                lastChunkStart = packedWriter.getBytesWritten();
+            }
+            plainWriter.write(frame(i));
+            packedWriter.write(frame(i));
+        }
+        plainWriter.close();
+        assertFalse(plainWriter.isCompressed());
+        assertEquals(plainWriter.getRawFrameBytes(), plainWriter.getStoredFrameBytes());
+        assertTrue(packedWriter.isCompressed());
+        packedWriter.close();
+        assertEquals(plainWriter.getRawFrameBytes(), packedWriter.getRawFrameBytes());
+        assertTrue("帧数据应当被压缩", packedWriter.getStoredFrameBytes() < packedWriter.getRawFrameBytes());
+        assertTrue(Files.size(packed) < Files.size(plain));
+
+        BinaryRecordingReader reader = new BinaryRecordingReader(packed);
+        assertTrue(reader.isCompressed());
+        assertFalse(new BinaryRecordingReader(plain).isCompressed());
+        assertEquals(4, reader.getChunkCount());
+        List<Record> third = reader.readChunk(2);
+        assertFrameEquals(frame(100), third.get(0));
+        assertFrameEquals(frame(149), third.get(49));
+        List<Record> all = reader.readAll();
+        for (int i = 0; i < 200; i++) {
+            assertFrameEquals(frame(i), all.get(i));
+        }
+
+        // 去掉文件头中的索引偏移并损坏最后一块压缩数据的开头（块头 20 字节之后），只能扫描出前三块
+        byte[] crashed = Files.readAllBytes(packed);
+        for (int i = RecordingFormat.STRING_TABLE_OFFSET; i < RecordingFormat.HEADER_SIZE; i++) {
+            crashed[i] = 0;
+        }
+        crashed[(int) lastChunkStart + 20] ^= 0x55;
+        Path torn = dir.resolve("torn.hrec");
+        Files.write(torn, crashed);
+        BinaryRecordingReader recovered = new BinaryRecordingReader(torn);
+        assertFalse(recovered.isComplete());
+        assertEquals(3, recovered.getChunkCount());
+        assertEquals(150, recovered.getFrameCount());
+        assertFrameEquals(frame(149), recovered.readAll().get(149));
+    }
+
+    /**
+     * 测试 RecordingScene.loadRecording 按内容识别格式，旧 JSON 录像仍可读取
+     */
+    @Test
+    public void testLoadRecordingReadsBothFormats() throws IOException {
+        Path binary = dir.resolve("b.hrec");
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(binary)) {
+            writer.write(frame(0));
+            writer.write(frame(1));
+        }
+        LinkedList<Record> fromBinary = RecordingScene.loadRecording(binary.toString());
+        assertEquals(2, fromBinary.size());
+        assertEquals("resources/picture/huluBro3.png", fromBinary.get(1).getGameObjectsMove().get(0).imagePath);
+
+        Path json = dir.resolve("c.json");
+        Files.writeString(json, "{\"key\":0.5,\"type\":\"object_move\",\"gameObjectMove\":"
+                + "[{\"id\":\"Hulu Player\",\"x\":1.0,\"y\":2.0,\"rt\":\"image\",\"identity\":\"Player\"}]}\n");
+        LinkedList<Record> fromJson = RecordingScene.loadRecording(json.toString());
+        assertEquals(1, fromJson.size());
+        assertEquals(RenderType.IMAGE, fromJson.get(0).getGameObjectsMove().get(0).rt);
+        assertFalse(RecordingFormat.isBinaryRecording(json));
+        assertTrue(RecordingFormat.isRecordingFileName("x.hrec"));
+        assertTrue(RecordingFormat.isRecordingFileName("x.json"));
+    }
+
+    /**
+     * 测试把仓库中的 JSON 录像转换为二进制后体积明显变小、帧数一致
+     */
+    @Test
+    public void testSmallerThanLegacyJson() throws IOException {
+        Path legacy = Paths.get("recordings/recording_1767126392215.json");
+        Assume.assumeTrue(Files.isRegularFile(legacy));
+        LinkedList<Record> records = RecordingScene.loadRecording(legacy.toString());
+        Path file = dir.resolve("converted.hrec");
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file)) {
+            for (Record record : records) {
+                writer.write(record);
+            }
+        }
+        long jsonSize = Files.size(legacy);
+        long binarySize = Files.size(file);
+        assertTrue("二进制录像应至少小一半: " + binarySize + " / " + jsonSize, binarySize * 2 < jsonSize);
+        List<Record> back = new BinaryRecordingReader(file).readAll();
+        assertEquals(records.size(), back.size());
+        assertFrameEquals(records.get(records.size() / 2), back.get(records.size() / 2));
+    }
+
+    // ========== 辅助方法 ==========
+
+    private static Record frame(int i) {
+        Record record = new Record();
+        record.setKey(i * 0.02f);
+        record.setRecordType("object_move");
+        record.setPlayerHealth(100 - i);
+        record.setSkillCooldownPercent(i / 10f);
+        record.setCurrentLevel(1 + i / 5);
+
+        GameObjectRecord player = new GameObjectRecord();
+        player.id = "Hulu Player";
+        player.netId = 1;
+        player.x = 100 + i;
+        player.y = 200 - i;
+        player.rt = RenderType.IMAGE;
+        player.width = 40;
+        player.height = 50;
+        player.alpha = 1;
+        player.imagePath = "resources/picture/huluBro3.png";
+        player.currentHealth = 100 - i;
+        player.maxHealth = 100;
+        player.identity = "Player";
+        record.getGameObjectsMove().add(player);
+
+        GameObjectRecord skill = new GameObjectRecord();
+        skill.id = "Hulu Player";
+        skill.rt = i % 2 == 0 ? RenderType.IMAGE_ROTATED : null;
+        skill.rotation = i * 10;
+        skill.imagePath = "resources/picture/iceball.png";
+        skill.r = 0.5f;
+        skill.segments = 16;
+        skill.identity = "Enemy Skill";
+        record.getGameObjectsMove().add(skill);
+        return record;
+    }
+
+    private static void assertFrameEquals(Record expected, Record actual) {
+        assertEquals(expected.getKey(), actual.getKey(), 0);
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getPlayerHealth(), actual.getPlayerHealth());
+        assertEquals(expected.getPlayerMaxHealth(), actual.getPlayerMaxHealth());
+        assertEquals(expected.getSkillCooldownPercent(), actual.getSkillCooldownPercent(), 0);
+        assertEquals(expected.getCurrentLevel(), actual.getCurrentLevel());
+        assertEquals(expected.getGameObjectsMove().size(), actual.getGameObjectsMove().size());
+        for (int i = 0; i < expected.getGameObjectsMove().size(); i++) {
+            GameObjectRecord e = expected.getGameObjectsMove().get(i);
+            GameObjectRecord a = actual.getGameObjectsMove().get(i);
+            assertEquals(e.id, a.id);
+            assertEquals(e.netId, a.netId);
+            assertEquals(e.x, a.x, 0);
+            assertEquals(e.y, a.y, 0);
+            assertEquals(e.rt, a.rt);
+            assertEquals(e.width, a.width, 0);
+            assertEquals(e.height, a.height, 0);
+            assertEquals(e.alpha, a.alpha, 0);
+            assertEquals(e.imagePath, a.imagePath);
+            assertEquals(e.r, a.r, 0);
+            assertEquals(e.segments, a.segments);
+            assertEquals(e.rotation, a.rotation, 0);
+            assertEquals(e.currentHealth, a.currentHealth);
+            assertEquals(e.maxHealth, a.maxHealth);
+            assertEquals(e.identity, a.identity);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.gameengine.components.RenderComponent.RenderType;
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+import com.google.gson.Gson;
+
+/**
+ * 紧凑帧缓存的测试用例
+ * 测试列存帧通过享元视图读出与原帧相同的字段、字符串只保存一份，
+ * 以及缓存复用已转换的帧、按容量淘汰和跳过无法解析的帧
+ */
+public class CompactFrameStoreTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("compact-test", ".json");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * 测试视图读出的字段与原帧相同，null 的字符串和渲染类型保持为 null，
+     * 不同帧中相同的字符串是同一个实例
+     */
+    @Test
+    public void testViewMatchesRecord() {
+        SymbolTable symbols = new SymbolTable();
+        Record first = frame(1.5f);
+        GameObjectRecord bare = new GameObjectRecord();
+        bare.x = -3f;
+        first.getGameObjectsMove().add(bare);
+        first.setPlayerHealth(42);
+        first.setSkillCooldownPercent(0.25f);
+        first.setCurrentLevel(3);
+
+        CompactFrame a = CompactFrame.of(first, symbols);
+        CompactFrame b = CompactFrame.of(frame(1.6f), symbols);
+        assertEquals(1.5f, a.getKey(), 0);
+        assertEquals("object_move", a.getType());
+        assertEquals(42, a.getPlayerHealth());
+        assertEquals(0.25f, a.getSkillCooldownPercent(), 0);
+        assertEquals(3, a.getCurrentLevel());
+        assertEquals(2, a.getObjectCount());
+        assertEquals(2L * CompactFrame.BYTES_PER_OBJECT, a.getObjectBytes());
+
+        GameObjectRecord original = first.getGameObjectsMove().get(0);
+        CompactFrame.ObjectView view = new CompactFrame.ObjectView().moveTo(a, 0);
+        assertEquals(original.id, view.getId());
+        assertEquals(original.imagePath, view.getImagePath());
+        assertEquals(original.identity, view.getIdentity());
+        assertEquals(RenderType.IMAGE_ROTATED, view.getRenderType());
+        assertEquals(7, view.getNetId());
+        assertEquals(12, view.getSegments());
+        assertEquals(30, view.getCurrentHealth());
+        assertEquals(50, view.getMaxHealth());
+        assertEquals(100.5f, view.getX(), 0);
+        assertEquals(200.25f, view.getY(), 0);
+        assertEquals(40f, view.getWidth(), 0);
+        assertEquals(50f, view.getHeight(), 0);
+        assertEquals(0.75f, view.getAlpha(), 0);
+        assertEquals(1.25f, view.getRotation(), 0);
+        assertEquals(0.1f, view.getR(), 0);
+        assertEquals(0.2f, view.getG(), 0);
+        assertEquals(0.3f, view.getB(), 0);
+        assertEquals(0.4f, view.getA(), 0);
+
+        view.moveTo(a, 1);
+        assertNull(view.getId());
+        assertNull(view.getRenderType());
+        assertEquals(-3f, view.getX(), 0);
+
+        String imagePath = view.moveTo(b, 0).getImagePath();
+        assertSame("字符串只保存一份", imagePath, view.moveTo(a, 0).getImagePath());
+        assertEquals(3, symbols.size());
+
+        try {
+            view.moveTo(b, 1);
+            fail("应当拒绝越界的下标");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    /**
+     * 测试同一帧只转换一次，超过容量时淘汰最久未访问的帧，无法解析的帧返回 null
+     */
+    @Test
+    public void testStoreCachesFrames() throws IOException {
+        Gson gson = new Gson();
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            json.append(i == 3 ? "{\"key\":0.3,\"type\":" : gson.toJson(frame(i * 0.1f))).append('\n');
+        }
+        Files.writeString(file, json);
+        try (JsonLinesReplayReader reader = new JsonLinesReplayReader(file)) {
+            CompactFrameStore store = new CompactFrameStore(reader, 3);
+            assertEquals(6, store.getFrameCount());
+            CompactFrame first = store.getFrame(0);
+            assertSame(first, store.getFrame(0));
+            assertEquals(1, store.getConvertedFrames());
+            assertNull(store.getFrame(3));
+
+            store.getFrame(1);
+            store.getFrame(2);
+            store.getFrame(4);
+            assertEquals(3, store.getCachedFrames());
+            assertEquals(3L * CompactFrame.BYTES_PER_OBJECT, store.getObjectBytes());
+            assertNotSame("第 0 帧已被淘汰", first, store.getFrame(0));
+            assertEquals(5, store.getConvertedFrames());
+            assertEquals(3, store.getSymbolCount());
+
+            store.clear();
+            assertEquals(0, store.getCachedFrames());
+        }
+    }
+
+    // ========== 辅助方法 ==========
+
+    private static Record frame(float time) {
+        Record record = new Record();
+        record.setKey(time);
+        record.setRecordType("object_move");
+        GameObjectRecord o = new GameObjectRecord();
+        // 每帧新建字符串，模拟 JSON 解析后每个对象各自持有一份
+        o.id = new String("Hulu Player");
+        o.imagePath = new String("resources/picture/huluBro3.png");
+        o.identity = new String("Player");
+        o.rt = RenderType.IMAGE_ROTATED;
+        o.netId = 7;
+        o.segments = 12;
+        o.currentHealth = 30;
+        o.maxHealth = 50;
+        o.x = 100.5f;
+        o.y = 200.25f;
+        o.width = 40f;
+        o.height = 50f;
+        o.alpha = 0.75f;
+        o.rotation = 1.25f;
+        o.r = 0.1f;
+        o.g = 0.2f;
+        o.b = 0.3f;
+        o.a = 0.4f;
+        record.getGameObjectsMove().add(o);
+        return record;
+    }
+}
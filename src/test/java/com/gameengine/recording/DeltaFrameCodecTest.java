@@ -0,0 +1,245 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gameengine.app.RecordingScene;
+import com.gameengine.components.RenderComponent.RenderType;
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 关键帧 + 差量编码的测试用例
+ * 测试对象出现、消失、属性变化后逐位还原，按时间切分关键帧，
+ * 以及在仓库自带录像上的压缩率
+ */
+public class DeltaFrameCodecTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("delta-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * 测试移动、血量变化、出现、消失、换图后每一帧都与原帧逐位相同
+     */
+    @Test
+    public void testDeltaRoundTrip() {
+        List<Record> frames = new ArrayList<>();
+        Record first = frame(0f, entity("Hulu Player", 100f, 200f), entity("EnemySoldier", 300f, 300f),
+                entity("EnemySoldier", 310f, 300f), entity("EnemyWizard", 400f, 100f));
+        frames.add(first);
+        // 玩家移动、第一个士兵掉血
+        Record second = frame(0.02f, entity("Hulu Player", 101.5f, 199.25f), entity("EnemySoldier", 300f, 300f),
+                entity("EnemySoldier", 310f, 300f), entity("EnemyWizard", 400f, 100f));
+        second.getGameObjectsMove().get(1).currentHealth = 50;
+        second.setPlayerHealth(90);
+        frames.add(second);
+        // 第一个士兵消失，出现一个新技能，法师换图并旋转
+        Record third = frame(0.04f, entity("Hulu Player", 103f, 198.5f), entity("EnemySoldier", 310f, 300f),
+                entity("Attacking SkillJ 0", -5f, 7f), entity("EnemyWizard", 400f, 100f));
+        third.getGameObjectsMove().get(3).imagePath = "resources/picture/wizard_angry.png";
+        third.getGameObjectsMove().get(3).rotation = -0.5f;
+        third.getGameObjectsMove().get(3).rt = RenderType.IMAGE_ROTATED;
+        frames.add(third);
+        // 所有对象消失
+        frames.add(frame(0.06f));
+        // 不变的帧
+        frames.add(frame(0.08f));
+        frames.add(frame(0.10f, entity(null, 0f, 0f)));
+
+        List<String> table = new ArrayList<>();
+        DeltaFrameCodec encoder = new DeltaFrameCodec();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        for (int i = 0; i < frames.size(); i++) {
+            encoder.encode(frames.get(i), i == 0, buffer, s -> intern(table, s));
+        }
+        buffer.flip();
+
+        DeltaFrameCodec decoder = new DeltaFrameCodec();
+        for (Record expected : frames) {
+            assertFrameEquals(expected, decoder.decode(buffer, id -> id < 0 ? null : table.get(id)));
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+
+    /**
+     * 测试没有关键帧时不能解码差量帧
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testDeltaWithoutKeyframeFails() {
+        List<String> table = new ArrayList<>();
+        DeltaFrameCodec encoder = new DeltaFrameCodec();
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        encoder.encode(frame(0f, entity("a", 1, 1)), true, buffer, s -> intern(table, s));
+        int secondFrame = buffer.position();
+        encoder.encode(frame(0.02f, entity("a", 2, 1)), false, buffer, s -> intern(table, s));
+        buffer.flip();
+        buffer.position(secondFrame);
+        new DeltaFrameCodec().decode(buffer, table::get);
+    }
+
+    /**
+     * 测试按录制时间每 keyframeInterval 秒开始一个新块，任意一帧都能从所在块的关键帧还原
+     */
+    @Test
+    public void testKeyframeInterval() throws IOException {
+        Path file = dir.resolve("k.hrec");
+        List<Record> frames = new ArrayList<>();
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file, 1000, 1f)) {
+            for (int i = 0; i < 200; i++) {
+                Record record = frame(i * 0.025f, entity("Hulu Player", i * 1.5f, 100f - i));
+                frames.add(record);
+                writer.write(record);
+            }
+        }
+        try (MappedReplayReader reader = new MappedReplayReader(file)) {
+            assertEquals(200, reader.getFrameCount());
+            for (int index : new int[]{199, 0, 41, 80, 120, 121}) {
+                assertFrameEquals(frames.get(index), reader.getFrame(index));
+            }
+        }
+        BinaryRecordingReader reader = new BinaryRecordingReader(file);
+        assertEquals(RecordingFormat.VERSION, reader.getVersion());
+        assertEquals("5 秒的录像每秒一个关键帧", 5, reader.getChunkCount());
+        assertEquals(40, reader.getChunkFirstFrame(1));
+    }
+
+    /**
+     * 测试仓库自带的录像转换后比定长帧编码和 JSON 都至少小 10 倍，且逐帧相同
+     */
+    @Test
+    public void testSampleRecordingsShrinkTenfold() throws IOException {
+        for (String sample : new String[]{"recordings/recording_1767126192202.json",
+                "recordings/recording_1767126392215.json"}) {
+            Path legacy = Paths.get(sample);
+            Assume.assumeTrue(Files.isRegularFile(legacy));
+            List<Record> records = RecordingScene.loadRecording(legacy.toString());
+            Path file = dir.resolve(legacy.getFileName() + ".hrec");
+            long fixedSize = RecordingFormat.HEADER_SIZE;
+            try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file)) {
+                for (Record record : records) {
+                    writer.write(record);
+                    fixedSize += RecordingFormat.FRAME_HEADER_SIZE
+                            + (long) record.getGameObjectsMove().size() * RecordingFormat.ENTITY_SIZE;
+                }
+            }
+            long size = Files.size(file);
+            System.out.println("[DeltaFrameCodecTest] " + sample + ": JSON " + Files.size(legacy)
+                    + " 字节，定长帧 " + fixedSize + " 字节，差量 " + size + " 字节");
+            assertTrue("应比定长帧小 10 倍: " + size + " / " + fixedSize, size * 10 <= fixedSize);
+            assertTrue("应比 JSON 小 10 倍", size * 10 <= Files.size(legacy));
+
+            List<Record> back = new BinaryRecordingReader(file).readAll();
+            assertEquals(records.size(), back.size());
+            for (int i = 0; i < records.size(); i++) {
+                assertFrameEquals(records.get(i), back.get(i));
+            }
+        }
+    }
+
+    // ========== 辅助方法 ==========
+
+    private static int intern(List<String> table, String s) {
+        if (s == null) {
+            return RecordingFormat.NULL_STRING;
+        }
+        int id = table.indexOf(s);
+        if (id < 0) {
+            table.add(s);
+            id = table.size() - 1;
+        }
+        return id;
+    }
+
+    private static Record frame(float key, GameObjectRecord... objects) {
+        Record record = new Record();
+        record.setKey(key);
+        record.setRecordType("object_move");
+        record.setPlayerHealth(100);
+        record.setPlayerMaxHealth(100);
+        record.setSkillCooldownPercent(1f);
+        record.setCurrentLevel(1);
+        for (GameObjectRecord o : objects) {
+            record.getGameObjectsMove().add(o);
+        }
+        return record;
+    }
+
+    private static GameObjectRecord entity(String id, float x, float y) {
+        GameObjectRecord o = new GameObjectRecord();
+        o.id = id;
+        o.x = x;
+        o.y = y;
+        o.rt = RenderType.IMAGE;
+        o.width = 40;
+        o.height = 50;
+        o.alpha = 1;
+        o.imagePath = "resources/picture/" + id + ".png";
+        o.r = 1;
+        o.g = 1;
+        o.b = 1;
+        o.a = 1;
+        o.currentHealth = 100;
+        o.maxHealth = 100;
+        o.identity = "Enemy";
+        return o;
+    }
+
+    private static void assertFrameEquals(Record expected, Record actual) {
+        assertEquals(expected.getKey(), actual.getKey(), 0);
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getPlayerHealth(), actual.getPlayerHealth());
+        assertEquals(expected.getPlayerMaxHealth(), actual.getPlayerMaxHealth());
+        assertEquals(expected.getSkillCooldownPercent(), actual.getSkillCooldownPercent(), 0);
+        assertEquals(expected.getCurrentLevel(), actual.getCurrentLevel());
+        assertEquals(expected.getServerTime(), actual.getServerTime(), 0);
+        assertEquals(expected.getGameObjectsMove().size(), actual.getGameObjectsMove().size());
+        for (int i = 0; i < expected.getGameObjectsMove().size(); i++) {
+            GameObjectRecord e = expected.getGameObjectsMove().get(i);
+            GameObjectRecord a = actual.getGameObjectsMove().get(i);
+            assertEquals(e.id, a.id);
+            assertEquals(e.netId, a.netId);
+            assertEquals(Float.floatToIntBits(e.x), Float.floatToIntBits(a.x));
+            assertEquals(Float.floatToIntBits(e.y), Float.floatToIntBits(a.y));
+            assertEquals(e.rt, a.rt);
+            assertEquals(e.width, a.width, 0);
+            assertEquals(e.height, a.height, 0);
+            assertEquals(e.alpha, a.alpha, 0);
+            assertEquals(e.imagePath, a.imagePath);
+            assertEquals(e.r, a.r, 0);
+            assertEquals(e.g, a.g, 0);
+            assertEquals(e.b, a.b, 0);
+            assertEquals(e.a, a.a, 0);
+            assertEquals(e.segments, a.segments);
+            assertEquals(Float.floatToIntBits(e.rotation), Float.floatToIntBits(a.rotation));
+            assertEquals(e.currentHealth, a.currentHealth);
+            assertEquals(e.maxHealth, a.maxHealth);
+            assertEquals(e.identity, a.identity);
+        }
+    }
+}
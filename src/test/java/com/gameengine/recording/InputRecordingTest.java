@@ -0,0 +1,169 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 输入录像格式的测试用例
+ * 测试种子、游程编码的输入、关卡事件和校验和的往返，以及未正常结束和损坏的文件
+ */
+public class InputRecordingTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("input-rec-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * 测试种子、步长、每帧输入、事件和校验和写入后按原样读出
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path file = dir.resolve("a" + InputRecording.FILE_EXTENSION);
+        InputRecording.Seeds seeds = new InputRecording.Seeds(1L, -2L, Long.MAX_VALUE, Long.MIN_VALUE);
+        int[] inputs = new int[500];
+        try (InputRecordingWriter writer = new InputRecordingWriter(file, seeds, 0.02f, 100)) {
+            for (int t = 0; t < inputs.length; t++) {
+                inputs[t] = t < 50 ? InputRecording.PAUSED
+                        : (t / 37) % 2 == 0 ? InputRecording.RIGHT : InputRecording.UP | InputRecording.ATTACK;
+                writer.writeTick(inputs[t]);
+                if (t == 50) {
+                    writer.writeEvent(InputRecording.EVENT_LEVEL_START, 1);
+                }
+                if (t == 300) {
+                    writer.writeEvent(InputRecording.EVENT_NEXT_LEVEL, 2);
+                }
+                if ((t + 1) % 100 == 0) {
+                    writer.writeChecksum(t * 31);
+                }
+            }
+            assertEquals(500, writer.getTickCount());
+        }
+
+        assertTrue(InputRecording.isInputRecording(file));
+        InputRecording recording = InputRecording.read(file);
+        assertTrue(recording.isComplete());
+        assertEquals(1L, recording.getSeeds().enemyFactory);
+        assertEquals(-2L, recording.getSeeds().logic);
+        assertEquals(Long.MAX_VALUE, recording.getSeeds().moveJitter);
+        assertEquals(Long.MIN_VALUE, recording.getSeeds().player);
+        assertEquals(0.02f, recording.getTickSeconds(), 0);
+        assertEquals(100, recording.getChecksumInterval());
+        assertEquals(500, recording.getTickCount());
+        assertEquals(10f, recording.getDuration(), 1e-4f);
+        for (int t = 0; t < inputs.length; t++) {
+            assertEquals("帧 " + t, inputs[t], recording.getInput(t));
+        }
+
+        assertEquals(2, recording.getEventCount());
+        assertEquals(50, recording.getEventTick(0));
+        assertEquals(InputRecording.EVENT_LEVEL_START, recording.getEventType(0));
+        assertEquals(1, recording.getEventLevel(0));
+        assertEquals(300, recording.getEventTick(1));
+        assertEquals(InputRecording.EVENT_NEXT_LEVEL, recording.getEventType(1));
+        assertEquals(2, recording.getEventLevel(1));
+
+        assertEquals(5, recording.getChecksumCount());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i * 100 + 99, recording.getChecksumTick(i));
+            assertEquals((i * 100 + 99) * 31, recording.getChecksum(i));
+        }
+    }
+
+    /**
+     * 测试按键不变的帧按游程编码，一分钟的输入只有几十字节
+     */
+    @Test
+    public void testRunLengthEncoding() throws IOException {
+        Path file = dir.resolve("b" + InputRecording.FILE_EXTENSION);
+        try (InputRecordingWriter writer = new InputRecordingWriter(file, InputRecording.Seeds.random())) {
+            for (int t = 0; t < 3600; t++) {
+                writer.writeTick(t < 1800 ? InputRecording.LEFT : 0);
+            }
+        }
+        assertTrue(Files.size(file) < InputRecording.HEADER_SIZE + 16);
+        InputRecording recording = InputRecording.read(file);
+        assertEquals(3600, recording.getTickCount());
+        assertEquals(InputRecording.LEFT, recording.getInput(1799));
+        assertEquals(0, recording.getInput(1800));
+    }
+
+    /**
+     * 测试没有正常结束的文件读出已经写入的输入和校验和
+     */
+    @Test
+    public void testUnfinishedRecording() throws IOException {
+        Path file = dir.resolve("c" + InputRecording.FILE_EXTENSION);
+        InputRecordingWriter writer = new InputRecordingWriter(file, InputRecording.Seeds.random(), 0.02f, 10);
+        for (int t = 0; t < 25; t++) {
+            writer.writeTick(t % 3);
+            if ((t + 1) % 10 == 0) {
+                writer.writeChecksum(t);
+            }
+        }
+        // 不关闭：最后一个校验和之后的输入还在内存中
+        assertEquals(writer.getBytesWritten(), Files.size(file));
+
+        InputRecording recording = InputRecording.read(file);
+        assertFalse(recording.isComplete());
+        assertEquals(20, recording.getTickCount());
+        assertEquals(2, recording.getChecksumCount());
+        writer.close();
+
+        // 截断在一条记录中间
+        byte[] bytes = Files.readAllBytes(file);
+        InputRecording truncated = InputRecording.decode(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 2)));
+        assertFalse(truncated.isComplete());
+        assertTrue(truncated.getTickCount() >= 20);
+    }
+
+    /**
+     * 测试其他格式的文件被拒绝，下标越界时抛出异常
+     */
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("d.hrec");
+        Files.write(file, new byte[64]);
+        assertFalse(InputRecording.isInputRecording(file));
+        assertFalse(InputRecording.isInputRecording(dir.resolve("missing.hinp")));
+        assertTrue(InputRecording.isInputRecordingFileName("x.hinp"));
+        assertFalse(InputRecording.isInputRecordingFileName("x.hrec"));
+        try {
+            InputRecording.read(file);
+            fail("应当拒绝不是输入录像的文件");
+        } catch (IOException expected) {
+        }
+
+        Path empty = dir.resolve("e.hinp");
+        new InputRecordingWriter(empty, InputRecording.Seeds.random()).close();
+        InputRecording recording = InputRecording.read(empty);
+        assertTrue(recording.isComplete());
+        assertEquals(0, recording.getTickCount());
+        try {
+            recording.getInput(0);
+            fail("应当检查下标");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+}
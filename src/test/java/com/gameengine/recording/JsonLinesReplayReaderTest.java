@@ -0,0 +1,98 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.gameengine.game.Record;
+
+/**
+ * 旧 JSON 行录像回放读取器的测试用例
+ * 测试行偏移索引、空行与 CRLF 处理、无法解析的行以及已解码窗口的上限
+ */
+public class JsonLinesReplayReaderTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("replay-test", ".json");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * 测试空行不算帧，CRLF 和首尾空白不影响解析
+     */
+    @Test
+    public void testIndexSkipsBlankLines() throws IOException {
+        Files.writeString(file, line(0.5f) + "\r\n\r\n   \n" + line(1.0f) + "\r\n  " + line(1.5f));
+        try (JsonLinesReplayReader reader = new JsonLinesReplayReader(file)) {
+            assertEquals(3, reader.getFrameCount());
+            assertEquals("打开时不解析 JSON", 0, reader.getDecodedFrames());
+            assertEquals(1.0f, reader.getFrameTime(1), 0);
+            assertEquals(1.5f, reader.getFrame(2).getKey(), 0);
+            assertEquals("object_move", reader.getFrame(0).getType());
+        }
+    }
+
+    /**
+     * 测试无法解析的行（例如录制中断留下的半行）返回 null，其他帧不受影响
+     */
+    @Test
+    public void testBrokenLineReturnsNull() throws IOException {
+        Files.writeString(file, line(0.5f) + "\n" + "{\"key\":1.0,\"gameObj");
+        try (JsonLinesReplayReader reader = new JsonLinesReplayReader(file)) {
+            assertEquals(2, reader.getFrameCount());
+            assertNull(reader.getFrame(1));
+            assertTrue(Float.isNaN(reader.getFrameTime(1)));
+            assertNotNull(reader.getFrame(0));
+        }
+    }
+
+    /**
+     * 测试内存中最多保留 WINDOW_FRAMES 个已解析的帧，重复访问窗口内的帧不会重新解析
+     */
+    @Test
+    public void testWindowIsBounded() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int frames = JsonLinesReplayReader.WINDOW_FRAMES * 3;
+        for (int i = 0; i < frames; i++) {
+            sb.append(line(i * 0.02f)).append('\n');
+        }
+        Files.writeString(file, sb.toString());
+        try (JsonLinesReplayReader reader = new JsonLinesReplayReader(file)) {
+            for (int i = 0; i < frames; i++) {
+                Record record = reader.getFrame(i);
+                assertEquals(i * 0.02f, record.getKey(), 0);
+            }
+            assertEquals(JsonLinesReplayReader.WINDOW_FRAMES, reader.getWindowSize());
+            reader.getFrame(frames - 1);
+            assertEquals(frames, reader.getDecodedFrames());
+        }
+    }
+
+    /**
+     * 测试下标越界时抛出 IndexOutOfBoundsException
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfRange() throws IOException {
+        Files.writeString(file, line(0.5f) + "\n");
+        try (JsonLinesReplayReader reader = new JsonLinesReplayReader(file)) {
+            reader.getFrame(1);
+        }
+    }
+
+    private static String line(float key) {
+        return "{\"key\":" + key + ",\"type\":\"object_move\",\"gameObjectMove\":[{\"id\":\"Hulu Player\",\"x\":1.0,\"rt\":\"image\"}]}";
+    }
+}
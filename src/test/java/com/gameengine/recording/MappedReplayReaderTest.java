@@ -0,0 +1,127 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 内存映射回放读取器的测试用例
+ * 测试随机访问、已解码窗口的上限、帧时间索引和按 magic 选择读取器
+ */
+public class MappedReplayReaderTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("replay-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * 测试任意顺序访问帧都能读到正确内容，内存中最多保留 WINDOW_CHUNKS 个块
+     */
+    @Test
+    public void testRandomAccessKeepsSmallWindow() throws IOException {
+        Path file = write(dir.resolve("a.hrec"), 100, 10);
+        try (MappedReplayReader reader = new MappedReplayReader(file)) {
+            assertEquals(100, reader.getFrameCount());
+            assertTrue(reader.isComplete());
+            assertEquals("打开时不解码任何块", 0, reader.getDecodedChunks());
+
+            int[] order = {99, 0, 55, 56, 10, 98, 3};
+            for (int index : order) {
+                Record record = reader.getFrame(index);
+                assertEquals(index * 0.02f, record.getKey(), 0);
+                assertEquals(index, record.getGameObjectsMove().get(0).netId);
+                assertTrue(reader.getWindowSize() <= MappedReplayReader.WINDOW_CHUNKS);
+            }
+        }
+    }
+
+    /**
+     * 测试顺序播放时每个块只解码一次
+     */
+    @Test
+    public void testSequentialPlaybackDecodesEachChunkOnce() throws IOException {
+        Path file = write(dir.resolve("b.hrec"), 95, 10);
+        try (MappedReplayReader reader = new MappedReplayReader(file)) {
+            for (int i = 0; i < reader.getFrameCount(); i++) {
+                assertNotNull(reader.getFrame(i));
+            }
+            assertEquals(10, reader.getDecodedChunks());
+        }
+    }
+
+    /**
+     * 测试帧时间来自索引，不解码帧数据
+     */
+    @Test
+    public void testFrameTimeFromIndex() throws IOException {
+        Path file = write(dir.resolve("c.hrec"), 30, 10);
+        try (MappedReplayReader reader = new MappedReplayReader(file)) {
+            assertEquals(0.58f, reader.getFrameTime(29), 1e-6);
+            assertEquals(0, reader.getDecodedChunks());
+        }
+    }
+
+    /**
+     * 测试 ReplaySource.open 按文件内容选择读取器，文件不存在时抛出 IOException
+     */
+    @Test
+    public void testOpenChoosesReaderByMagic() throws IOException {
+        Path binary = write(dir.resolve("d.hrec"), 5, 10);
+        try (ReplaySource source = ReplaySource.open(binary)) {
+            assertTrue(source instanceof MappedReplayReader);
+        }
+        Path json = dir.resolve("e.hrec");
+        Files.writeString(json, "{\"key\":1.0,\"type\":\"object_move\",\"gameObjectMove\":[]}\n");
+        try (ReplaySource source = ReplaySource.open(json)) {
+            assertTrue(source instanceof JsonLinesReplayReader);
+            assertEquals(1, source.getFrameCount());
+        }
+        try {
+            ReplaySource.open(dir.resolve("missing.hrec"));
+            fail("文件不存在时应抛出 IOException");
+        } catch (IOException e) {
+            // 预期
+        }
+    }
+
+    // ========== 辅助方法 ==========
+
+    private static Path write(Path file, int frames, int framesPerChunk) throws IOException {
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file, framesPerChunk)) {
+            for (int i = 0; i < frames; i++) {
+                Record record = new Record();
+                record.setKey(i * 0.02f);
+                record.setRecordType("object_move");
+                GameObjectRecord o = new GameObjectRecord();
+                o.id = "Hulu Player";
+                o.netId = i;
+                o.x = i;
+                record.getGameObjectsMove().add(o);
+                writer.write(record);
+            }
+        }
+        return file;
+    }
+}
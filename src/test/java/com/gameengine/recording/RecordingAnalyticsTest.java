@@ -0,0 +1,208 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import com.gameengine.game.Record;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+/**
+ * RecordingAnalytics 批量分析工具的测试用例
+ * 测试命令行参数解析、并行分析一批二进制和 JSON 录像、损坏文件不影响其他文件、
+ * 结果与线程数无关，以及 CSV、JSON 和 PNG 热力图输出
+ */
+public class RecordingAnalyticsTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("analytics-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    /**
+     * 测试默认值和非法参数
+     */
+    @Test
+    public void testParseOptions() {
+        RecordingAnalytics.Options defaults = RecordingAnalytics.Options.parse(new String[0]);
+        assertEquals(List.of(Paths.get("recordings")), defaults.inputs);
+        assertEquals(Paths.get("analytics"), defaults.output);
+        assertFalse(defaults.json);
+        assertTrue(defaults.heatmaps);
+
+        RecordingAnalytics.Options options = RecordingAnalytics.Options.parse(new String[]{
+                "a.hrec", "dir", "--format", "json", "--threads", "3", "--cell", "50", "--heatmap", "off"});
+        assertEquals(2, options.inputs.size());
+        assertTrue(options.json);
+        assertEquals(3, options.threads);
+        assertEquals(50, options.cellSize);
+        assertFalse(options.heatmaps);
+
+        for (String[] bad : new String[][]{{"--format", "xml"}, {"--threads", "0"}, {"--cell", "x"},
+                {"--heatmap", "yes"}, {"--out"}}) {
+            try {
+                RecordingAnalytics.Options.parse(bad);
+                fail("应当拒绝参数: " + String.join(" ", bad));
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    /**
+     * 测试并行分析一个目录：二进制和 JSON 录像都被统计，损坏的文件单独报告错误，
+     * 单线程和多线程的汇总相同，CSV 和热力图写入输出目录
+     */
+    @Test
+    public void testAnalyzesDirectoryInParallel() throws IOException {
+        Path recordings = Files.createDirectory(dir.resolve("recordings"));
+        for (int file = 0; file < 5; file++) {
+            try (BinaryRecordingWriter writer = new BinaryRecordingWriter(recordings.resolve("r" + file + ".hrec"))) {
+                for (Record record : battle(file)) {
+                    writer.write(record);
+                }
+            }
+        }
+        Files.writeString(recordings.resolve("legacy.json"),
+                "{\"key\":0.0,\"type\":\"object_move\",\"currentLevel\":1,\"gameObjectMove\":["
+                        + "{\"id\":\"EnemySoldier\",\"x\":300.0,\"y\":300.0,\"currentHealth\":20,\"identity\":\"Enemy\"}]}\n"
+                        + "{\"key\":0.5,\"type\":\"object_move\",\"currentLevel\":1,\"gameObjectMove\":[]}\n");
+        Files.write(recordings.resolve("broken.hrec"), new byte[]{'H', 'R', 'E', 'C', 0, 9});
+        Files.writeString(recordings.resolve("notes.txt"), "不是录像");
+
+        RecordingAnalytics.Options options = RecordingAnalytics.Options.parse(new String[]{
+                recordings.toString(), "--out", dir.resolve("out").toString(), "--threads", "4"});
+        RecordingAnalytics.Summary summary = RecordingAnalytics.run(options);
+
+        assertEquals(7, summary.recordings);
+        assertEquals(1, summary.failed);
+        assertEquals("按文件名排序", "broken.hrec", summary.reports.get(0).file);
+        assertNotNull(summary.reports.get(0).error);
+        assertEquals("legacy.json", summary.reports.get(1).file);
+        assertEquals(1, summary.reports.get(1).kills.size());
+        assertEquals(20, summary.reports.get(1).damageDealt);
+        assertFalse("旧的 JSON 录像没有关卡数据", summary.reports.get(1).hasLevels);
+        assertEquals(RecordingReport.UNKNOWN_LEVEL, summary.reports.get(1).kills.get(0).level);
+        assertTrue(summary.reports.get(1).levelSeconds.isEmpty());
+        assertEquals(1, summary.withoutLevels);
+
+        // 每场：玩家掉 5 血，2 个敌人各被击杀，关卡 1 持续 1 秒、关卡 2 持续 0.5 秒；JSON 录像不计入关卡时长
+        assertEquals(5 * 61 + 2, summary.frames);
+        assertEquals(5 * 5, summary.damageTaken);
+        assertEquals(5 * 2 + 1, summary.kills);
+        assertEquals(5 * 200 + 20, summary.damageDealt);
+        assertEquals(5 * 1f, summary.levelSeconds.get(1), 1e-3f);
+        assertEquals(5 * 0.5f, summary.levelSeconds.get(2), 1e-3f);
+        assertEquals(1f, summary.averageLevelSeconds.get(1), 1e-3f);
+        assertEquals(0.5f, summary.averageLevelSeconds.get(2), 1e-3f);
+        assertEquals(11, summary.killsPerMinute[0]);
+        assertEquals(summary.damageDealt, summary.damageDealtMap.getTotal(), 1e-6);
+
+        RecordingAnalytics.Summary serial = RecordingAnalytics.analyze(
+                RecordingAnalytics.findRecordings(options.inputs), 1, options.cellSize);
+        assertEquals(summary.frames, serial.frames);
+        assertEquals(summary.kills, serial.kills);
+        assertEquals(summary.levelSeconds, serial.levelSeconds);
+        assertArrayEquals(summary.enemyProjectiles, serial.enemyProjectiles, 0);
+
+        Path out = options.output;
+        List<String> rows = Files.readAllLines(out.resolve("recordings.csv"));
+        assertEquals(8, rows.size());
+        assertTrue(rows.get(0).startsWith("file,frames,duration"));
+        assertTrue(rows.get(3).startsWith("r0.hrec,61,"));
+        assertTrue(rows.get(0).contains(",has_levels,"));
+        assertTrue(rows.get(2).startsWith("legacy.json,2,0.5,true,false,"));
+        List<String> kills = Files.readAllLines(out.resolve("kills.csv"));
+        assertEquals(1 + 11, kills.size());
+        assertTrue("JSON 录像的击杀没有关卡", kills.contains("legacy.json,0.5,,EnemySoldier,300.0,300.0"));
+        assertTrue(Files.readAllLines(out.resolve("levels.csv")).stream()
+                .noneMatch(line -> line.startsWith("legacy.json,")));
+        String level2 = Files.readAllLines(out.resolve("levels.csv")).stream()
+                .filter(line -> line.startsWith("r0.hrec,2,")).findFirst().orElseThrow();
+        assertEquals(0.5f, Float.parseFloat(level2.substring("r0.hrec,2,".length())), 1e-4f);
+        assertTrue(Files.exists(out.resolve("projectiles.csv")));
+
+        BufferedImage heatmap = ImageIO.read(out.resolve("damage_dealt.png").toFile());
+        assertEquals(80 * RecordingAnalytics.HEATMAP_PIXELS_PER_CELL, heatmap.getWidth());
+        assertEquals(60 * RecordingAnalytics.HEATMAP_PIXELS_PER_CELL, heatmap.getHeight());
+        assertTrue(Files.exists(out.resolve("damage_taken.png")));
+    }
+
+    /**
+     * 测试 JSON 输出包含汇总和每个录像的结果，不包含热力图
+     */
+    @Test
+    public void testJsonSummary() throws IOException {
+        Path file = dir.resolve("only.hrec");
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file)) {
+            for (Record record : battle(0)) {
+                writer.write(record);
+            }
+        }
+        RecordingAnalytics.Options options = RecordingAnalytics.Options.parse(new String[]{
+                file.toString(), "--out", dir.resolve("json").toString(), "--format", "json", "--heatmap", "off"});
+        RecordingAnalytics.run(options);
+
+        JsonObject json = new Gson().fromJson(Files.readString(options.output.resolve("summary.json")), JsonObject.class);
+        assertEquals(1, json.get("recordings").getAsInt());
+        assertEquals(2, json.get("kills").getAsInt());
+        JsonObject report = json.getAsJsonArray("reports").get(0).getAsJsonObject();
+        assertEquals("only.hrec", report.get("file").getAsString());
+        assertEquals(2, report.getAsJsonArray("kills").size());
+        assertFalse(report.has("damageDealtMap"));
+        assertFalse(Files.exists(options.output.resolve("damage_dealt.png")));
+        assertFalse(Files.exists(options.output.resolve("recordings.csv")));
+    }
+
+    // ========== 辅助方法 ==========
+
+    /**
+     * 一场 1.5 秒、61 帧的战斗：第 10 帧玩家掉 5 血，第 20 帧第一个敌人掉 40 血，
+     * 第 30 帧两个敌人都被击杀（剩余 60 + 100），第 40 帧起进入第 2 关；敌人技能数随帧变化
+     */
+    private static List<Record> battle(int seed) {
+        Record[] frames = new Record[61];
+        for (int i = 0; i < frames.length; i++) {
+            int level = i < 40 ? 1 : 2;
+            Record record = RecordingAnalyzerTest.frame(i * 0.025f, level,
+                    RecordingAnalyzerTest.combatant("Player", "Hulu Player", 0, 400 + seed * 10, 300, i < 10 ? 50 : 45));
+            if (i < 30) {
+                record.getGameObjectsMove().add(RecordingAnalyzerTest.combatant("Enemy", "EnemySoldier", 0,
+                        800 + i, 600, i < 20 ? 100 : 60));
+                record.getGameObjectsMove().add(RecordingAnalyzerTest.combatant("Enemy", "EnemyWizard", 0,
+                        1200, 900 - i, 100));
+            }
+            for (int k = 0; k < (i + seed) % 4; k++) {
+                record.getGameObjectsMove().add(RecordingAnalyzerTest.combatant("Enemy Skill", "King Skill " + k, 0,
+                        0, 0, 1));
+            }
+            frames[i] = record;
+        }
+        return Arrays.asList(frames);
+    }
+}
@@ -0,0 +1,167 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.gameengine.core.GameLogic;
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * RecordingAnalyzer 单个录像分析的测试用例
+ * 测试相邻帧的角色匹配与伤害统计、击杀、关卡时长和每秒飞行道具数，以及热力图的累加与合并
+ */
+public class RecordingAnalyzerTest {
+
+    /**
+     * 测试玩家和敌人的掉血按位置计入热力图，敌人消失时记为击杀并计入剩余血量
+     */
+    @Test
+    public void testDamageAndKills() {
+        RecordingAnalyzer analyzer = new RecordingAnalyzer("a.hrec", 100);
+        // 两个同名敌人，只能按距离区分
+        analyzer.accept(frame(0f, 1, combatant("Player", "Hulu Player", 0, 100, 100, 50),
+                combatant("Enemy", "EnemySoldier", 0, 500, 500, 100),
+                combatant("Enemy", "EnemySoldier", 0, 900, 500, 100)));
+        analyzer.accept(frame(0.5f, 1, combatant("Player", "Hulu Player", 0, 110, 100, 40),
+                combatant("Enemy", "EnemySoldier", 0, 895, 505, 100),
+                combatant("Enemy", "EnemySoldier", 0, 505, 500, 70)));
+        // (505, 500) 的敌人被击杀（最后一击 70），另一个走出匹配半径（视为消失后新出现）
+        analyzer.accept(frame(1f, 1, combatant("Player", "Hulu Player", 0, 120, 100, 40),
+                combatant("Enemy", "EnemySoldier", 0, 895 + RecordingAnalyzer.MATCH_RADIUS + 1, 505, 100)));
+        RecordingReport report = analyzer.finish();
+
+        assertEquals(3, report.frames);
+        assertEquals(1f, report.duration, 0);
+        assertEquals(10, report.damageTaken);
+        assertEquals(30 + 70 + 100, report.damageDealt);
+        assertEquals(2, report.kills.size());
+        // 击杀按上一帧中的顺序记录
+        RecordingReport.Kill killed = report.kills.get(1);
+        assertEquals("EnemySoldier", killed.enemy);
+        assertEquals(1f, killed.time, 0);
+        assertEquals(1, killed.level);
+        assertEquals(505f, killed.x, 0);
+        assertEquals(895f, report.kills.get(0).x, 0);
+
+        assertEquals(10, report.damageTakenMap.getCell(1, 1), 0);
+        assertEquals(100, report.damageDealtMap.getCell(5, 5), 0);
+        assertEquals(100, report.damageDealtMap.getCell(8, 5), 0);
+        assertEquals(report.damageDealt, report.damageDealtMap.getTotal(), 0);
+    }
+
+    /**
+     * 测试 netId 不同的同名角色不会互相匹配
+     */
+    @Test
+    public void testMatchesByNetId() {
+        RecordingAnalyzer analyzer = new RecordingAnalyzer("b.hrec", 100);
+        analyzer.accept(frame(0f, 1, combatant("Player", "Hulu Player", 1, 100, 100, 50),
+                combatant("Player", "Hulu Player", 2, 102, 100, 50)));
+        analyzer.accept(frame(0.1f, 1, combatant("Player", "Hulu Player", 2, 100, 100, 45),
+                combatant("Player", "Hulu Player", 1, 102, 100, 50)));
+        RecordingReport report = analyzer.finish();
+        assertEquals(5, report.damageTaken);
+        assertTrue("玩家消失不算击杀", report.kills.isEmpty());
+    }
+
+    /**
+     * 测试关卡时长按帧间隔累加，飞行道具按秒取每帧平均值
+     */
+    @Test
+    public void testLevelSecondsAndProjectiles() {
+        RecordingAnalyzer analyzer = new RecordingAnalyzer("c.hrec", 100);
+        for (int i = 0; i < 30; i++) {
+            float time = 10f + i * 0.1f; // 录像不一定从 0 开始
+            int level = i < 20 ? 1 : 2;
+            Record record = frame(time, level);
+            for (int k = 0; k < i % 3; k++) {
+                record.getGameObjectsMove().add(combatant("Enemy Skill", "King Skill " + k, 0, 0, 0, 1));
+            }
+            record.getGameObjectsMove().add(combatant("Player Skill", "Attacking SkillJ 0", 0, 0, 0, 1));
+            analyzer.accept(record);
+        }
+        RecordingReport report = analyzer.finish();
+        assertEquals(2.9f, report.duration, 1e-4f);
+        assertEquals(2.0f, report.levelSeconds.get(1), 1e-4f);
+        assertEquals(0.9f, report.levelSeconds.get(2), 1e-4f);
+        assertEquals(3, report.playerProjectiles.length);
+        assertEquals(1f, report.playerProjectiles[2], 0);
+        // 第 0 秒有 10 帧：敌人技能数依次为 0,1,2,0,1,2,0,1,2,0
+        assertEquals(0.9f, report.enemyProjectiles[0], 1e-6f);
+        assertEquals(30 + 30, report.entities);
+        assertTrue(report.complete);
+        assertNull(report.error);
+    }
+
+    /**
+     * 测试没有关卡数据的录像不统计每关时长，击杀的关卡为 UNKNOWN_LEVEL
+     */
+    @Test
+    public void testIgnoreLevels() {
+        RecordingAnalyzer analyzer = new RecordingAnalyzer("legacy.json", 100);
+        analyzer.ignoreLevels();
+        analyzer.accept(frame(0f, 1, combatant("Enemy", "EnemySoldier", 0, 300, 300, 20)));
+        analyzer.accept(frame(0.5f, 1));
+        RecordingReport report = analyzer.finish();
+        assertFalse(report.hasLevels);
+        assertTrue(report.levelSeconds.isEmpty());
+        assertEquals(0.5f, report.duration, 0);
+        assertEquals(RecordingReport.UNKNOWN_LEVEL, report.kills.get(0).level);
+    }
+
+    /**
+     * 测试热力图把世界外的点计入边缘格子，合并后总和相加，尺寸不同时拒绝合并
+     */
+    @Test
+    public void testHeatmap() {
+        Heatmap a = new Heatmap(GameLogic.WORLD_WIDTH, GameLogic.WORLD_HEIGHT, 25);
+        assertEquals(80, a.getColumns());
+        assertEquals(60, a.getRows());
+        a.add(-10, -10, 2);
+        a.add(5000, 5000, 3);
+        a.add(Float.NaN, 0, 100);
+        assertEquals(2, a.getCell(0, 0), 0);
+        assertEquals(3, a.getCell(79, 59), 0);
+
+        Heatmap b = new Heatmap(GameLogic.WORLD_WIDTH, GameLogic.WORLD_HEIGHT, 25);
+        b.add(12, 12, 4);
+        a.merge(b);
+        assertEquals(6, a.getCell(0, 0), 0);
+        assertEquals(9, a.getTotal(), 0);
+        assertEquals(6, a.getMax(), 0);
+        assertEquals(0, a.toImage().getRGB(40, 30));
+        assertNotEquals(0, a.toImage().getRGB(0, 0));
+        try {
+            a.merge(new Heatmap(GameLogic.WORLD_WIDTH, GameLogic.WORLD_HEIGHT, 50));
+            fail("应当拒绝尺寸不同的网格");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // ========== 辅助方法 ==========
+
+    static Record frame(float time, int level, GameObjectRecord... objects) {
+        Record record = new Record();
+        record.setKey(time);
+        record.setRecordType("object_move");
+        record.setCurrentLevel(level);
+        for (GameObjectRecord o : objects) {
+            record.getGameObjectsMove().add(o);
+        }
+        return record;
+    }
+
+    static GameObjectRecord combatant(String identity, String id, int netId, float x, float y, int health) {
+        GameObjectRecord o = new GameObjectRecord();
+        o.identity = identity;
+        o.id = id;
+        o.netId = netId;
+        o.x = x;
+        o.y = y;
+        o.currentHealth = health;
+        o.maxHealth = 100;
+        return o;
+    }
+}
@@ -0,0 +1,162 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import com.gameengine.components.RenderComponent.RenderType;
+import com.gameengine.game.Record;
+
+/**
+ * RecordingConverter 录像转换工具的测试用例
+ * 测试命令行参数解析、JSON 行录像的流式转换和统计、不完整的最后一帧，以及二进制录像的重新压缩
+ */
+public class RecordingConverterTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("converter-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * 测试默认值、输出文件名推导和非法参数
+     */
+    @Test
+    public void testParseOptions() {
+        RecordingConverter.Options defaults = RecordingConverter.Options.parse(new String[]{"rec/a.json"});
+        assertEquals(Paths.get("rec/a.json"), defaults.input);
+        assertEquals(Paths.get("rec/a.hrec"), defaults.output);
+        assertTrue(defaults.compress);
+        assertEquals(RecordingFormat.DEFAULT_FRAMES_PER_CHUNK, defaults.framesPerChunk);
+
+        RecordingConverter.Options options = RecordingConverter.Options.parse(new String[]{
+                "--compress", "none", "a.hrec", "b.hrec", "--frames-per-chunk", "100", "--keyframe-interval", "2.5"});
+        assertEquals(Paths.get("b.hrec"), options.output);
+        assertFalse(options.compress);
+        assertEquals(100, options.framesPerChunk);
+        assertEquals(2.5f, options.keyframeInterval, 0);
+
+        for (String[] bad : new String[][]{{}, {"a.hrec"}, {"a.json", "--compress", "gzip"},
+                {"a.json", "--frames-per-chunk", "0"}, {"a.json", "--keyframe-interval"}, {"a", "b", "c"}}) {
+            try {
+                RecordingConverter.Options.parse(bad);
+                fail("应当拒绝参数: " + String.join(" ", bad));
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    /**
+     * 测试逐帧解析 JSON 行录像：统计帧数和对象数，最后一行不完整时之前的帧照常写出
+     */
+    @Test
+    public void testConvertsJsonLines() throws IOException {
+        Path json = dir.resolve("legacy.json");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            text.append("{\"key\":").append(i * 0.02f).append(",\"type\":\"object_move\",\"gameObjectMove\":[")
+                    .append("{\"id\":\"Hulu Player\",\"x\":").append(10 + i).append(",\"y\":2.0,\"rt\":\"image\"")
+                    .append(",\"identity\":\"Player\"}");
+            if (i > 0) {
+                text.append(",{\"id\":\"Enemy\",\"x\":5.0,\"y\":6.0,\"rt\":\"circle\",\"identity\":\"Enemy\"}");
+            }
+            text.append("]}\n\n");
+        }
+        text.append("{\"key\":0.06,\"type\":\"object_mo");
+        Files.writeString(json, text.toString());
+
+        RecordingConverter.Options options = RecordingConverter.Options.parse(new String[]{json.toString()});
+        RecordingConverter.Stats stats = RecordingConverter.convert(options);
+        assertEquals(3, stats.frames);
+        assertEquals(5, stats.entities);
+        assertEquals(2, stats.maxEntities);
+        assertEquals(5 / 3.0, stats.entitiesPerFrame(), 1e-9);
+        assertTrue(stats.truncated);
+        assertEquals(Files.size(json), stats.inputBytes);
+        assertEquals(Files.size(options.output), stats.outputBytes);
+        assertEquals(stats.outputBytes / 3.0, stats.outputBytesPerFrame(), 1e-9);
+        assertTrue(stats.toString().contains("帧数: 3"));
+
+        BinaryRecordingReader reader = new BinaryRecordingReader(options.output);
+        assertTrue(reader.isComplete());
+        assertTrue(reader.isCompressed());
+        List<Record> records = reader.readAll();
+        assertEquals(3, records.size());
+        assertEquals(12f, records.get(2).getGameObjectsMove().get(0).x, 0);
+        assertEquals(RenderType.CIRCLE, records.get(2).getGameObjectsMove().get(1).rt);
+        assertEquals(0.04f, reader.getFrameTime(2), 1e-6);
+    }
+
+    /**
+     * 测试仓库自带的 JSON 录像（最后一行没写完）转换后逐帧相同，压缩后比未压缩的二进制录像更小；
+     * 再把未压缩的二进制录像转换为压缩格式，结果与直接转换相同
+     */
+    @Test
+    public void testConvertsSampleRecording() throws IOException {
+        Path legacy = Paths.get("recordings/recording_1767126192202.json");
+        Assume.assumeTrue(Files.isRegularFile(legacy));
+
+        RecordingConverter.Options plain = RecordingConverter.Options.parse(new String[]{
+                legacy.toString(), dir.resolve("plain.hrec").toString(), "--compress", "none"});
+        RecordingConverter.Stats plainStats = RecordingConverter.convert(plain);
+        RecordingConverter.Options packed = RecordingConverter.Options.parse(new String[]{
+                legacy.toString(), dir.resolve("packed.hrec").toString()});
+        RecordingConverter.Stats packedStats = RecordingConverter.convert(packed);
+        System.out.println("[RecordingConverterTest] " + packedStats);
+
+        assertEquals(plainStats.frames, packedStats.frames);
+        assertEquals(1.0, plainStats.deflateRatio(), 0);
+        assertTrue("块压缩应当继续缩小差量帧: " + packedStats.deflateRatio(), packedStats.deflateRatio() > 1.5);
+        assertTrue(packedStats.outputBytes < plainStats.outputBytes);
+        assertTrue(packedStats.compressionRatio() > 50);
+
+        try (JsonLinesReplayReader json = new JsonLinesReplayReader(legacy);
+             MappedReplayReader binary = new MappedReplayReader(packed.output)) {
+            int parsed = 0;
+            for (int i = 0; i < json.getFrameCount(); i++) {
+                if (json.getFrame(i) != null) {
+                    parsed++;
+                }
+            }
+            assertEquals(parsed, binary.getFrameCount());
+            assertEquals(parsed, packedStats.frames);
+            assertEquals(parsed < json.getFrameCount(), packedStats.truncated);
+            for (int index : new int[]{0, 1, parsed / 2, parsed - 1}) {
+                Record expected = json.getFrame(index);
+                Record actual = binary.getFrame(index);
+                assertEquals(expected.getKey(), actual.getKey(), 0);
+                assertEquals(expected.getGameObjectsMove().size(), actual.getGameObjectsMove().size());
+                assertEquals(expected.getGameObjectsMove().get(0).x, actual.getGameObjectsMove().get(0).x, 0);
+            }
+        }
+
+        RecordingConverter.Options recompress = RecordingConverter.Options.parse(new String[]{
+                plain.output.toString(), dir.resolve("recompressed.hrec").toString()});
+        RecordingConverter.Stats recompressStats = RecordingConverter.convert(recompress);
+        assertEquals(packedStats.frames, recompressStats.frames);
+        assertEquals(packedStats.entities, recompressStats.entities);
+        assertFalse(recompressStats.truncated);
+        assertArrayEquals(Files.readAllBytes(packed.output), Files.readAllBytes(recompress.output));
+    }
+}
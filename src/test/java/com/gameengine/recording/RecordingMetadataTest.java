@@ -0,0 +1,162 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import com.gameengine.game.Record;
+
+/**
+ * RecordingMetadata 录像摘要的测试用例
+ * 测试二进制录像关闭时写出摘要、摘要与扫描结果一致、录像被修改或摘要损坏后重新生成，
+ * 以及旧 JSON 录像和输入录像的摘要
+ */
+public class RecordingMetadataTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("metadata-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * 测试写入器关闭后摘要文件存在，内容与重新扫描录像得到的摘要相同
+     */
+    @Test
+    public void testWriterWritesSidecar() throws IOException {
+        Path file = dir.resolve("a.hrec");
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file)) {
+            writer.setStartTimeMillis(1_700_000_000_000L);
+            writeBattle(writer);
+        }
+        assertTrue(Files.isRegularFile(RecordingMetadata.sidecarOf(file)));
+        assertEquals("a.hrec.meta", RecordingMetadata.sidecarOf(file).getFileName().toString());
+
+        RecordingMetadata cached = RecordingMetadata.readFresh(file);
+        assertNotNull(cached);
+        assertEquals(1_700_000_000_000L, cached.getStartTimeMillis());
+        assertEquals(60, cached.getFrameCount());
+        assertEquals(5.9f, cached.getDuration(), 1e-4f);
+        assertEquals(3, cached.getMaxLevel());
+        assertEquals(41, cached.getFinalPlayerHealth());
+        assertEquals(100, cached.getFinalPlayerMaxHealth());
+        assertEquals(Files.size(file), cached.getSourceSize());
+
+        // 玩家一直在 (1000, 750)，敌人只出现在前 10 帧
+        assertEquals(RecordingMetadata.THUMBNAIL_WIDTH, cached.getThumbnailWidth());
+        assertEquals(255, cached.getThumbnailCell(16, 12));
+        int enemy = cached.getThumbnailCell(3, 3);
+        assertTrue(enemy > 0 && enemy < 255);
+        assertEquals(0, cached.getThumbnailCell(31, 23));
+
+        RecordingMetadata scanned = RecordingMetadata.scan(file);
+        assertEquals(cached.getFrameCount(), scanned.getFrameCount());
+        assertEquals(cached.getMaxLevel(), scanned.getMaxLevel());
+        assertEquals(cached.getFinalPlayerHealth(), scanned.getFinalPlayerHealth());
+        assertEquals(enemy, scanned.getThumbnailCell(3, 3));
+    }
+
+    /**
+     * 测试录像被修改或摘要损坏后不再使用旧摘要，load 重新扫描并保存新的摘要
+     */
+    @Test
+    public void testStaleSidecarIsRegenerated() throws IOException {
+        Path file = dir.resolve("b.hrec");
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file)) {
+            writeBattle(writer);
+        }
+        Path sidecar = RecordingMetadata.sidecarOf(file);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 60_000));
+        assertNull("录像修改时间变化后摘要失效", RecordingMetadata.readFresh(file));
+
+        RecordingMetadata reloaded = RecordingMetadata.load(file);
+        assertEquals(60, reloaded.getFrameCount());
+        assertNotNull("重新生成的摘要被保存", RecordingMetadata.readFresh(file));
+
+        Files.write(sidecar, new byte[]{'H', 'M', 'E', 'T', 0});
+        assertNull("损坏的摘要被忽略", RecordingMetadata.readFresh(file));
+        assertEquals(60, RecordingMetadata.load(file).getFrameCount());
+
+        try {
+            RecordingMetadata.load(dir.resolve("missing.hrec"));
+            fail("应当报告录像不存在");
+        } catch (NoSuchFileException expected) {
+        }
+    }
+
+    /**
+     * 测试旧 JSON 录像按文件名中的时间戳推断开始时间，输入录像没有血量和缩略图
+     */
+    @Test
+    public void testLegacyAndInputRecordings() throws IOException {
+        Path json = dir.resolve("recording_1767126192202.json");
+        Files.writeString(json,
+                "{\"key\":1.0,\"type\":\"object_move\",\"currentLevel\":2,\"playerHealth\":30,\"playerMaxHealth\":50,"
+                        + "\"gameObjectMove\":[{\"id\":\"Hulu Player\",\"x\":10.0,\"y\":10.0,\"identity\":\"Player\"}]}\n"
+                        + "{\"key\":3.5,\"type\":\"object_move\",\"currentLevel\":2,\"playerHealth\":20,\"playerMaxHealth\":50,"
+                        + "\"gameObjectMove\":[]}\n");
+        assertNull(RecordingMetadata.readFresh(json));
+        RecordingMetadata legacy = RecordingMetadata.load(json);
+        assertEquals(1767126192202L, legacy.getStartTimeMillis());
+        assertEquals(2, legacy.getFrameCount());
+        assertEquals(2.5f, legacy.getDuration(), 1e-6f);
+        assertEquals(2, legacy.getMaxLevel());
+        assertEquals(20, legacy.getFinalPlayerHealth());
+        assertEquals(255, legacy.getThumbnailCell(0, 0));
+        assertNotNull("首次读取后保存摘要", RecordingMetadata.readFresh(json));
+
+        Path inputs = dir.resolve("inputs_1767126000000.hinp");
+        try (InputRecordingWriter writer = new InputRecordingWriter(inputs, new InputRecording.Seeds(1, 2, 3, 4))) {
+            for (int i = 0; i < 120; i++) {
+                writer.writeTick(i % 3);
+                if (i == 60) {
+                    writer.writeEvent(InputRecording.EVENT_NEXT_LEVEL, 4);
+                }
+            }
+        }
+        RecordingMetadata replay = RecordingMetadata.load(inputs);
+        assertEquals(1767126000000L, replay.getStartTimeMillis());
+        assertEquals(120, replay.getFrameCount());
+        assertEquals(4, replay.getMaxLevel());
+        assertEquals(RecordingMetadata.UNKNOWN_HEALTH, replay.getFinalPlayerHealth());
+        assertEquals(0, replay.getThumbnailWidth());
+    }
+
+    // ========== 辅助方法 ==========
+
+    /**
+     * 60 帧、每帧 0.1 秒：玩家停在地图中央，血量从 100 降到 41；前 10 帧有一个敌人，关卡每 20 帧加一
+     */
+    private static void writeBattle(BinaryRecordingWriter writer) throws IOException {
+        for (int i = 0; i < 60; i++) {
+            Record record = RecordingAnalyzerTest.frame(i * 0.1f, 1 + i / 20,
+                    RecordingAnalyzerTest.combatant("Player", "Hulu Player", 0, 1000, 750, 100 - i));
+            if (i < 10) {
+                record.getGameObjectsMove().add(RecordingAnalyzerTest.combatant("Enemy", "EnemySoldier", 0,
+                        200, 200, 100));
+            }
+            record.setPlayerHealth(100 - i);
+            record.setPlayerMaxHealth(100);
+            writer.write(record);
+        }
+    }
+}
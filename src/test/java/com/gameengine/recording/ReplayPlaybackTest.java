@@ -0,0 +1,186 @@
+package com.gameengine.recording;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.gameengine.game.GameObjectRecord;
+import com.gameengine.game.Record;
+
+/**
+ * 回放时钟的测试用例
+ * 测试按倍速推进、循环、跳转只读取对数个帧时间、逐帧前进后退，以及跳过无法解析的帧
+ */
+public class ReplayPlaybackTest {
+
+    /**
+     * 每 0.02 秒一帧的内存录像，统计帧时间的读取次数
+     */
+    private static class FakeSource implements ReplaySource {
+        final int count;
+        final int brokenFrame;
+        int timeReads = 0;
+
+        FakeSource(int count, int brokenFrame) {
+            this.count = count;
+            this.brokenFrame = brokenFrame;
+        }
+
+        @Override
+        public int getFrameCount() {
+            return count;
+        }
+
+        @Override
+        public float getFrameTime(int index) {
+            timeReads++;
+            return index == brokenFrame ? Float.NaN : 1f + index * 0.02f;
+        }
+
+        @Override
+        public Record getFrame(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (index == brokenFrame) {
+                return null;
+            }
+            Record record = new Record();
+            record.setKey(1f + index * 0.02f);
+            record.setRecordType("object_move");
+            record.setPlayerHealth(index % 100);
+            GameObjectRecord o = new GameObjectRecord();
+            o.x = index;
+            record.getGameObjectsMove().add(o);
+            return record;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 测试时间从第一帧开始计算，倍速成比例地推进帧
+     */
+    @Test
+    public void testAdvanceWithSpeed() {
+        ReplayPlayback playback = new ReplayPlayback(new FakeSource(1000, -1));
+        assertEquals(19.98f, playback.getDuration(), 1e-3);
+        assertTrue(playback.advance(0f));
+        assertEquals(0, playback.getFrameIndex());
+
+        playback.advance(0.201f);
+        assertEquals(10, playback.getFrameIndex());
+
+        playback.faster();
+        playback.faster();
+        assertEquals(4f, playback.getSpeed(), 0);
+        playback.advance(0.1f);
+        assertEquals(30, playback.getFrameIndex());
+
+        for (int i = 0; i < 10; i++) {
+            playback.slower();
+        }
+        assertEquals(ReplayPlayback.SPEEDS[0], playback.getSpeed(), 0);
+    }
+
+    /**
+     * 测试暂停时不推进，到达末尾后从头循环
+     */
+    @Test
+    public void testPauseAndLoop() {
+        ReplayPlayback playback = new ReplayPlayback(new FakeSource(100, -1));
+        playback.togglePause();
+        assertFalse(playback.advance(1f));
+        assertEquals(-1, playback.getFrameIndex());
+        playback.togglePause();
+
+        playback.advance(1.98f);
+        assertEquals(99, playback.getFrameIndex());
+        playback.advance(0.05f);
+        assertEquals("越过末尾后回到第一帧", 0, playback.getFrameIndex());
+    }
+
+    /**
+     * 测试跳转只读取对数个帧时间，并得到目标时刻的帧
+     */
+    @Test
+    public void testSeekIsLogarithmic() {
+        FakeSource source = new FakeSource(1_000_000, -1);
+        ReplayPlayback playback = new ReplayPlayback(source);
+        source.timeReads = 0;
+        playback.seek(10_000f);
+        assertEquals(500_000, playback.getFrameIndex());
+        assertEquals(500_000f, playback.getCurrentFrame().getGameObjectsMove().get(0).x, 0);
+        assertTrue("读取了 " + source.timeReads + " 次帧时间", source.timeReads <= 25);
+
+        playback.scrub(-5f);
+        assertEquals(499_750, playback.getFrameIndex());
+        playback.seekFraction(0f);
+        assertEquals(0, playback.getFrameIndex());
+        playback.seek(-3f);
+        assertEquals(0f, playback.getTime(), 0);
+        playback.seekFraction(1f);
+        assertEquals(999_999, playback.getFrameIndex());
+    }
+
+    /**
+     * 测试跳转后继续播放从目标帧顺序推进
+     */
+    @Test
+    public void testPlayAfterSeek() {
+        ReplayPlayback playback = new ReplayPlayback(new FakeSource(1000, -1));
+        playback.seek(10f);
+        assertEquals(500, playback.getFrameIndex());
+        playback.advance(0.1f);
+        assertEquals(505, playback.getFrameIndex());
+        assertEquals(5, playback.getCurrentFrame().getPlayerHealth());
+    }
+
+    /**
+     * 测试逐帧前进后退会暂停回放，并跳过无法解析的帧
+     */
+    @Test
+    public void testStepSkipsBrokenFrames() {
+        ReplayPlayback playback = new ReplayPlayback(new FakeSource(100, 50));
+        playback.seek(0.98f);
+        assertEquals(49, playback.getFrameIndex());
+
+        playback.stepForward();
+        assertTrue(playback.isPaused());
+        assertEquals(51, playback.getFrameIndex());
+        assertEquals(1.02f, playback.getTime(), 1e-4);
+
+        playback.stepBackward();
+        assertEquals(49, playback.getFrameIndex());
+
+        playback.seek(1.0f);
+        assertEquals("时间为 NaN 的帧在查找时跳过", 49, playback.getFrameIndex());
+        assertEquals(49f, playback.getCurrentFrame().getGameObjectsMove().get(0).x, 0);
+
+        playback.seekFraction(0f);
+        playback.stepBackward();
+        assertEquals("已经在第一帧", 0, playback.getFrameIndex());
+    }
+
+    /**
+     * 测试当前帧下标指向最近一个可以解析的帧，可能早于时钟所在的帧
+     */
+    @Test
+    public void testCurrentFrameIndexSkipsBrokenFrame() {
+        ReplayPlayback playback = new ReplayPlayback(new FakeSource(100, 50));
+        assertEquals(-1, playback.getCurrentFrameIndex());
+        playback.advance(1.0f);
+        assertEquals(50, playback.getFrameIndex());
+        assertEquals(49, playback.getCurrentFrameIndex());
+
+        playback.advance(0.03f);
+        assertEquals(51, playback.getCurrentFrameIndex());
+
+        playback.seek(1.0f);
+        assertEquals(49, playback.getCurrentFrameIndex());
+        playback.stepForward();
+        assertEquals(51, playback.getCurrentFrameIndex());
+    }
+}
@@ -0,0 +1,98 @@
+package com.gameengine.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * SpscRing 单生产者单消费者环形队列的测试用例
+ * 测试容量取整、满/空判断、先进先出，以及跨线程传递时不丢失、不乱序
+ */
+public class SpscRingTest {
+
+    /**
+     * 测试容量向上取整为 2 的幂，队列满时拒绝放入
+     */
+    @Test
+    public void testCapacityAndFull() {
+        SpscRing<Integer> ring = new SpscRing<>(5);
+        assertEquals(8, ring.capacity());
+        assertTrue(ring.isEmpty());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse("队列已满时应该拒绝放入", ring.offer(8));
+        assertEquals(8, ring.size());
+
+        assertEquals(Integer.valueOf(0), ring.poll());
+        assertTrue("取出一个后可以再放入", ring.offer(8));
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(Integer.valueOf(i), ring.poll());
+        }
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+
+        try {
+            new SpscRing<Integer>(0);
+            fail("容量为 0 应该抛出异常");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            ring.offer(null);
+            fail("不能放入空元素");
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    /**
+     * 测试多次绕回后仍然先进先出
+     */
+    @Test
+    public void testWrapAround() {
+        SpscRing<Integer> ring = new SpscRing<>(4);
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(ring.offer(next++));
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals(Integer.valueOf(expected++), ring.poll());
+            }
+        }
+        assertNull(ring.poll());
+    }
+
+    /**
+     * 测试一个生产者线程和一个消费者线程并发传递时，所有元素按顺序到达
+     */
+    @Test
+    public void testConcurrentProducerConsumer() throws Exception {
+        final int count = 200_000;
+        SpscRing<Integer> ring = new SpscRing<>(64);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                Integer value = i;
+                while (!ring.offer(value)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        int expected = 0;
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (expected < count && System.currentTimeMillis() < deadline) {
+            Integer value = ring.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(expected, value.intValue());
+            expected++;
+        }
+        producer.join(1000);
+        assertEquals(count, expected);
+        assertTrue(ring.isEmpty());
+    }
+}